@@ -3,9 +3,11 @@ package org.bootstmytool.backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan(basePackages = "org.bootstmytool.backend.model")
+@EnableScheduling
 public class BackendApplication {
 
     public static void main(String[] args) {
@@ -1,19 +1,21 @@
 package org.bootstmytool.backend.controller;
 
 
+import io.jsonwebtoken.JwtException;
 import lombok.Getter;
 import lombok.Setter;
 import org.bootstmytool.backend.model.User;
 import org.bootstmytool.backend.repository.UserRepository;
-import org.bootstmytool.backend.security.CustomUserDetailsService;
+import org.bootstmytool.backend.security.VerifiedToken;
 import org.bootstmytool.backend.service.AuthService;
 import org.bootstmytool.backend.service.JwtService;
+import org.bootstmytool.backend.service.PasswordHashingService;
 import org.bootstmytool.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -43,10 +45,10 @@ public class AuthController {
     private UserRepository userRepository; // Benutzerrepository
 
     @Autowired
-    private CustomUserDetailsService userDetailsService; // Benutzerdetailservice
+    UserService userService;
 
     @Autowired
-    UserService userService;
+    private PasswordHashingService passwordHashingService; // BCrypt auf eigenem, begrenztem Thread-Pool
 
 
     /**
@@ -60,7 +62,12 @@ public class AuthController {
     public ResponseEntity<String> register(@RequestBody UserCredentials credentials) {
 
         // Benutzerregistrierung
-        boolean registrationSuccess = authService.registerUser(credentials.getEmail(), credentials.getPassword());
+        boolean registrationSuccess;
+        try {
+            registrationSuccess = authService.registerUser(credentials.getEmail(), credentials.getPassword());
+        } catch (ResponseStatusException e) {
+            return overloaded(e);
+        }
         if (registrationSuccess) {
             return ResponseEntity.ok("Registrierung erfolgreich");
         } else {
@@ -80,7 +87,12 @@ public class AuthController {
     public ResponseEntity<?> login(@RequestBody UserLoginRequest request) {
 
         // Authentifizierung des Benutzers
-        boolean authenticated = authService.authenticate(request.getEmail(), request.getPassword());
+        boolean authenticated;
+        try {
+            authenticated = authService.authenticate(request.getEmail(), request.getPassword());
+        } catch (ResponseStatusException e) {
+            return overloaded(e);
+        }
 
         if (authenticated) {
             // Generiere JWT-Token
@@ -147,15 +159,15 @@ public class AuthController {
     @PostMapping("/reset-password")
     public ResponseEntity<String> resetPassword(@RequestParam("token") String token, @RequestBody Map<String, String> body) {
 
-        // Benutzerdetails laden
-        UserDetails userDetails = userDetailsService.loadUserByUsername(extractUsername(token));
-
-        //hier wird Token von VerfiyUser() Methode übergeben
-        if (!jwtService.validateToken(token, userDetails)) {
+        //hier wird Token von VerfiyUser() Methode übergeben; Signatur und Ablauf werden einmal geprüft
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtService.verifyToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Token ist ungültig");
         }
         //Finden den Benutzer anhand der Email
-        String userEmail = jwtService.extractUsername(token);
+        String userEmail = verifiedToken.getUsername();
         Optional<User> userOptional = userRepository.findByEmail(userEmail);
         if (userOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Benutzer nicht gefunden");
@@ -165,8 +177,12 @@ public class AuthController {
 
         //Entschluesseln des neuen Passworts
         String newPassword = body.get("newPassword");
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-        String encryptedPassword = encoder.encode(newPassword);
+        String encryptedPassword;
+        try {
+            encryptedPassword = passwordHashingService.encode(newPassword);
+        } catch (ResponseStatusException e) {
+            return overloaded(e);
+        }
 
         //Setzen des neuen Passworts
         user.setPassword(encryptedPassword);
@@ -174,8 +190,11 @@ public class AuthController {
         return ResponseEntity.ok("Passwort erfolgreich zurückgesetzt");
     }
 
-    private String extractUsername(String token) {
-        return jwtService.extractUsername(token);
+    /**
+     * Antwort, wenn die Passwort-Prüfung ausgelastet ist (503); der Client soll es kurz darauf erneut versuchen.
+     */
+    private static ResponseEntity<String> overloaded(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode()).header(HttpHeaders.RETRY_AFTER, "5").body(e.getReason());
     }
 
 
@@ -1,23 +1,33 @@
 package org.bootstmytool.backend.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.bootstmytool.backend.dto.ImageDTO;
 import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.service.ImageFile;
+import org.bootstmytool.backend.service.ImageProcessingService;
 import org.bootstmytool.backend.service.ImageService;
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.utils.FileTransfer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.net.MalformedURLException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Mohamed Cheikh
@@ -40,18 +50,31 @@ import java.util.Map;
 public class ImageController {
 
     private final ImageService imageService;
+    private final ImageProcessingService imageProcessingService;
+    private final BlobStore blobStore;
 
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
+    @Value("${blob.store.direct-downloads:false}")
+    private boolean directDownloads; // Clients laden Bilder direkt vom Speicher, falls er das unterstuetzt
+
+    @Value("${blob.store.direct-url-validity:PT5M}")
+    private Duration directUrlValidity;
+
     /**
      * Konstruktor für den ImageController.
      *
-     * @param imageService Der Service, der für den Zugriff auf Bilddaten verwendet wird.
+     * @param imageService           Der Service, der für den Zugriff auf Bilddaten verwendet wird.
+     * @param imageProcessingService Der Service, der Bilddateien und ihre Varianten bereitstellt.
+     * @param blobStore              Der Speicher, aus dem die Bilddateien gelesen werden.
      */
     @Autowired
-    public ImageController(ImageService imageService) {
+    public ImageController(ImageService imageService, ImageProcessingService imageProcessingService,
+                           BlobStore blobStore) {
         this.imageService = imageService;
+        this.imageProcessingService = imageProcessingService;
+        this.blobStore = blobStore;
     }
 
     /**
@@ -75,7 +98,7 @@ public class ImageController {
             }
 
             List<ImageDTO> imageDTOs = images.stream()
-                    .map(image -> new ImageDTO(image.getId(), baseUrl + "/image/" + image.getUrl()))
+                    .map(image -> ImageDTO.fromImage(image, baseUrl))
                     .toList();
 
             return ResponseEntity.ok(imageDTOs);
@@ -89,26 +112,68 @@ public class ImageController {
      * <p>
      * Gibt ein Bild anhand seines Namens zurück.
      *
-     * <p>Der Endpunkt erwartet den Namen des Bildes als Pfadvariable und gibt das Bild als {@link Resource} zurück.
+     * <p>Der Endpunkt erwartet den Namen des Bildes als Pfadvariable und sendet das Bild aus dem {@link BlobStore}.
+     * Mit {@code ?w=320} wird die kleinste verkleinerte Variante geliefert, die mindestens so breit ist;
+     * ist das Original schmaler, wird das Original geliefert.
      * Falls das Bild nicht gefunden wird, wird ein HTTP-404-Status zurückgegeben.</p>
      *
+     * <p>Bilddateien ändern sich nie: Ihr Name ist der SHA-256 ihres Inhalts, bei Varianten ergänzt um die Breite,
+     * sodass anderer Inhalt stets unter einem anderen Namen liegt (ältere Bilder tragen einen Zeitstempel im Namen).
+     * Die Antwort trägt daher ein ETag aus dem Dateiinhalt, {@code Last-Modified} und {@code Cache-Control: immutable}
+     * für ein Jahr.
+     * Stimmt {@code If-None-Match} oder {@code If-Modified-Since} überein, wird mit 304 ohne Body geantwortet.
+     * Wird statt einer noch fehlenden Variante vorerst das Original geliefert, muss der Client erneut nachfragen.</p>
+     *
+     * <p>Mit {@code Range} werden einzelne oder mehrere Bereiche geliefert (206), mit {@code If-Range} lassen sich
+     * abgebrochene Downloads fortsetzen. Die Datei wird ohne Umweg ueber den Heap gesendet, siehe {@link FileTransfer}.
+     * Liegt sie nicht lokal und ist {@code blob.store.direct-downloads} gesetzt, wird der Client mit 302 auf eine
+     * zeitlich begrenzte URL des Speichers umgeleitet.</p>
+     *
      * @param imageName Der Name des Bildes, das abgerufen werden soll.
-     * @return Eine {@link ResponseEntity}, die entweder das Bild als {@link Resource} oder {@code null} enthält.
-     * @throws RuntimeException Falls die URL des Bildes ungültig ist.
+     * @param width     Die gewünschte Breite in Pixeln (optional).
+     * @param request   Die Anfrage mit den Range- und Cache-Headern.
+     * @param response  Die Antwort, in die das Bild geschrieben wird.
      * </p>
      */
     @GetMapping("/{imageName}")
-    public ResponseEntity<?> getImage(@PathVariable String imageName) {
+    public void getImage(@PathVariable String imageName,
+                         @RequestParam(value = "w", required = false) Integer width,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageFile file;
         try {
-            Path path = Paths.get("backend/src/main/resources/static/images/" + imageName);
-            Resource resource = new UrlResource(path.toUri());
-            if (resource.exists() || resource.isReadable()) {
-                return ResponseEntity.ok().body(resource);
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            file = imageProcessingService.resolveImage(imageName, width);
+        } catch (IOException e) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (directDownloads && file.getPath() == null && !file.isProvisional()) {
+            Optional<URI> directUrl = blobStore.directUrl(file.getKey(), directUrlValidity);
+            if (directUrl.isPresent()) {
+                // Die URL laeuft ab und darf daher nicht gecacht werden
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+                response.sendRedirect(directUrl.get().toString());
+                return;
             }
-        } catch (MalformedURLException e) {
-            throw new RuntimeException("Error loading image: " + imageName, e);
+        }
+        CacheControl cacheControl = file.isProvisional()
+                ? CacheControl.noCache()
+                : CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+
+        // Setzt ETag und Last-Modified; stimmt If-None-Match oder If-Modified-Since, ist die Antwort 304 ohne Body
+        if (new ServletWebRequest(request, response).checkNotModified(file.getEtag(), file.getLastModified())) {
+            return;
+        }
+        if (file.getPath() != null) {
+            FileTransfer.send(request, response, file.getPath(), file.getLength(), file.getContentType(),
+                    file.getEtag(), file.getLastModified());
+        } else {
+            FileTransfer.send(request, response, (offset, length) -> blobStore.get(file.getKey(), offset, length),
+                    file.getLength(), file.getContentType(), file.getEtag(), file.getLastModified());
         }
     }
 
@@ -146,16 +211,18 @@ public class ImageController {
      * Fügt ein Bild zu einer Notiz hinzu.
      *
      * <p>Der Endpunkt erwartet die ID der Notiz als Pfadvariable und das Bild als {@link MultipartFile}.
-     * Das Bild wird in die Datenbank geladen und mit der Notiz verknüpft.
-     * Falls das Bild nicht hochgeladen werden kann, wird ein HTTP-400-Status zurückgegeben.</p>
+     * Das Bild wird gespeichert, mit der Notiz verknüpft und im Hintergrund verarbeitet (Status PENDING).
+     * Falls das Bild nicht hochgeladen werden kann, wird ein HTTP-400-Status zurückgegeben;
+     * ist die Bildverarbeitung ausgelastet, ein HTTP-503-Status mit {@code Retry-After}.</p>
      *
      * @param noteId Die ID der Notiz, zu der das Bild hinzugefügt werden soll.
      * @param image  Das Bild, das hinzugefügt werden soll.
-     * @return Eine {@link ResponseEntity}, die entweder das Bild als {@link Image} oder {@code null} enthält.
+     * @return Eine {@link ResponseEntity}, die entweder das Bild als {@link Image}, den Grund der Ablehnung
+     * oder {@code null} enthält.
      * </p>
  */
     @PostMapping(value = "/{noteId}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Image> addImageToNote(
+    public ResponseEntity<?> addImageToNote(
             @PathVariable("noteId") int noteId,
             @RequestParam("image") MultipartFile image
     ) {
@@ -168,6 +235,12 @@ public class ImageController {
             // Laden des Bildes in die Datenbank
             Image img = imageService.uploadImage(noteId, image);
             return ResponseEntity.status(HttpStatus.CREATED).body(img);
+        } catch (ResponseStatusException e) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatusCode());
+            if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                response.header(HttpHeaders.RETRY_AFTER, "30"); // Bildverarbeitung ausgelastet
+            }
+            return response.body(e.getReason());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
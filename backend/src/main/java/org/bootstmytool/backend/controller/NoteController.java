@@ -1,25 +1,44 @@
 package org.bootstmytool.backend.controller;
 
+import org.bootstmytool.backend.dto.NoteConflictDTO;
 import org.bootstmytool.backend.dto.NoteDTO;
+import org.bootstmytool.backend.dto.NoteImportReportDTO;
+import org.bootstmytool.backend.dto.NoteListDTO;
+import org.bootstmytool.backend.dto.NotePageDTO;
+import org.bootstmytool.backend.dto.NotePatchOperationDTO;
+import org.bootstmytool.backend.dto.NoteSearchResultDTO;
 import org.bootstmytool.backend.model.Image;
 import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.service.ImageProcessingService;
 import org.bootstmytool.backend.service.ImageService;
-import org.bootstmytool.backend.service.JwtService;
+import org.bootstmytool.backend.service.NoteEditConflictException;
+import org.bootstmytool.backend.service.NoteEditService;
+import org.bootstmytool.backend.service.NoteExportService;
+import org.bootstmytool.backend.service.NoteImportService;
+import org.bootstmytool.backend.service.NoteListCache;
+import org.bootstmytool.backend.service.NoteSearchService;
 import org.bootstmytool.backend.service.NoteService;
 import org.bootstmytool.backend.service.UserService;
 import org.bootstmytool.backend.model.User;
-import org.bootstmytool.backend.utils.ProcessImage;
+import org.bootstmytool.backend.search.SearchQuery;
+import org.bootstmytool.backend.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -41,17 +60,35 @@ public class NoteController {
     // NoteController-Attribute
     private final NoteService noteService;
     private final UserService userService;
-    private final JwtService jwtService;
+    private final ImageService imageService;
+    private final NoteSearchService noteSearchService;
+    private final ImageProcessingService imageProcessingService;
+    private final NoteImportService noteImportService;
+    private final NoteExportService noteExportService;
+    private final NoteListCache noteListCache;
+    private final NoteEditService noteEditService;
 
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
+    // Maximale Seitengroesse fuer die Cursor-basierte Auflistung
+    private static final int MAX_PAGE_SIZE = 100;
+
     // NoteController-Konstruktor mit den erforderlichen Services
     @Autowired
-    public NoteController(NoteService noteService, UserService userService, JwtService jwtService, ImageService imageService) {
+    public NoteController(NoteService noteService, UserService userService, ImageService imageService,
+                          NoteSearchService noteSearchService, ImageProcessingService imageProcessingService,
+                          NoteImportService noteImportService, NoteExportService noteExportService,
+                          NoteListCache noteListCache, NoteEditService noteEditService) {
         this.noteService = noteService;
         this.userService = userService;
-        this.jwtService = jwtService;
+        this.imageService = imageService;
+        this.noteSearchService = noteSearchService;
+        this.imageProcessingService = imageProcessingService;
+        this.noteImportService = noteImportService;
+        this.noteExportService = noteExportService;
+        this.noteListCache = noteListCache;
+        this.noteEditService = noteEditService;
     }
 
 
@@ -59,8 +96,10 @@ public class NoteController {
      * Endpunkt zum Erstellen einer neuen Notiz.
      * Der Benutzer muss authentifiziert sein, um eine Notiz zu erstellen.
      * Die Notiz kann Titel, Beschreibung, Tags und optional Bilder enthalten.
+     * Bilder werden nur gespeichert und im Hintergrund verarbeitet; die Antwort enthaelt sie mit Status PENDING.
+     * Ist die Bildverarbeitung ausgelastet, wird mit 503 und {@code Retry-After} geantwortet.
      *
-     * @param authHeader  Die Autorisierungs-Header mit dem JWT-Token
+     * @param principal   Der vom JwtAuthenticationFilter ermittelte Benutzer
      * @param title       Der Titel der Notiz
      * @param description Die Beschreibung der Notiz
      * @param tags        Komma-getrennte Tags für die Notiz
@@ -69,19 +108,25 @@ public class NoteController {
      */
     @PostMapping(value = "/create", consumes = "multipart/form-data")
     public ResponseEntity<?> createNote(
-            @RequestHeader("Authorization") String authHeader,
+            @RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal,
             @RequestParam("title") String title,
             @RequestParam("description") String description,
             @RequestParam("tags") String tags,
             @RequestParam(value = "images", required = false) MultipartFile[] images) {
 
         try {
-            // Validiere den Autorisierung-Header und extrahiere den Benutzer aus dem JWT-Token
-            User user = validateAuthorization(authHeader);
+            // Der Benutzer wird nur referenziert, nicht aus der Datenbank geladen
+            User user = userService.getReference(principal);
             Note note = buildNoteObject(title, description, tags, images, user);
             Note savedNote = noteService.createNote(note);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedNote);
-        } catch (IllegalArgumentException | SecurityException e) {
+        } catch (ResponseStatusException e) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatusCode());
+            if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                response.header(HttpHeaders.RETRY_AFTER, "30"); // Bildverarbeitung ausgelastet
+            }
+            return response.body(e.getReason());
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to create note.");
@@ -89,82 +134,193 @@ public class NoteController {
     }
 
     /**
-     * Endpunkt zum Abrufen von Notizen für den authentifizierten Benutzer.
-     * Der Benutzer muss authentifiziert sein, um Notizen abzurufen.
+     * Endpunkt zum Importieren vieler Notizen auf einmal.
+     * Der Body ist NDJSON ({@code application/x-ndjson}, ein Objekt je Zeile) oder ein JSON-Array mit Objekten
+     * der Form {@code {"title": ..., "content": ..., "tags": [...]}}. Er wird gestreamt verarbeitet, die
+     * Notizen werden in Batches gespeichert. Die Antwort enthaelt die Zaehler und die Fehler je Zeile;
+     * ungueltige Eintraege verhindern den Import der uebrigen nicht.
      *
-     * @param authHeader Die Autorisierungs-Header mit dem JWT-Token
-     * @return ResponseEntity mit den Notizen des Benutzers
+     * @param principal Der vom JwtAuthenticationFilter ermittelte Benutzer
+     * @param body      Der Body der Anfrage
+     * @return ResponseEntity mit dem Importbericht, 409 wenn bereits ein Import des Benutzers laeuft
      */
-    @GetMapping("/get")
-    public ResponseEntity<List<Note>> getNotesForUser(@RequestHeader("Authorization") String authHeader) {
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.emptyList());
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> importNotes(@RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal,
+                                         InputStream body) {
+        try {
+            NoteImportReportDTO report = noteImportService.importNotes(principal.getId(), body);
+            return ResponseEntity.ok(report);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Import abgebrochen: " + e.getMessage());
         }
+    }
 
-        String token = authHeader.substring(7);
+    /**
+     * Endpunkt zum Abfragen des Fortschritts eines laufenden Imports.
+     *
+     * @param principal Der vom JwtAuthenticationFilter ermittelte Benutzer
+     * @return ResponseEntity mit dem aktuellen Stand oder 204, wenn kein Import laeuft
+     */
+    @GetMapping("/import/progress")
+    public ResponseEntity<NoteImportReportDTO> getImportProgress(
+            @RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal) {
+        return noteImportService.getProgress(principal.getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
 
-        String username;
+    /**
+     * Endpunkt zum Exportieren aller Notizen des Benutzers mit ihren Bildern als ZIP-Archiv.
+     * Das Archiv wird waehrend des Lesens aus der Datenbank und dem Bildspeicher gestreamt. Mit {@code limit}
+     * wird es auf eine Anzahl Notizen begrenzt; {@code export.json} im Archiv enthaelt dann den
+     * {@code nextCursor} fuer den naechsten Teil. Nach einem abgebrochenen Download dient die hoechste
+     * vollstaendige Notiz-ID im Archiv als Cursor.
+     *
+     * @param principal Der vom JwtAuthenticationFilter ermittelte Benutzer
+     * @param cursor    Der Cursor, ab dem fortgesetzt wird, oder leer fuer den Anfang
+     * @param limit     Optional, die maximale Anzahl an Notizen im Archiv
+     * @return ResponseEntity mit dem gestreamten Archiv, 409 wenn bereits ein Export des Benutzers laeuft,
+     * 503 mit {@code Retry-After}, wenn zu viele Exporte gleichzeitig laufen
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportNotes(@RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "limit", required = false) Integer limit) {
+        int afterId;
         try {
-            username = jwtService.extractUsername(token);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Collections.emptyList());
+            afterId = NoteExportService.parseCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
-
-        Optional<User> optionalUser = userService.findByUsername(username);
-        if (optionalUser.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Collections.emptyList());
+        if (limit != null && limit < 1) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("limit muss mindestens 1 sein");
         }
 
-        User user = optionalUser.get();
-
+        int userId = principal.getId();
+        NoteExportService.Slot slot;
         try {
-            List<Note> notes = noteService.getNotesByUserId((int) user.getId());
+            slot = noteExportService.reserve(userId);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .header(HttpHeaders.RETRY_AFTER, "30") // Alle Plaetze fuer Exporte belegt
+                    .body(e.getReason());
+        }
+        StreamingResponseBody body = out -> {
+            try (slot) {
+                noteExportService.export(userId, afterId, limit, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("notizen-export.zip").build().toString())
+                .body(body);
+    }
 
+    /**
+     * Endpunkt zum Abrufen von Notizen für den authentifizierten Benutzer.
+     * Der Benutzer muss authentifiziert sein, um Notizen abzurufen.
+     * Die Liste kommt aus dem {@link NoteListCache} und wird nur nach Aenderungen neu geladen. JSON ist der
+     * Standard und wird aus den Fragmenten des {@link org.bootstmytool.backend.service.NoteJsonCache}
+     * geschrieben, mit {@code ?pretty} eingerueckt. Mit {@code Accept: application/cbor} oder
+     * {@code application/x-jackson-smile} wird die Liste binaer und deutlich kleiner geliefert.
+     *
+     * @param principal Der vom JwtAuthenticationFilter ermittelte Benutzer
+     * @return Die Notizen, 204 ohne Notizen oder 500 mit leerer Liste bei einem Fehler
+     */
+    @GetMapping("/get")
+    public ResponseEntity<NoteListDTO> getNotesForUser(
+            @RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal) {
+        try {
+            List<NoteDTO> notes = noteListCache.getNotes(principal.getId());
             if (notes.isEmpty()) {
                 return ResponseEntity.noContent().build();
             }
-
-            // Ensure the image URL is set correctly for each note
-            notes.forEach(note -> {
-                if (note.getImages() != null) {
-                    note.getImages().forEach(image -> {
-                        String imageName = image.getUrl();
-                        image.setUrl(baseUrl + "/image/" + imageName);
-                    });
-                }
-            });
-
-            return ResponseEntity.ok(notes);
+            return ResponseEntity.ok(new NoteListDTO(notes));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.emptyList());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new NoteListDTO(List.of()));
         }
     }
 
 
     /**
-     * Validiert den Autorisierungs-Header und extrahiert den Benutzer aus dem JWT-Token.
+     * Endpunkt zum seitenweisen Abrufen von Notiz-Zusammenfassungen fuer den authentifizierten Benutzer.
+     * Die Paginierung erfolgt ueber einen undurchsichtigen Cursor aus Erstellungsdatum und ID,
+     * sodass auch Benutzer mit tausenden Notizen nur die aktuelle Seite laden.
+     *
+     * @param principal  Der vom JwtAuthenticationFilter ermittelte Benutzer
+     * @param limit      Die maximale Anzahl an Notizen pro Seite (1 bis 100)
+     * @param cursor     Der Cursor aus der vorherigen Antwort oder leer fuer die erste Seite
+     * @param sort       Die Sortierung, {@code newest} (Standard) oder {@code oldest}
+     * @return ResponseEntity mit der Seite der Notiz-Zusammenfassungen
      */
-    private User validateAuthorization(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new SecurityException("Invalid Authorization header.");
-        }
-        String token = authHeader.substring(7);
-        String username = jwtService.extractUsername(token);
-        if (username == null) {
-            throw new SecurityException("Invalid token.");
+    @GetMapping("/list")
+    public ResponseEntity<?> listNotesForUser(
+            @RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "sort", defaultValue = "newest") String sort) {
+
+        try {
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("limit muss zwischen 1 und " + MAX_PAGE_SIZE + " liegen");
+            }
+            NotePageDTO page = noteService.getNoteSummaries(principal.getId(), limit, cursor,
+                    NoteService.SortOrder.fromParameter(sort));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Fehler beim Laden der Notizen.");
         }
-        User user = userService.getUserByUsername(username);
-        if (user == null) {
-            throw new SecurityException("Benutzer nicht gefunden .");
+    }
+
+    /**
+     * Endpunkt fuer die serverseitige Volltextsuche in den Notizen des Benutzers.
+     * Durchsucht Titel, Inhalt und Tags und liefert die Treffer nach Relevanz sortiert.
+     * Unterstuetzt mehrere Begriffe (UND-verknuepft), Praefixe ({@code fahr*}) und Phrasen ({@code "milch und brot"}).
+     * Im Modus {@code contains} werden Wortteile gefunden ("rad" in "Fahrradreparatur"), im Modus
+     * {@code fuzzy} auch Begriffe mit Tippfehlern.
+     *
+     * @param principal Der vom JwtAuthenticationFilter ermittelte Benutzer
+     * @param query     Die Suchanfrage
+     * @param mode      Der Suchmodus: fulltext (Standard), contains oder fuzzy
+     * @param page      Die Seite, beginnend bei 0
+     * @param size      Die Anzahl der Treffer pro Seite (1 bis 100)
+     * @return ResponseEntity mit den Treffern der angeforderten Seite
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchNotes(
+            @RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal,
+            @RequestParam(value = "q", defaultValue = "") String query,
+            @RequestParam(value = "mode", defaultValue = "fulltext") String mode,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+
+        try {
+            if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("page muss >= 0 und size zwischen 1 und " + MAX_PAGE_SIZE + " liegen");
+            }
+            NoteSearchResultDTO result = noteSearchService.search(principal.getId(), query,
+                    SearchQuery.Mode.fromParameter(mode), page, size);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Fehler bei der Suche.");
         }
-        return user;
     }
 
 
     /**
      * Erstellt ein Note-Objekt aus den übergebenen Parametern.
-     * Speichert die Bilder im Dateisystem und setzt die URL für jedes Bild.
+     * Speichert die Bilder im inhaltsadressierten Speicher und setzt die URL für jedes Bild; die Verarbeitung folgt asynchron.
      *
      * @param title       Der Titel der Notiz
      * @param description Die Beschreibung der Notiz
@@ -182,8 +338,10 @@ public class NoteController {
 
         List<Image> imageList = new ArrayList<>();
         if (images != null) {
+            // Erst pruefen, ob die Bilder verarbeitet werden koennen, dann jede Datei genau einmal speichern
+            imageProcessingService.ensureCapacity(images.length);
             imageList = Arrays.stream(images)
-                    .map(ProcessImage::processImage)
+                    .map(imageService::storeImage)
                     .collect(Collectors.toList());
         }
         note.setImages(imageList);
@@ -213,7 +371,7 @@ public class NoteController {
 
 
 
-    // Diese Methode gibt eine Notiz anhand ihrer ID zurück
+    // Diese Methode gibt eine Notiz anhand ihrer ID zurück; das ETag enthaelt die Version fuer If-Match
     @GetMapping("/get/{id}")
     public ResponseEntity<?> getNoteByIdWithImages(@PathVariable("id") int id) {
         Note note = noteService.getNoteById(id);
@@ -221,50 +379,114 @@ public class NoteController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Nicht gefunden");
         }
 
-        NoteDTO noteDTO = NoteDTO.convertToDto(note);
-        return ResponseEntity.ok(noteDTO);
+        NoteDTO noteDTO = NoteDTO.convertToDto(note, baseUrl);
+        return ResponseEntity.ok().eTag(String.valueOf(note.getVersion())).body(noteDTO);
     }
 
 
+    /**
+     * Endpunkt zum Bearbeiten von Titel, Inhalt und Tags einer Notiz.
+     * Mit {@code If-Match} gibt der Client die Version an, auf der seine Aenderung beruht (das ETag aus
+     * {@code GET /notes/get/{id}}). Ist sie veraltet, werden die Aenderungen mit den inzwischen gespeicherten
+     * zusammengefuehrt; ueberschneiden sie sich, folgt 409, ist die Version unbekannt, 412. Beide Antworten
+     * enthalten den gespeicherten Stand und seine Version. Ohne {@code If-Match} wird ueberschrieben.
+     *
+     * @param id          Die ID der Notiz
+     * @param noteUpdates Titel, Inhalt und Tags
+     * @param ifMatch     Die Version als ETag, z. B. {@code "3"}, oder {@code *}
+     * @param principal   Der vom JwtAuthenticationFilter ermittelte Benutzer
+     * @return Die gespeicherte Notiz mit ihrer neuen Version als ETag
+     */
     @PutMapping(value = "/edit/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> editNoteWithoutImag(
             @PathVariable("id") int id,
             @RequestBody NoteDTO noteUpdates,
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal) {
 
-        try {
-            // Validiere den Autorisierung-Header
-            User user = validateAuthorization(authHeader);
-
-            // Ueberpruefen, ob die Notiz existiert
-            Note existingNote = noteService.getNoteById(id);
-            if (existingNote == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Notiz nicht gefunden");
-            }
+        return savedOrConflict(() -> noteEditService.edit(id, principal.getId(), parseIfMatch(ifMatch),
+                noteUpdates.getTitle(), noteUpdates.getContent(), noteUpdates.getTags()));
+    }
 
-            // Pruefen, ob der Benutzer die Notiz bearbeiten darf
-            if (existingNote.getUser().getId() != user.getId()) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body("Sie haben keine Berechtigung, diese Notiz zu bearbeiten");
+    /**
+     * Endpunkt zum Aendern einer Notiz mit einem JSON Patch (RFC 6902), z. B. beim automatischen Speichern.
+     * Statt des ganzen Inhalts sendet der Client nur die geaenderten Abschnitte ({@code splice}) bzw. Felder;
+     * gespeichert werden nur die geaenderten Spalten und Tags. Die Operationen beziehen sich auf die Version
+     * aus {@code If-Match}, das deshalb erforderlich ist (sonst 428). Ist sie veraltet, wird wie bei
+     * {@code PUT /notes/edit/{id}} zusammengefuehrt; eine fehlgeschlagene {@code test}-Operation ergibt 409.
+     *
+     * @param id         Die ID der Notiz
+     * @param operations Die Operationen, siehe {@link NotePatchOperationDTO}
+     * @param ifMatch    Die Version als ETag, z. B. {@code "3"}
+     * @param principal  Der vom JwtAuthenticationFilter ermittelte Benutzer
+     * @return Die gespeicherte Notiz mit ihrer neuen Version als ETag
+     */
+    @PatchMapping(value = "/edit/{id}", consumes = "application/json-patch+json")
+    public ResponseEntity<?> patchNote(
+            @PathVariable("id") int id,
+            @RequestBody List<NotePatchOperationDTO> operations,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestAttribute(UserPrincipal.REQUEST_ATTRIBUTE) UserPrincipal principal) {
+
+        return savedOrConflict(() -> {
+            Long expectedVersion = parseIfMatch(ifMatch);
+            if (expectedVersion == null) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED,
+                        "If-Match mit der Version der Notiz ist erforderlich");
             }
+            return noteEditService.patch(id, principal.getId(), expectedVersion, operations);
+        });
+    }
 
-            // Aktualisiere die Notizdaten
-            existingNote.setTitle(noteUpdates.getTitle());
-            existingNote.setContent(noteUpdates.getContent());
-            existingNote.setTags(noteUpdates.getTags());
-
-            // Speichern der aktualisierten Notiz
-            Note updatedNote = noteService.updateNote(existingNote);
+    /**
+     * Fuehrt eine Bearbeitung aus und beantwortet sie mit der gespeicherten Notiz oder dem Grund der Ablehnung.
+     * Beide Antworten tragen die gespeicherte Version als ETag.
+     */
+    private ResponseEntity<?> savedOrConflict(Supplier<Note> edit) {
+        try {
+            Note updatedNote = edit.get();
 
             // Konvertiere die aktualisierte Notiz in ein DTO
-            NoteDTO responseDto = NoteDTO.convertToDto(updatedNote);
-
-            return ResponseEntity.ok(responseDto);
-
+            NoteDTO responseDto = NoteDTO.convertToDto(updatedNote, baseUrl);
+            return ResponseEntity.ok().eTag(String.valueOf(updatedNote.getVersion())).body(responseDto);
+
+        } catch (NoteEditConflictException e) {
+            NoteDTO current = NoteDTO.convertToDto(e.getCurrent(), baseUrl);
+            return ResponseEntity.status(e.getStatus())
+                    .eTag(String.valueOf(current.getVersion()))
+                    .body(new NoteConflictDTO(e.getMessage(), e.getConflicts(), current));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Fehler: " + e.getMessage());
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Liest die Version aus {@code If-Match}. Schwache ETags werden wie starke behandelt; {@code *} und ein
+     * fehlender Header bedeuten, dass nicht geprueft wird.
+     *
+     * @throws IllegalArgumentException wenn der Header keine einzelne Version enthaelt
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungueltiges If-Match: " + ifMatch);
+        }
+    }
+
+}
@@ -2,13 +2,20 @@ package org.bootstmytool.backend.dto;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.utils.ProcessImage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @version 1.0
  * @Author Mohamed Cheikh
  * @Date: 2025-03-27
  * Das ImageDTO (Data Transfer Object) wird verwendet, um Bilddaten zwischen den verschiedenen Schichten der Anwendung zu übertragen.
- * Es enthält grundlegende Informationen über das Bild wie die URL.
+ * Es enthält grundlegende Informationen über das Bild wie die URL sowie die URLs der verkleinerten Varianten,
+ * damit Listen nur Vorschaubilder statt der Originale laden.
  */
 @Setter
 @Getter
@@ -22,6 +29,9 @@ public class ImageDTO {
      */
     private String url;
     private int id;
+    private String status; // Der Verarbeitungsstatus (PENDING, READY, FAILED)
+    private String thumbnailUrl; // Die URL des Vorschaubildes
+    private Map<Integer, String> variants = new LinkedHashMap<>(); // Breite -> URL der Variante
 
     /**
      * Erstellt ein neues ImageDTO.
@@ -43,4 +53,44 @@ public class ImageDTO {
         this.url = url;
     }
 
-}
\ No newline at end of file
+    public ImageDTO(int id, String url, String status) {
+        this.id = id;
+        this.url = url;
+        this.status = status;
+    }
+
+    /**
+     * Erstellt ein ImageDTO mit Vorschaubild und Varianten.
+     * Varianten werden nur fuer Breiten angeboten, die schmaler als das Original sind; ist die Breite noch
+     * unbekannt (Verarbeitung ausstehend), werden alle Breiten angeboten.
+     *
+     * @param image   Das Bild.
+     * @param baseUrl Die Basis-URL des Servers.
+     * @return Das ImageDTO.
+     */
+    public static ImageDTO fromImage(Image image, String baseUrl) {
+        return of(image.getId(), image.getUrl(), image.getStatus(), image.getWidth(), baseUrl);
+    }
+
+    /**
+     * Erstellt ein ImageDTO aus einzeln geladenen Spalten, ohne die Entitaet zu laden.
+     *
+     * @param id       Die ID des Bildes.
+     * @param fileName Der gespeicherte Dateiname.
+     * @param status   Der Verarbeitungsstatus; null gilt wie bei {@link Image#getStatus()} als fertig.
+     * @param width    Die Breite des Originals oder null, solange sie unbekannt ist.
+     * @param baseUrl  Die Basis-URL des Servers.
+     * @return Das ImageDTO.
+     */
+    public static ImageDTO of(int id, String fileName, ImageStatus status, Integer width, String baseUrl) {
+        ImageDTO dto = new ImageDTO(id, baseUrl + "/image/" + fileName, (status == null ? ImageStatus.READY : status).name());
+        dto.setThumbnailUrl(ProcessImage.variantUrl(baseUrl, fileName, ProcessImage.THUMBNAIL_WIDTH, width));
+        for (int variantWidth : ProcessImage.DERIVATIVE_WIDTHS) {
+            if (width == null || variantWidth < width) {
+                dto.getVariants().put(variantWidth, ProcessImage.variantUrl(baseUrl, fileName, variantWidth, width));
+            }
+        }
+        return dto;
+    }
+
+}
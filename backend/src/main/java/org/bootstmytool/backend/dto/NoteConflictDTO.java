@@ -0,0 +1,28 @@
+package org.bootstmytool.backend.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Antwort auf eine Bearbeitung, die nicht gespeichert werden konnte (409 oder 412).
+ * Sie enthaelt den gespeicherten Stand, damit der Client seine Aenderungen darauf neu anwenden kann.
+ */
+@Getter
+public class NoteConflictDTO {
+
+    private final String message; // Der Grund fuer die Ablehnung
+    private final List<String> conflicts; // Die Felder, die beide Seiten unterschiedlich geaendert haben
+    private final long serverVersion; // Die gespeicherte Version, fuer das naechste If-Match
+    private final NoteDTO note; // Der gespeicherte Stand der Notiz
+
+    public NoteConflictDTO(String message, List<String> conflicts, NoteDTO note) {
+        this.message = message;
+        this.conflicts = conflicts;
+        this.serverVersion = note.getVersion();
+        this.note = note;
+    }
+}
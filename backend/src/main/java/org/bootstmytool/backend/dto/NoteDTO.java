@@ -1,13 +1,14 @@
 package org.bootstmytool.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 import org.bootstmytool.backend.model.Note;
-import org.springframework.beans.factory.annotation.Value;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -57,8 +58,11 @@ public class NoteDTO {
     @Getter
     private List<String> tags; // Die Tags, die mit der Notiz verknüpft sind
     private int id;
+    private Date createdAt; // Das Erstellungsdatum der Notiz
+    private long version; // Die Version der Notiz, steigt mit jeder Aenderung
     private List<ImageDTO> images;
     @Setter
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // Nur in Anfragen, nie in Antworten
     private List<Integer> imagesToDelete;
 
     public void setImages(@NotNull List<ImageDTO> images) {
@@ -82,23 +86,22 @@ public class NoteDTO {
         this.tags.add(tag);
     }
 
-    @Getter
-    @Value("${app.base-url:http://localhost:8080}")
-    private static String baseUrl;
-
     /**
-     * Konvertiert eine NoteDTO in eine Note.
-     * @param note Die NoteDTO, die konvertiert werden soll
-     * @return Die konvertierte Note
+     * Konvertiert eine Note in eine NoteDTO.
+     * @param note Die Note, die konvertiert werden soll
+     * @param baseUrl Die Basis-URL des Servers fuer die Bild-URLs
+     * @return Die konvertierte NoteDTO
      */
-    public static NoteDTO convertToDto(Note note) {
+    public static NoteDTO convertToDto(Note note, String baseUrl) {
         NoteDTO dto = new NoteDTO();
         dto.setId(note.getId());
         dto.setTitle(note.getTitle());
         dto.setContent(note.getContent());
-        dto.setTags(note.getTags());
+        dto.setTags(new ArrayList<>(note.getTags()));
+        dto.setCreatedAt(note.getCreatedAt());
+        dto.setVersion(note.getVersion());
         dto.setImages(note.getImages().stream()
-                .map(image -> new ImageDTO(image.getId(), baseUrl + "/image/" + image.getUrl()))
+                .map(image -> ImageDTO.fromImage(image, baseUrl))
                 .collect(Collectors.toList()));
         return dto;
     }
@@ -0,0 +1,22 @@
+package org.bootstmytool.backend.dto;
+
+import lombok.Getter;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Ein fehlerhafter Eintrag eines Notiz-Imports.
+ * Die Zeile bezieht sich auf den Anfang des Eintrags im hochgeladenen Dokument (beginnend bei 1).
+ */
+@Getter
+public class NoteImportErrorDTO {
+
+    private final long line; // Die Zeile, in der der Eintrag beginnt
+    private final String message; // Der Grund, warum der Eintrag nicht importiert wurde
+
+    public NoteImportErrorDTO(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+}
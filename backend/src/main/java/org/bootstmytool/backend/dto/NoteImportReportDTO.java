@@ -0,0 +1,36 @@
+package org.bootstmytool.backend.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Stand bzw. Ergebnis eines Notiz-Imports.
+ * Waehrend des Imports liefert {@code GET /notes/import/progress} diese Angaben ohne Fehlerliste;
+ * nach dem Import enthaelt die Antwort von {@code POST /notes/import} die Fehler je Zeile.
+ */
+@Getter
+public class NoteImportReportDTO {
+
+    private final boolean finished; // Gibt an, ob der Import abgeschlossen ist
+    private final long records; // Die Anzahl der gelesenen Eintraege
+    private final long imported; // Die Anzahl der gespeicherten Notizen
+    private final long failed; // Die Anzahl der abgelehnten Eintraege
+    private final List<NoteImportErrorDTO> errors; // Die Fehler je Zeile (hoechstens die ersten 1000)
+    private final boolean errorsTruncated; // Gibt an, ob weitere Fehler nicht aufgefuehrt sind
+    private final String abortReason; // Der Grund fuer einen vorzeitigen Abbruch oder null
+
+    public NoteImportReportDTO(boolean finished, long records, long imported, long failed,
+                               List<NoteImportErrorDTO> errors, boolean errorsTruncated, String abortReason) {
+        this.finished = finished;
+        this.records = records;
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+        this.abortReason = abortReason;
+    }
+}
@@ -0,0 +1,27 @@
+package org.bootstmytool.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.List;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Die vollstaendige Notizliste eines Benutzers ({@code GET /notes/get}).
+ * Sie wird als reines Array serialisiert; der eigene Typ erlaubt es, die JSON-Ausgabe ueber die
+ * zwischengespeicherten Fragmente zu schreiben, waehrend CBOR und Smile die normalen Konverter nutzen.
+ */
+public class NoteListDTO {
+
+    private final List<NoteDTO> notes; // Die Notizen, aufsteigend nach ID
+
+    public NoteListDTO(List<NoteDTO> notes) {
+        this.notes = notes;
+    }
+
+    @JsonValue
+    public List<NoteDTO> getNotes() {
+        return notes;
+    }
+}
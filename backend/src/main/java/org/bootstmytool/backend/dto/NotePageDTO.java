@@ -0,0 +1,26 @@
+package org.bootstmytool.backend.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Eine Seite von Notiz-Zusammenfassungen fuer die Cursor-basierte Paginierung.
+ * Der {@code nextCursor} ist undurchsichtig und wird unveraendert an den naechsten Aufruf uebergeben.
+ */
+@Getter
+public class NotePageDTO {
+
+    private final List<NoteSummaryDTO> items; // Die Notizen dieser Seite
+    private final String nextCursor; // Cursor fuer die naechste Seite oder null
+    private final boolean hasMore; // Gibt an, ob weitere Seiten existieren
+
+    public NotePageDTO(List<NoteSummaryDTO> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+}
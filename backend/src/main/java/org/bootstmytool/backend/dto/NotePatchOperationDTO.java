@@ -0,0 +1,27 @@
+package org.bootstmytool.backend.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Eine Operation eines JSON Patch (RFC 6902) fuer {@code PATCH /notes/edit/{id}}.
+ * <p>
+ * Unterstuetzt werden {@code add}, {@code remove}, {@code replace} und {@code test} auf {@code /title},
+ * {@code /content}, {@code /tags}, {@code /tags/N} und {@code /tags/-}. Zusaetzlich ersetzt {@code splice}
+ * einen Abschnitt des Inhalts, damit bei langen Notizen nicht der ganze Text gesendet werden muss:
+ * {@code {"op": "splice", "path": "/content", "offset": 120, "length": 5, "value": "neu"}}.
+ */
+@Getter
+@Setter
+public class NotePatchOperationDTO {
+
+    private String op; // Die Operation
+    private String path; // JSON Pointer auf das Feld
+    private JsonNode value; // Der neue bzw. erwartete Wert
+    private Integer offset; // Nur splice: Beginn des ersetzten Abschnitts in UTF-16-Zeichen
+    private Integer length; // Nur splice: Laenge des ersetzten Abschnitts
+}
@@ -0,0 +1,27 @@
+package org.bootstmytool.backend.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Ein einzelner Treffer der serverseitigen Notizsuche.
+ * Titel und Ausschnitt sind HTML-maskiert; Treffer sind mit {@code <mark>} hervorgehoben.
+ */
+@Getter
+@Setter
+public class NoteSearchHitDTO {
+
+    private int id; // Die ID der Notiz
+    private String title; // Der Titel mit hervorgehobenen Treffern
+    private String snippet; // Ein Ausschnitt des Inhalts um den ersten Treffer
+    private List<String> tags = new ArrayList<>(); // Die Tags der Notiz
+    private double score; // Die Relevanz des Treffers
+    private Date createdAt; // Das Erstellungsdatum der Notiz
+}
@@ -0,0 +1,29 @@
+package org.bootstmytool.backend.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Eine Seite von Suchtreffern, sortiert nach Relevanz.
+ */
+@Getter
+public class NoteSearchResultDTO {
+
+    private final String query; // Die ausgefuehrte Suchanfrage
+    private final int totalHits; // Die Gesamtanzahl der Treffer
+    private final int page; // Die aktuelle Seite (beginnend bei 0)
+    private final int size; // Die Seitengroesse
+    private final List<NoteSearchHitDTO> hits; // Die Treffer dieser Seite
+
+    public NoteSearchResultDTO(String query, int totalHits, int page, int size, List<NoteSearchHitDTO> hits) {
+        this.query = query;
+        this.totalHits = totalHits;
+        this.page = page;
+        this.size = size;
+        this.hits = hits;
+    }
+}
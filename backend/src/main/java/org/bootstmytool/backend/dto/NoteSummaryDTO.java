@@ -0,0 +1,52 @@
+package org.bootstmytool.backend.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @version 1.0
+ * @Author Mohamed Cheikh
+ * @Date: 2025-03-27
+ * Die NoteSummaryDTO ist eine schlanke Projektion einer Notiz fuer Listenansichten.
+ * Sie enthaelt nur einen Auszug des Inhalts, die Tags, die Anzahl der Bilder und die URL des ersten Bildes,
+ * damit weder der vollstaendige Inhalt noch die Bilddaten geladen werden muessen.
+ */
+@Getter
+@Setter
+public class NoteSummaryDTO {
+
+    private int id; // Die ID der Notiz
+    private String title; // Der Titel der Notiz
+    private String excerpt; // Ein gekuerzter Auszug des Inhalts
+    private List<String> tags = new ArrayList<>(); // Die Tags der Notiz
+    private int imageCount; // Die Anzahl der Bilder der Notiz
+    private String thumbnailUrl; // Die URL des ersten Bildes oder null
+    private Date createdAt; // Das Erstellungsdatum der Notiz
+
+    /**
+     * Erstellt eine neue NoteSummaryDTO.
+     */
+    public NoteSummaryDTO() {
+    }
+
+    /**
+     * Konstruktor fuer die JPQL-Projektion in {@link org.bootstmytool.backend.repository.NoteRepository}.
+     *
+     * @param id         Die ID der Notiz
+     * @param title      Der Titel der Notiz
+     * @param excerpt    Der Anfang des Inhalts
+     * @param createdAt  Das Erstellungsdatum der Notiz
+     * @param imageCount Die Anzahl der Bilder
+     */
+    public NoteSummaryDTO(int id, String title, String excerpt, Date createdAt, Integer imageCount) {
+        this.id = id;
+        this.title = title;
+        this.excerpt = excerpt;
+        this.createdAt = createdAt;
+        this.imageCount = imageCount == null ? 0 : imageCount;
+    }
+}
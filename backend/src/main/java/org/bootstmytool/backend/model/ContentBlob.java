@@ -0,0 +1,40 @@
+package org.bootstmytool.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Eine Datei des inhaltsadressierten Bildspeichers (siehe {@link org.bootstmytool.backend.service.ImageStore}).
+ * <p>
+ * Die Zeile liegt in der gemeinsamen Datenbank und wird von allen Instanzen gesperrt, bevor sie die Datei
+ * speichern, einen Verweis zaehlen oder die Datei loeschen. {@link #getRefCount()} zaehlt die Bilder mit diesem
+ * Hash und wird in derselben Transaktion geaendert wie die Zeile in {@code image}.
+ */
+@Getter
+@Entity
+@Table(name = "content_blob", indexes = @Index(name = "idx_content_blob_unreferenced", columnList = "ref_count, claimed_at"))
+public class ContentBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash; // SHA-256 des Inhalts
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount; // Anzahl der Bilder, die auf die Datei verweisen
+
+    @Setter
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt; // Zuletzt gespeichert oder wiederverwendet; bis zum Ablauf der Frist belegt
+
+    /**
+     * Wird von JPA benoetigt.
+     */
+    protected ContentBlob() {
+    }
+}
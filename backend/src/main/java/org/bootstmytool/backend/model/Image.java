@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 /**
@@ -11,10 +13,19 @@ import lombok.Setter;
  * @Author: Mohamed Cheikh
  * @Date: 2025-03-27
  * Die Image-Klasse stellt ein Bild dar, das mit einer Notiz verknüpft ist.
- * Das Bild wird in der Datenbank als Blob gespeichert und kann mit einer Notiz in einer "Viele-zu-Eins"-Beziehung verbunden werden.
+ * Die Binärdaten liegen ausschliesslich im Bildverzeichnis und werden nur beim Abruf von /image/{name} gestreamt;
+ * die Entitaet haelt lediglich den Dateinamen. Bilder mit gleichem Inhalt teilen sich eine Datei
+ * (siehe {@link org.bootstmytool.backend.service.ImageStore}). Das Bild ist mit einer Notiz in einer "Viele-zu-Eins"-Beziehung verbunden.
+ * Pruefung und Metadaten werden nach dem Hochladen asynchron ermittelt; bis dahin ist der Status {@link ImageStatus#PENDING}.
  */
 @Entity
-@Table(name = "image")
+@Table(name = "image", indexes = {
+        @Index(name = "idx_image_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_image_note", columnList = "note_id, id"),
+        @Index(name = "idx_image_url_status", columnList = "url, status"),
+        @Index(name = "idx_image_status_created", columnList = "status, created_date, id")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "image") // Nur Metadaten, die Datei liegt im BlobStore
 public class Image {
 
     /**
@@ -26,23 +37,15 @@ public class Image {
     @Setter
     @Getter
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Wie bei Note: gepoolte Sequenz, die Bilder einer Notiz werden gebuendelt eingefuegt
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_seq")
+    @SequenceGenerator(name = "image_seq", sequenceName = "image_seq", allocationSize = 50)
     private int id; // Die eindeutige ID des Bildes
 
     //set and get methods fuer url
     @Getter
     @Setter
     private String url; // Die URL des Bildes
-    /**
-     * -- SETTER --
-     * Setzt die Binärdaten des Bildes.     *
-     * -- GETTER --
-     * Gibt die Binärdaten des Bildes zurück.
-     */
-    @Getter
-    @Setter
-    @Lob
-    private byte[] data; // Die Binärdaten des Bildes (in der Regel als Blob gespeichert)
 
     /**
      * -- GETTER --
@@ -57,6 +60,39 @@ public class Image {
     @JsonBackReference
     private Note note; // Die Notiz, zu der dieses Bild gehört
 
+    @Setter
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16)
+    private ImageStatus status = ImageStatus.PENDING; // Der Verarbeitungsstatus
+
+    @Getter
+    @Setter
+    private Integer width; // Die Breite in Pixeln (nach der Verarbeitung)
+
+    @Getter
+    @Setter
+    private Integer height; // Die Hoehe in Pixeln (nach der Verarbeitung)
+
+    @Getter
+    @Setter
+    @Column(name = "content_type", length = 64)
+    private String contentType; // Der ermittelte MIME-Typ
+
+    @Getter
+    @Setter
+    @Column(name = "file_size")
+    private Long size; // Die Dateigroesse in Bytes
+
+    @Getter
+    @Setter
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 des Inhalts; null bei Bildern vor dem inhaltsadressierten Speicher
+
+    @Getter
+    @Setter
+    @Transient
+    private String thumbnailUrl; // Die URL des Vorschaubildes, wird nur fuer die Ausgabe gesetzt
+
     @Column(name = "created_date")
     private java.time.LocalDateTime createdDate; // Neues Feld
     // Konstruktoren, Getter und Setter
@@ -69,6 +105,14 @@ public class Image {
         this.createdDate = java.time.LocalDateTime.now();
     }
 
+    /**
+     * Gibt den Verarbeitungsstatus zurueck.
+     * Bilder aus der Zeit vor der asynchronen Verarbeitung haben keinen Status und gelten als fertig.
+     */
+    public ImageStatus getStatus() {
+        return status == null ? ImageStatus.READY : status;
+    }
+
 
 }
 
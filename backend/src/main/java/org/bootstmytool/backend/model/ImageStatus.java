@@ -0,0 +1,13 @@
+package org.bootstmytool.backend.model;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Der Verarbeitungsstatus eines hochgeladenen Bildes.
+ */
+public enum ImageStatus {
+    PENDING, // Gespeichert, wartet auf Pruefung und Verarbeitung
+    READY, // Geprueft, Metadaten und Vorschaubild sind vorhanden
+    FAILED // Keine gueltige Bilddatei oder Verarbeitung fehlgeschlagen
+}
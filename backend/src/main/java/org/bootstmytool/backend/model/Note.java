@@ -6,11 +6,17 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @version 1.0
@@ -22,7 +28,10 @@ import java.util.List;
  */
 @Getter
 @Entity
-@Table(name = "note")
+@Table(name = "note", indexes = @Index(name = "idx_note_user_created", columnList = "user_id, created_at, id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "note") // Second-Level-Cache, siehe application.conf
+@DynamicUpdate // Updates enthalten nur die geaenderten Spalten, z. B. nicht den Inhalt bei einer Titelaenderung
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Note {
 
@@ -34,7 +43,9 @@ public class Note {
      */
     @Setter
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDs aus einer Sequenz in Bloecken zu 50, damit Hibernate Inserts buendeln kann (IDENTITY verhindert das)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_seq")
+    @SequenceGenerator(name = "note_seq", sequenceName = "note_seq", allocationSize = 50)
     private int id; // Die eindeutige ID der Notiz
 
     /**
@@ -57,15 +68,15 @@ public class Note {
     private String content; // Der Inhalt der Notiz
 
     /**
-     * -- SETTER --
-     * Setzt die Tags der Notiz.
      * -- GETTER --
-     * Gibt die Tags der Notiz zurück.
+     * Gibt die Tags der Notiz zurück, beim Laden alphabetisch sortiert.
      */
-    @Setter
     @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "note_tags", joinColumns = @JoinColumn(name = "note_id"))
-    private List<String> tags = new ArrayList<>(); // Die Tags, die der Notiz zugeordnet sind
+    @CollectionTable(name = "note_tags", joinColumns = @JoinColumn(name = "note_id"), // Primaerschluessel (note_id, tags)
+            indexes = @Index(name = "idx_note_tags_tag", columnList = "tags, note_id"))
+    @OrderBy
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "note-tags")
+    private Set<String> tags = new LinkedHashSet<>(); // Die Tags, die der Notiz zugeordnet sind
 
     /**
      * -- SETTER --
@@ -75,7 +86,7 @@ public class Note {
      * Gibt den Benutzer zurück, der die Notiz erstellt hat.
      */
     @Setter
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // Der Benutzer wird nur bei Bedarf geladen; die ID ist ohne Abfrage verfuegbar
     @JsonBackReference // Verhindert die rekursive Serialisierung
     private org.bootstmytool.backend.model.User user; // Der Benutzer, der die Notiz erstellt hat
 
@@ -88,6 +99,7 @@ public class Note {
      */
     @Setter
     @OneToMany(mappedBy = "note", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "note-images")
     @JsonManagedReference // Verwaltet die Kindobjekte (Bilder)
     private List<Image> images = new ArrayList<>(); // Eine Liste von Bildern, die mit der Notiz verbunden sind
 
@@ -99,6 +111,13 @@ public class Note {
     @CreationTimestamp
     private Date createdAt;
 
+    /**
+     * -- GETTER --
+     * Gibt die Version der Notiz zurück. Sie steigt mit jeder Aenderung von Titel, Inhalt, Tags oder Bildern.
+     */
+    @Version
+    private long version;
+
 
     // Konstruktoren, Getter und Setter
 
@@ -109,5 +128,17 @@ public class Note {
     public Note() {
     }
 
+    /**
+     * Setzt die Tags der Notiz. Die bestehende Menge wird angepasst statt ersetzt, damit Hibernate nur die
+     * Zeilen hinzugekommener und entfernter Tags schreibt; doppelte Tags werden zusammengefasst.
+     *
+     * @param tags die neuen Tags, null fuer keine
+     */
+    public void setTags(Collection<String> tags) {
+        Set<String> target = tags == null ? new LinkedHashSet<>() : new LinkedHashSet<>(tags);
+        this.tags.retainAll(target);
+        this.tags.addAll(target);
+    }
+
 
 }
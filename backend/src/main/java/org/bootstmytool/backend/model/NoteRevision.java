@@ -0,0 +1,84 @@
+package org.bootstmytool.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import org.bootstmytool.backend.utils.TextSplice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Ein frueherer Stand von Titel, Inhalt und Tags einer Notiz.
+ * <p>
+ * Vor jeder Textaenderung wird der bisherige Stand unter der bisherigen Version der Notiz abgelegt. Er gilt
+ * fuer alle Versionen seit der vorherigen Textaenderung, denn Bildaenderungen erhoehen die Version, ohne den
+ * Text zu aendern. Revisionen werden nie geaendert und deshalb nur ueber die Notiz-ID referenziert.
+ * <p>
+ * Vom Inhalt wird nur der geaenderte Abschnitt gespeichert ({@link #getContentSplice()}): er macht aus dem
+ * Inhalt der naechsten Revision bzw. der Notiz den Inhalt dieser Revision. Titel und Tags sind klein und
+ * werden vollstaendig gespeichert.
+ */
+@Getter
+@Entity
+@Table(name = "note_revision",
+        uniqueConstraints = @UniqueConstraint(name = "uk_note_revision_note_version", columnNames = {"note_id", "version"}))
+public class NoteRevision {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_revision_seq")
+    @SequenceGenerator(name = "note_revision_seq", sequenceName = "note_revision_seq", allocationSize = 50)
+    private int id;
+
+    @Column(name = "note_id", nullable = false)
+    private int noteId; // Die Notiz, zu der der Stand gehoert
+
+    @Column(nullable = false)
+    private long version; // Die Version der Notiz, die diesen Stand zuletzt hatte
+
+    private String title;
+
+    private int contentOffset; // Beginn des Abschnitts im neueren Inhalt
+
+    private int contentLength; // Laenge des Abschnitts im neueren Inhalt
+
+    @Lob
+    private String contentText; // Der Abschnitt vor der Aenderung
+
+    @ElementCollection
+    @CollectionTable(name = "note_revision_tags", joinColumns = @JoinColumn(name = "revision_id"),
+            indexes = @Index(name = "idx_note_revision_tags", columnList = "revision_id, tags"))
+    private List<String> tags = new ArrayList<>();
+
+    /**
+     * Wird von JPA benoetigt.
+     */
+    protected NoteRevision() {
+    }
+
+    /**
+     * Haelt den aktuellen Stand einer Notiz fest, bevor sie geaendert wird.
+     *
+     * @param note       die Notiz vor der Aenderung
+     * @param newContent der Inhalt nach der Aenderung
+     */
+    public NoteRevision(Note note, String newContent) {
+        this.noteId = note.getId();
+        this.version = note.getVersion();
+        this.title = note.getTitle();
+        TextSplice splice = TextSplice.between(newContent, note.getContent());
+        this.contentOffset = splice.getOffset();
+        this.contentLength = splice.getLength();
+        this.contentText = splice.getText();
+        this.tags = new ArrayList<>(note.getTags());
+    }
+
+    /**
+     * Liefert die Ersetzung, die den neueren Inhalt in den Inhalt dieser Revision zurueckverwandelt.
+     */
+    public TextSplice getContentSplice() {
+        return new TextSplice(contentOffset, contentLength, contentText);
+    }
+}
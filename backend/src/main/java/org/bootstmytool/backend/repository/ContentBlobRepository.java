@@ -0,0 +1,46 @@
+package org.bootstmytool.backend.repository;
+
+import jakarta.persistence.LockModeType;
+import org.bootstmytool.backend.model.ContentBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Das Repository fuer die Referenzzaehler des inhaltsadressierten Bildspeichers.
+ */
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, String> {
+
+    //Laedt die Zeile eines Hashes und sperrt sie bis zum Ende der Transaktion (select ... for update)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from ContentBlob b where b.hash = :hash")
+    Optional<ContentBlob> findByHashForUpdate(@Param("hash") String hash);
+
+    //Legt die Zeile eines Hashes ohne Verweise an; schlaegt fehl, wenn eine andere Instanz sie bereits angelegt hat
+    @Modifying
+    @Transactional
+    @Query(value = "insert into content_blob (hash, ref_count, claimed_at) values (:hash, 0, :claimedAt)",
+            nativeQuery = true)
+    int insertUnreferenced(@Param("hash") String hash, @Param("claimedAt") LocalDateTime claimedAt);
+
+    //Aendert die Anzahl der Verweise; sperrt die Zeile bis zum Ende der Transaktion
+    @Modifying
+    @Transactional
+    @Query("update ContentBlob b set b.refCount = b.refCount + :delta where b.hash = :hash")
+    int addReferences(@Param("hash") String hash, @Param("delta") int delta);
+
+    //Laedt Hashes ohne Verweise, deren letzte Belegung vor dem Zeitpunkt liegt
+    @Query("select b.hash from ContentBlob b where b.refCount <= 0 and b.claimedAt < :before order by b.claimedAt")
+    List<String> findUnreferencedClaimedBefore(@Param("before") LocalDateTime before, Limit limit);
+}
@@ -1,8 +1,16 @@
 package org.bootstmytool.backend.repository;
 
 import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,10 +24,58 @@ import java.util.Optional;
  */
 public interface ImageRepository extends JpaRepository<Image, Integer> {
 
-    //Findet alle Bilder, die mit einer bestimmten Notiz verknuepft sind
-    List<Image> findByNoteId(int noteId);
+    //Findet alle Bilder, die mit einer bestimmten Notiz verknuepft sind (direkt ueber note_id, ohne Join)
+    @Query("select i from Image i where i.note.id = :noteId")
+    List<Image> findByNoteId(@Param("noteId") int noteId);
 
     //Findet ein Bild anhand der Bild-ID
     Optional<Image> findById(int imageId);
 
+    //Laedt nur die Dateinamen der Bilder mehrerer Notizen als Paare (Notiz-ID, URL), ohne die Bilddaten
+    @Query("select i.note.id, i.url from Image i where i.note.id in :noteIds order by i.id")
+    List<Object[]> findUrlsByNoteIds(@Param("noteIds") Collection<Integer> noteIds);
+
+    //Laedt den Dateinamen eines Bildes, sofern es den angegebenen Status hat
+    @Query("select i.url from Image i where i.id = :id and i.status = :status")
+    Optional<String> findUrlByIdAndStatus(@Param("id") int id, @Param("status") ImageStatus status);
+
+    //Laedt die Breite eines Bildes anhand des Dateinamens, sofern es den Status hat oder noch keinen Status besitzt
+    @Query("select i.width from Image i where i.url = :url and (i.status = :status or i.status is null)")
+    List<Integer> findWidthsByUrlAndStatus(@Param("url") String url, @Param("status") ImageStatus status);
+
+    //Prueft, ob ein Bild mit dem Dateinamen den angegebenen Status hat
+    boolean existsByUrlAndStatus(String url, ImageStatus status);
+
+    //Zaehlt die Bilder, die auf dieselbe Datei verweisen (Referenzzaehler des inhaltsadressierten Speichers)
+    long countByContentHash(String contentHash);
+
+    //Laedt Breite, Hoehe, MIME-Typ und Groesse eines anderen Bildes mit demselben Inhalt und Status
+    @Query("select i.width, i.height, i.contentType, i.size from Image i " +
+            "where i.contentHash = :hash and i.status = :status and i.id <> :id")
+    List<Object[]> findProcessingResultByContentHash(@Param("hash") String contentHash,
+                                                     @Param("status") ImageStatus status,
+                                                     @Param("id") int excludedId, Limit limit);
+
+    //Laedt die IDs der Bilder mit dem angegebenen Status, die vor dem Zeitpunkt hochgeladen wurden
+    @Query("select i.id from Image i where i.status = :status and i.createdDate < :before order by i.id")
+    List<Integer> findIdsByStatusCreatedBefore(@Param("status") ImageStatus status,
+                                               @Param("before") LocalDateTime before, Limit limit);
+
+    //Laedt die Bilder aller Notizen eines Benutzers als (Notiz-ID, ID, URL, Status, Breite) fuer die Notizliste
+    @Query("select i.note.id, i.id, i.url, i.status, i.width from Image i where i.note.user.id = :userId order by i.id")
+    List<Object[]> findListingByUserId(@Param("userId") int userId);
+
+    //Findet den Besitzer der Notiz, zu der ein Bild gehoert
+    @Query("select n.user.id from Image i join i.note n where i.id = :id")
+    Optional<Integer> findOwnerIdById(@Param("id") int id);
+
+    //Speichert das Ergebnis der Bildverarbeitung, ohne die Notiz-Beziehung zu laden
+    @Modifying
+    @Transactional
+    @Query("update Image i set i.status = :status, i.width = :width, i.height = :height, " +
+            "i.contentType = :contentType, i.size = :size where i.id = :id")
+    int updateProcessingResult(@Param("id") int id, @Param("status") ImageStatus status,
+                               @Param("width") Integer width, @Param("height") Integer height,
+                               @Param("contentType") String contentType, @Param("size") Long size);
+
 }
\ No newline at end of file
@@ -1,11 +1,23 @@
 package org.bootstmytool.backend.repository;
 
+import org.bootstmytool.backend.dto.NoteSummaryDTO;
 import org.bootstmytool.backend.model.Image;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.bootstmytool.backend.model.Note;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @Author Mohamed Cheikh
@@ -25,11 +37,111 @@ public interface NoteRepository extends JpaRepository<Note, Integer> {
      */
     Optional<Note> findById(int noteId); // Findet eine Note anhand ihrer ID
 
-    List<Note> findByUserId(int id); // Findet alle Notizen eines bestimmten Benutzers
+    // Findet alle Notizen eines bestimmten Benutzers (direkt ueber note.user_id, ohne Join auf users)
+    @Query("select n from Note n where n.user.id = :userId")
+    List<Note> findByUserId(@Param("userId") int id);
 
     Optional<Note> getNoteById(int noteId); // Findet eine Note anhand ihrer ID
 
-    List<Note> findByImagesContaining(Image image); // Findet alle Notizen, die ein bestimmtes Bild enthalten
+    // Findet alle Notizen, die ein bestimmtes Bild enthalten (ueber den Primaerschluessel des Bildes)
+    @Query("select i.note from Image i where i = :image")
+    List<Note> findByImagesContaining(@Param("image") Image image);
+
+    /**
+     * Liefert die neuesten Notiz-Zusammenfassungen eines Benutzers (erste Seite, absteigend).
+     * Es werden weder der vollstaendige Inhalt noch die Bilder geladen.
+     *
+     * @param userId Die ID des Benutzers
+     * @param limit  Die maximale Anzahl an Ergebnissen
+     * @return Die Zusammenfassungen, sortiert nach Erstellungsdatum und ID
+     */
+    @Query("select new org.bootstmytool.backend.dto.NoteSummaryDTO(n.id, n.title, substring(cast(n.content as String), 1, 200), n.createdAt, size(n.images)) "
+            + "from Note n where n.user.id = :userId "
+            + "order by n.createdAt desc, n.id desc")
+    List<NoteSummaryDTO> findSummariesNewest(@Param("userId") int userId, Limit limit);
+
+    /**
+     * Liefert die Notiz-Zusammenfassungen, die im absteigenden Keyset nach dem Cursor folgen.
+     */
+    @Query("select new org.bootstmytool.backend.dto.NoteSummaryDTO(n.id, n.title, substring(cast(n.content as String), 1, 200), n.createdAt, size(n.images)) "
+            + "from Note n where n.user.id = :userId "
+            + "and (n.createdAt < :createdAt or (n.createdAt = :createdAt and n.id < :id)) "
+            + "order by n.createdAt desc, n.id desc")
+    List<NoteSummaryDTO> findSummariesNewestAfter(@Param("userId") int userId, @Param("createdAt") Date createdAt,
+                                                  @Param("id") int id, Limit limit);
+
+    /**
+     * Liefert die aeltesten Notiz-Zusammenfassungen eines Benutzers (erste Seite, aufsteigend).
+     */
+    @Query("select new org.bootstmytool.backend.dto.NoteSummaryDTO(n.id, n.title, substring(cast(n.content as String), 1, 200), n.createdAt, size(n.images)) "
+            + "from Note n where n.user.id = :userId "
+            + "order by n.createdAt asc, n.id asc")
+    List<NoteSummaryDTO> findSummariesOldest(@Param("userId") int userId, Limit limit);
+
+    /**
+     * Liefert die Notiz-Zusammenfassungen, die im aufsteigenden Keyset nach dem Cursor folgen.
+     */
+    @Query("select new org.bootstmytool.backend.dto.NoteSummaryDTO(n.id, n.title, substring(cast(n.content as String), 1, 200), n.createdAt, size(n.images)) "
+            + "from Note n where n.user.id = :userId "
+            + "and (n.createdAt > :createdAt or (n.createdAt = :createdAt and n.id > :id)) "
+            + "order by n.createdAt asc, n.id asc")
+    List<NoteSummaryDTO> findSummariesOldestAfter(@Param("userId") int userId, @Param("createdAt") Date createdAt,
+                                                  @Param("id") int id, Limit limit);
+
+    /**
+     * Laedt die Tags mehrerer Notizen in einer Abfrage als Paare (Notiz-ID, Tag).
+     */
+    @Query("select n.id, t from Note n join n.tags t where n.id in :noteIds")
+    List<Object[]> findTagsByNoteIds(@Param("noteIds") Collection<Integer> noteIds);
+
+    /**
+     * Laedt alle Tags eines Benutzers als Paare (Notiz-ID, Tag) fuer den Aufbau des Suchindex.
+     */
+    @Query("select n.id, t from Note n join n.tags t where n.user.id = :userId")
+    List<Object[]> findTagsByUserId(@Param("userId") int userId);
+
+    /**
+     * Laedt die durchsuchbaren Felder aller Notizen eines Benutzers als (ID, Titel, Inhalt), ohne Bilder.
+     */
+    @Query("select n.id, n.title, n.content from Note n where n.user.id = :userId")
+    List<Object[]> findSearchSourcesByUserId(@Param("userId") int userId);
+
+    /**
+     * Laedt die Felder fuer Suchtreffer als (ID, Titel, Inhalt, Erstellungsdatum), ohne Bilder.
+     */
+    @Query("select n.id, n.title, n.content, n.createdAt from Note n where n.id in :noteIds")
+    List<Object[]> findSearchSourcesByIds(@Param("noteIds") Collection<Integer> noteIds);
+
+    /**
+     * Liefert die Notizen eines Benutzers mit einer ID groesser als {@code afterId} als Stream, aufsteigend
+     * nach ID und mit ihren Bildern. Die Zeilen werden ueber einen Datenbank-Cursor gelesen; der Aufrufer
+     * muss den Stream innerhalb einer Transaktion verbrauchen und schliessen.
+     */
+    @Query("select n from Note n left join fetch n.images where n.user.id = :userId and n.id > :afterId order by n.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<Note> streamByUserIdAfter(@Param("userId") int userId, @Param("afterId") int afterId);
+
+    /**
+     * Laedt die Felder fuer die Notizliste als (ID, Titel, Inhalt, Erstellungsdatum, Version), aufsteigend nach ID.
+     * Tags und Bilder folgen ueber {@link #findTagsByUserId} und {@code ImageRepository.findListingByUserId}.
+     */
+    @Query("select n.id, n.title, n.content, n.createdAt, n.version from Note n where n.user.id = :userId order by n.id")
+    List<Object[]> findListingByUserId(@Param("userId") int userId);
+
+    /**
+     * Laedt eine Notiz und erhoeht ihre Version beim Commit, auch wenn sich keine ihrer Spalten aendert.
+     * Fuer Aenderungen an den Bildern, die zur Darstellung der Notiz gehoeren.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select n from Note n where n.id = :id")
+    Optional<Note> findByIdForVersionIncrement(@Param("id") int id);
+
+    /**
+     * Wie {@link #findByIdForVersionIncrement}, fuer die Notiz eines Bildes.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select n from Note n where n.id = (select i.note.id from Image i where i.id = :imageId)")
+    Optional<Note> findByImageIdForVersionIncrement(@Param("imageId") int imageId);
 
 }
 
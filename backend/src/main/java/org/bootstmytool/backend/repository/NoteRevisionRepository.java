@@ -0,0 +1,44 @@
+package org.bootstmytool.backend.repository;
+
+import org.bootstmytool.backend.model.NoteRevision;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Das Repository fuer die frueheren Staende der Notizen. Alle Abfragen laufen ueber den eindeutigen
+ * Index auf (note_id, version).
+ */
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Integer> {
+
+    /**
+     * Liefert die Revisionen einer Notiz ab der angegebenen Version, die neueste zuerst. Die letzte ist der
+     * Stand, den die Notiz in dieser Version hatte; ihr Inhalt ergibt sich aus den Abschnitten aller Revisionen.
+     */
+    @Query("select r from NoteRevision r where r.noteId = :noteId and r.version >= :version order by r.version desc")
+    List<NoteRevision> findFromVersion(@Param("noteId") int noteId, @Param("version") long version);
+
+    // Prueft, ob vor der angegebenen Version eine Textaenderung festgehalten ist
+    boolean existsByNoteIdAndVersionLessThan(int noteId, long version);
+
+    // Zaehlt die Revisionen einer Notiz
+    long countByNoteId(int noteId);
+
+    /**
+     * Liefert die Versionen der Revisionen einer Notiz, die neueste zuerst.
+     */
+    @Query("select r.version from NoteRevision r where r.noteId = :noteId order by r.version desc")
+    List<Long> findVersionsByNoteId(@Param("noteId") int noteId, Limit limit);
+
+    // Entfernt die Revisionen einer Notiz bis einschliesslich der angegebenen Version
+    @Modifying
+    @Query("delete from NoteRevision r where r.noteId = :noteId and r.version <= :version")
+    int deleteUpToVersion(@Param("noteId") int noteId, @Param("version") long version);
+}
@@ -0,0 +1,89 @@
+package org.bootstmytool.backend.search;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Begrenzte Editierdistanz fuer die fehlertolerante Suche.
+ * <p>
+ * Berechnet wird die Levenshtein-Distanz, bei der zusaetzlich das Vertauschen zweier benachbarter
+ * Zeichen als ein Fehler zaehlt ("mlich" statt "milch"). Es wird nur ein Band der Breite
+ * {@code 2 * max + 1} um die Diagonale berechnet, der Aufwand ist daher linear in der Wortlaenge.
+ */
+public final class EditDistance {
+
+    // Anzahl der Trigramme, die ein einzelner Fehler hoechstens veraendert (Vertauschung)
+    static final int GRAMS_PER_EDIT = 4;
+
+    private EditDistance() {
+    }
+
+    /**
+     * Liefert die Anzahl erlaubter Tippfehler fuer einen Begriff der angegebenen Laenge:
+     * keine bis 2 Zeichen, einen bis 5 Zeichen, sonst zwei.
+     */
+    public static int allowedEdits(int length) {
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Berechnet die Editierdistanz, sofern sie hoechstens {@code max} betraegt.
+     *
+     * @param a   Der erste Begriff
+     * @param b   Der zweite Begriff
+     * @param max Die groesste interessierende Distanz
+     * @return Die Distanz oder {@code max + 1}, falls sie groesser als {@code max} ist
+     */
+    public static int boundedDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        if (max == 0) {
+            return a.equals(b) ? 0 : 1;
+        }
+        int outside = max + 1; // Wert fuer Zellen ausserhalb des Bandes
+        int[] beforePrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= max ? j : outside;
+            beforePrevious[j] = outside;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            current[0] = i <= max ? i : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+            int rowMinimum = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j] + 1, current[j - 1] + 1));
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1); // Vertauschung
+                }
+                current[j] = Math.min(value, outside);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = outside;
+            }
+            if (rowMinimum > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+}
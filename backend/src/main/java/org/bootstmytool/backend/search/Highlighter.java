@@ -0,0 +1,130 @@
+package org.bootstmytool.backend.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Erzeugt Textausschnitte mit hervorgehobenen Suchtreffern.
+ * <p>
+ * Der Text wird HTML-maskiert, Treffer werden in {@code <mark>...</mark>} eingeschlossen.
+ * Damit kann das Frontend den Ausschnitt gefahrlos als HTML darstellen.
+ */
+public final class Highlighter {
+
+    private final Set<String> terms = new HashSet<>(); // Exakte Begriffe der Anfrage
+    private final List<String> prefixes = new ArrayList<>(); // Praefixe der Anfrage
+    private final List<String> fragments = new ArrayList<>(); // Wortteile der Anfrage
+    private final List<String> fuzzyTerms = new ArrayList<>(); // Fehlertolerante Begriffe der Anfrage
+
+    public Highlighter(SearchQuery query) {
+        for (SearchQuery.Clause clause : query.getClauses()) {
+            switch (clause.getKind()) {
+                case PREFIX -> prefixes.add(clause.getTerms().get(0));
+                case CONTAINS -> fragments.add(clause.getTerms().get(0));
+                case FUZZY -> fuzzyTerms.add(clause.getTerms().get(0));
+                default -> terms.addAll(clause.getTerms());
+            }
+        }
+    }
+
+    /**
+     * Hebt alle Treffer im gesamten Text hervor.
+     */
+    public String highlight(String text) {
+        if (text == null) {
+            return "";
+        }
+        return render(text, TextAnalyzer.tokenize(text), 0, text.length());
+    }
+
+    /**
+     * Liefert einen Ausschnitt von hoechstens {@code maxLength} Zeichen um den ersten Treffer.
+     * Ohne Treffer wird der Anfang des Textes geliefert.
+     */
+    public String snippet(String text, int maxLength) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        List<TextAnalyzer.Token> tokens = TextAnalyzer.tokenize(text);
+        int start = 0;
+        for (TextAnalyzer.Token token : tokens) {
+            if (matches(token.getTerm())) {
+                // Etwas Kontext vor dem ersten Treffer lassen und an einer Wortgrenze beginnen
+                start = Math.max(0, token.getStart() - maxLength / 3);
+                while (start > 0 && start < token.getStart() && !Character.isWhitespace(text.charAt(start - 1))) {
+                    start++;
+                }
+                break;
+            }
+        }
+        int end = Math.min(text.length(), start + maxLength);
+        StringBuilder snippet = new StringBuilder();
+        if (start > 0) {
+            snippet.append("…");
+        }
+        snippet.append(render(text, tokens, start, end));
+        if (end < text.length()) {
+            snippet.append("…");
+        }
+        return snippet.toString();
+    }
+
+    private String render(String text, List<TextAnalyzer.Token> tokens, int start, int end) {
+        StringBuilder out = new StringBuilder();
+        int cursor = start;
+        for (TextAnalyzer.Token token : tokens) {
+            if (token.getStart() < start || token.getEnd() > end || !matches(token.getTerm())) {
+                continue;
+            }
+            escape(out, text, cursor, token.getStart());
+            out.append("<mark>");
+            escape(out, text, token.getStart(), token.getEnd());
+            out.append("</mark>");
+            cursor = token.getEnd();
+        }
+        escape(out, text, cursor, end);
+        return out.toString();
+    }
+
+    private boolean matches(String term) {
+        if (terms.contains(term)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (term.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String fragment : fragments) {
+            if (term.contains(fragment)) {
+                return true;
+            }
+        }
+        for (String fuzzy : fuzzyTerms) {
+            int maxEdits = EditDistance.allowedEdits(fuzzy.length());
+            if (EditDistance.boundedDistance(fuzzy, term, maxEdits) <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void escape(StringBuilder out, String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
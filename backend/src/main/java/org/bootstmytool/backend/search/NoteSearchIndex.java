@@ -0,0 +1,392 @@
+package org.bootstmytool.backend.search;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Invertierter Index ueber die Notizen eines einzelnen Benutzers.
+ * <p>
+ * Fuer jeden Begriff werden pro Notiz die Wortpositionen in Titel, Inhalt und Tags gespeichert.
+ * Die Bewertung erfolgt nach BM25, wobei Treffer im Titel und in den Tags hoeher gewichtet werden.
+ * Positionen erlauben Phrasensuche; das sortierte Vokabular erlaubt Praefixsuche. Ein
+ * {@link TrigramIndex} ueber dem Vokabular erlaubt die Suche nach Wortteilen und fehlertolerante Suche.
+ * Der Index wird inkrementell ueber {@link #upsert} und {@link #remove} gepflegt.
+ * Lesezugriffe laufen parallel, Aenderungen exklusiv.
+ */
+public class NoteSearchIndex {
+
+    static final int FIELD_TITLE = 0;
+    static final int FIELD_CONTENT = 1;
+    static final int FIELD_TAGS = 2;
+    private static final int FIELD_COUNT = 3;
+
+    // Gewichtung der Felder: Titel vor Tags vor Inhalt
+    private static final double[] FIELD_WEIGHTS = {2.0, 1.0, 1.5};
+    // Uebliche BM25-Parameter
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Abstand zwischen zwei Tags, damit Phrasen nicht ueber Tag-Grenzen hinweg passen
+    private static final int TAG_POSITION_GAP = 100;
+    // Maximale Anzahl an Begriffen, auf die ein Praefix expandiert wird
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    // Praefix-Treffer zaehlen etwas weniger als exakte Treffer
+    private static final double PREFIX_BOOST = 0.8;
+    // Maximale Anzahl an Begriffen, auf die ein Wortteil oder ein fehlertoleranter Begriff expandiert wird
+    private static final int MAX_TRIGRAM_EXPANSIONS = 512;
+    // Treffer auf einen Wortteil zaehlen weniger als ein vollstaendiges Wort
+    private static final double CONTAINS_BOOST = 0.7;
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Integer, int[][]>> postings = new TreeMap<>(); // Begriff -> Notiz -> Positionen je Feld
+    private final Map<Integer, int[]> fieldLengths = new HashMap<>(); // Notiz -> Anzahl Begriffe je Feld
+    private final Map<Integer, String[]> noteTerms = new HashMap<>(); // Notiz -> enthaltene Begriffe (zum Entfernen)
+    private final TrigramIndex trigrams = new TrigramIndex(); // Trigramme des Vokabulars
+    private final long[] totalFieldLengths = new long[FIELD_COUNT];
+    private volatile boolean loaded;
+
+    /**
+     * Ein bewerteter Treffer.
+     */
+    @Getter
+    public static final class Hit {
+        private final int noteId; // Die ID der Notiz
+        private final double score; // Die BM25-Bewertung
+
+        Hit(int noteId, double score) {
+            this.noteId = noteId;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Fuellt den Index einmalig ueber den angegebenen Lader.
+     * Aenderungen, die waehrend des Ladens eintreffen, warten auf den Abschluss und werden danach angewendet.
+     *
+     * @param loader Ruft {@link #upsert} fuer jede vorhandene Notiz auf
+     */
+    public void ensureLoaded(Consumer<NoteSearchIndex> loader) {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                loader.accept(this);
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nimmt eine Notiz in den Index auf oder ersetzt ihren bisherigen Eintrag.
+     */
+    public void upsert(int noteId, String title, String content, Collection<String> tags) {
+        Map<String, List<Integer>[]> positions = new HashMap<>();
+        int[] lengths = new int[FIELD_COUNT];
+        lengths[FIELD_TITLE] = collect(positions, FIELD_TITLE, TextAnalyzer.tokenize(title), 0);
+        lengths[FIELD_CONTENT] = collect(positions, FIELD_CONTENT, TextAnalyzer.tokenize(content), 0);
+        if (tags != null) {
+            int offset = 0;
+            for (String tag : tags) {
+                int count = collect(positions, FIELD_TAGS, TextAnalyzer.tokenize(tag), offset);
+                lengths[FIELD_TAGS] += count;
+                offset += count + TAG_POSITION_GAP;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(noteId);
+            String[] terms = new String[positions.size()];
+            int t = 0;
+            for (Map.Entry<String, List<Integer>[]> entry : positions.entrySet()) {
+                int[][] perField = new int[FIELD_COUNT][];
+                for (int f = 0; f < FIELD_COUNT; f++) {
+                    List<Integer> list = entry.getValue()[f];
+                    perField[f] = list == null ? NO_POSITIONS : list.stream().mapToInt(Integer::intValue).toArray();
+                }
+                Map<Integer, int[][]> notes = postings.get(entry.getKey());
+                if (notes == null) {
+                    notes = new HashMap<>();
+                    postings.put(entry.getKey(), notes);
+                    trigrams.add(entry.getKey());
+                }
+                notes.put(noteId, perField);
+                terms[t++] = entry.getKey();
+            }
+            noteTerms.put(noteId, terms);
+            fieldLengths.put(noteId, lengths);
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                totalFieldLengths[f] += lengths[f];
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entfernt eine Notiz aus dem Index.
+     */
+    public void remove(int noteId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(noteId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der indizierten Notizen zurueck.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return fieldLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sucht alle Notizen, auf die jede Klausel der Anfrage zutrifft, und sortiert sie nach Relevanz.
+     *
+     * @param query Die geparste Anfrage
+     * @return Die Treffer, beste zuerst
+     */
+    public List<Hit> search(SearchQuery query) {
+        lock.readLock().lock();
+        try {
+            int noteCount = fieldLengths.size();
+            if (noteCount == 0 || query.isEmpty()) {
+                return List.of();
+            }
+            double[] averageLengths = new double[FIELD_COUNT];
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                averageLengths[f] = Math.max(1.0, (double) totalFieldLengths[f] / noteCount);
+            }
+
+            Map<Integer, Double> result = null;
+            for (SearchQuery.Clause clause : query.getClauses()) {
+                Map<Integer, Double> scores = scoreClause(clause, noteCount, averageLengths);
+                if (result == null) {
+                    result = scores;
+                } else {
+                    result.keySet().retainAll(scores.keySet());
+                    result.replaceAll((noteId, score) -> score + scores.get(noteId));
+                }
+                if (result.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(result.size());
+            result.forEach((noteId, score) -> hits.add(new Hit(noteId, score)));
+            hits.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score) : Integer.compare(b.noteId, a.noteId));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Liefert die Begriffe des Vokabulars, die mit dem Praefix beginnen (begrenzt).
+     */
+    List<String> expandPrefix(String prefix) {
+        List<String> terms = new ArrayList<>();
+        NavigableMap<String, Map<Integer, int[][]>> range =
+                postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+        for (String term : range.keySet()) {
+            if (terms.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            terms.add(term);
+        }
+        return terms;
+    }
+
+    /**
+     * Liefert die Begriffe des Vokabulars, die den Wortteil enthalten (begrenzt).
+     */
+    List<String> expandContains(String fragment) {
+        return trigrams.containing(fragment, MAX_TRIGRAM_EXPANSIONS);
+    }
+
+    /**
+     * Liefert die Begriffe des Vokabulars mit wenigen Tippfehlern gegenueber dem Begriff, jeweils mit Distanz.
+     */
+    Map<String, Integer> expandFuzzy(String term) {
+        return trigrams.similar(term, EditDistance.allowedEdits(term.length()), MAX_TRIGRAM_EXPANSIONS);
+    }
+
+    private Map<Integer, Double> scoreClause(SearchQuery.Clause clause, int noteCount, double[] averageLengths) {
+        switch (clause.getKind()) {
+            case TERM:
+                return scoreTerm(clause.getTerms().get(0), noteCount, averageLengths, 1.0);
+            case PREFIX: {
+                Map<Integer, Double> scores = new HashMap<>();
+                for (String term : expandPrefix(clause.getTerms().get(0))) {
+                    scoreTerm(term, noteCount, averageLengths, PREFIX_BOOST).forEach((noteId, score) ->
+                            scores.merge(noteId, score, Double::sum));
+                }
+                return scores;
+            }
+            case CONTAINS: {
+                String fragment = clause.getTerms().get(0);
+                Map<Integer, Double> scores = new HashMap<>();
+                for (String term : expandContains(fragment)) {
+                    double boost = term.equals(fragment) ? 1.0 : CONTAINS_BOOST;
+                    scoreTerm(term, noteCount, averageLengths, boost).forEach((noteId, score) ->
+                            scores.merge(noteId, score, Double::sum));
+                }
+                return scores;
+            }
+            case FUZZY: {
+                Map<Integer, Double> scores = new HashMap<>();
+                expandFuzzy(clause.getTerms().get(0)).forEach((term, distance) ->
+                        // Jede Abweichung halbiert das Gewicht
+                        scoreTerm(term, noteCount, averageLengths, 1.0 / (1 << distance)).forEach((noteId, score) ->
+                                scores.merge(noteId, score, Double::sum)));
+                return scores;
+            }
+            case PHRASE:
+            default:
+                return scorePhrase(clause.getTerms(), noteCount, averageLengths);
+        }
+    }
+
+    private Map<Integer, Double> scoreTerm(String term, int noteCount, double[] averageLengths, double boost) {
+        Map<Integer, int[][]> notes = postings.get(term);
+        Map<Integer, Double> scores = new HashMap<>();
+        if (notes == null) {
+            return scores;
+        }
+        double idf = idf(notes.size(), noteCount);
+        notes.forEach((noteId, perField) -> {
+            int[] frequencies = new int[FIELD_COUNT];
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                frequencies[f] = perField[f].length;
+            }
+            scores.put(noteId, boost * bm25(noteId, frequencies, idf, averageLengths));
+        });
+        return scores;
+    }
+
+    private Map<Integer, Double> scorePhrase(List<String> terms, int noteCount, double[] averageLengths) {
+        List<Map<Integer, int[][]>> termPostings = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Map<Integer, int[][]> notes = postings.get(term);
+            if (notes == null) {
+                return new HashMap<>();
+            }
+            termPostings.add(notes);
+        }
+
+        Map<Integer, int[]> frequenciesByNote = new HashMap<>();
+        for (Integer noteId : termPostings.get(0).keySet()) {
+            int[] frequencies = new int[FIELD_COUNT];
+            boolean matched = false;
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                frequencies[f] = countPhrase(termPostings, noteId, f);
+                matched |= frequencies[f] > 0;
+            }
+            if (matched) {
+                frequenciesByNote.put(noteId, frequencies);
+            }
+        }
+
+        double idf = idf(frequenciesByNote.size(), noteCount);
+        Map<Integer, Double> scores = new HashMap<>();
+        frequenciesByNote.forEach((noteId, frequencies) ->
+                scores.put(noteId, bm25(noteId, frequencies, idf, averageLengths)));
+        return scores;
+    }
+
+    /**
+     * Zaehlt, wie oft die Begriffe direkt hintereinander im Feld vorkommen.
+     */
+    private static int countPhrase(List<Map<Integer, int[][]>> termPostings, int noteId, int field) {
+        int[][] first = termPostings.get(0).get(noteId);
+        int count = 0;
+        for (int start : first[field]) {
+            boolean matches = true;
+            for (int j = 1; j < termPostings.size() && matches; j++) {
+                int[][] perField = termPostings.get(j).get(noteId);
+                matches = perField != null && Arrays.binarySearch(perField[field], start + j) >= 0;
+            }
+            if (matches) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private double bm25(int noteId, int[] frequencies, double idf, double[] averageLengths) {
+        int[] lengths = fieldLengths.get(noteId);
+        double score = 0;
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            int tf = frequencies[f];
+            if (tf == 0) {
+                continue;
+            }
+            double norm = K1 * (1 - B + B * lengths[f] / averageLengths[f]);
+            score += FIELD_WEIGHTS[f] * idf * (tf * (K1 + 1)) / (tf + norm);
+        }
+        return score;
+    }
+
+    private static double idf(int documentFrequency, int noteCount) {
+        return Math.log(1 + (noteCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private void removeInternal(int noteId) {
+        String[] terms = noteTerms.remove(noteId);
+        if (terms != null) {
+            for (String term : terms) {
+                Map<Integer, int[][]> notes = postings.get(term);
+                if (notes != null) {
+                    notes.remove(noteId);
+                    if (notes.isEmpty()) {
+                        postings.remove(term);
+                        trigrams.remove(term);
+                    }
+                }
+            }
+        }
+        int[] lengths = fieldLengths.remove(noteId);
+        if (lengths != null) {
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                totalFieldLengths[f] -= lengths[f];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int collect(Map<String, List<Integer>[]> positions, int field, List<TextAnalyzer.Token> tokens, int offset) {
+        for (TextAnalyzer.Token token : tokens) {
+            List<Integer>[] perField = positions.computeIfAbsent(token.getTerm(), k -> new List[FIELD_COUNT]);
+            if (perField[field] == null) {
+                perField[field] = new ArrayList<>();
+            }
+            perField[field].add(token.getPosition() + offset);
+        }
+        return tokens.size();
+    }
+}
@@ -0,0 +1,170 @@
+package org.bootstmytool.backend.search;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Eine geparste Suchanfrage.
+ * <p>
+ * Unterstuetzt werden einzelne Begriffe ({@code milch}), Praefixe ({@code fahr*}) und Phrasen in
+ * Anfuehrungszeichen ({@code "milch und brot"}). Alle Klauseln muessen zutreffen.
+ * Der {@link Mode} legt fest, wie einzelne Begriffe ausgewertet werden: exakt, als Wortteil oder
+ * fehlertolerant.
+ */
+@Getter
+public final class SearchQuery {
+
+    // Minimale Laenge eines Praefixes, damit nicht das ganze Vokabular expandiert wird
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    /**
+     * Suchmodus fuer einzelne Begriffe.
+     */
+    public enum Mode {
+        FULLTEXT, // Exakte Begriffe
+        CONTAINS, // Begriffe, die den Wortteil enthalten
+        FUZZY; // Begriffe mit wenigen Tippfehlern
+
+        /**
+         * Wandelt den Request-Parameter in einen Suchmodus um.
+         *
+         * @param value "fulltext", "contains" oder "fuzzy"
+         * @return der Suchmodus
+         */
+        public static Mode fromParameter(String value) {
+            if (value == null || value.isBlank()) {
+                return FULLTEXT;
+            }
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("Ungueltiger Suchmodus: " + value);
+        }
+    }
+
+    /**
+     * Art einer Klausel.
+     */
+    public enum Kind {
+        TERM, // Exakter Begriff
+        PREFIX, // Begriffe, die mit dem Praefix beginnen
+        PHRASE, // Aufeinanderfolgende Begriffe
+        CONTAINS, // Begriffe, die den Wortteil enthalten
+        FUZZY // Begriffe mit begrenzter Editierdistanz
+    }
+
+    /**
+     * Eine einzelne Klausel der Anfrage.
+     */
+    @Getter
+    public static final class Clause {
+        private final Kind kind; // Art der Klausel
+        private final List<String> terms; // Normalisierte Begriffe (bei PREFIX, CONTAINS und FUZZY genau einer)
+
+        Clause(Kind kind, List<String> terms) {
+            this.kind = kind;
+            this.terms = terms;
+        }
+    }
+
+    private final List<Clause> clauses;
+
+    private SearchQuery(List<Clause> clauses) {
+        this.clauses = Collections.unmodifiableList(clauses);
+    }
+
+    /**
+     * Prueft, ob die Anfrage keine verwertbaren Begriffe enthaelt.
+     */
+    public boolean isEmpty() {
+        return clauses.isEmpty();
+    }
+
+    /**
+     * Parst eine Suchanfrage im Modus {@link Mode#FULLTEXT}.
+     *
+     * @param query Die Eingabe des Benutzers
+     * @return Die geparste Anfrage
+     */
+    public static SearchQuery parse(String query) {
+        return parse(query, Mode.FULLTEXT);
+    }
+
+    /**
+     * Parst eine Suchanfrage. Praefixe und Phrasen werden unabhaengig vom Modus ausgewertet.
+     *
+     * @param query Die Eingabe des Benutzers
+     * @param mode  Der Suchmodus fuer einzelne Begriffe
+     * @return Die geparste Anfrage
+     */
+    public static SearchQuery parse(String query, Mode mode) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null) {
+            return new SearchQuery(clauses);
+        }
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int close = query.indexOf('"', i + 1);
+                int end = close < 0 ? length : close;
+                // Text in Anfuehrungszeichen wird immer exakt gesucht
+                addWords(clauses, query.substring(i + 1, end), false, Mode.FULLTEXT);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"') {
+                    end++;
+                }
+                String word = query.substring(i, end);
+                addWords(clauses, word, word.endsWith("*"), mode);
+                i = end;
+            }
+        }
+        return new SearchQuery(clauses);
+    }
+
+    /**
+     * Fuegt die Klausel fuer ein Wort oder eine Phrase hinzu.
+     * Ein Wort wie "e-mail" ergibt mehrere Begriffe und wird daher als Phrase behandelt.
+     */
+    private static void addWords(List<Clause> clauses, String text, boolean prefix, Mode mode) {
+        List<String> terms = new ArrayList<>();
+        for (TextAnalyzer.Token token : TextAnalyzer.tokenize(text)) {
+            terms.add(token.getTerm());
+        }
+        if (terms.isEmpty()) {
+            return;
+        }
+        if (prefix && terms.size() == 1 && terms.get(0).length() >= MIN_PREFIX_LENGTH) {
+            clauses.add(new Clause(Kind.PREFIX, terms));
+        } else if (terms.size() == 1) {
+            clauses.add(new Clause(termKind(mode), terms));
+        } else {
+            clauses.add(new Clause(Kind.PHRASE, terms));
+        }
+    }
+
+    private static Kind termKind(Mode mode) {
+        switch (mode) {
+            case CONTAINS:
+                return Kind.CONTAINS;
+            case FUZZY:
+                return Kind.FUZZY;
+            case FULLTEXT:
+            default:
+                return Kind.TERM;
+        }
+    }
+}
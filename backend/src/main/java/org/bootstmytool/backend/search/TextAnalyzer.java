@@ -0,0 +1,92 @@
+package org.bootstmytool.backend.search;
+
+import lombok.Getter;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Zerlegt Texte in normalisierte Suchbegriffe.
+ * <p>
+ * Begriffe sind Folgen von Buchstaben und Ziffern. Sie werden kleingeschrieben, Umlaute werden
+ * ausgeschrieben ("ä" wird zu "ae", "ß" zu "ss") und sonstige Akzente entfernt, sodass "Übung" und
+ * "uebung" denselben Begriff ergeben. Index und Anfrage verwenden dieselbe Normalisierung.
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Ein Begriff mit seiner Position (Wortindex) und seinen Zeichen-Offsets im Originaltext.
+     */
+    @Getter
+    public static final class Token {
+        private final String term; // Der normalisierte Begriff
+        private final int position; // Die Wortposition im Text
+        private final int start; // Start-Offset im Originaltext (inklusiv)
+        private final int end; // End-Offset im Originaltext (exklusiv)
+
+        Token(String term, int position, int start, int end) {
+            this.term = term;
+            this.position = position;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Zerlegt einen Text in Begriffe.
+     *
+     * @param text Der Text, darf null sein
+     * @return Die Begriffe in Textreihenfolge
+     */
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int position = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+                continue;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            String term = normalize(text.substring(start, i));
+            if (!term.isEmpty()) {
+                tokens.add(new Token(term, position++, start, i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Normalisiert ein einzelnes Wort.
+     *
+     * @param word Das Wort
+     * @return Der normalisierte Begriff
+     */
+    public static String normalize(String word) {
+        String lower = word.toLowerCase(Locale.GERMAN)
+                .replace("ä", "ae")
+                .replace("ö", "oe")
+                .replace("ü", "ue")
+                .replace("ß", "ss");
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+}
@@ -0,0 +1,192 @@
+package org.bootstmytool.backend.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Trigramm-Index ueber das Vokabular eines {@link NoteSearchIndex}.
+ * <p>
+ * Jeder Begriff wird mit zwei Randzeichen auf beiden Seiten aufgefuellt und in Trigramme zerlegt
+ * ("milch" ergibt "$$m", "$mi", "mil", ..., "h$$"). Damit lassen sich Wortteile ({@code contains})
+ * und Begriffe mit Tippfehlern finden, ohne das gesamte Vokabular zu durchlaufen. Indiziert wird das
+ * Vokabular und nicht die Notizen: Es waechst deutlich langsamer als die Anzahl der Notizen.
+ * <p>
+ * Die Klasse ist nicht threadsicher; der umgebende {@link NoteSearchIndex} synchronisiert die Zugriffe.
+ */
+public final class TrigramIndex {
+
+    private static final int GRAM = 3;
+    private static final char PAD = '$'; // Kommt in normalisierten Begriffen nicht vor
+
+    private final Map<String, Set<String>> termsByGram = new HashMap<>(); // Trigramm -> Begriffe
+
+    /**
+     * Nimmt einen Begriff des Vokabulars auf.
+     */
+    public void add(String term) {
+        for (String gram : paddedGrams(term)) {
+            termsByGram.computeIfAbsent(gram, k -> new HashSet<>()).add(term);
+        }
+    }
+
+    /**
+     * Entfernt einen Begriff, der im Vokabular nicht mehr vorkommt.
+     */
+    public void remove(String term) {
+        for (String gram : paddedGrams(term)) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    termsByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sucht Begriffe, die den Wortteil enthalten.
+     * Ab drei Zeichen wird nur die kleinste Trigramm-Liste des Wortteils geprueft; kuerzere Wortteile
+     * werden ueber die Trigramme selbst aufgeloest, deren Anzahl vom Alphabet und nicht von der Anzahl
+     * der Notizen begrenzt ist.
+     *
+     * @param fragment Der normalisierte Wortteil
+     * @param limit    Die maximale Anzahl gelieferter Begriffe
+     * @return Die passenden Begriffe
+     */
+    public List<String> containing(String fragment, int limit) {
+        List<String> result = new ArrayList<>();
+        if (fragment.isEmpty()) {
+            return result;
+        }
+        if (fragment.length() < GRAM) {
+            Set<String> seen = new HashSet<>();
+            for (Map.Entry<String, Set<String>> entry : termsByGram.entrySet()) {
+                if (!entry.getKey().contains(fragment)) {
+                    continue;
+                }
+                for (String term : entry.getValue()) {
+                    if (term.contains(fragment) && seen.add(term)) {
+                        result.add(term);
+                        if (result.size() >= limit) {
+                            return result;
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        // Die seltenste Trigramm-Liste liefert die kleinste Kandidatenmenge
+        Set<String> smallest = null;
+        for (int i = 0; i + GRAM <= fragment.length(); i++) {
+            Set<String> terms = termsByGram.get(fragment.substring(i, i + GRAM));
+            if (terms == null) {
+                return result;
+            }
+            if (smallest == null || terms.size() < smallest.size()) {
+                smallest = terms;
+            }
+        }
+        for (String term : smallest) {
+            if (term.contains(fragment)) {
+                result.add(term);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sucht Begriffe mit einer {@link EditDistance} von hoechstens {@code maxEdits}.
+     * Jeder Fehler veraendert hoechstens vier der {@code n} aufgefuellten Trigramme; ein Begriff mit
+     * {@code k} Fehlern teilt also mindestens {@code n - 4k} davon mit der Anfrage. Er muss daher eines
+     * der {@code 4k + 1} seltensten Trigramme enthalten; nur deren Begriffe werden exakt verglichen.
+     * Hat die Anfrage hoechstens {@code 4k} verschiedene Trigramme (z. B. sechs Zeichen bei zwei Fehlern),
+     * muss ein Treffer keines davon teilen; dann wird das ganze Vokabular verglichen.
+     *
+     * @param term     Der normalisierte Begriff
+     * @param maxEdits Die erlaubte Anzahl an Abweichungen
+     * @param limit    Die maximale Anzahl gelieferter Begriffe
+     * @return Die passenden Begriffe mit ihrer Distanz, naechste zuerst
+     */
+    public Map<String, Integer> similar(String term, int maxEdits, int limit) {
+        Set<String> grams = new HashSet<>(paddedGrams(term));
+        List<Set<String>> gramTerms = new ArrayList<>();
+        int missing = 0;
+        for (String gram : grams) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms == null) {
+                missing++;
+            } else {
+                gramTerms.add(terms);
+            }
+        }
+        // Fehlende Trigramme zaehlen als seltenste; sind es mehr als 4k, gibt es keinen Treffer
+        int probes = EditDistance.GRAMS_PER_EDIT * maxEdits + 1 - missing;
+        if (probes <= 0) {
+            return new LinkedHashMap<>();
+        }
+        List<Set<String>> probed;
+        if (grams.size() <= EditDistance.GRAMS_PER_EDIT * maxEdits) {
+            // Jeder Begriff hat genau ein Trigramm "$$x"; diese Listen enthalten das Vokabular genau einmal
+            probed = new ArrayList<>();
+            String start = "" + PAD + PAD;
+            termsByGram.forEach((gram, terms) -> {
+                if (gram.startsWith(start)) {
+                    probed.add(terms);
+                }
+            });
+        } else {
+            gramTerms.sort(Comparator.comparingInt(Set::size));
+            probed = gramTerms.subList(0, Math.min(probes, gramTerms.size()));
+        }
+
+        Set<String> candidates = new HashSet<>();
+        for (Set<String> terms : probed) {
+            for (String candidate : terms) {
+                if (Math.abs(candidate.length() - term.length()) <= maxEdits) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> matches = new ArrayList<>();
+        for (String candidate : candidates) {
+            int distance = EditDistance.boundedDistance(term, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                matches.add(Map.entry(candidate, distance));
+            }
+        }
+        matches.sort(Map.Entry.comparingByValue());
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> match : matches) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.put(match.getKey(), match.getValue());
+        }
+        return result;
+    }
+
+    private static List<String> paddedGrams(String term) {
+        String padded = "" + PAD + PAD + term + PAD + PAD;
+        List<String> grams = new ArrayList<>(padded.length() - GRAM + 1);
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
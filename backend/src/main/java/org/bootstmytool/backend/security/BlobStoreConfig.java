@@ -0,0 +1,49 @@
+package org.bootstmytool.backend.security;
+
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.storage.LocalBlobStore;
+import org.bootstmytool.backend.storage.S3BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Konfigurationsklasse für die Ablage der Bilddateien.
+ * <p>
+ * Mit {@code blob.store.type=local} (Standard) liegen die Bilder in {@code image.upload.dir}; mit
+ * {@code blob.store.type=s3} in einem S3-kompatiblen Bucket, den sich mehrere Instanzen teilen.
+ */
+@Configuration
+public class BlobStoreConfig {
+
+    /**
+     * Speicher im lokalen Bildverzeichnis.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "blob.store.type", havingValue = "local", matchIfMissing = true)
+    public BlobStore localBlobStore(@Value("${image.upload.dir:backend/src/main/resources/static/images/}") String uploadDir) {
+        return new LocalBlobStore(Path.of(uploadDir));
+    }
+
+    /**
+     * Speicher in einem S3-kompatiblen Bucket.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "blob.store.type", havingValue = "s3")
+    public BlobStore s3BlobStore(@Value("${blob.store.s3.endpoint:}") String endpoint,
+                                 @Value("${blob.store.s3.region:eu-central-1}") String region,
+                                 @Value("${blob.store.s3.bucket}") String bucket,
+                                 @Value("${blob.store.s3.access-key:}") String accessKey,
+                                 @Value("${blob.store.s3.secret-key:}") String secretKey,
+                                 @Value("${blob.store.s3.path-style:true}") boolean pathStyle) {
+        return new S3BlobStore(endpoint.isBlank() ? null : URI.create(endpoint), region, bucket,
+                accessKey, secretKey, pathStyle);
+    }
+}
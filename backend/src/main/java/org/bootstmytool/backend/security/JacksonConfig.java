@@ -2,10 +2,22 @@ package org.bootstmytool.backend.security;
 
 
 import com.fasterxml.jackson.core.StreamWriteConstraints;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.bootstmytool.backend.service.NoteJsonCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * @Author Mohamed Cheikh
@@ -14,22 +26,101 @@ import org.springframework.context.annotation.Configuration;
  * Konfigurationsklasse für Jackson.
  * <p>
  * Diese Klasse konfiguriert das Jackson-Objekt-Mapping für die Serialisierung von Objekten in JSON.
- * Sie aktiviert die Einrückung von JSON-Objekten und setzt die maximale Verschacht
- * lungstiefe auf 2000.
+ * Sie setzt die maximale Verschachtelungstiefe auf 2000. API-Antworten werden kompakt geschrieben;
+ * eingerueckt nur, wenn die Anfrage zur Fehlersuche den Parameter {@code ?pretty} enthaelt.
+ * <p>
+ * Neben JSON (Standard) koennen Clients mit {@code Accept: application/cbor} oder
+ * {@code Accept: application/x-jackson-smile} kompakte Binaerformate anfordern. Die Mapper dafuer
+ * verwenden dieselben Grenzen wie der JSON-Mapper.
  */
 @Configuration
 public class JacksonConfig {
 
+    /**
+     * Request-Parameter, mit dem eine eingerueckte JSON-Antwort angefordert wird.
+     */
+    public static final String PRETTY_PARAMETER = "pretty";
+
     /**
      * Konfiguriert das Jackson-Objekt-Mapping.
      */
     @Bean
+    @Primary // CBORMapper und SmileMapper sind ebenfalls ObjectMapper
     public ObjectMapper objectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
         objectMapper.getFactory().setStreamWriteConstraints(
                 StreamWriteConstraints.builder().maxNestingDepth(2000).build()
         );
         return objectMapper;
     }
-}
\ No newline at end of file
+
+    /**
+     * Mapper fuer CBOR (RFC 8949).
+     */
+    @Bean
+    public CBORMapper cborMapper() {
+        CBORMapper cborMapper = new CBORMapper();
+        cborMapper.getFactory().setStreamWriteConstraints(
+                StreamWriteConstraints.builder().maxNestingDepth(2000).build()
+        );
+        return cborMapper;
+    }
+
+    /**
+     * Mapper fuer Smile, das binaere JSON-Format von Jackson. Wiederholte Feldnamen werden als Rueckverweis
+     * geschrieben, was bei Listen gleichartiger Objekte viel spart.
+     */
+    @Bean
+    public SmileMapper smileMapper() {
+        SmileMapper smileMapper = new SmileMapper();
+        smileMapper.getFactory().setStreamWriteConstraints(
+                StreamWriteConstraints.builder().maxNestingDepth(2000).build()
+        );
+        return smileMapper;
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(CBORMapper cborMapper) {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(SmileMapper smileMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper);
+    }
+
+    /**
+     * JSON-Ausgabe der Notizliste aus vorab serialisierten Fragmenten.
+     */
+    @Bean
+    public NoteListJsonConverter noteListJsonConverter(NoteJsonCache noteJsonCache) {
+        return new NoteListJsonConverter(noteJsonCache);
+    }
+
+    /**
+     * Ersetzt den JSON-Konverter von Spring MVC durch einen, der bei {@code ?pretty} einrueckt.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected ObjectWriter customizeWriter(ObjectWriter writer, JavaType javaType, MediaType contentType) {
+                return isPrettyPrintRequested() ? writer.withDefaultPrettyPrinter() : writer;
+            }
+        };
+    }
+
+    /**
+     * Prueft, ob die aktuelle Anfrage eine eingerueckte Antwort verlangt ({@code ?pretty} oder {@code ?pretty=true}).
+     *
+     * @return true, wenn der Parameter gesetzt und nicht {@code false} ist
+     */
+    public static boolean isPrettyPrintRequested() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return false;
+        }
+        String value = servletAttributes.getRequest().getParameter(PRETTY_PARAMETER);
+        return value != null && !"false".equalsIgnoreCase(value);
+    }
+}
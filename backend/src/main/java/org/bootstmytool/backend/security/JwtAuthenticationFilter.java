@@ -1,20 +1,23 @@
 package org.bootstmytool.backend.security;
 
 
+import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.bootstmytool.backend.service.JwtService;
+import org.bootstmytool.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
 
 
 /**
@@ -29,18 +32,18 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtTokenUtil;
-    private final CustomUserDetailsService customUserDetailsService;
+    private final UserService userService;
 
     /**
      * Konstruktor für den JwtAuthenticationFilter.
      *
-     * @param jwtTokenUtil             Das Service-Objekt, das für die Verarbeitung von JWT-Tokens verantwortlich ist
-     * @param customUserDetailsService Das Service-Objekt für die Benutzerinformationen
+     * @param jwtTokenUtil Das Service-Objekt, das für die Verarbeitung von JWT-Tokens verantwortlich ist
+     * @param userService  Das Service-Objekt, das die Principals der Benutzer zwischenspeichert
      */
     @Autowired
-    public JwtAuthenticationFilter(JwtService jwtTokenUtil, CustomUserDetailsService customUserDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtTokenUtil, UserService userService) {
         this.jwtTokenUtil = jwtTokenUtil;
-        this.customUserDetailsService = customUserDetailsService;
+        this.userService = userService;
     }
 
     /**
@@ -58,21 +61,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        VerifiedToken verifiedToken = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtTokenUtil.extractUsername(jwt);
-
-                // Ueberprueft, ob der Token abgelaufen ist
-                if (jwtTokenUtil.isTokenExpired(jwt)) {
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.getWriter().write("Token ist abgelaufen");
-                    return;
-                }
-
+                // Signatur und Ablauf werden genau einmal geprueft (oder aus dem Cache bedient)
+                verifiedToken = jwtTokenUtil.verifyToken(jwt);
+            } catch (ExpiredJwtException e) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Token ist abgelaufen");
+                return;
             } catch (Exception e) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.getWriter().write("Ungültiger Token");
@@ -80,16 +79,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.customUserDetailsService.loadUserByUsername(username);
+        if (verifiedToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Der Principal kommt aus dem Cache; die Tabelle users wird nur bei einem Fehltreffer gelesen
+            UserPrincipal principal;
+            try {
+                principal = userService.loadPrincipal(verifiedToken.getUsername());
+            } catch (UsernameNotFoundException e) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Benutzer nicht gefunden");
+                return;
+            }
+            request.setAttribute(UserPrincipal.REQUEST_ATTRIBUTE, principal);
 
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                    principal, null, Collections.emptyList());
 
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-            }
+            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         }
 
         // Fahre mit der Filterkette fort
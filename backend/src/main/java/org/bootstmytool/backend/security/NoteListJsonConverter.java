@@ -0,0 +1,51 @@
+package org.bootstmytool.backend.security;
+
+import org.bootstmytool.backend.dto.NoteListDTO;
+import org.bootstmytool.backend.service.NoteJsonCache;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Schreibt eine {@link NoteListDTO} als JSON aus den Fragmenten des {@link NoteJsonCache}.
+ * <p>
+ * Der Konverter steht vor den Jackson-Konvertern und greift nur bei JSON. Verlangt der Client CBOR oder
+ * Smile, wird die Liste von den Konvertern dieser Formate vollstaendig serialisiert: Smile-Fragmente lassen
+ * sich nicht aneinanderhaengen, weil jedes mit eigenem Kopf und eigenen Rueckverweisen auf Feldnamen beginnt.
+ */
+public class NoteListJsonConverter extends AbstractHttpMessageConverter<NoteListDTO> {
+
+    private final NoteJsonCache noteJsonCache;
+
+    public NoteListJsonConverter(NoteJsonCache noteJsonCache) {
+        super(MediaType.APPLICATION_JSON);
+        this.noteJsonCache = noteJsonCache;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return NoteListDTO.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false; // Nur fuer Antworten
+    }
+
+    @Override
+    protected NoteListDTO readInternal(Class<? extends NoteListDTO> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Notizlisten werden nur geschrieben", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(NoteListDTO noteList, HttpOutputMessage outputMessage) throws IOException {
+        noteJsonCache.writeArray(noteList.getNotes(), outputMessage.getBody(), JacksonConfig.isPrettyPrintRequested());
+    }
+}
@@ -0,0 +1,119 @@
+package org.bootstmytool.backend.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Ermittelt die Kosten der Passwort-Hashes, die auf der aktuellen Hardware in eine vorgegebene Zeit passen.
+ * <p>
+ * Fuer BCrypt wird der groesste Kostenfaktor gewaehlt, dessen Hash im Median hoechstens so lange dauert wie das
+ * Ziel; jede Stufe verdoppelt die Zeit. Fuer PBKDF2 werden die Iterationen aus einer Messung linear
+ * hochgerechnet. Unter {@link #MIN_BCRYPT_STRENGTH} bzw. {@link #MIN_PBKDF2_ITERATIONS} wird nie empfohlen,
+ * auch wenn die Hardware dafuer zu langsam ist. Die Werte werden in {@code auth.password.bcrypt-strength} und
+ * {@code auth.password.pbkdf2-iterations} eingetragen; bestehende Hashes werden bei der naechsten Anmeldung
+ * umgestellt. Die Messung sollte auf der Zielmaschine laufen, wenn die Anwendung wenig zu tun hat.
+ * <p>
+ * Ausfuehren mit (Zielzeit in Millisekunden, Standard 250):
+ * <pre>
+ * mvn -q compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:$(cat target/cp.txt) org.bootstmytool.backend.security.PasswordCostCalibrator 250
+ * </pre>
+ */
+public final class PasswordCostCalibrator {
+
+    public static final int MIN_BCRYPT_STRENGTH = 10;
+    public static final int MIN_PBKDF2_ITERATIONS = 310_000;
+
+    private static final int MAX_BCRYPT_STRENGTH = 31;
+    private static final int PBKDF2_PROBE_ITERATIONS = 50_000;
+    private static final int SAMPLES = 5;
+
+    private PasswordCostCalibrator() {
+    }
+
+    public static void main(String[] args) {
+        Duration target = Duration.ofMillis(args.length > 0 ? Long.parseLong(args[0]) : 250);
+        System.out.printf("Ziel: %d ms je Hash, %d Prozessoren%n%n", target.toMillis(),
+                Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%-10s %10s%n", "bcrypt", "p50 ms");
+        int strength = calibrateBcrypt(target, true);
+        long pbkdf2Nanos = median(pbkdf2(PBKDF2_PROBE_ITERATIONS));
+        int iterations = calibratePbkdf2(target, pbkdf2Nanos);
+
+        System.out.printf("%npbkdf2: %.1f ms fuer %d Iterationen%n%n", pbkdf2Nanos / 1e6, PBKDF2_PROBE_ITERATIONS);
+        System.out.println("auth.password.bcrypt-strength=" + strength);
+        System.out.println("auth.password.pbkdf2-iterations=" + iterations);
+        System.out.println();
+        System.out.println("Die Anmeldung dauert zusaetzlich die Wartezeit im Hashing-Pool; bei voller Warteschlange");
+        System.out.println("(auth.hashing.queue-capacity) etwa Kapazitaet / Threads * Zielzeit.");
+    }
+
+    /**
+     * Liefert den groessten BCrypt-Kostenfaktor, dessen Hash hoechstens die Zielzeit dauert, mindestens
+     * {@link #MIN_BCRYPT_STRENGTH}.
+     *
+     * @param target die Zielzeit je Hash
+     * @return der Kostenfaktor
+     */
+    public static int calibrateBcrypt(Duration target) {
+        return calibrateBcrypt(target, false);
+    }
+
+    private static int calibrateBcrypt(Duration target, boolean print) {
+        int chosen = 4;
+        // Kleine Stufen sind schnell; gemessen wird, bis eine Stufe das Ziel ueberschreitet
+        for (int strength = 4; strength <= MAX_BCRYPT_STRENGTH; strength++) {
+            long nanos = median(new BCryptPasswordEncoder(strength));
+            if (print) {
+                System.out.printf("%-10d %10.1f%n", strength, nanos / 1e6);
+            }
+            if (nanos > target.toNanos()) {
+                break;
+            }
+            chosen = strength;
+        }
+        return Math.max(chosen, MIN_BCRYPT_STRENGTH);
+    }
+
+    /**
+     * Rechnet die PBKDF2-Iterationen fuer die Zielzeit aus einer Messung hoch, gerundet auf 10.000 und
+     * mindestens {@link #MIN_PBKDF2_ITERATIONS}.
+     *
+     * @param target      die Zielzeit je Hash
+     * @param probeNanos  die gemessene Dauer fuer {@value #PBKDF2_PROBE_ITERATIONS} Iterationen
+     * @return die Anzahl der Iterationen
+     */
+    static int calibratePbkdf2(Duration target, long probeNanos) {
+        double iterations = (double) PBKDF2_PROBE_ITERATIONS * target.toNanos() / Math.max(1, probeNanos);
+        long rounded = (long) (iterations / 10_000) * 10_000;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(rounded, MIN_PBKDF2_ITERATIONS));
+    }
+
+    private static PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    /**
+     * Median der Dauer eines Hashes nach einem Aufwaermdurchlauf.
+     */
+    private static long median(PasswordEncoder encoder) {
+        encoder.encode("aufwaermen");
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("kalibrierung-" + i);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,49 @@
+package org.bootstmytool.backend.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Konfigurationsklasse für die Metriken des Second-Level-Caches von Hibernate.
+ * <p>
+ * Treffer, Fehlzugriffe und Puts je Region meldet Spring Boot bereits als
+ * {@code hibernate.second.level.cache.requests} bzw. {@code hibernate.second.level.cache.puts}. Zusaetzlich
+ * wird die Trefferquote je Region als {@code hibernate.second.level.cache.hit.ratio} bereitgestellt.
+ */
+@Configuration
+public class SecondLevelCacheMetricsConfig {
+
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics,
+                                stats -> hitRatio(stats.getDomainDataRegionStatistics(region)))
+                        .description("Anteil der Treffer an allen Zugriffen auf die Cache-Region")
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Liefert die Trefferquote einer Region oder 0, solange noch nicht zugegriffen wurde.
+     */
+    static double hitRatio(CacheRegionStatistics region) {
+        if (region == null) {
+            return 0;
+        }
+        long requests = region.getHitCount() + region.getMissCount();
+        return requests == 0 ? 0 : (double) region.getHitCount() / requests;
+    }
+}
@@ -12,7 +12,9 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.firewall.DefaultHttpFirewall;
@@ -22,6 +24,8 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @Author Mohamed Cheikh
@@ -62,13 +66,34 @@ public class SecurityConfig {
 
     /**
      * Bean für den Passwort-Encoder.
-     * Verwendet den BCryptPasswordEncoder zur Verschlüsselung von Passwörtern.
+     * Neue Hashes tragen die Kennung ihres Verfahrens als Präfix, z. B. {@code {bcrypt}$2a$10$...}; erzeugt werden
+     * sie mit dem Verfahren aus {@code auth.password.encoder}. Geprüft werden alle Verfahren der Tabelle, Hashes
+     * ohne Präfix (vor Einführung der Präfixe gespeichert) als BCrypt. Die Kosten werden nur hier festgelegt,
+     * passende Werte für die aktuelle Hardware ermittelt der {@link PasswordCostCalibrator}.
+     * Veraltete Hashes erkennt {@link PasswordEncoder#upgradeEncoding}; sie werden bei der nächsten
+     * Anmeldung neu gehasht.
      *
+     * @param encodingId die Kennung des Verfahrens für neue Hashes ({@code bcrypt} oder {@code pbkdf2})
+     * @param bcryptStrength der BCrypt-Kostenfaktor (log2 der Runden, 4 bis 31)
+     * @param pbkdf2Iterations die Iterationen für PBKDF2 mit HMAC-SHA256
      * @return ein instanziierter PasswordEncoder
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.encoder:bcrypt}") String encodingId,
+                                           @Value("${auth.password.bcrypt-strength:10}") int bcryptStrength,
+                                           @Value("${auth.password.pbkdf2-iterations:310000}") int pbkdf2Iterations) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder("", 16, pbkdf2Iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        if (!encoders.containsKey(encodingId)) {
+            throw new IllegalArgumentException("Unbekanntes Verfahren in auth.password.encoder: " + encodingId
+                    + " (erlaubt: " + encoders.keySet() + ")");
+        }
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encodingId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt); // Bestehende Hashes ohne Präfix
+        return delegating;
     }
 
     /**
@@ -124,8 +149,9 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration corsConfiguration = new CorsConfiguration();
         corsConfiguration.setAllowedOrigins(Arrays.asList("http://localhost:3000", "http://localhost:3001", "http://192.168.178.144:3000")); // Frontend-URLs erlauben
-        corsConfiguration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS")); // Erlaubte HTTP-Methoden
-        corsConfiguration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With")); // Erlaubte Header
+        corsConfiguration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")); // Erlaubte HTTP-Methoden
+        corsConfiguration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "If-Match")); // Erlaubte Header
+        corsConfiguration.setExposedHeaders(Arrays.asList("ETag")); // Version der Notiz fuer das naechste If-Match
         corsConfiguration.setAllowCredentials(true); // Erlaubt Cookies und Authentifizierung
         // Registrierung der CORS-Konfiguration für alle Endpunkte
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
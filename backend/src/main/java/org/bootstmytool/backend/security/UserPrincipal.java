@@ -0,0 +1,30 @@
+package org.bootstmytool.backend.security;
+
+import lombok.Getter;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Die Identitaet des angemeldeten Benutzers fuer die Dauer einer Anfrage.
+ * <p>
+ * Der {@link JwtAuthenticationFilter} ermittelt den Principal aus dem Cache des
+ * {@link org.bootstmytool.backend.service.UserService} und legt ihn unter {@link #REQUEST_ATTRIBUTE} ab,
+ * damit Controller keine weitere Abfrage der Tabelle {@code users} benoetigen.
+ */
+@Getter
+public final class UserPrincipal {
+
+    /**
+     * Name des Request-Attributs, unter dem der Filter den Principal ablegt.
+     */
+    public static final String REQUEST_ATTRIBUTE = "org.bootstmytool.backend.userPrincipal";
+
+    private final int id; // Die ID des Benutzers
+    private final String email; // Die Email des Benutzers
+
+    public UserPrincipal(int id, String email) {
+        this.id = id;
+        this.email = email;
+    }
+}
@@ -0,0 +1,33 @@
+package org.bootstmytool.backend.security;
+
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Ein bereits geprueftes JWT-Token.
+ * <p>
+ * Der {@link JwtAuthenticationFilter} prueft die Signatur eines Tokens genau einmal pro Anfrage; der
+ * {@link org.bootstmytool.backend.service.JwtService} haelt das Ergebnis bis zum Ablauf des Tokens im Cache.
+ */
+@Getter
+public final class VerifiedToken {
+
+    private final String username; // Der Benutzername (Subject) des Tokens
+    private final Date expiresAt; // Das Ablaufdatum des Tokens
+
+    public VerifiedToken(String username, Date expiresAt) {
+        this.username = username;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Prueft, ob das Token inzwischen abgelaufen ist.
+     */
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.getTime() <= System.currentTimeMillis();
+    }
+}
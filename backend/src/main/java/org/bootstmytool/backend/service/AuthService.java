@@ -2,8 +2,10 @@ package org.bootstmytool.backend.service;
 
 import org.bootstmytool.backend.model.User;
 import org.bootstmytool.backend.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Optional;
 
@@ -16,18 +18,20 @@ import java.util.Optional;
 @Service
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
     /**
      * Konstruktor zur Initialisierung des AuthService mit den erforderlichen Abhängigkeiten.
      *
-     * @param userRepository  Repository zum Interagieren mit den Benutzerdaten.
-     * @param passwordEncoder Encoder zum sicheren Hashen von Passwörtern.
+     * @param userRepository         Repository zum Interagieren mit den Benutzerdaten.
+     * @param passwordHashingService Hasht und prüft Passwörter auf einem eigenen Thread-Pool.
      */
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UserRepository userRepository, PasswordHashingService passwordHashingService) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
     }
 
     /**
@@ -36,6 +40,7 @@ public class AuthService {
      * @param username der Benutzername des Benutzers, der sich anmelden möchte.
      * @param password das Passwort des Benutzers, der sich anmelden möchte.
      * @return true, wenn die Anmeldeinformationen korrekt sind, andernfalls false.
+     * @throws org.springframework.web.server.ResponseStatusException mit 503, wenn zu viele Prüfungen anstehen.
      */
     public boolean authenticate(String username, String password) {
 
@@ -44,19 +49,40 @@ public class AuthService {
 
         if (user != null) {
             // Überprüfen, ob das angegebene Passwort mit dem gespeicherten gehashten Passwort übereinstimmt
-            return passwordEncoder.matches(password, user.getPassword());
+            if (!passwordHashingService.matches(password, user.getPassword())) {
+                return false;
+            }
+            if (passwordHashingService.upgradeEncoding(user.getPassword())) {
+                rehash(user, password);
+            }
+            return true;
         }
 
         // Gibt false zurück, wenn der Benutzer nicht existiert oder das Passwort nicht übereinstimmt
         return false;
     }
 
+    /**
+     * Speichert das Passwort mit dem aktuellen Verfahren und Kostenfaktor neu. Nur nach erfolgreicher Anmeldung
+     * ist das Klartext-Passwort bekannt, deshalb geschieht die Umstellung hier. Ist die Passwort-Prüfung gerade
+     * ausgelastet, bleibt der alte Hash bis zur nächsten Anmeldung bestehen; die Anmeldung selbst gelingt.
+     */
+    private void rehash(User user, String password) {
+        try {
+            user.setPassword(passwordHashingService.encode(password));
+            userRepository.save(user);
+        } catch (ResponseStatusException e) {
+            log.debug("Passwort von {} wird bei der nächsten Anmeldung neu gehasht: {}", user.getEmail(), e.getReason());
+        }
+    }
+
     /**
      * Registriert einen neuen Benutzer, indem dessen Anmeldeinformationen in der Datenbank gespeichert werden.
      *
      * @param username der Benutzername des neuen Benutzers.
      * @param password das Passwort des neuen Benutzers.
      * @return true, wenn der Benutzer erfolgreich registriert wurde, andernfalls false.
+     * @throws org.springframework.web.server.ResponseStatusException mit 503, wenn zu viele Prüfungen anstehen.
      */
     public boolean registerUser(String username, String password) {
 
@@ -69,7 +95,7 @@ public class AuthService {
         // Erstellen eines neuen User-Objekts mit dem angegebenen Benutzernamen und dem gehashten Passwort
         User newUser = new User();
         newUser.setEmail(username);
-        newUser.setPassword(passwordEncoder.encode(password));  // Passwort vor dem Speichern hashen
+        newUser.setPassword(passwordHashingService.encode(password));  // Passwort vor dem Speichern hashen
 
         // Versuchen, den neuen Benutzer in der Datenbank zu speichern
         try {
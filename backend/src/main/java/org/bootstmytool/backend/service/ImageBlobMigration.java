@@ -0,0 +1,151 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.utils.ProcessImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Migriert Bilddaten aus der alten Spalte {@code image.data} in den {@link BlobStore}.
+ * <p>
+ * Fruehere Versionen haben jedes Bild sowohl im Dateisystem als auch als Blob in der Tabelle {@code image}
+ * gespeichert. Beim Start wird fuer jede Zeile mit Blob geprueft, ob die Datei im Speicher existiert; fehlt sie,
+ * wird sie aus dem Blob wiederhergestellt. Erst danach wird der Blob auf {@code NULL} gesetzt; Zeilen ohne gueltigen
+ * Dateinamen behalten ihren Blob, da sich die Daten sonst nirgends mehr befinden.
+ * Die Migration laeuft in kleinen Bloecken, ist idempotent und kann mit
+ * {@code image.migration.externalize-blobs=false} abgeschaltet werden.
+ */
+@Component
+@ConditionalOnProperty(name = "image.migration.externalize-blobs", havingValue = "true", matchIfMissing = true)
+public class ImageBlobMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageBlobMigration.class);
+
+    // Anzahl der Zeilen, die pro Durchlauf migriert werden
+    private static final int BATCH_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+
+    public ImageBlobMigration(JdbcTemplate jdbcTemplate, BlobStore blobStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!hasLegacyDataColumn()) {
+            return;
+        }
+
+        int restored = 0;
+        int cleared = 0;
+        int kept = 0;
+        int lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "select id, url from image where data is not null and id > ? order by id limit " + BATCH_SIZE,
+                    lastId);
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> row : rows) {
+                int id = ((Number) row.get("id")).intValue();
+                String url = (String) row.get("url");
+                lastId = id;
+
+                if (!ProcessImage.isValidFileName(url)) {
+                    // Ohne Dateinamen laesst sich der Blob nicht sichern; er bleibt in der Datenbank
+                    kept++;
+                    continue;
+                }
+                if (restoreFileIfMissing(id, url)) {
+                    restored++;
+                }
+                // Erst nach gesicherter Datei den Blob entfernen
+                jdbcTemplate.update("update image set data = null where id = ?", id);
+                cleared++;
+            }
+        }
+
+        if (cleared > 0) {
+            log.info("Bildmigration abgeschlossen: {} Blobs entfernt, {} Dateien aus der Datenbank wiederhergestellt",
+                    cleared, restored);
+        }
+        if (kept > 0) {
+            log.warn("Bildmigration: {} Blobs ohne gueltigen Dateinamen wurden nicht entfernt", kept);
+        }
+    }
+
+    /**
+     * Schreibt den Blob einer Zeile in den Speicher, falls die Datei dort fehlt.
+     *
+     * @return true, wenn die Datei wiederhergestellt wurde
+     */
+    private boolean restoreFileIfMissing(int id, String url) throws IOException {
+        String key = ProcessImage.storageKey(url);
+        if (blobStore.stat(key) != null) {
+            return false;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.query("select data from image where id = ?", rs -> {
+            if (!rs.next()) {
+                return false;
+            }
+            try (InputStream in = rs.getBinaryStream(1)) {
+                if (in == null) {
+                    return false;
+                }
+                // Ueber eine temporaere Datei schreiben, damit keine halben Bilder entstehen
+                Path temp = blobStore.createTempFile();
+                try {
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                    blobStore.putFile(key, temp, ProcessImage.contentTypeOf(temp).toString());
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Bild " + id + " konnte nicht migriert werden", e);
+            }
+        }, id));
+    }
+
+    /**
+     * Prueft, ob die Tabelle {@code image} noch die alte Blob-Spalte {@code data} besitzt.
+     */
+    private boolean hasLegacyDataColumn() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : new String[]{"image", "IMAGE"}) {
+                for (String column : new String[]{"data", "DATA"}) {
+                    try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, table, column)) {
+                        if (rs.next()) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
@@ -0,0 +1,48 @@
+package org.bootstmytool.backend.service;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Eine auszuliefernde Bilddatei mit den Angaben fuer bedingte Anfragen und Caching.
+ * <p>
+ * Das ETag ist ein Hash ueber den Dateiinhalt; Original und Varianten haben daher verschiedene ETags.
+ * {@code provisional} ist gesetzt, wenn statt der gewuenschten Variante vorerst das Original geliefert wird,
+ * die Antwort also nicht dauerhaft gecacht werden darf. {@code path} ist nur gesetzt, wenn die Datei im lokalen
+ * Dateisystem liegt; sonst wird sie ueber ihren Schluessel im {@link org.bootstmytool.backend.storage.BlobStore}
+ * gelesen.
+ */
+@Getter
+public class ImageFile {
+
+    private final String key; // Schluessel im BlobStore
+    private final Path path; // Lokaler Pfad oder null
+    private final String etag;
+    private final MediaType contentType;
+    private final long lastModified; // Millisekunden seit der Epoche
+    private final long length;
+    private final boolean provisional;
+
+    public ImageFile(String key, Path path, String etag, MediaType contentType, long lastModified, long length,
+                     boolean provisional) {
+        this.key = key;
+        this.path = path;
+        this.etag = etag;
+        this.contentType = contentType;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.provisional = provisional;
+    }
+
+    /**
+     * Liefert dieselbe Datei als vorlaeufige Antwort.
+     */
+    public ImageFile asProvisional() {
+        return provisional ? this : new ImageFile(key, path, etag, contentType, lastModified, length, true);
+    }
+}
@@ -0,0 +1,593 @@
+package org.bootstmytool.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.storage.BlobInfo;
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.utils.ProcessImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Verarbeitet hochgeladene Bilder ausserhalb des Request-Threads.
+ * <p>
+ * Der Request speichert die Datei nur ab ({@link ImageStore#store}) und legt das Bild mit Status
+ * {@link ImageStatus#PENDING} an. Nach dem Commit wird jedes Bild an einen begrenzten Thread-Pool
+ * uebergeben, der das Format prueft, Abmessungen und MIME-Typ ermittelt, verkleinerte Varianten in den
+ * Breiten {@link ProcessImage#DERIVATIVE_WIDTHS} erzeugt und das Ergebnis speichert.
+ * <p>
+ * Ist die Warteschlange voll, werden neue Uploads mit 503 abgelehnt. Bilder, die nicht eingereiht werden
+ * konnten (z. B. nach einem Neustart), sammelt ein periodischer Durchlauf wieder ein.
+ * Originale und Varianten liegen im {@link BlobStore}; liegt er nicht lokal, wird das Original zum Dekodieren
+ * in eine temporaere Datei geladen.
+ * <p>
+ * Mit {@code spring.threads.virtual.enabled} (ab Java 21) sind die Threads des Pools virtuell. Pool-Groesse und
+ * Warteschlange bleiben gleich, denn Dekodieren und Skalieren belasten die CPU; virtuell wird nur das Warten
+ * auf den {@link BlobStore} und die Datenbank billiger.
+ */
+@Service
+public class ImageProcessingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageProcessingService.class);
+
+    // Versuche, ein Ergebnis zu speichern, wenn die Notiz gleichzeitig bearbeitet wird
+    private static final int STORE_ATTEMPTS = 3;
+
+    private final ImageRepository imageRepository;
+    private final NoteRepository noteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageStore imageStore;
+    private final BlobStore blobStore;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet(); // Eingereihte oder laufende Bilder
+    private Semaphore lazyPermits; // Begrenzt Varianten, die im Request-Thread erzeugt werden
+    // Varianten, die nicht kleiner als das Original waeren (z. B. kleine PNGs mit Palette); Schluessel "name@breite"
+    private final Cache<String, Boolean> skippedDerivatives = Caffeine.newBuilder().maximumSize(10_000).build();
+    // ETag und MIME-Typ je Datei; Schluessel "schluessel|groesse|aenderungszeit"
+    private final Cache<String, ImageFile> fileInfos = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    @Value("${image.pipeline.threads:0}")
+    private int threads; // 0 = Anzahl der Prozessoren
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${image.pipeline.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${image.pipeline.max-pixels:50000000}")
+    private long maxPixels; // Schutz vor Dekompressionsbomben
+
+    @Value("${image.pipeline.sweep-grace:2m}")
+    private Duration sweepGrace;
+
+    private ThreadPoolTaskExecutor executor;
+    private Timer readyTimer;
+    private Timer failedTimer;
+    private Counter rejected;
+
+    public ImageProcessingService(ImageRepository imageRepository, NoteRepository noteRepository, ImageStore imageStore,
+                                  BlobStore blobStore, MeterRegistry meterRegistry,
+                                  ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.imageRepository = imageRepository;
+        this.noteRepository = noteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.imageStore = imageStore;
+        this.blobStore = blobStore;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-");
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("image-").getVirtualThreadFactory());
+        }
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        lazyPermits = new Semaphore(poolSize);
+
+        // Pool-Groesse, aktive Threads und Warteschlange unter executor.* mit name=image.processing
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "image.processing", Tags.empty())
+                .bindTo(meterRegistry);
+        readyTimer = processingTimer("ready");
+        failedTimer = processingTimer("failed");
+        rejected = Counter.builder("image.processing.rejected")
+                .description("Abgelehnte Uploads wegen voller Warteschlange")
+                .register(meterRegistry);
+    }
+
+    private Timer processingTimer(String result) {
+        return Timer.builder("image.processing.duration")
+                .description("Dauer der Bildverarbeitung")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Prueft vor dem Speichern eines Uploads, ob die Warteschlange die Bilder aufnehmen kann.
+     *
+     * @param count die Anzahl der neuen Bilder
+     * @throws ResponseStatusException mit 503, wenn die Verarbeitung ausgelastet ist
+     */
+    public void ensureCapacity(int count) {
+        if (count > 0 && executor.getThreadPoolExecutor().getQueue().remainingCapacity() < count) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Die Bildverarbeitung ist ausgelastet. Bitte versuchen Sie es spaeter erneut.");
+        }
+    }
+
+    /**
+     * Reiht neue Bilder ein, sobald die Transaktion, die sie gespeichert hat, abgeschlossen ist.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImagesStored(ImagesStoredEvent event) {
+        event.getImageIds().forEach(this::submit);
+    }
+
+    /**
+     * Reiht liegen gebliebene Bilder erneut ein, z. B. nach einem Neustart oder einer vollen Warteschlange.
+     */
+    @Scheduled(fixedDelayString = "${image.pipeline.sweep-interval:PT1M}",
+            initialDelayString = "${image.pipeline.sweep-interval:PT1M}")
+    public void resubmitPending() {
+        int capacity = executor.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Integer> ids = imageRepository.findIdsByStatusCreatedBefore(ImageStatus.PENDING,
+                LocalDateTime.now().minus(sweepGrace), Limit.of(capacity));
+        ids.forEach(this::submit);
+    }
+
+    private void submit(int imageId) {
+        if (!inFlight.add(imageId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(imageId);
+                    // Status und Masse erscheinen in der Notizliste des Besitzers
+                    imageRepository.findOwnerIdById(imageId).ifPresent(userId ->
+                            eventPublisher.publishEvent(new NoteImagesChangedEvent(userId)));
+                } finally {
+                    inFlight.remove(imageId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Bleibt PENDING und wird beim naechsten Durchlauf erneut eingereiht
+            inFlight.remove(imageId);
+            log.warn("Bild {} konnte nicht eingereiht werden, Warteschlange voll", imageId);
+        }
+    }
+
+    /**
+     * Prueft ein Bild, ermittelt seine Metadaten, erzeugt die Varianten und speichert das Ergebnis.
+     */
+    void process(int imageId) {
+        String imageName = imageRepository.findUrlByIdAndStatus(imageId, ImageStatus.PENDING).orElse(null);
+        if (imageName == null) {
+            return; // geloescht oder bereits verarbeitet
+        }
+        if (reuseProcessingResult(imageId, imageName)) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ImageStatus result = ImageStatus.FAILED;
+        String key = imageStore.key(imageName);
+        Path path = null;
+        try {
+            BlobInfo info = blobStore.stat(key);
+            if (info == null) {
+                throw new NoSuchFileException(key);
+            }
+            path = fetch(key);
+            try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+                Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+                if (readers == null || !readers.hasNext()) {
+                    log.warn("Bild {} ({}) hat kein unterstuetztes Format", imageId, imageName);
+                    storeResult(imageId, ImageStatus.FAILED, null, null, null, info.getSize());
+                    return;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    int width = reader.getWidth(0);
+                    int height = reader.getHeight(0);
+                    String contentType = reader.getOriginatingProvider().getMIMETypes()[0];
+                    if ((long) width * height > maxPixels) {
+                        log.warn("Bild {} ist mit {}x{} Pixeln zu gross", imageId, width, height);
+                        storeResult(imageId, ImageStatus.FAILED, width, height, contentType,
+                                info.getSize());
+                        return;
+                    }
+                    writeDerivatives(reader, width, height, imageName, info.getSize(), widthsBelow(width));
+                    storeResult(imageId, ImageStatus.READY, width, height, contentType,
+                            info.getSize());
+                    result = ImageStatus.READY;
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (OptimisticLockingFailureException e) {
+            // Kein Fehler des Bildes: es bleibt PENDING und wird beim naechsten Durchlauf erneut verarbeitet
+            log.warn("Ergebnis von Bild {} konnte nicht gespeichert werden: {}", imageId, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Verarbeitung von Bild {} fehlgeschlagen: {}", imageId, e.getMessage());
+            storeResult(imageId, ImageStatus.FAILED, null, null, null, null);
+        } finally {
+            release(key, path);
+            sample.stop(result == ImageStatus.READY ? readyTimer : failedTimer);
+        }
+    }
+
+    /**
+     * Speichert das Ergebnis der Verarbeitung und erhoeht in derselben Transaktion die Version der Notiz,
+     * da Status und Masse des Bildes in ihrer Darstellung erscheinen. Wird die Notiz zwischen Lesen und Commit
+     * bearbeitet, scheitert die Versionspruefung; dann wird mit der neuen Version erneut gespeichert.
+     *
+     * @throws OptimisticLockingFailureException wenn die Notiz bei jedem Versuch gleichzeitig bearbeitet wurde
+     */
+    private void storeResult(int imageId, ImageStatus status, Integer width, Integer height, String contentType,
+                             Long size) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    imageRepository.updateProcessingResult(imageId, status, width, height, contentType, size);
+                    noteRepository.findByImageIdForVersionIncrement(imageId);
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= STORE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Notiz zu Bild {} wurde gleichzeitig geaendert (Versuch {})", imageId, attempt);
+            }
+        }
+    }
+
+    /**
+     * Liefert eine lesbare lokale Datei zu einem Schluessel: die Datei selbst oder eine temporaere Kopie,
+     * die mit {@link #release} wieder entfernt wird.
+     */
+    private Path fetch(String key) throws IOException {
+        Optional<Path> local = blobStore.localPath(key);
+        if (local.isPresent()) {
+            return local.get();
+        }
+        Path temp = blobStore.createTempFile();
+        try (InputStream in = blobStore.get(key)) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    private void release(String key, Path path) {
+        if (path == null || blobStore.localPath(key).isPresent()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Temporaere Datei {} konnte nicht geloescht werden: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Uebernimmt das Ergebnis eines bereits verarbeiteten Bildes mit demselben Inhalt.
+     * Datei und Varianten existieren dann schon; es muss nichts dekodiert oder geschrieben werden.
+     *
+     * @return true, wenn das Ergebnis uebernommen wurde
+     */
+    private boolean reuseProcessingResult(int imageId, String imageName) {
+        String hash = ProcessImage.contentHashOf(imageName);
+        if (hash == null) {
+            return false;
+        }
+        List<Object[]> processed = imageRepository.findProcessingResultByContentHash(hash, ImageStatus.READY, imageId,
+                Limit.of(1));
+        if (processed.isEmpty()) {
+            return false;
+        }
+        Object[] row = processed.get(0);
+        try {
+            storeResult(imageId, ImageStatus.READY, (Integer) row[0], (Integer) row[1],
+                    (String) row[2], (Long) row[3]);
+        } catch (OptimisticLockingFailureException e) {
+            // Bleibt PENDING und wird beim naechsten Durchlauf erneut uebernommen
+            log.warn("Ergebnis von Bild {} konnte nicht gespeichert werden: {}", imageId, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Liefert die auszuliefernde Datei fuer ein Bild, auf Wunsch als verkleinerte Variante.
+     * Fehlt die passende Variante (z. B. bei Bildern aus der Zeit vor den Varianten), wird sie beim ersten
+     * Abruf erzeugt. Laufen bereits zu viele solcher Erzeugungen oder ist das Bild noch nicht verarbeitet,
+     * wird vorerst das Original als vorlaeufige Antwort ({@link ImageFile#isProvisional()}) geliefert.
+     *
+     * @param imageName      der Dateiname des Originals
+     * @param requestedWidth die gewuenschte Breite oder null fuer das Original
+     * @return die Datei oder null, wenn das Bild nicht existiert
+     */
+    public ImageFile resolveImage(String imageName, Integer requestedWidth) throws IOException {
+        if (!ProcessImage.isValidFileName(imageName)) {
+            return null;
+        }
+        String original = imageStore.key(imageName);
+        BlobInfo originalInfo = blobStore.stat(original);
+        if (originalInfo == null) {
+            return null;
+        }
+        if (requestedWidth == null || requestedWidth <= 0) {
+            return describe(original, originalInfo);
+        }
+
+        // Nur gepruefte Bilder (oder Altbestand ohne Status) werden verkleinert
+        List<Integer> widths = imageRepository.findWidthsByUrlAndStatus(imageName, ImageStatus.READY);
+        if (widths.isEmpty()) {
+            ImageFile file = describe(original, originalInfo);
+            return imageRepository.existsByUrlAndStatus(imageName, ImageStatus.PENDING) ? file.asProvisional() : file;
+        }
+        int target = ProcessImage.selectDerivativeWidth(requestedWidth, widths.get(0));
+        if (target == 0) {
+            return describe(original, originalInfo);
+        }
+        ImageFile derivative = findDerivative(imageName, target);
+        if (derivative == null && skippedDerivatives.getIfPresent(imageName + "@" + target) != null) {
+            return describe(original, originalInfo);
+        }
+        if (derivative != null) {
+            return derivative;
+        }
+        if (!lazyPermits.tryAcquire()) {
+            return describe(original, originalInfo).asProvisional();
+        }
+        try {
+            writeDerivative(original, imageName, originalInfo.getSize(), target);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Variante {} von {} konnte nicht erzeugt werden: {}", target, imageName, e.getMessage());
+        } finally {
+            lazyPermits.release();
+        }
+        derivative = findDerivative(imageName, target);
+        if (derivative != null) {
+            return derivative;
+        }
+        ImageFile file = describe(original, originalInfo);
+        return skippedDerivatives.getIfPresent(imageName + "@" + target) != null ? file : file.asProvisional();
+    }
+
+    /**
+     * Ermittelt ETag, MIME-Typ, Aenderungszeit und Groesse einer Datei.
+     * Dateien werden nie ueberschrieben; der Inhalt wird daher nur beim ersten Abruf gelesen und das Ergebnis
+     * je Schluessel, Groesse und Aenderungszeit gecacht. Bei inhaltsadressierten Originalen steckt der Hash
+     * bereits im Namen und es muss gar nichts gelesen werden.
+     */
+    ImageFile describe(String key, BlobInfo info) throws IOException {
+        String cacheKey = key + "|" + info.getSize() + "|" + info.getLastModified();
+        ImageFile cached = fileInfos.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        Path path = blobStore.localPath(key).orElse(null);
+        String fileName = key.substring(key.lastIndexOf('/') + 1);
+
+        String etag;
+        MediaType contentType;
+        String hash = ProcessImage.contentHashOf(fileName);
+        if (hash != null && fileName.indexOf('_') < 0) {
+            // 128 Bit des Hashes genuegen zur Unterscheidung und halten den Header kurz
+            etag = "\"" + hash.substring(0, 32) + "\"";
+            contentType = info.getContentType() != null
+                    ? MediaType.parseMediaType(info.getContentType())
+                    : sniffContentType(key, fileName);
+        } else {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            byte[] header = new byte[12];
+            int headerLength = 0;
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = blobStore.get(key)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (headerLength < header.length) {
+                        int copy = Math.min(read, header.length - headerLength);
+                        System.arraycopy(buffer, 0, header, headerLength, copy);
+                        headerLength += copy;
+                    }
+                    digest.update(buffer, 0, read);
+                }
+            }
+            etag = "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+            contentType = ProcessImage.detectContentType(header, headerLength, fileName);
+        }
+        ImageFile file = new ImageFile(key, path, etag, contentType, info.getLastModified(), info.getSize(), false);
+        fileInfos.put(cacheKey, file);
+        return file;
+    }
+
+    private MediaType sniffContentType(String key, String fileName) throws IOException {
+        byte[] header;
+        try (InputStream in = blobStore.get(key, 0, 12)) {
+            header = in.readNBytes(12);
+        }
+        return ProcessImage.detectContentType(header, header.length, fileName);
+    }
+
+    private ImageFile findDerivative(String imageName, int width) throws IOException {
+        for (String format : ProcessImage.DERIVATIVE_FORMATS) {
+            String key = imageStore.key(ProcessImage.derivativeName(imageName, width, format));
+            BlobInfo info = blobStore.stat(key);
+            if (info != null) {
+                return describe(key, info);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Erzeugt nachtraeglich eine einzelne Variante.
+     */
+    private void writeDerivative(String original, String imageName, long originalSize, int targetWidth)
+            throws IOException {
+        Path path = fetch(original);
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width > targetWidth && (long) width * height <= maxPixels) {
+                    writeDerivatives(reader, width, height, imageName, originalSize, new int[]{targetWidth});
+                }
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            release(original, path);
+        }
+    }
+
+    /**
+     * Liefert die Variantenbreiten, die schmaler als das Original sind.
+     */
+    private static int[] widthsBelow(int width) {
+        return Arrays.stream(ProcessImage.DERIVATIVE_WIDTHS).filter(w -> w < width).toArray();
+    }
+
+    /**
+     * Schreibt die Varianten mit den angegebenen Breiten (aufsteigend) neben das Original in den Speicher.
+     * Das Original wird nur einmal und bereits unterabgetastet dekodiert, damit grosse Fotos nicht
+     * vollstaendig im Speicher landen; jede Variante wird aus der naechstgroesseren verkleinert.
+     */
+    private void writeDerivatives(ImageReader reader, int width, int height, String imageName, long originalSize,
+                                  int[] targetWidths) throws IOException {
+        if (targetWidths.length == 0) {
+            return;
+        }
+        ImageReadParam param = reader.getDefaultReadParam();
+        int subsampling = Math.max(1, width / (targetWidths[targetWidths.length - 1] * 2));
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        BufferedImage current = reader.read(0, param);
+        boolean alpha = current.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpg";
+        String contentType = alpha ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
+
+        for (int i = targetWidths.length - 1; i >= 0; i--) {
+            int targetWidth = targetWidths[i];
+            int targetHeight = Math.max(1, (int) Math.round((double) height * targetWidth / width));
+            BufferedImage scaled = new BufferedImage(targetWidth, targetHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, targetWidth, targetHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            // Erst in eine temporaere Datei schreiben, damit nie eine halbe Variante ausgeliefert wird
+            String target = imageStore.key(ProcessImage.derivativeName(imageName, targetWidth, format));
+            Path temp = blobStore.createTempFile();
+            try {
+                if (!ImageIO.write(scaled, format, temp.toFile())) {
+                    throw new IOException("Kein Writer fuer " + format);
+                }
+                if (Files.size(temp) >= originalSize) {
+                    // Lohnt sich nicht, das Original ist bereits kleiner
+                    skippedDerivatives.put(imageName + "@" + targetWidth, Boolean.TRUE);
+                } else {
+                    blobStore.putFile(target, temp, contentType);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            current = scaled;
+        }
+    }
+}
@@ -5,12 +5,11 @@ import org.bootstmytool.backend.model.Image;
 import org.bootstmytool.backend.model.Note;
 import org.bootstmytool.backend.repository.ImageRepository;
 import org.bootstmytool.backend.repository.NoteRepository;
-import org.bootstmytool.backend.utils.ProcessImage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,13 +26,21 @@ public class ImageService {
     //fuegt die NoteRepository und ImageRepository Instanzen hinzu
     private final NoteRepository noteRepository;
     private final ImageRepository imageRepository;
+    private final ImageProcessingService imageProcessingService;
+    private final ImageStore imageStore;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     //fuegt die ImageRepository und NoteRepository Instanzen hinzu
     @Autowired
-    public ImageService(NoteRepository noteRepository, ImageRepository imageRepository) {
+    public ImageService(NoteRepository noteRepository, ImageRepository imageRepository,
+                        ImageProcessingService imageProcessingService, ImageStore imageStore,
+                        ApplicationEventPublisher eventPublisher) {
         this.noteRepository = noteRepository;
         this.imageRepository = imageRepository;
+        this.imageProcessingService = imageProcessingService;
+        this.imageStore = imageStore;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -46,26 +53,17 @@ public class ImageService {
     /**
      * @param imgId
      * @return Diese Methode loescht ein Bild aus der Datenbank und vom Server.
+     * Die Datei bleibt erhalten, solange andere Bilder mit demselben Inhalt darauf verweisen.
      */
     @Transactional
     public boolean deleteImageById(int imgId) {
+        // Die Notiz zuerst laden, damit ihre Version beim Commit steigt: das Bild gehoert zu ihrer Darstellung.
+        // Ist sie bereits ueber das Bild geladen, wird die Sperre nicht mehr angewendet.
+        noteRepository.findByImageIdForVersionIncrement(imgId);
         Optional<Image> imageOpt = imageRepository.findById(imgId);
 
         if (imageOpt.isPresent()) {
             Image image = imageOpt.get();
-            String imagePath = "backend/src/main/resources/static/images/" + image.getUrl(); // Update path
-
-            // Delete file from server
-            File file = new File(imagePath);
-            if (file.exists()) {
-                if (file.delete()) {
-                } else {
-                    throw new RuntimeException("Failed to delete image file");
-                }
-            } else {
-
-            }
-
 
             // Loesche das Image Objekt aus der Liste der Images in der Note
             List<Note> notes = noteRepository.findByImagesContaining((image));
@@ -77,6 +75,12 @@ public class ImageService {
             // loesche das Image Objekt aus der Datenbank
             imageRepository.deleteById(imgId);
 
+            // Die Datei wird nach dem Commit geloescht, sofern kein anderes Bild mehr darauf verweist
+            imageStore.release(image);
+            if (image.getNote() != null) {
+                eventPublisher.publishEvent(new NoteImagesChangedEvent((int) image.getNote().getUser().getId()));
+            }
+
             return true;
         } else {
             return false;
@@ -103,17 +107,36 @@ public class ImageService {
      * @param noteId
      * @param file
      * @return Diese Methode lädt ein Bild hoch und speichert es in der Datenbank.
+     * Das Bild wird nur gespeichert und anschliessend im Hintergrund verarbeitet (Status PENDING).
+     * Ist derselbe Inhalt bereits gespeichert, wird nur ein weiterer Verweis angelegt.
+     * Bild und neue Version der Notiz werden gemeinsam committet.
+     * @throws org.springframework.web.server.ResponseStatusException mit 503, wenn die Bildverarbeitung ausgelastet ist
      */
+    @Transactional
     public Image uploadImage(int noteId, MultipartFile file) {
         // Finde Note
-        Note note = noteRepository.findById(noteId).orElseThrow(() -> new RuntimeException("Note not found"));
-        Image image = ProcessImage.processImage(file);//.processImage(file);
+        Note note = noteRepository.findByIdForVersionIncrement(noteId).orElseThrow(() -> new RuntimeException("Note not found"));
+        imageProcessingService.ensureCapacity(1);
+        Image image = imageStore.store(file);
         // Speichere Image in Datenbank
-        note.getImages().add(image);
         image.setNote(note);
-        noteRepository.save(note);
+        image = imageRepository.save(image);
+        imageStore.confirm(image);
+        note.getImages().add(image);
 
+        eventPublisher.publishEvent(new NoteImagesChangedEvent((int) note.getUser().getId()));
+        eventPublisher.publishEvent(new ImagesStoredEvent(List.of(image.getId())));
         return image;
     }
 
+    /**
+     * Speichert ein Bild fuer eine neue Notiz, ohne es einer Notiz zuzuordnen.
+     *
+     * @param file das hochgeladene Bild
+     * @return das noch nicht gespeicherte Image-Objekt mit Status PENDING
+     */
+    public Image storeImage(MultipartFile file) {
+        return imageStore.store(file);
+    }
+
 }
@@ -0,0 +1,294 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.model.ContentBlob;
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.repository.ContentBlobRepository;
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.utils.ProcessImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Inhaltsadressierter Speicher fuer Bilddateien.
+ * <p>
+ * Die Dateien selbst liegen im {@link BlobStore} (lokales Verzeichnis oder S3-kompatibler Bucket).
+ * <p>
+ * Jede Datei wird unter dem SHA-256 ihres Inhalts abgelegt ({@code <hash>.<endung>}, die Endung folgt aus der
+ * Dateisignatur). Damit kein Verzeichnis zu viele Eintraege bekommt, liegt sie in zwei Ebenen von
+ * Unterverzeichnissen aus den ersten vier Zeichen des Hashes, z. B. {@code ab/cd/abcd...ef.png}; die
+ * verkleinerten Varianten liegen daneben. Wird dieselbe Datei erneut hochgeladen, entsteht nur eine neue
+ * Zeile in {@code image} mit demselben {@link Image#getContentHash()}.
+ * <p>
+ * Der Referenzzaehler liegt in der gemeinsamen Datenbank ({@link ContentBlob}), damit mehrere Instanzen
+ * denselben Speicher nutzen koennen. Speichern, Verweisen und Loeschen sperren die Zeile des Hashes, und der
+ * Zaehler aendert sich in derselben Transaktion wie die Zeile in {@code image}. Beim Speichern wird der Hash
+ * zusaetzlich als belegt markiert und diese Belegung sofort festgeschrieben, da die Zeile des Bildes erst mit
+ * dem Commit des Aufrufers sichtbar wird. Eine Datei wird daher von keiner Instanz geloescht, solange ein Bild
+ * darauf verweist oder eine Belegung juenger als {@code image.store.claim-grace} ist; Dateien, deren Verweis in
+ * dieser Zeit entfernt wurde oder nie bestaetigt wurde (z. B. nach einem abgebrochenen Upload), entfernt ein
+ * periodischer Durchlauf.
+ * <p>
+ * Bilder aus der Zeit vor dem inhaltsadressierten Speicher liegen weiterhin unter ihrem alten Namen auf
+ * oberster Ebene und werden wie bisher aufgeloest und geloescht.
+ */
+@Service
+public class ImageStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStore.class);
+
+    // Anzahl der Hashes, die ein Durchlauf hoechstens prueft
+    private static final int SWEEP_BATCH = 100;
+
+    private final ContentBlobRepository contentBlobRepository;
+    private final BlobStore blobStore;
+    private final TransactionTemplate ownTransaction; // Eigene Transaktion, unabhaengig von der des Aufrufers
+
+    @Value("${image.store.claim-grace:5m}")
+    private Duration claimGrace;
+
+    public ImageStore(ContentBlobRepository contentBlobRepository, BlobStore blobStore,
+                      PlatformTransactionManager transactionManager) {
+        this.contentBlobRepository = contentBlobRepository;
+        this.blobStore = blobStore;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Liefert den Schluessel einer Datei im {@link BlobStore}: inhaltsadressierte Namen im Unterverzeichnis
+     * ihres Hashes, alte Namen auf oberster Ebene.
+     *
+     * @param fileName der Dateiname eines Bildes oder einer Variante
+     * @return der Schluessel
+     */
+    public String key(String fileName) {
+        return ProcessImage.storageKey(fileName);
+    }
+
+    /**
+     * Speichert ein hochgeladenes Bild und liefert ein noch unverarbeitetes Image-Objekt.
+     * Existiert eine Datei mit demselben Inhalt bereits, wird nichts geschrieben.
+     * Die Belegung des Hashes wird in einer eigenen Transaktion festgeschrieben, bevor die Methode zurueckkehrt.
+     *
+     * @param file das hochgeladene Bild
+     * @return das Image-Objekt mit Status {@link ImageStatus#PENDING}
+     */
+    public Image store(MultipartFile file) {
+        try {
+            Path temp = blobStore.createTempFile();
+            try {
+                // Die Datei wird beim Schreiben gehasht und dafuer genau einmal gelesen
+                MessageDigest digest = sha256();
+                try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String hash = HexFormat.of().formatHex(digest.digest());
+                MediaType contentType = ProcessImage.contentTypeOf(temp);
+                String fileName = hash + "." + ProcessImage.extensionFor(contentType);
+
+                // Die Zeile existiert erst nach dem ersten Speichern; wer sie gleichzeitig anlegt, verliert
+                String key = key(fileName);
+                while (!Boolean.TRUE.equals(ownTransaction.execute(status -> claim(hash, key, temp, contentType)))) {
+                    try {
+                        ownTransaction.executeWithoutResult(status ->
+                                contentBlobRepository.insertUnreferenced(hash, LocalDateTime.now()));
+                    } catch (DataIntegrityViolationException e) {
+                        log.debug("Hash {} wurde gleichzeitig von einer anderen Instanz angelegt", hash);
+                    }
+                }
+
+                Image image = new Image();
+                image.setUrl(fileName);
+                image.setContentHash(hash);
+                image.setSize(file.getSize());
+                image.setStatus(ImageStatus.PENDING);
+                return image;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fehler beim Speichern des Bildes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Belegt einen Hash unter der Zeilensperre und schreibt die Datei, falls sie fehlt.
+     *
+     * @return false, wenn es noch keine Zeile fuer den Hash gibt
+     */
+    private boolean claim(String hash, String key, Path temp, MediaType contentType) {
+        ContentBlob blob = contentBlobRepository.findByHashForUpdate(hash).orElse(null);
+        if (blob == null) {
+            return false;
+        }
+        blob.setClaimedAt(LocalDateTime.now());
+        try {
+            if (blobStore.stat(key) != null) {
+                log.debug("Bild {} ist bereits gespeichert, es wird nur ein Verweis angelegt", key);
+            } else {
+                blobStore.putFile(key, temp, contentType.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fehler beim Speichern des Bildes: " + e.getMessage(), e);
+        }
+        return true;
+    }
+
+    /**
+     * Zaehlt den Verweis eines mit {@link #store} gespeicherten Bildes. Muss in der Transaktion aufgerufen werden,
+     * die die Zeile in {@code image} anlegt: nach einem Rollback bleibt der Hash ohne Verweis und wird nach Ablauf
+     * der Belegung entfernt.
+     *
+     * @param image das gespeicherte Bild
+     * @throws IllegalStateException wenn die Datei inzwischen entfernt wurde, weil die Belegung abgelaufen ist
+     */
+    public void confirm(Image image) {
+        String hash = image.getContentHash();
+        if (hash == null) {
+            return;
+        }
+        if (contentBlobRepository.addReferences(hash, 1) == 0) {
+            throw new IllegalStateException("Bild " + image.getUrl() + " ist nicht mehr gespeichert");
+        }
+    }
+
+    /**
+     * Gibt den Verweis eines geloeschten Bildes frei, in der Transaktion, die die Zeile in {@code image} loescht.
+     * Ist es der letzte, werden Datei und Varianten nach dem Commit geloescht, sofern der Hash nicht gerade
+     * belegt ist; sonst uebernimmt das der periodische Durchlauf.
+     *
+     * @param image das geloeschte Bild
+     */
+    public void release(Image image) {
+        if (image.getContentHash() == null) {
+            deleteLegacy(image.getUrl());
+            return;
+        }
+        String hash = image.getContentHash();
+        contentBlobRepository.addReferences(hash, -1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeIfUnreferenced(hash);
+                }
+            });
+        } else {
+            removeIfUnreferenced(hash);
+        }
+    }
+
+    /**
+     * Entfernt die Dateien von Hashes ohne Verweis, deren Belegung abgelaufen ist (z. B. nach einem abgebrochenen
+     * Upload). Laeuft auf jeder Instanz; die Zeilensperre verhindert doppeltes Loeschen.
+     */
+    @Scheduled(fixedDelayString = "${image.store.sweep-interval:PT1M}",
+            initialDelayString = "${image.store.sweep-interval:PT1M}")
+    public void sweepExpiredClaims() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(claimGrace);
+        for (String hash : contentBlobRepository.findUnreferencedClaimedBefore(expiredBefore, Limit.of(SWEEP_BATCH))) {
+            removeIfUnreferenced(hash);
+        }
+    }
+
+    /**
+     * Loescht Datei, Varianten und Zeile eines Hashes, wenn kein Bild darauf verweist und die letzte Belegung
+     * abgelaufen ist. Die Zeile bleibt dabei gesperrt, sodass keine Instanz den Hash gleichzeitig wiederverwendet.
+     */
+    private void removeIfUnreferenced(String hash) {
+        try {
+            ownTransaction.executeWithoutResult(status -> {
+                ContentBlob blob = contentBlobRepository.findByHashForUpdate(hash).orElse(null);
+                if (blob == null || blob.getRefCount() > 0
+                        || blob.getClaimedAt().isAfter(LocalDateTime.now().minus(claimGrace))) {
+                    return;
+                }
+                deleteFiles(hash);
+                contentBlobRepository.delete(blob);
+            });
+        } catch (RuntimeException e) {
+            // Die Zeile bleibt erhalten; der naechste Durchlauf versucht es erneut
+            log.warn("Dateien zu {} konnten nicht geloescht werden: {}", hash, e.getMessage());
+        }
+    }
+
+    /**
+     * Loescht alle Dateien eines Hashes, unabhaengig von der Endung.
+     */
+    private void deleteFiles(String hash) {
+        try {
+            for (String key : blobStore.list(key(hash))) {
+                blobStore.delete(key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteLegacy(String fileName) {
+        deleteDerivatives(fileName);
+        deleteFile(fileName);
+    }
+
+    private void deleteFile(String fileName) {
+        try {
+            blobStore.delete(key(fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Bild " + fileName + " konnte nicht geloescht werden", e);
+        }
+    }
+
+    /**
+     * Loescht die zu einem Bild erzeugten Varianten.
+     *
+     * @param fileName der Dateiname des Originals
+     */
+    private void deleteDerivatives(String fileName) {
+        for (int width : ProcessImage.DERIVATIVE_WIDTHS) {
+            for (String format : ProcessImage.DERIVATIVE_FORMATS) {
+                try {
+                    blobStore.delete(key(ProcessImage.derivativeName(fileName, width, format)));
+                } catch (IOException e) {
+                    log.warn("Variante zu {} konnte nicht geloescht werden: {}", fileName, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.bootstmytool.backend.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Wird veroeffentlicht, nachdem hochgeladene Bilder gespeichert wurden und verarbeitet werden koennen.
+ */
+@Getter
+public class ImagesStoredEvent {
+
+    private final List<Integer> imageIds; // Die IDs der neuen Bilder
+
+    public ImagesStoredEvent(List<Integer> imageIds) {
+        this.imageIds = List.copyOf(imageIds);
+    }
+}
@@ -1,24 +1,31 @@
 package org.bootstmytool.backend.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.bootstmytool.backend.security.VerifiedToken;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @Author Mohamed Cheikh
  * @Version 1.0
  * @Date: 2025-03-27
  * Service-Klasse, die Methoden zum Erstellen und Überprüfen von JWT-Token bereitstellt.
+ * Erfolgreich geprüfte Tokens werden bis zu ihrem Ablauf in einem begrenzten Cache gehalten,
+ * sodass wiederholte Anfragen mit demselben Token keine erneute Signaturprüfung benötigen.
  */
 
 @Service
@@ -30,29 +37,77 @@ public class JwtService {
     @Value("${jwt.expiration}")
     private long JWT_EXPIRATION_TIME;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private long verifiedTokenCacheSize;
+
+    private Key signingKey; // Einmalig erzeugter Signaturschlüssel
+
+    private Cache<String, VerifiedToken> verifiedTokens; // Bereits geprüfte Tokens bis zu ihrem Ablauf
+
     /**
-     * Gibt den geheimen Schlüssel für die Signatur des JWT zurück.
+     * Erzeugt den Signaturschlüssel und den Cache der geprüften Tokens einmalig beim Start.
      */
-    private Key getSigningKey() {
+    @PostConstruct
+    void init() {
         if (secret.length() < 32) {
             throw new IllegalArgumentException("JWT Secret muss mindestens 32 Zeichen lang sein.");
         }
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        long remainingMillis = verified.getExpiresAt() == null
+                                ? JWT_EXPIRATION_TIME
+                                : verified.getExpiresAt().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     /**
-     * Abstrakt den Benutzernamen aus dem JWT-Token.
+     * Gibt den geheimen Schlüssel für die Signatur des JWT zurück.
      */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    private Key getSigningKey() {
+        return signingKey;
     }
 
     /**
-     * Abstrakt einen Anspruch aus dem JWT-Token.
+     * Prüft Signatur und Ablauf eines Tokens und liefert die geprüften Ansprüche.
+     * Bereits geprüfte Tokens werden bis zu ihrem Ablauf aus dem Cache bedient.
+     *
+     * @param token das JWT-Token ohne "Bearer "-Präfix
+     * @return das geprüfte Token
+     * @throws io.jsonwebtoken.JwtException wenn das Token ungültig oder abgelaufen ist
      */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public VerifiedToken verifyToken(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokens.invalidate(token);
+        }
+
+        Claims claims = extractAllClaims(token);
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration());
+        if (verified.isExpired()) {
+            throw new ExpiredJwtException(null, claims, "Token ist abgelaufen");
+        }
+        verifiedTokens.put(token, verified);
+        return verified;
     }
 
     /**
@@ -66,22 +121,6 @@ public class JwtService {
                 .getBody();
     }
 
-    /**
-     * Prüft, ob das JWT-Token abgelaufen ist.
-     */
-    public Boolean isTokenExpired(String token) {
-        Date expirationDate = extractExpiration(token);
-        return expirationDate.before(new Date());
-    }
-
-
-    /**
-     * Abstrakt das Ablaufdatum aus dem JWT-Token.
-     */
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
     /**
      * Generates a JWT token for the given username with an expiration time.
      */
@@ -93,12 +132,4 @@ public class JwtService {
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
-
-    /**
-     * Validiert das JWT-Token für den gegebenen Benutzer.
-     */
-    public boolean validateToken(String jwt, UserDetails userDetails) {
-        final String username = extractUsername(jwt);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(jwt));
-    }
 }
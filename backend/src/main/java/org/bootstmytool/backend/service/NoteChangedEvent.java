@@ -0,0 +1,60 @@
+package org.bootstmytool.backend.service;
+
+import lombok.Getter;
+import org.bootstmytool.backend.model.Note;
+
+import java.util.List;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Ereignis, das der {@link NoteService} nach jeder Aenderung einer Notiz veroeffentlicht.
+ * <p>
+ * Abgeleitete Strukturen wie der Suchindex hoeren auf dieses Ereignis und aktualisieren sich inkrementell,
+ * statt bei jeder Anfrage neu aufgebaut zu werden. Das Ereignis enthaelt eine Momentaufnahme der
+ * durchsuchbaren Felder, damit Zuhoerer nach dem Commit keine Datenbankzugriffe benoetigen.
+ */
+@Getter
+public class NoteChangedEvent {
+
+    /**
+     * Art der Aenderung.
+     */
+    public enum Type {
+        UPSERT, // Notiz wurde erstellt oder geaendert
+        DELETE // Notiz wurde geloescht
+    }
+
+    private final Type type; // Art der Aenderung
+    private final int noteId; // ID der Notiz
+    private final int userId; // ID des Besitzers
+    private final String title; // Titel nach der Aenderung (null bei DELETE)
+    private final String content; // Inhalt nach der Aenderung (null bei DELETE)
+    private final List<String> tags; // Tags nach der Aenderung (leer bei DELETE)
+
+    private NoteChangedEvent(Type type, int noteId, int userId, String title, String content, List<String> tags) {
+        this.type = type;
+        this.noteId = noteId;
+        this.userId = userId;
+        this.title = title;
+        this.content = content;
+        this.tags = tags;
+    }
+
+    /**
+     * Erstellt ein Ereignis fuer eine neue oder geaenderte Notiz.
+     */
+    public static NoteChangedEvent upsert(Note note) {
+        List<String> tags = note.getTags() == null ? List.of() : List.copyOf(note.getTags());
+        return new NoteChangedEvent(Type.UPSERT, note.getId(), (int) note.getUser().getId(),
+                note.getTitle(), note.getContent(), tags);
+    }
+
+    /**
+     * Erstellt ein Ereignis fuer eine geloeschte Notiz.
+     */
+    public static NoteChangedEvent delete(Note note) {
+        return new NoteChangedEvent(Type.DELETE, note.getId(), (int) note.getUser().getId(), null, null, List.of());
+    }
+}
@@ -0,0 +1,29 @@
+package org.bootstmytool.backend.service;
+
+import lombok.Getter;
+import org.bootstmytool.backend.model.Note;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Eine Bearbeitung passt nicht zum gespeicherten Stand der Notiz: entweder haben beide Seiten dieselben Stellen
+ * geaendert (409) oder die Version des Clients ist unbekannt (412).
+ */
+@Getter
+public class NoteEditConflictException extends RuntimeException {
+
+    private final HttpStatus status; // CONFLICT oder PRECONDITION_FAILED
+    private final List<String> conflicts; // Die betroffenen Felder, leer bei 412
+    private final transient Note current; // Der gespeicherte Stand der Notiz
+
+    public NoteEditConflictException(HttpStatus status, String message, List<String> conflicts, Note current) {
+        super(message);
+        this.status = status;
+        this.conflicts = conflicts;
+        this.current = current;
+    }
+}
@@ -0,0 +1,252 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.dto.NotePatchOperationDTO;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.NoteRevision;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.repository.NoteRevisionRepository;
+import org.bootstmytool.backend.utils.NoteText;
+import org.bootstmytool.backend.utils.ThreeWayMerge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Bearbeitet Titel, Inhalt und Tags einer Notiz mit optimistischer Nebenlaeufigkeitskontrolle, entweder mit
+ * dem vollstaendigen neuen Stand oder mit einem JSON Patch ({@link NotePatchOperationDTO}).
+ * <p>
+ * Der Client gibt an, auf welcher Version ({@link Note#getVersion()}) seine Aenderung beruht. Ist das die
+ * gespeicherte Version, wird sie uebernommen. Ist sie veraltet, werden die inzwischen gespeicherten Aenderungen
+ * und die des Clients dreiseitig zusammengefuehrt ({@link ThreeWayMerge}); die Basis ist der Stand dieser
+ * Version aus {@link NoteRevision}. Nur wenn beide dieselben Stellen geaendert haben, wird mit 409 abgelehnt.
+ * <p>
+ * Es werden keine Zeilen gesperrt: das Update prueft die gelesene Version, und wer dabei verliert, liest neu
+ * und fuehrt erneut zusammen ({@code note.edit.max-attempts} Versuche). Je Notiz bleiben die letzten
+ * {@code note.revisions.max-per-note} Revisionen erhalten; aeltere Versionen werden mit 412 abgelehnt.
+ */
+@Service
+public class NoteEditService {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteEditService.class);
+
+    private final NoteRepository noteRepository;
+    private final NoteRevisionRepository revisionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${note.revisions.max-per-note:20}")
+    private int maxRevisions;
+
+    @Value("${note.edit.max-attempts:3}")
+    private int maxAttempts;
+
+    public NoteEditService(NoteRepository noteRepository, NoteRevisionRepository revisionRepository,
+                           ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.noteRepository = noteRepository;
+        this.revisionRepository = revisionRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Speichert Titel, Inhalt und Tags einer Notiz.
+     *
+     * @param noteId          die ID der Notiz
+     * @param userId          die ID des angemeldeten Benutzers
+     * @param expectedVersion die Version, auf der die Aenderung beruht, oder null, um ohne Pruefung zu
+     *                        ueberschreiben
+     * @param title           der neue Titel
+     * @param content         der neue Inhalt
+     * @param tags            die neuen Tags
+     * @return die gespeicherte Notiz
+     * @throws ResponseStatusException     mit 404 bzw. 403, wenn die Notiz fehlt oder einem anderen Benutzer gehoert
+     * @throws NoteEditConflictException   wenn sich die Aenderungen ueberschneiden oder die Version unbekannt ist
+     */
+    public Note edit(int noteId, int userId, Long expectedVersion, String title, String content, List<String> tags) {
+        NoteText client = new NoteText(title, content, tags);
+        return withRetries(noteId, () -> store(load(noteId, userId), expectedVersion, base -> client));
+    }
+
+    /**
+     * Wendet einen JSON Patch auf eine Notiz an. Die Operationen beziehen sich auf den Stand der angegebenen
+     * Version; ist sie veraltet, wird das Ergebnis wie bei {@link #edit} mit dem gespeicherten Stand
+     * zusammengefuehrt. Geschrieben werden nur die geaenderten Spalten und Tags.
+     *
+     * @param noteId          die ID der Notiz
+     * @param userId          die ID des angemeldeten Benutzers
+     * @param expectedVersion die Version, auf die sich die Operationen beziehen
+     * @param operations      die Operationen
+     * @return die gespeicherte Notiz
+     * @throws IllegalArgumentException  wenn eine Operation ungueltig ist
+     * @throws NoteEditConflictException wenn eine {@code test}-Operation fehlschlaegt, sich die Aenderungen
+     *                                   ueberschneiden oder die Version unbekannt ist
+     */
+    public Note patch(int noteId, int userId, long expectedVersion, List<NotePatchOperationDTO> operations) {
+        return withRetries(noteId, () -> {
+            Note note = load(noteId, userId);
+            return store(note, expectedVersion, base -> {
+                try {
+                    return base.patched(operations);
+                } catch (NoteText.TestFailedException e) {
+                    throw new NoteEditConflictException(HttpStatus.CONFLICT, e.getMessage(),
+                            List.of(e.getPath().substring(1).split("/")[0]), note);
+                }
+            });
+        });
+    }
+
+    private Note withRetries(int noteId, Supplier<Note> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> change.get());
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Zwischen Lesen und Schreiben wurde eine andere Bearbeitung gespeichert
+                log.debug("Notiz {} wurde gleichzeitig geaendert (Versuch {})", noteId, attempt);
+                if (attempt >= maxAttempts) {
+                    Note current = noteRepository.findById(noteId).orElseThrow(() -> notFound());
+                    throw new NoteEditConflictException(HttpStatus.CONFLICT,
+                            "Die Notiz wird gerade zu oft gleichzeitig bearbeitet", List.of(), current);
+                }
+            }
+        }
+    }
+
+    private Note load(int noteId, int userId) {
+        Note note = noteRepository.findById(noteId).orElseThrow(() -> notFound());
+        if (note.getUser().getId() != userId) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Sie haben keine Berechtigung, diese Notiz zu bearbeiten");
+        }
+        return note;
+    }
+
+    /**
+     * Ermittelt den neuen Stand aus der Aenderung des Clients und speichert ihn.
+     *
+     * @param change bildet den Stand, auf dem der Client gearbeitet hat, auf seinen neuen Stand ab
+     */
+    private Note store(Note note, Long expectedVersion, UnaryOperator<NoteText> change) {
+        NoteText current = NoteText.of(note);
+        NoteText target;
+        if (expectedVersion == null || expectedVersion == note.getVersion()) {
+            target = change.apply(current);
+        } else {
+            NoteText base = findBase(note, expectedVersion);
+            target = merge(note, base, current, change.apply(base));
+        }
+        if (target.equals(current)) {
+            return note; // Nichts geaendert: keine neue Version
+        }
+
+        // Der bisherige Stand wird zur Basis fuer Clients, die noch auf dieser Version arbeiten
+        NoteRevision revision = new NoteRevision(note, target.getContent());
+        // Nur geaenderte Felder setzen; @DynamicUpdate schreibt nur deren Spalten, setTags nur geaenderte Tags
+        if (!Objects.equals(target.getTitle(), current.getTitle())) {
+            note.setTitle(target.getTitle());
+        }
+        if (!target.getContent().equals(current.getContent())) {
+            note.setContent(target.getContent());
+        }
+        if (!target.getTags().equals(current.getTags())) {
+            note.setTags(target.getTags());
+        }
+        // Das Update zuerst senden: eine gleichzeitige Bearbeitung scheitert dann an der Version,
+        // nicht erst am eindeutigen Schluessel der Revision
+        Note savedNote = noteRepository.saveAndFlush(note);
+        revisionRepository.save(revision);
+        prune(note.getId());
+
+        eventPublisher.publishEvent(NoteChangedEvent.upsert(savedNote));
+        return savedNote;
+    }
+
+    private NoteText merge(Note note, NoteText base, NoteText current, NoteText client) {
+        List<String> conflicts = new ArrayList<>();
+        ThreeWayMerge.Result<String> title = ThreeWayMerge.mergeValue(base.getTitle(), current.getTitle(),
+                client.getTitle());
+        if (title.isConflict()) {
+            conflicts.add("title");
+        }
+        ThreeWayMerge.Result<String> content = ThreeWayMerge.mergeText(base.getContent(), current.getContent(),
+                client.getContent());
+        if (content.isConflict()) {
+            conflicts.add("content");
+        }
+        if (!conflicts.isEmpty()) {
+            throw new NoteEditConflictException(HttpStatus.CONFLICT,
+                    "Die Notiz wurde inzwischen an denselben Stellen geaendert", conflicts, note);
+        }
+        return new NoteText(title.getValue(), content.getValue(),
+                ThreeWayMerge.mergeTags(base.getTags(), current.getTags(), client.getTags()));
+    }
+
+    /**
+     * Liefert den Stand der Notiz in der angegebenen Version. Titel und Tags stammen aus der ersten Revision ab
+     * dieser Version, denn jede Revision gilt bis zu ihrer Version; der Inhalt entsteht, indem die Abschnitte
+     * aller Revisionen ab dieser Version rueckwaerts auf den aktuellen Inhalt angewendet werden. Gibt es keine
+     * Revision, hat sich der Text seitdem nicht geaendert.
+     */
+    private NoteText findBase(Note note, long version) {
+        if (version > note.getVersion()) {
+            throw new NoteEditConflictException(HttpStatus.PRECONDITION_FAILED,
+                    "Die Version " + version + " ist nicht bekannt", List.of(), note);
+        }
+        List<NoteRevision> revisions = revisionRepository.findFromVersion(note.getId(), version);
+        NoteRevision oldest = revisions.isEmpty() ? null : revisions.get(revisions.size() - 1);
+        if (oldest == null || oldest.getVersion() != version) {
+            // Der Stand gilt seit der vorherigen Revision; sie darf also nicht bereits entfernt worden sein
+            boolean retained = revisionRepository.existsByNoteIdAndVersionLessThan(note.getId(), version)
+                    || revisionRepository.countByNoteId(note.getId()) < maxRevisions;
+            if (!retained) {
+                throw new NoteEditConflictException(HttpStatus.PRECONDITION_FAILED,
+                        "Die Version " + version + " ist zu alt, um sie zusammenzufuehren", List.of(), note);
+            }
+        }
+        if (oldest == null) {
+            return NoteText.of(note);
+        }
+
+        String content = note.getContent();
+        try {
+            for (NoteRevision revision : revisions) {
+                content = revision.getContentSplice().apply(content);
+            }
+        } catch (IllegalArgumentException e) {
+            // Der Inhalt wurde ohne Revision geaendert; der Stand dieser Version ist nicht mehr herzustellen
+            throw new NoteEditConflictException(HttpStatus.PRECONDITION_FAILED,
+                    "Der Stand der Version " + version + " ist nicht mehr verfuegbar", List.of(), note);
+        }
+        return new NoteText(oldest.getTitle(), content, oldest.getTags());
+    }
+
+    /**
+     * Entfernt alle Revisionen einer Notiz ausser den neuesten {@code note.revisions.max-per-note}.
+     */
+    private void prune(int noteId) {
+        List<Long> versions = revisionRepository.findVersionsByNoteId(noteId, Limit.of(maxRevisions + 1));
+        if (versions.size() > maxRevisions) {
+            revisionRepository.deleteUpToVersion(noteId, versions.get(maxRevisions));
+        }
+    }
+
+    private static ResponseStatusException notFound() {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Notiz nicht gefunden");
+    }
+}
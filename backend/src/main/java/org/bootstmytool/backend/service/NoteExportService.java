@@ -0,0 +1,304 @@
+package org.bootstmytool.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.utils.ProcessImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Exportiert die Notizen eines Benutzers als ZIP-Archiv, das direkt in den Response geschrieben wird.
+ * <p>
+ * Aufbau des Archivs:
+ * <ul>
+ *     <li>{@code images/<datei>}: die Originale der Bilder, jede Datei nur einmal</li>
+ *     <li>{@code notes/<id>.json}: Titel, Inhalt, Tags, Erstellungsdatum und Bilder der Notiz;
+ *     das Format wird auch von {@code POST /notes/import} gelesen</li>
+ *     <li>{@code notes/<id>.md}: dieselbe Notiz als Markdown mit Verweisen auf die Bilder</li>
+ *     <li>{@code export.json}: Anzahl der Notizen und Bilder sowie {@code nextCursor}, falls das Archiv
+ *     wegen {@code limit} nicht alle Notizen enthaelt</li>
+ * </ul>
+ * Die Notizen werden aufsteigend nach ID ueber einen Datenbank-Cursor gelesen und nach dem Schreiben aus dem
+ * Persistenzkontext entfernt; Bilder werden aus dem {@link BlobStore} in das Archiv kopiert. Im Speicher bleiben
+ * die groesste Notiz und die Namen der bereits geschriebenen Bilder, damit jede Datei nur einmal im Archiv steht;
+ * Letzteres waechst mit der Zahl der Bilder, nicht mit ihrer Groesse. Die Bilder einer Notiz stehen vor ihrer
+ * JSON-Datei, sodass die hoechste vollstaendige {@code notes/<id>.json} eines abgebrochenen Downloads als Cursor
+ * zum Fortsetzen dient.
+ * <p>
+ * Ein Export haelt waehrend des gesamten Downloads eine Transaktion und damit eine Datenbankverbindung. Je
+ * Benutzer laeuft daher hoechstens ein Export, insgesamt hoechstens {@code note.export.max-concurrent}; der
+ * Platz wird vor dem Start mit {@link #reserve} belegt.
+ */
+@Service
+public class NoteExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteExportService.class);
+
+    private final NoteRepository noteRepository;
+    private final BlobStore blobStore;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Set<Integer> running = ConcurrentHashMap.newKeySet(); // Benutzer mit laufendem Export
+
+    @Value("${note.export.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private Semaphore slots; // Freie Plaetze fuer gleichzeitige Exporte
+
+    public NoteExportService(NoteRepository noteRepository, BlobStore blobStore, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.noteRepository = noteRepository;
+        this.blobStore = blobStore;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Belegt den Platz fuer einen Export des Benutzers. Er muss nach dem Export mit {@link Slot#close()}
+     * freigegeben werden.
+     *
+     * @param userId die ID des Benutzers
+     * @return der belegte Platz
+     * @throws IllegalStateException   wenn fuer den Benutzer bereits ein Export laeuft
+     * @throws ResponseStatusException mit 503, wenn bereits {@code note.export.max-concurrent} Exporte laufen
+     */
+    public Slot reserve(int userId) {
+        if (!running.add(userId)) {
+            throw new IllegalStateException("Fuer diesen Benutzer laeuft bereits ein Export");
+        }
+        if (!slots.tryAcquire()) {
+            running.remove(userId);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Zu viele Exporte gleichzeitig. Bitte versuchen Sie es spaeter erneut.");
+        }
+        return new Slot(userId);
+    }
+
+    /**
+     * Wandelt den Cursor eines vorherigen Exports in die ID der letzten exportierten Notiz um.
+     *
+     * @param cursor der Cursor oder null/leer fuer den Anfang
+     * @return die ID, nach der der Export fortgesetzt wird
+     * @throws IllegalArgumentException wenn der Cursor ungueltig ist
+     */
+    public static int parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int id = Integer.parseInt(cursor.trim());
+            if (id < 0) {
+                throw new NumberFormatException();
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungueltiger Cursor");
+        }
+    }
+
+    /**
+     * Schreibt das Archiv mit den Notizen eines Benutzers. Der Aufrufer belegt vorher mit {@link #reserve}
+     * einen Platz und gibt ihn danach frei.
+     *
+     * @param userId  die ID des Benutzers
+     * @param afterId nur Notizen mit groesserer ID werden exportiert (siehe {@link #parseCursor})
+     * @param limit   die maximale Anzahl an Notizen im Archiv oder null fuer alle
+     * @param out     der Ausgabestrom; er wird nicht geschlossen
+     * @throws IOException wenn das Schreiben fehlschlaegt, z. B. weil der Client abbricht
+     */
+    public void export(int userId, int afterId, Integer limit, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        Export export = new Export(zip);
+        try {
+            // Der Datenbank-Cursor ist nur innerhalb einer Transaktion gueltig
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Note> notes = noteRepository.streamByUserIdAfter(userId, afterId)) {
+                    Iterator<Note> iterator = notes.iterator();
+                    while (iterator.hasNext()) {
+                        if (limit != null && export.notes >= limit) {
+                            export.nextCursor = String.valueOf(export.lastId);
+                            break;
+                        }
+                        Note note = iterator.next();
+                        export.write(note);
+                        entityManager.detach(note);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        export.finish();
+        log.info("Export fuer Benutzer {}: {} Notizen, {} Bilder, {} fehlende Bilder", userId, export.notes,
+                export.images, export.missingImages);
+    }
+
+    /**
+     * Ein mit {@link #reserve} belegter Platz; mehrfaches Schliessen gibt ihn nur einmal frei.
+     */
+    public class Slot implements AutoCloseable {
+
+        private final int userId;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(int userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                running.remove(userId);
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * Zustand eines laufenden Exports.
+     */
+    private class Export {
+
+        private final ZipOutputStream zip;
+        private final Set<String> writtenImages = new HashSet<>(); // Namen der Bilder, die bereits im Archiv stehen
+        private int notes;
+        private int images;
+        private int missingImages;
+        private int lastId;
+        private String nextCursor;
+
+        Export(ZipOutputStream zip) {
+            this.zip = zip;
+        }
+
+        void write(Note note) throws IOException {
+            List<String> files = new ArrayList<>();
+            for (Image image : note.getImages()) {
+                String name = image.getUrl();
+                if (ProcessImage.isValidFileName(name) && writeImage(name)) {
+                    files.add(name);
+                }
+            }
+
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", note.getId());
+            json.put("title", note.getTitle());
+            json.put("content", note.getContent());
+            json.put("tags", note.getTags());
+            json.put("createdAt", note.getCreatedAt() == null ? null : note.getCreatedAt().toInstant().toString());
+            json.put("images", files);
+            zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry("notes/" + note.getId() + ".md"));
+            zip.write(markdown(note, files).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("notes/" + note.getId() + ".json"));
+            zip.write(objectMapper.writeValueAsBytes(json));
+            zip.closeEntry();
+
+            notes++;
+            lastId = note.getId();
+        }
+
+        /**
+         * Kopiert ein Bild in das Archiv, falls es dort noch fehlt.
+         *
+         * @return false, wenn die Datei im Speicher nicht existiert
+         */
+        private boolean writeImage(String name) throws IOException {
+            if (writtenImages.contains(name)) {
+                return true;
+            }
+            try (InputStream in = blobStore.get(ProcessImage.storageKey(name))) {
+                // Bilder sind bereits komprimiert
+                zip.setLevel(Deflater.NO_COMPRESSION);
+                zip.putNextEntry(new ZipEntry("images/" + name));
+                in.transferTo(zip);
+                zip.closeEntry();
+            } catch (NoSuchFileException e) {
+                log.debug("Bild {} fehlt im Speicher und wird nicht exportiert", name);
+                missingImages++;
+                return false;
+            }
+            writtenImages.add(name);
+            images++;
+            return true;
+        }
+
+        void finish() throws IOException {
+            Map<String, Object> manifest = new LinkedHashMap<>();
+            manifest.put("notes", notes);
+            manifest.put("images", images);
+            manifest.put("missingImages", missingImages);
+            manifest.put("complete", nextCursor == null);
+            manifest.put("nextCursor", nextCursor);
+            zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry("export.json"));
+            zip.write(objectMapper.writeValueAsBytes(manifest));
+            zip.closeEntry();
+            zip.finish();
+        }
+    }
+
+    /**
+     * Stellt eine Notiz als Markdown dar; Bilder werden relativ zu {@code notes/} referenziert.
+     */
+    static String markdown(Note note, List<String> files) {
+        StringBuilder markdown = new StringBuilder();
+        markdown.append("# ").append(note.getTitle() == null ? "" : note.getTitle()).append("\n\n");
+        if (note.getTags() != null && !note.getTags().isEmpty()) {
+            markdown.append("Tags: ").append(String.join(", ", note.getTags())).append("\n\n");
+        }
+        if (note.getContent() != null && !note.getContent().isEmpty()) {
+            markdown.append(note.getContent()).append("\n\n");
+        }
+        for (String file : files) {
+            markdown.append("![").append(file).append("](../images/").append(file).append(")\n");
+        }
+        return markdown.toString();
+    }
+}
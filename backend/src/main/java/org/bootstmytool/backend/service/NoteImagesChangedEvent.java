@@ -0,0 +1,21 @@
+package org.bootstmytool.backend.service;
+
+import lombok.Getter;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Wird veroeffentlicht, wenn sich die Bilder einer Notiz aendern: ein Bild wurde hinzugefuegt, geloescht
+ * oder fertig verarbeitet. Titel, Inhalt und Tags bleiben dabei unveraendert, deshalb ist dies kein
+ * {@link NoteChangedEvent}.
+ */
+@Getter
+public class NoteImagesChangedEvent {
+
+    private final int userId; // ID des Besitzers der Notiz
+
+    public NoteImagesChangedEvent(int userId) {
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,395 @@
+package org.bootstmytool.backend.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.bootstmytool.backend.dto.NoteImportErrorDTO;
+import org.bootstmytool.backend.dto.NoteImportReportDTO;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Importiert Notizen in grossen Mengen, z. B. beim Umzug aus einem anderen Werkzeug.
+ * <p>
+ * Der Body ist entweder NDJSON (ein JSON-Objekt je Zeile) oder ein JSON-Array von Objekten der Form
+ * {@code {"title": ..., "content": ..., "tags": [...]}}. Er wird fortlaufend gelesen und nie vollstaendig
+ * im Speicher gehalten: NDJSON zeilenweise, Arrays mit dem Streaming-Parser von Jackson Eintrag fuer Eintrag.
+ * Gueltige Eintraege werden in Transaktionen zu {@code note.import.batch-size} Notizen gespeichert, danach
+ * wird der Persistenzkontext geleert. Ungueltige Eintraege landen mit ihrer Zeile im Fehlerbericht; bereits
+ * gespeicherte Batches bleiben auch bei einem Abbruch erhalten. Je Benutzer laeuft hoechstens ein Import.
+ */
+@Service
+public class NoteImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteImportService.class);
+
+    // Hoechstens so viele Fehler werden einzeln berichtet, damit der Bericht klein bleibt
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Laenge der Spalten title und note_tags.tags
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    // So viele Bytes werden hoechstens gelesen, um NDJSON und JSON-Array zu unterscheiden
+    private static final int FORMAT_PROBE_LIMIT = 8192;
+
+    private final NoteRepository noteRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final NoteSearchService noteSearchService;
+    private final NoteListCache noteListCache;
+    private final Map<Integer, Progress> running = new ConcurrentHashMap<>(); // Laufende Importe je Benutzer
+
+    @Value("${note.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${note.import.max-line-length:1048576}")
+    private int maxLineLength; // Maximale Laenge einer NDJSON-Zeile in Zeichen
+
+    public NoteImportService(NoteRepository noteRepository, UserRepository userRepository,
+                             EntityManager entityManager, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, NoteSearchService noteSearchService,
+                             NoteListCache noteListCache) {
+        this.noteRepository = noteRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.noteSearchService = noteSearchService;
+        this.noteListCache = noteListCache;
+    }
+
+    /**
+     * Importiert die Notizen aus dem Body fuer einen Benutzer.
+     *
+     * @param userId die ID des Benutzers, dem die Notizen gehoeren
+     * @param body   der Body im Format NDJSON oder JSON-Array
+     * @return der Bericht mit Zaehlern und den Fehlern je Zeile
+     * @throws IllegalStateException wenn fuer den Benutzer bereits ein Import laeuft
+     * @throws IOException           wenn der Body nicht gelesen werden kann
+     */
+    public NoteImportReportDTO importNotes(int userId, InputStream body) throws IOException {
+        Progress progress = new Progress();
+        if (running.putIfAbsent(userId, progress) != null) {
+            throw new IllegalStateException("Fuer diesen Benutzer laeuft bereits ein Import");
+        }
+        Batch batch = new Batch(userId, progress);
+        try {
+            InputStream in = new BufferedInputStream(body);
+            try {
+                if (startsWithArray(in)) {
+                    readArray(in, batch);
+                } else {
+                    readLines(in, batch);
+                }
+            } catch (JsonProcessingException e) {
+                // Im Array laesst sich nach einem Syntaxfehler nicht weiterlesen
+                progress.abortReason = e.getLocation() == null
+                        ? "Ungueltiges JSON: " + e.getOriginalMessage()
+                        : "Ungueltiges JSON in Zeile " + e.getLocation().getLineNr() + ", Spalte "
+                        + e.getLocation().getColumnNr() + ": " + e.getOriginalMessage();
+            }
+            batch.flush();
+        } finally {
+            running.remove(userId);
+            if (progress.imported.get() > 0) {
+                // Der Suchindex wird beim naechsten Zugriff neu aufgebaut, statt ihn je Notiz zu aktualisieren
+                noteSearchService.invalidate(userId);
+                noteListCache.invalidate(userId);
+            }
+        }
+        log.info("Import fuer Benutzer {}: {} Eintraege, {} importiert, {} abgelehnt", userId,
+                progress.records.get(), progress.imported.get(), progress.failed.get());
+        return progress.report(true);
+    }
+
+    /**
+     * Liefert den Stand des laufenden Imports eines Benutzers (ohne Fehlerliste).
+     *
+     * @param userId die ID des Benutzers
+     * @return der Stand oder leer, wenn kein Import laeuft
+     */
+    public Optional<NoteImportReportDTO> getProgress(int userId) {
+        Progress progress = running.get(userId);
+        return progress == null ? Optional.empty() : Optional.of(progress.report(false));
+    }
+
+    /**
+     * Prueft, ob der Body mit einem JSON-Array beginnt (Leerraum und BOM werden uebersprungen).
+     */
+    private static boolean startsWithArray(InputStream in) throws IOException {
+        in.mark(FORMAT_PROBE_LIMIT);
+        try {
+            for (int i = 0; i < FORMAT_PROBE_LIMIT; i++) {
+                int b = in.read();
+                if (b == -1) {
+                    return false;
+                }
+                if (!Character.isWhitespace(b) && b != 0xEF && b != 0xBB && b != 0xBF) {
+                    return b == '[';
+                }
+            }
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Liest ein JSON-Array Eintrag fuer Eintrag; nur der aktuelle Eintrag wird als Baum aufgebaut.
+     */
+    private void readArray(InputStream in, Batch batch) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            parser.nextToken(); // START_ARRAY
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    batch.progress.abortReason = "Unerwartetes Ende des Dokuments, das Array ist nicht geschlossen";
+                    return;
+                }
+                long line = parser.currentTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    batch.reject(line, "Eintrag ist kein JSON-Objekt");
+                    continue;
+                }
+                batch.add(line, parser.readValueAsTree());
+            }
+        }
+    }
+
+    /**
+     * Liest NDJSON zeilenweise. Ein Fehler betrifft nur seine Zeile; zu lange Zeilen werden verworfen,
+     * ohne sie zu puffern.
+     */
+    private void readLines(InputStream in, Batch batch) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        char[] buffer = new char[8192];
+        StringBuilder line = new StringBuilder();
+        boolean overflow = false;
+        long lineNumber = 1;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+                overflow = append(line, buffer, start, i - start, overflow);
+                handleLine(lineNumber++, line, overflow, batch);
+                line.setLength(0);
+                overflow = false;
+                start = i + 1;
+            }
+            overflow = append(line, buffer, start, read - start, overflow);
+        }
+        handleLine(lineNumber, line, overflow, batch);
+    }
+
+    private boolean append(StringBuilder line, char[] buffer, int start, int length, boolean overflow) {
+        if (overflow || line.length() + length > maxLineLength) {
+            line.setLength(0);
+            return true;
+        }
+        line.append(buffer, start, length);
+        return false;
+    }
+
+    private void handleLine(long lineNumber, StringBuilder line, boolean overflow, Batch batch) {
+        if (overflow) {
+            batch.reject(lineNumber, "Zeile ist laenger als " + maxLineLength + " Zeichen");
+            return;
+        }
+        String text = line.toString().strip();
+        if (lineNumber == 1 && text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        if (text.isEmpty()) {
+            return; // Leerzeilen zaehlen nicht als Eintrag
+        }
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            batch.reject(lineNumber, "Ungueltiges JSON: " + e.getOriginalMessage());
+            return;
+        }
+        if (!node.isObject()) {
+            batch.reject(lineNumber, "Eintrag ist kein JSON-Objekt");
+            return;
+        }
+        batch.add(lineNumber, node);
+    }
+
+    /**
+     * Wandelt einen Eintrag in eine Notiz um.
+     *
+     * @throws IllegalArgumentException wenn der Eintrag unvollstaendig oder ungueltig ist
+     */
+    static Note toNote(JsonNode node) {
+        JsonNode title = node.get("title");
+        if (title == null || !title.isTextual() || title.asText().isBlank()) {
+            throw new IllegalArgumentException("title fehlt oder ist kein Text");
+        }
+        if (title.asText().length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("title ist laenger als " + MAX_TEXT_LENGTH + " Zeichen");
+        }
+        JsonNode content = node.get("content");
+        if (content != null && !content.isNull() && !content.isTextual()) {
+            throw new IllegalArgumentException("content ist kein Text");
+        }
+
+        List<String> tags = new ArrayList<>();
+        JsonNode tagsNode = node.get("tags");
+        if (tagsNode != null && tagsNode.isArray()) {
+            for (JsonNode tag : tagsNode) {
+                if (!tag.isTextual()) {
+                    throw new IllegalArgumentException("tags darf nur Texte enthalten");
+                }
+                addTag(tags, tag.asText());
+            }
+        } else if (tagsNode != null && tagsNode.isTextual()) {
+            // Wie bei /notes/create: komma-getrennte Tags
+            for (String tag : tagsNode.asText().split(",")) {
+                addTag(tags, tag);
+            }
+        } else if (tagsNode != null && !tagsNode.isNull()) {
+            throw new IllegalArgumentException("tags ist weder Liste noch Text");
+        }
+
+        Note note = new Note();
+        note.setTitle(title.asText());
+        note.setContent(content == null || content.isNull() ? "" : content.asText());
+        note.setTags(tags);
+        return note;
+    }
+
+    private static void addTag(List<String> tags, String tag) {
+        String trimmed = tag.trim();
+        if (trimmed.isEmpty()) {
+            return;
+        }
+        if (trimmed.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Tag ist laenger als " + MAX_TEXT_LENGTH + " Zeichen");
+        }
+        tags.add(trimmed);
+    }
+
+    /**
+     * Sammelt gueltige Notizen und speichert sie, sobald ein Batch voll ist.
+     */
+    private class Batch {
+
+        private final int userId;
+        private final Progress progress;
+        private final List<Note> notes = new ArrayList<>();
+        private final List<Long> lines = new ArrayList<>(); // Zeile je Notiz fuer den Fehlerbericht
+
+        Batch(int userId, Progress progress) {
+            this.userId = userId;
+            this.progress = progress;
+        }
+
+        void add(long line, JsonNode node) {
+            Note note;
+            try {
+                note = toNote(node);
+            } catch (IllegalArgumentException e) {
+                reject(line, e.getMessage());
+                return;
+            }
+            progress.records.incrementAndGet();
+            notes.add(note);
+            lines.add(line);
+            if (notes.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            progress.records.incrementAndGet();
+            progress.error(line, message);
+        }
+
+        void flush() {
+            if (notes.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    User user = userRepository.getReferenceById(userId);
+                    notes.forEach(note -> note.setUser(user));
+                    noteRepository.saveAll(notes);
+                    entityManager.flush();
+                    // Gespeicherte Notizen nicht im Persistenzkontext halten, der Speicherbedarf bleibt konstant
+                    entityManager.clear();
+                });
+                progress.imported.addAndGet(notes.size());
+            } catch (RuntimeException e) {
+                log.warn("Import-Batch fuer Benutzer {} fehlgeschlagen: {}", userId, e.getMessage());
+                entityManager.clear();
+                for (Long line : lines) {
+                    progress.error(line, "Speichern fehlgeschlagen: " + e.getMessage());
+                }
+            } finally {
+                notes.clear();
+                lines.clear();
+            }
+            log.debug("Import fuer Benutzer {}: {} Eintraege gelesen, {} importiert", userId,
+                    progress.records.get(), progress.imported.get());
+        }
+    }
+
+    /**
+     * Stand eines Imports. Die Zaehler werden vom importierenden Thread geschrieben und von
+     * {@link #getProgress} gelesen; die Fehlerliste nur vom importierenden Thread.
+     */
+    private static class Progress {
+
+        private final AtomicLong records = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<NoteImportErrorDTO> errors = new ArrayList<>();
+        private volatile String abortReason;
+
+        void error(long line, String message) {
+            if (failed.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+                errors.add(new NoteImportErrorDTO(line, message));
+            }
+        }
+
+        NoteImportReportDTO report(boolean finished) {
+            long failedCount = failed.get();
+            return new NoteImportReportDTO(finished, records.get(), imported.get(), failedCount,
+                    finished ? List.copyOf(errors) : List.of(), failedCount > MAX_REPORTED_ERRORS, abortReason);
+        }
+    }
+}
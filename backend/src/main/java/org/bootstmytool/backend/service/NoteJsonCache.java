@@ -0,0 +1,109 @@
+package org.bootstmytool.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.bootstmytool.backend.dto.NoteDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Haelt das kompakte JSON (UTF-8) jeder Notiz, damit unveraenderte Notizen nicht bei jedem Abruf der
+ * Notizliste erneut serialisiert werden.
+ * <p>
+ * Schluessel ist die ID zusammen mit der {@code @Version} der Notiz. Jede Aenderung an Titel, Inhalt, Tags
+ * oder Bildern erhoeht die Version, ein Fragment muss deshalb nie verworfen werden: veraltete Versionen
+ * werden nicht mehr abgefragt und nach {@code note.json-cache.idle-timeout} oder bei Erreichen von
+ * {@code note.json-cache.max-size} (Summe der Bytes) verdraengt.
+ */
+@Service
+public class NoteJsonCache {
+
+    private final ObjectWriter writer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${note.json-cache.max-size:32MB}")
+    private DataSize maxSize;
+
+    @Value("${note.json-cache.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    private Cache<FragmentKey, byte[]> fragments; // JSON je Notiz und Version
+
+    /**
+     * Schluessel eines Fragments.
+     */
+    record FragmentKey(int id, long version) {
+    }
+
+    public NoteJsonCache(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        this.fragments = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((FragmentKey key, byte[] json) -> json.length + 64)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        // Treffer und Fehlzugriffe unter cache.* mit cache=notes.json
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "notes.json");
+    }
+
+    /**
+     * Schreibt die Notizen als JSON-Array. Die Fragmente werden ohne Umweg ueber Zwischenpuffer aneinander
+     * gehaengt; nur Notizen, deren Version noch nicht im Cache liegt, werden serialisiert.
+     *
+     * @param notes  die Notizen
+     * @param out    der Ausgabestrom; er wird nicht geschlossen
+     * @param pretty true fuer eingeruecktes JSON zur Fehlersuche, dann ohne Cache
+     * @throws IOException wenn das Schreiben fehlschlaegt
+     */
+    public void writeArray(List<NoteDTO> notes, OutputStream out, boolean pretty) throws IOException {
+        if (pretty) {
+            out.write(writer.withDefaultPrettyPrinter().writeValueAsBytes(notes));
+            return;
+        }
+        out.write('[');
+        for (int i = 0; i < notes.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(fragment(notes.get(i)));
+        }
+        out.write(']');
+    }
+
+    /**
+     * Liefert das JSON einer Notiz aus dem Cache oder serialisiert es.
+     */
+    byte[] fragment(NoteDTO note) {
+        return fragments.get(new FragmentKey(note.getId(), note.getVersion()), key -> serialize(note));
+    }
+
+    private byte[] serialize(NoteDTO note) {
+        try {
+            return writer.writeValueAsBytes(note);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Notiz " + note.getId() + " konnte nicht serialisiert werden", e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.bootstmytool.backend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.bootstmytool.backend.dto.ImageDTO;
+import org.bootstmytool.backend.dto.NoteDTO;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Zwischenspeicher fuer die vollstaendige Notizliste eines Benutzers ({@code GET /notes/get}).
+ * <p>
+ * Die Liste wird beim ersten Abruf mit drei Abfragen geladen und als fertige {@link NoteDTO}s gehalten.
+ * Sie wird verworfen, sobald sich eine Notiz des Benutzers aendert ({@link NoteChangedEvent}) oder ein Bild
+ * hinzukommt, geloescht oder verarbeitet wird ({@link NoteImagesChangedEvent}); die Listen anderer Benutzer
+ * bleiben erhalten. Gleichzeitige Abrufe desselben Benutzers warten auf dieselbe Ladeoperation, statt die
+ * Datenbank mehrfach abzufragen. Die Groesse ist ueber das geschaetzte Gewicht der Listen in Bytes begrenzt
+ * ({@code note.list-cache.max-size}), damit wenige Benutzer mit vielen Notizen den Speicher nicht sprengen.
+ */
+@Service
+public class NoteListCache {
+
+    private final NoteRepository noteRepository;
+    private final ImageRepository imageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.base-url:http://localhost:8080}")
+    private String baseUrl;
+
+    @Value("${note.list-cache.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Value("${note.list-cache.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    private AsyncCache<Integer, List<NoteDTO>> listings; // Notizliste pro Benutzer-ID
+
+    public NoteListCache(NoteRepository noteRepository, ImageRepository imageRepository,
+                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.noteRepository = noteRepository;
+        this.imageRepository = imageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        this.listings = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Integer userId, List<NoteDTO> notes) -> estimateSize(notes))
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .buildAsync();
+        // Treffer, Fehlzugriffe, Ladezeiten und Verdraengungen unter cache.* mit cache=notes.list
+        CaffeineCacheMetrics.monitor(meterRegistry, listings, "notes.list");
+    }
+
+    /**
+     * Liefert alle Notizen eines Benutzers mit Tags und Bildern, aufsteigend nach ID.
+     * Die Liste wird geteilt und darf nicht veraendert werden.
+     *
+     * @param userId die ID des Benutzers.
+     * @return die Notizen des Benutzers.
+     */
+    public List<NoteDTO> getNotes(int userId) {
+        CompletableFuture<List<NoteDTO>> loading = new CompletableFuture<>();
+        CompletableFuture<List<NoteDTO>> listing = listings.get(userId, (id, executor) -> loading);
+        if (listing == loading) {
+            // Dieser Aufruf laedt; alle anderen warten auf dasselbe Ergebnis
+            try {
+                loading.complete(load(userId));
+            } catch (RuntimeException e) {
+                // Caffeine entfernt fehlgeschlagene Eintraege, der naechste Abruf laedt erneut
+                loading.completeExceptionally(e);
+            }
+        }
+        try {
+            return listing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Verwirft die Liste eines Benutzers, z. B. nach einem Massenimport. Eine gerade laufende Ladeoperation
+     * wird nicht mehr an spaetere Aufrufer ausgeliefert.
+     */
+    public void invalidate(int userId) {
+        listings.synchronous().invalidate(userId);
+    }
+
+    /**
+     * Verwirft die Liste des Besitzers, sobald die Aenderung einer Notiz committet ist.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    /**
+     * Verwirft die Liste des Besitzers, sobald sich die Bilder einer seiner Notizen geaendert haben.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteImagesChanged(NoteImagesChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    /**
+     * Laedt die Notizen eines Benutzers mit je einer Abfrage fuer Notizen, Tags und Bilder. Es werden nur
+     * Spalten gelesen, keine Entitaeten; die Anzahl der Abfragen haengt nicht von der Anzahl der Notizen ab.
+     */
+    List<NoteDTO> load(int userId) {
+        return transactionTemplate.execute(status -> {
+            Map<Integer, List<String>> tags = new HashMap<>();
+            for (Object[] row : noteRepository.findTagsByUserId(userId)) {
+                tags.computeIfAbsent((Integer) row[0], k -> new ArrayList<>()).add((String) row[1]);
+            }
+            Map<Integer, List<ImageDTO>> images = new HashMap<>();
+            for (Object[] row : imageRepository.findListingByUserId(userId)) {
+                images.computeIfAbsent((Integer) row[0], k -> new ArrayList<>()).add(ImageDTO.of((Integer) row[1],
+                        (String) row[2], (ImageStatus) row[3], (Integer) row[4], baseUrl));
+            }
+            List<NoteDTO> notes = new ArrayList<>();
+            for (Object[] row : noteRepository.findListingByUserId(userId)) {
+                int noteId = (Integer) row[0];
+                NoteDTO dto = new NoteDTO();
+                dto.setId(noteId);
+                dto.setTitle((String) row[1]);
+                dto.setContent((String) row[2]);
+                dto.setCreatedAt((Date) row[3]);
+                dto.setVersion((Long) row[4]);
+                dto.setTags(List.copyOf(tags.getOrDefault(noteId, List.of())));
+                dto.setImages(List.copyOf(images.getOrDefault(noteId, List.of())));
+                notes.add(dto);
+            }
+            return List.copyOf(notes);
+        });
+    }
+
+    /**
+     * Schaetzt den Speicherbedarf einer Notizliste in Bytes. Gezaehlt werden die Zeichenketten mit zwei Bytes
+     * je Zeichen und ein pauschaler Aufschlag je Objekt; die Schaetzung liegt eher zu hoch als zu niedrig.
+     */
+    static int estimateSize(List<NoteDTO> notes) {
+        long bytes = 64;
+        for (NoteDTO note : notes) {
+            bytes += 96 + sizeOf(note.getTitle()) + sizeOf(note.getContent());
+            for (String tag : note.getTags()) {
+                bytes += 16 + sizeOf(tag);
+            }
+            for (ImageDTO image : note.getImages()) {
+                bytes += 128 + sizeOf(image.getUrl()) + sizeOf(image.getThumbnailUrl());
+                for (String variant : image.getVariants().values()) {
+                    bytes += 48 + sizeOf(variant);
+                }
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long sizeOf(String text) {
+        return text == null ? 0 : 40 + 2L * text.length();
+    }
+}
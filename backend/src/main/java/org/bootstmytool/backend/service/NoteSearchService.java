@@ -0,0 +1,159 @@
+package org.bootstmytool.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.bootstmytool.backend.dto.NoteSearchHitDTO;
+import org.bootstmytool.backend.dto.NoteSearchResultDTO;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.search.Highlighter;
+import org.bootstmytool.backend.search.NoteSearchIndex;
+import org.bootstmytool.backend.search.SearchQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Serverseitige Volltextsuche ueber die Notizen eines Benutzers.
+ * <p>
+ * Pro Benutzer wird beim ersten Suchaufruf ein {@link NoteSearchIndex} aufgebaut und danach ueber
+ * {@link NoteChangedEvent}s inkrementell gepflegt. Indizes inaktiver Benutzer werden nach
+ * {@code search.index.idle-timeout} verworfen und bei Bedarf neu aufgebaut.
+ */
+@Service
+public class NoteSearchService {
+
+    // Maximale Laenge eines Textausschnitts in Zeichen
+    private static final int SNIPPET_LENGTH = 200;
+
+    private final NoteRepository noteRepository;
+
+    @Value("${search.index.max-users:1000}")
+    private long maxIndexedUsers;
+
+    @Value("${search.index.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    private Cache<Integer, NoteSearchIndex> indexes; // Index pro Benutzer-ID
+
+    public NoteSearchService(NoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(maxIndexedUsers)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * Sucht in den Notizen eines Benutzers und liefert eine Seite von Treffern mit Ausschnitten.
+     *
+     * @param userId die ID des Benutzers.
+     * @param query  die Suchanfrage (Begriffe, {@code praefix*}, {@code "phrase"}).
+     * @param mode   der Suchmodus fuer einzelne Begriffe (exakt, Wortteil oder fehlertolerant).
+     * @param page   die Seite, beginnend bei 0.
+     * @param size   die Anzahl der Treffer pro Seite.
+     * @return die Treffer der angeforderten Seite.
+     */
+    @Transactional(readOnly = true)
+    public NoteSearchResultDTO search(int userId, String query, SearchQuery.Mode mode, int page, int size) {
+        SearchQuery parsed = SearchQuery.parse(query, mode);
+        if (parsed.isEmpty()) {
+            return new NoteSearchResultDTO(query, 0, page, size, List.of());
+        }
+
+        List<NoteSearchIndex.Hit> hits = indexFor(userId).search(parsed);
+        int from = (int) Math.min((long) page * size, hits.size());
+        int to = Math.min(from + size, hits.size());
+        List<NoteSearchIndex.Hit> pageHits = hits.subList(from, to);
+        if (pageHits.isEmpty()) {
+            return new NoteSearchResultDTO(query, hits.size(), page, size, List.of());
+        }
+
+        // Nur die Notizen der aktuellen Seite fuer die Ausschnitte laden
+        List<Integer> ids = pageHits.stream().map(NoteSearchIndex.Hit::getNoteId).toList();
+        Map<Integer, Object[]> sources = new HashMap<>();
+        for (Object[] row : noteRepository.findSearchSourcesByIds(ids)) {
+            sources.put((Integer) row[0], row);
+        }
+        Map<Integer, List<String>> tags = new HashMap<>();
+        for (Object[] row : noteRepository.findTagsByNoteIds(ids)) {
+            tags.computeIfAbsent((Integer) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        Highlighter highlighter = new Highlighter(parsed);
+        List<NoteSearchHitDTO> results = new ArrayList<>(pageHits.size());
+        for (NoteSearchIndex.Hit hit : pageHits) {
+            Object[] source = sources.get(hit.getNoteId());
+            if (source == null) {
+                continue; // zwischenzeitlich geloescht
+            }
+            NoteSearchHitDTO dto = new NoteSearchHitDTO();
+            dto.setId(hit.getNoteId());
+            dto.setTitle(highlighter.highlight((String) source[1]));
+            dto.setSnippet(highlighter.snippet((String) source[2], SNIPPET_LENGTH));
+            dto.setCreatedAt((Date) source[3]);
+            dto.setTags(tags.getOrDefault(hit.getNoteId(), new ArrayList<>()));
+            dto.setScore(hit.getScore());
+            results.add(dto);
+        }
+        return new NoteSearchResultDTO(query, hits.size(), page, size, results);
+    }
+
+    /**
+     * Pflegt den Index nach einer Aenderung, sobald die Transaktion erfolgreich abgeschlossen ist.
+     * Ist fuer den Benutzer noch kein Index geladen, wird das Ereignis ignoriert; der Index wird
+     * beim naechsten Suchaufruf vollstaendig aus der Datenbank aufgebaut.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        NoteSearchIndex index = indexes.getIfPresent(event.getUserId());
+        if (index == null) {
+            return;
+        }
+        if (event.getType() == NoteChangedEvent.Type.DELETE) {
+            index.remove(event.getNoteId());
+        } else {
+            index.upsert(event.getNoteId(), event.getTitle(), event.getContent(), event.getTags());
+        }
+    }
+
+    /**
+     * Verwirft den Index eines Benutzers, z. B. nach Massenaenderungen.
+     */
+    public void invalidate(int userId) {
+        indexes.invalidate(userId);
+    }
+
+    private NoteSearchIndex indexFor(int userId) {
+        // Der Index wird vor dem Laden eingetragen, damit parallele Aenderungen nicht verloren gehen
+        NoteSearchIndex index = indexes.get(userId, id -> new NoteSearchIndex());
+        index.ensureLoaded(target -> load(userId, target));
+        return index;
+    }
+
+    private void load(int userId, NoteSearchIndex index) {
+        Map<Integer, List<String>> tags = new HashMap<>();
+        for (Object[] row : noteRepository.findTagsByUserId(userId)) {
+            tags.computeIfAbsent((Integer) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+        for (Object[] row : noteRepository.findSearchSourcesByUserId(userId)) {
+            int noteId = (Integer) row[0];
+            index.upsert(noteId, (String) row[1], (String) row[2], tags.get(noteId));
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package org.bootstmytool.backend.service;
 
+import org.bootstmytool.backend.dto.NotePageDTO;
+import org.bootstmytool.backend.dto.NoteSummaryDTO;
 import org.bootstmytool.backend.model.Image;
 import org.bootstmytool.backend.model.Note;
 import org.bootstmytool.backend.repository.ImageRepository;
 import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.utils.NoteCursor;
+import org.bootstmytool.backend.utils.ProcessImage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @Author Mohamed Cheikh
@@ -22,17 +34,51 @@ public class NoteService {
 
     private final NoteRepository noteRepository;
     private final ImageRepository imageRepository;
+    private final ImageStore imageStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.base-url:http://localhost:8080}")
+    private String baseUrl;
+
+    /**
+     * Sortierreihenfolge fuer die Cursor-basierte Auflistung von Notizen.
+     */
+    public enum SortOrder {
+        NEWEST, // Neueste Notizen zuerst
+        OLDEST; // Aelteste Notizen zuerst
+
+        /**
+         * Wandelt den Request-Parameter in eine Sortierreihenfolge um.
+         *
+         * @throws IllegalArgumentException wenn der Wert unbekannt ist
+         */
+        public static SortOrder fromParameter(String value) {
+            if (value == null || value.isBlank()) {
+                return NEWEST;
+            }
+            try {
+                return SortOrder.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unbekannte Sortierung: " + value);
+            }
+        }
+    }
 
     /**
      * Erstellt eine neue Instanz von NoteService.
      *
      * @param noteRepository  das NoteRepository, das verwendet werden soll.
      * @param imageRepository das ImageRepository, das verwendet werden soll.
+     * @param imageStore      der Speicher, der die Bilddateien der Notizen verwaltet.
+     * @param eventPublisher  der Publisher fuer {@link NoteChangedEvent}s.
      */
     @Autowired
-    public NoteService(NoteRepository noteRepository, ImageRepository imageRepository) {
+    public NoteService(NoteRepository noteRepository, ImageRepository imageRepository, ImageStore imageStore,
+                       ApplicationEventPublisher eventPublisher) {
         this.noteRepository = noteRepository;
         this.imageRepository = imageRepository;
+        this.imageStore = imageStore;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -43,17 +89,30 @@ public class NoteService {
      */
     @Transactional
     public Note createNote(Note note) {
-        // Speichern der Notiz in der Datenbank
-        Note savedNote = noteRepository.save(note);
-
-        //Gewaehrleisten, dass die Bilder der Notiz in der Datenbank gespeichert werden
+        // Die Bilder vor dem Speichern verknuepfen: sie werden mit der Notiz kaskadiert und gebuendelt
+        // eingefuegt, ohne nachtraegliches Update der note_id
         if (note.getImages() != null) {
             for (Image image : note.getImages()) {
-                image.setNote(savedNote);
-                imageRepository.save(image);
+                image.setNote(note);
             }
         }
 
+        // Speichern der Notiz in der Datenbank; die IDs stammen aus den Sequenzen, die Inserts folgen beim Commit
+        Note savedNote = noteRepository.save(note);
+
+        List<Integer> imageIds = new ArrayList<>();
+        if (savedNote.getImages() != null) {
+            for (Image image : savedNote.getImages()) {
+                imageIds.add(image.getId());
+                imageStore.confirm(image);
+            }
+        }
+
+        eventPublisher.publishEvent(NoteChangedEvent.upsert(savedNote));
+        if (!imageIds.isEmpty()) {
+            // Die Bilder werden nach dem Commit im Hintergrund verarbeitet
+            eventPublisher.publishEvent(new ImagesStoredEvent(imageIds));
+        }
         return savedNote;
     }
 
@@ -64,7 +123,8 @@ public class NoteService {
      * @return die Notiz, die der angegebenen ID entspricht, oder null, wenn keine Notiz gefunden wird.
      */
     public Note getNoteById(int id) {
-        return noteRepository.getNoteById(id).orElse(null);
+        // Ueber den Primaerschluessel laden, damit der Second-Level-Cache greift (eine Abfrage umgeht ihn)
+        return noteRepository.findById(id).orElse(null);
     }
 
     /**
@@ -76,6 +136,59 @@ public class NoteService {
         return noteRepository.findByUserId(id);
     }
 
+    /**
+     * Holt eine Seite von Notiz-Zusammenfassungen eines Benutzers ueber Keyset-Paginierung.
+     * Es werden nur Titel, ein Inhaltsauszug, Tags und Bild-URLs geladen, nie der volle Inhalt oder Bilddaten.
+     *
+     * @param userId die ID des Benutzers.
+     * @param limit  die maximale Anzahl an Notizen pro Seite.
+     * @param cursor der Cursor der vorherigen Seite oder null fuer die erste Seite.
+     * @param sort   die Sortierreihenfolge.
+     * @return die Seite mit den Zusammenfassungen und dem Cursor fuer die naechste Seite.
+     */
+    @Transactional(readOnly = true)
+    public NotePageDTO getNoteSummaries(int userId, int limit, String cursor, SortOrder sort) {
+        // Eine Notiz mehr laden, um festzustellen, ob es eine weitere Seite gibt
+        Limit pageLimit = Limit.of(limit + 1);
+        NoteCursor after = cursor == null || cursor.isBlank() ? null : NoteCursor.decode(cursor);
+
+        List<NoteSummaryDTO> summaries;
+        if (sort == SortOrder.OLDEST) {
+            summaries = after == null
+                    ? noteRepository.findSummariesOldest(userId, pageLimit)
+                    : noteRepository.findSummariesOldestAfter(userId, after.getCreatedAt(), after.getId(), pageLimit);
+        } else {
+            summaries = after == null
+                    ? noteRepository.findSummariesNewest(userId, pageLimit)
+                    : noteRepository.findSummariesNewestAfter(userId, after.getCreatedAt(), after.getId(), pageLimit);
+        }
+
+        boolean hasMore = summaries.size() > limit;
+        if (hasMore) {
+            summaries = summaries.subList(0, limit);
+        }
+        if (summaries.isEmpty()) {
+            return new NotePageDTO(summaries, null, false);
+        }
+
+        // Tags und Vorschaubilder fuer alle Notizen der Seite mit je einer Abfrage nachladen
+        Map<Integer, NoteSummaryDTO> byId = summaries.stream()
+                .collect(Collectors.toMap(NoteSummaryDTO::getId, Function.identity()));
+        for (Object[] row : noteRepository.findTagsByNoteIds(byId.keySet())) {
+            byId.get((Integer) row[0]).getTags().add((String) row[1]);
+        }
+        Map<Integer, String> thumbnails = new HashMap<>();
+        for (Object[] row : imageRepository.findUrlsByNoteIds(byId.keySet())) {
+            thumbnails.putIfAbsent((Integer) row[0], (String) row[1]);
+        }
+        thumbnails.forEach((noteId, url) -> byId.get(noteId).setThumbnailUrl(
+                ProcessImage.variantUrl(baseUrl, url, ProcessImage.THUMBNAIL_WIDTH, null)));
+
+        NoteSummaryDTO last = summaries.get(summaries.size() - 1);
+        String nextCursor = hasMore ? new NoteCursor(last.getCreatedAt(), last.getId()).encode() : null;
+        return new NotePageDTO(summaries, nextCursor, hasMore);
+    }
+
 
     /**
      * Löscht eine Notiz aus der Datenbank basierend auf der angegebenen ID.
@@ -83,44 +196,16 @@ public class NoteService {
      * @param id die ID der Notiz.
      * @return eine Bestätigungsmeldung, dass die Notiz gelöscht wurde, oder eine Meldung, dass die Notiz nicht gefunden wurde.
      */
+    @Transactional // Die Verweise der Bilder werden in derselben Transaktion freigegeben
     public String deleteNoteById(int id) {
         Note existingNote = noteRepository.findById(id).orElse(null);
         if (existingNote != null) {
             noteRepository.delete(existingNote);
+            // Die Bilder werden mitgeloescht; ihre Dateien nur, wenn keine andere Notiz darauf verweist
+            existingNote.getImages().forEach(imageStore::release);
+            eventPublisher.publishEvent(NoteChangedEvent.delete(existingNote));
             return "Notiz gelöscht!";
         }
         return "Notiz nicht gefunden!";
     }
-
-    /**
-     * Bearbeitet eine Notiz basierend auf der angegebenen ID.
-     *
-     * @param id   die ID der Notiz.
-     * @param note die aktualisierte Notiz.
-     * @return die aktualisierte Notiz.
-     */
-    public Note editNoteById(int id, Note note) {
-        Note existingNote = noteRepository.findById(id).orElse(null);
-        if (existingNote != null) {
-            existingNote.setTitle(note.getTitle());
-            existingNote.setContent(note.getContent());
-            return noteRepository.save(existingNote);
-        }
-        return null;
-    }
-
-
-    /**
-     * Aktualisiert eine Notiz in der Datenbank.
-     *
-     * @param existingNote die zu aktualisierende Notiz.
-     * @return die aktualisierte Notiz.
-     */
-    public Note updateNote(Note existingNote) {
-        return noteRepository.save(existingNote);
-    }
-
-    public void save(Note note) {
-        noteRepository.save(note);
-    }
 }
@@ -0,0 +1,194 @@
+package org.bootstmytool.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Fuehrt das Hashen und Pruefen von Passwoertern (BCrypt bzw. PBKDF2, siehe {@code SecurityConfig}) auf einem
+ * eigenen, begrenzten Thread-Pool aus.
+ * <p>
+ * BCrypt belastet einen Kern fuer jede Pruefung voll. Liefe es auf den Request-Threads, koennte eine Welle von
+ * Anmeldungen alle Kerne belegen und das Lesen der Notizen ausbremsen. Der Pool hat deshalb hoechstens so viele
+ * Threads wie Prozessoren ({@code auth.hashing.threads}) und eine begrenzte Warteschlange
+ * ({@code auth.hashing.queue-capacity}); ist sie voll, wird sofort mit 503 abgelehnt, statt Requests warten zu
+ * lassen. Anmeldungen werden vor Registrierungen und Passwortaenderungen bearbeitet, damit bestehende Benutzer
+ * auch unter Last hineinkommen. Die Threads bleiben Plattform-Threads, auch wenn Requests auf virtuellen Threads
+ * laufen: die Arbeit ist reine Rechenzeit.
+ * <p>
+ * Metriken: {@code executor.*} mit name=auth.password.hashing (u. a. Warteschlangenlaenge),
+ * {@code auth.password.hash.duration} je Operation und {@code auth.password.hashing.rejected}.
+ */
+@Service
+public class PasswordHashingService {
+
+    /**
+     * Reihenfolge in der Warteschlange; kleinere Werte zuerst.
+     */
+    enum Priority {
+        LOGIN, CHANGE
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong sequence = new AtomicLong(); // Reihenfolge bei gleicher Prioritaet
+
+    @Value("${auth.hashing.threads:0}")
+    private int threads; // 0 = Anzahl der Prozessoren
+
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore queueSlots; // Freie Plaetze in der Warteschlange
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // PriorityBlockingQueue ist unbegrenzt; die Grenze setzen die queueSlots
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), new CustomizableThreadFactory("hashing-"));
+        queueSlots = new Semaphore(queueCapacity);
+
+        new ExecutorServiceMetrics(executor, "auth.password.hashing", Tags.empty()).bindTo(meterRegistry);
+        encodeTimer = hashTimer("encode");
+        matchesTimer = hashTimer("matches");
+        rejected = Counter.builder("auth.password.hashing.rejected")
+                .description("Abgelehnte Passwort-Operationen wegen voller Warteschlange")
+                .register(meterRegistry);
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("auth.password.hash.duration")
+                .description("Rechenzeit fuer das Hashen bzw. Pruefen eines Passworts")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hasht ein neues Passwort, z. B. bei der Registrierung oder beim Zuruecksetzen.
+     *
+     * @param rawPassword das Passwort im Klartext
+     * @return der Hash
+     * @throws ResponseStatusException mit 503, wenn die Warteschlange voll ist
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(Priority.CHANGE, () -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Prueft ein Passwort gegen den gespeicherten Hash.
+     *
+     * @param rawPassword     das Passwort im Klartext
+     * @param encodedPassword der gespeicherte Hash
+     * @return true, wenn das Passwort passt
+     * @throws ResponseStatusException mit 503, wenn die Warteschlange voll ist
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(Priority.LOGIN,
+                () -> matchesTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Prueft, ob ein gespeicherter Hash mit einem anderen Verfahren oder geringeren Kosten erzeugt wurde als
+     * aktuell konfiguriert. Liest nur den Kopf des Hashes und laeuft deshalb direkt im aufrufenden Thread.
+     *
+     * @param encodedPassword der gespeicherte Hash
+     * @return true, wenn der Hash erneuert werden sollte
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Reiht eine Operation ein und wartet auf ihr Ergebnis.
+     */
+    <T> T run(Priority priority, Callable<T> operation) {
+        if (!queueSlots.tryAcquire()) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Zu viele Anmeldungen gleichzeitig. Bitte versuchen Sie es spaeter erneut.");
+        }
+        HashTask<T> task = new HashTask<>(operation, priority, sequence.getAndIncrement());
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            queueSlots.release();
+            throw e;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warten auf die Passwort-Pruefung wurde unterbrochen", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Eintrag der Warteschlange. Gibt seinen Platz frei, sobald ein Thread ihn uebernimmt.
+     */
+    private final class HashTask<T> extends FutureTask<T> implements Comparable<HashTask<?>> {
+
+        private final Priority priority;
+        private final long order;
+
+        HashTask(Callable<T> operation, Priority priority, long order) {
+            super(operation);
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public void run() {
+            queueSlots.release();
+            super.run();
+        }
+
+        @Override
+        public int compareTo(HashTask<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+}
@@ -1,18 +1,29 @@
 package org.bootstmytool.backend.service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import org.bootstmytool.backend.model.User;
 import org.bootstmytool.backend.repository.UserRepository;
+import org.bootstmytool.backend.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * @Author Mohamed Cheikh
  * @Version 1.0
  * @Date: 2025-03-27
  * Service-Klasse für Benutzer-Operationen.
+ * Haelt zusaetzlich einen Cache der Principals (ID und Email) nach Email, damit gewoehnliche
+ * Anfragen ohne Abfrage der Tabelle {@code users} authentifiziert werden koennen. Email und ID eines Kontos
+ * aendern sich nicht; Eintraege verfallen nach {@code auth.principal-cache.ttl}.
  */
 
 @Service
@@ -21,6 +32,25 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${auth.principal-cache.ttl:10m}")
+    private Duration principalCacheTtl;
+
+    @Value("${auth.principal-cache.max-size:10000}")
+    private long principalCacheSize;
+
+    private AsyncCache<String, UserPrincipal> principals; // Principals nach Email
+
+    /**
+     * Erzeugt den Principal-Cache mit der konfigurierten Lebensdauer.
+     */
+    @PostConstruct
+    void init() {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(principalCacheSize)
+                .expireAfterWrite(principalCacheTtl)
+                .buildAsync();
+    }
+
     /**
      * Holt einen Benutzer basierend auf dem Benutzernamen.
      *
@@ -37,4 +67,48 @@ public class UserService {
     public Optional<User> findByUsername(String username) {
         return userRepository.findByEmail(username);
     }
+
+    /**
+     * Liefert den Principal eines Benutzers. Nur bei einem Cache-Fehltreffer wird die Datenbank gelesen;
+     * gleichzeitige Fehltreffer fuer dieselbe Email warten auf dieselbe Abfrage.
+     *
+     * @param email die Email des Benutzers.
+     * @return der Principal mit ID und Email.
+     * @throws UsernameNotFoundException wenn der Benutzer nicht existiert.
+     */
+    public UserPrincipal loadPrincipal(String email) {
+        CompletableFuture<UserPrincipal> loading = new CompletableFuture<>();
+        CompletableFuture<UserPrincipal> principal = principals.get(email, (key, executor) -> loading);
+        if (principal == loading) {
+            // Dieser Aufruf laedt, ausserhalb der Sperre der Map: ein virtueller Thread bleibt waehrend der
+            // Abfrage nicht an seinen Carrier-Thread gebunden. Fehlgeschlagene Eintraege entfernt Caffeine.
+            try {
+                loading.complete(userRepository.findByEmail(email)
+                        .map(user -> new UserPrincipal((int) user.getId(), user.getEmail()))
+                        .orElseThrow(() -> new UsernameNotFoundException(
+                                "Benutzer mit der Email " + email + " nicht gefunden.")));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+            }
+        }
+        try {
+            return principal.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Liefert eine Referenz auf den Benutzer des Principals, ohne ihn aus der Datenbank zu laden.
+     * Die Referenz genuegt, um Fremdschluessel wie {@code note.user_id} zu setzen.
+     *
+     * @param principal der Principal des Benutzers.
+     * @return die (nicht initialisierte) Benutzer-Referenz.
+     */
+    public User getReference(UserPrincipal principal) {
+        return userRepository.getReferenceById(principal.getId());
+    }
 }
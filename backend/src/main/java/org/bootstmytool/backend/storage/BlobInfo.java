@@ -0,0 +1,25 @@
+package org.bootstmytool.backend.storage;
+
+import lombok.Getter;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Metadaten eines Eintrags im {@link BlobStore}.
+ */
+@Getter
+public class BlobInfo {
+
+    private final long size; // Groesse in Bytes
+    private final long lastModified; // Millisekunden seit der Epoche
+    private final String etag; // Vom Speicher vergebenes ETag in Anfuehrungszeichen oder null
+    private final String contentType; // Beim Speichern angegebener MIME-Typ oder null
+
+    public BlobInfo(long size, long lastModified, String etag, String contentType) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.etag = etag;
+        this.contentType = contentType;
+    }
+}
@@ -0,0 +1,103 @@
+package org.bootstmytool.backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Schnittstelle fuer die Ablage von Binaerdaten (Bilder und ihre Varianten).
+ * <p>
+ * Schluessel sind relative Pfade mit {@code /} als Trenner, z. B. {@code ab/cd/abcd...ef.png}. Daten werden
+ * immer gestreamt und nie vollstaendig in den Speicher geladen. Welche Implementierung verwendet wird,
+ * bestimmt {@code blob.store.type}: {@link LocalBlobStore} fuer ein Verzeichnis, {@link S3BlobStore} fuer
+ * einen S3-kompatiblen Speicher, den sich mehrere Instanzen des Backends teilen koennen.
+ */
+public interface BlobStore {
+
+    /**
+     * Speichert Daten unter dem Schluessel; ein vorhandener Eintrag wird ersetzt.
+     * Leser sehen entweder den alten oder den vollstaendigen neuen Inhalt.
+     *
+     * @param key         der Schluessel
+     * @param content     die Daten, werden bis zum Ende gelesen, aber nicht geschlossen
+     * @param length      die Anzahl der Bytes
+     * @param contentType der MIME-Typ
+     */
+    void put(String key, InputStream content, long length, String contentType) throws IOException;
+
+    /**
+     * Speichert eine lokale Datei unter dem Schluessel. Die Datei darf dabei verschoben werden und
+     * existiert danach moeglicherweise nicht mehr.
+     */
+    default void putFile(String key, Path file, String contentType) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            put(key, in, Files.size(file), contentType);
+        }
+    }
+
+    /**
+     * Erzeugt eine temporaere Datei, die sich moeglichst guenstig mit {@link #putFile} uebernehmen laesst.
+     */
+    default Path createTempFile() throws IOException {
+        return Files.createTempFile("blob-", ".tmp");
+    }
+
+    /**
+     * Liefert Groesse, Aenderungszeit und, falls bekannt, ETag und MIME-Typ eines Eintrags.
+     *
+     * @return die Angaben oder null, wenn der Eintrag nicht existiert
+     */
+    BlobInfo stat(String key) throws IOException;
+
+    /**
+     * Oeffnet einen Eintrag zum Lesen.
+     *
+     * @throws java.nio.file.NoSuchFileException wenn der Eintrag nicht existiert
+     */
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Oeffnet einen Bereich eines Eintrags zum Lesen.
+     *
+     * @param offset die Position des ersten Bytes
+     * @param length die Anzahl der Bytes
+     * @throws java.nio.file.NoSuchFileException wenn der Eintrag nicht existiert
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    /**
+     * Loescht einen Eintrag; fehlt er, passiert nichts.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Liefert die Schluessel aller Eintraege, die mit dem Praefix beginnen.
+     */
+    List<String> list(String prefix) throws IOException;
+
+    /**
+     * Liefert eine zeitlich begrenzte URL, unter der der Client den Eintrag direkt vom Speicher laden kann.
+     *
+     * @return die URL oder leer, wenn der Speicher das nicht unterstuetzt
+     */
+    default Optional<URI> directUrl(String key, Duration validity) {
+        return Optional.empty();
+    }
+
+    /**
+     * Liefert den Pfad im lokalen Dateisystem, ueber den ohne Kopie gelesen werden kann.
+     *
+     * @return der Pfad oder leer, wenn der Eintrag nicht lokal liegt
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,174 @@
+package org.bootstmytool.backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * {@link BlobStore} in einem lokalen Verzeichnis ({@code image.upload.dir}).
+ * <p>
+ * Schluessel werden als relative Pfade unterhalb des Verzeichnisses abgelegt. Geschrieben wird ueber eine
+ * temporaere Datei im Unterverzeichnis {@code .tmp} und einen atomaren Move, damit nie eine halbe Datei
+ * gelesen wird. Mehrere Instanzen koennen sich das Verzeichnis teilen, wenn es auf einem gemeinsamen
+ * Dateisystem liegt.
+ */
+public class LocalBlobStore implements BlobStore {
+
+    private static final String TEMP_DIR = ".tmp";
+
+    private final Path root;
+
+    public LocalBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        Path temp = createTempFile();
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            moveIntoPlace(temp, path(key));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void putFile(String key, Path file, String contentType) throws IOException {
+        Path target = path(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Anderes Dateisystem: erst neben das Ziel kopieren, dann atomar verschieben
+            Path temp = createTempFile();
+            try {
+                Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+                moveIntoPlace(temp, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    @Override
+    public Path createTempFile() throws IOException {
+        Path dir = root.resolve(TEMP_DIR);
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, "blob-", ".tmp");
+    }
+
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path(key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new BlobInfo(attributes.size(), attributes.lastModifiedTime().toMillis(), null, null);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(path(key));
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(path(key), StandardOpenOption.READ);
+        channel.position(offset);
+        InputStream in = Channels.newInputStream(channel);
+        return new InputStream() {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = in.read();
+                if (b >= 0) {
+                    remaining--;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = in.read(buffer, off, (int) Math.min(len, remaining));
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
+            }
+        };
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(path(key));
+    }
+
+    @Override
+    public List<String> list(String prefix) throws IOException {
+        // Nur das Verzeichnis des Praefixes durchsuchen, nicht den ganzen Speicher
+        int slash = prefix.lastIndexOf('/');
+        Path dir = slash < 0 ? root : path(prefix.substring(0, slash));
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> root.relativize(file).toString().replace('\\', '/'))
+                    .filter(key -> key.startsWith(prefix) && !key.startsWith(TEMP_DIR + "/"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(path(key));
+    }
+
+    /**
+     * Bildet den Schluessel auf einen Pfad ab und verhindert, dass er aus dem Verzeichnis herausfuehrt.
+     */
+    private Path path(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Ungueltiger Schluessel: " + key);
+        }
+        return path;
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
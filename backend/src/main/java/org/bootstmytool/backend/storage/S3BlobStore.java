@@ -0,0 +1,189 @@
+package org.bootstmytool.backend.storage;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * {@link BlobStore} in einem S3-kompatiblen Bucket (AWS S3, MinIO, Ceph ...).
+ * <p>
+ * Alle Instanzen des Backends, die denselben Bucket verwenden, sehen dieselben Bilder. Uploads werden mit
+ * bekannter Laenge gestreamt, Bereiche ueber {@code Range} gelesen; {@link #directUrl} liefert eine
+ * vorsignierte GET-URL. Zusaetzliche Pruefsummen werden nur gesendet, wo S3 sie verlangt, da nicht alle
+ * kompatiblen Speicher sie unterstuetzen.
+ */
+public class S3BlobStore implements BlobStore, AutoCloseable {
+
+    private final S3Client client;
+    private final S3Presigner presigner;
+    private final String bucket;
+
+    /**
+     * Erstellt den Speicher.
+     *
+     * @param endpoint  die Adresse des Speichers oder null fuer AWS S3
+     * @param region    die Region, z. B. {@code eu-central-1}
+     * @param bucket    der Bucket
+     * @param accessKey der Zugriffsschluessel oder null fuer die Standard-Anmeldedaten der Umgebung
+     * @param secretKey der geheime Schluessel
+     * @param pathStyle true fuer Adressen der Form {@code endpoint/bucket/key} (MinIO)
+     */
+    public S3BlobStore(URI endpoint, String region, String bucket, String accessKey, String secretKey,
+                       boolean pathStyle) {
+        AwsCredentialsProvider credentials = accessKey == null || accessKey.isBlank()
+                ? DefaultCredentialsProvider.builder().build()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        S3Configuration configuration = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+
+        S3ClientBuilder clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration)
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED);
+        S3Presigner.Builder presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration);
+        if (endpoint != null) {
+            clientBuilder.endpointOverride(endpoint);
+            presignerBuilder.endpointOverride(endpoint);
+        }
+        this.client = clientBuilder.build();
+        this.presigner = presignerBuilder.build();
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        try {
+            client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType).contentLength(length),
+                    RequestBody.fromInputStream(content, length));
+        } catch (SdkException e) {
+            throw new IOException("Speichern von " + key + " fehlgeschlagen: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Laedt die Datei direkt hoch. Anders als ein Stream kann sie bei einem Wiederholungsversuch
+     * (z. B. nach einer vom Speicher geschlossenen Keep-Alive-Verbindung) erneut gelesen werden.
+     */
+    @Override
+    public void putFile(String key, Path file, String contentType) throws IOException {
+        try {
+            client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                    RequestBody.fromFile(file));
+        } catch (SdkException e) {
+            throw new IOException("Speichern von " + key + " fehlgeschlagen: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(request -> request.bucket(bucket).key(key));
+            return new BlobInfo(head.contentLength(), head.lastModified().toEpochMilli(), head.eTag(),
+                    head.contentType());
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null; // HEAD liefert keinen Fehlercode im Body
+            }
+            throw new IOException("Abfrage von " + key + " fehlgeschlagen: " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("Abfrage von " + key + " fehlgeschlagen: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return open(GetObjectRequest.builder().bucket(bucket).key(key).build(), key);
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        return open(GetObjectRequest.builder().bucket(bucket).key(key)
+                .range("bytes=" + offset + "-" + (offset + length - 1)).build(), key);
+    }
+
+    private InputStream open(GetObjectRequest request, String key) throws IOException {
+        try {
+            return client.getObject(request);
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Lesen von " + key + " fehlgeschlagen: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Loeschen von " + key + " fehlgeschlagen: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> list(String prefix) throws IOException {
+        try {
+            return client.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix))
+                    .contents().stream()
+                    .map(S3Object::key)
+                    .toList();
+        } catch (SdkException e) {
+            throw new IOException("Auflisten von " + prefix + " fehlgeschlagen: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<URI> directUrl(String key, Duration validity) {
+        try {
+            return Optional.of(presigner.presignGetObject(request -> request
+                            .signatureDuration(validity)
+                            .getObjectRequest(get -> get.bucket(bucket).key(key)))
+                    .url().toURI());
+        } catch (URISyntaxException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void close() {
+        presigner.close();
+        client.close();
+    }
+}
@@ -0,0 +1,279 @@
+package org.bootstmytool.backend.utils;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Klasse, die Dateien ganz oder in Teilen ({@code Range}) an den Client sendet.
+ * <p>
+ * Unterstuetzt einzelne Bereiche (206 mit {@code Content-Range}), mehrere Bereiche
+ * ({@code multipart/byteranges}) und {@code If-Range} fuer fortgesetzte Downloads. Die Bytes werden nie
+ * vollstaendig in den Heap geladen: Unterstuetzt der Container {@code sendfile} (Tomcat mit NIO/NIO2),
+ * uebertraegt der Kernel die Datei direkt auf den Socket; sonst wird mit {@link FileChannel#transferTo}
+ * ueber einen Puffer fester Groesse kopiert. Daten, die nicht lokal liegen (z. B. in S3), werden ueber einen
+ * {@link RangeReader} bereichsweise gelesen und ebenfalls ueber einen festen Puffer weitergereicht.
+ */
+public final class FileTransfer {
+
+    // Request-Attribute, ueber die Tomcat die Auslieferung per sendfile uebernimmt
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileTransfer() {
+    }
+
+    /**
+     * Liest einen Bereich der zu sendenden Daten.
+     */
+    @FunctionalInterface
+    public interface RangeReader {
+
+        /**
+         * @param offset die Position des ersten Bytes
+         * @param length die Anzahl der Bytes
+         * @return ein Stream, der genau diese Bytes liefert
+         */
+        InputStream open(long offset, long length) throws IOException;
+    }
+
+    /**
+     * Schreibt einen Bereich in die Antwort; {@code whole} ist gesetzt, wenn der Bereich der gesamte Body ist.
+     */
+    @FunctionalInterface
+    private interface RegionWriter {
+        void write(long start, long count, boolean whole) throws IOException;
+    }
+
+    /**
+     * Sendet die Datei bzw. die im {@code Range}-Header angeforderten Bereiche.
+     * Status, ETag und Cache-Header muss der Aufrufer vorher gesetzt und bedingte Anfragen geprueft haben.
+     *
+     * @param request      die Anfrage
+     * @param response     die Antwort
+     * @param path         die zu sendende Datei
+     * @param length       die Groesse der Datei in Bytes
+     * @param contentType  der MIME-Typ der Datei
+     * @param etag         das ETag der Datei, fuer {@code If-Range}
+     * @param lastModified die Aenderungszeit der Datei in Millisekunden, fuer {@code If-Range}
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path path, long length,
+                            MediaType contentType, String etag, long lastModified) throws IOException {
+        send(request, response, length, contentType, etag, lastModified, (start, count, whole) -> {
+            if (whole) {
+                sendRegion(request, response, path, start, count);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                transfer(channel, Channels.newChannel(response.getOutputStream()), start, count);
+            }
+        });
+    }
+
+    /**
+     * Sendet Daten, die nicht als lokale Datei vorliegen, bzw. die angeforderten Bereiche davon.
+     * Jeder Bereich wird einzeln ueber den {@link RangeReader} gelesen.
+     *
+     * @param request      die Anfrage
+     * @param response     die Antwort
+     * @param reader       liest einen Bereich der Daten
+     * @param length       die Groesse der Daten in Bytes
+     * @param contentType  der MIME-Typ
+     * @param etag         das ETag, fuer {@code If-Range}
+     * @param lastModified die Aenderungszeit in Millisekunden, fuer {@code If-Range}
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, RangeReader reader, long length,
+                            MediaType contentType, String etag, long lastModified) throws IOException {
+        send(request, response, length, contentType, etag, lastModified, (start, count, whole) -> {
+            try (InputStream in = reader.open(start, count)) {
+                copy(in, response.getOutputStream(), count);
+            }
+        });
+    }
+
+    private static void send(HttpServletRequest request, HttpServletResponse response, long length,
+                             MediaType contentType, String etag, long lastModified, RegionWriter writer)
+            throws IOException {
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        List<long[]> ranges = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            try {
+                ranges = satisfiableRanges(HttpRange.parseRanges(rangeHeader), length);
+            } catch (IllegalArgumentException e) {
+                ranges = null; // Ungueltige Syntax wird ignoriert, es folgt die ganze Datei
+            }
+            if (ranges != null && ranges.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setContentLength(0);
+                return;
+            }
+        }
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType.toString());
+            response.setContentLengthLong(length);
+            if (!head) {
+                writer.write(0, length, true);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setContentType(contentType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            if (!head) {
+                writer.write(start, end - start + 1, true);
+            }
+            return;
+        }
+
+        // Mehrere Bereiche: Teilkoepfe vorab bilden, damit die Gesamtlaenge bekannt ist
+        String boundary = new String(MimeTypeUtils.generateMultipartBoundary(), StandardCharsets.US_ASCII);
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            total += partHeader.length + range[1] - range[0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        total += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(total);
+        if (head) {
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        for (int i = 0; i < ranges.size(); i++) {
+            out.write(partHeaders.get(i));
+            long[] range = ranges.get(i);
+            writer.write(range[0], range[1] - range[0] + 1, false);
+        }
+        out.write(closing);
+    }
+
+    /**
+     * Prueft {@code If-Range}: Bereiche werden nur geliefert, wenn der Client noch dieselbe Datei kennt.
+     * Verglichen wird streng, schwache ETags passen daher nie.
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Wandelt die angeforderten Bereiche in inklusive Byte-Positionen um und verwirft nicht erfuellbare.
+     * Ueberschreiten die Bereiche zusammen die Dateigroesse (z. B. viele ueberlappende Bereiche),
+     * wird null geliefert und die ganze Datei gesendet.
+     */
+    private static List<long[]> satisfiableRanges(List<HttpRange> httpRanges, long length) {
+        List<long[]> ranges = new ArrayList<>(httpRanges.size());
+        long total = 0;
+        for (HttpRange httpRange : httpRanges) {
+            long start;
+            long end;
+            try {
+                start = httpRange.getRangeStart(length);
+                end = httpRange.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (start >= length || start > end) {
+                continue;
+            }
+            ranges.add(new long[]{start, end});
+            total += end - start + 1;
+        }
+        return total > length ? null : ranges;
+    }
+
+    /**
+     * Sendet einen zusammenhaengenden Bereich, per sendfile falls moeglich.
+     */
+    private static void sendRegion(HttpServletRequest request, HttpServletResponse response, Path path,
+                                   long start, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sendet die Datei nach dem Ende des Requests selbst; die Antwort bleibt leer
+            request.setAttribute(SENDFILE_FILENAME, path.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transfer(channel, Channels.newChannel(response.getOutputStream()), start, count);
+        }
+    }
+
+    private static void transfer(FileChannel channel, WritableByteChannel target, long position, long count)
+            throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                throw new EOFException("Datei wurde waehrend der Uebertragung gekuerzt");
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(count, 1))];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Daten wurden waehrend der Uebertragung gekuerzt");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.bootstmytool.backend.utils;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Undurchsichtiger Cursor fuer die Keyset-Paginierung von Notizen.
+ * Der Cursor kodiert das Erstellungsdatum und die ID der letzten gelieferten Notiz,
+ * sodass die naechste Seite ohne OFFSET direkt ueber den Index gelesen werden kann.
+ */
+@Getter
+public final class NoteCursor {
+
+    private final Date createdAt; // Erstellungsdatum der letzten Notiz
+    private final int id; // ID der letzten Notiz
+
+    public NoteCursor(Date createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Kodiert den Cursor als URL-sichere Zeichenkette.
+     */
+    public String encode() {
+        String raw = createdAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Dekodiert einen Cursor, der zuvor mit {@link #encode()} erzeugt wurde.
+     *
+     * @throws IllegalArgumentException wenn der Cursor ungueltig ist
+     */
+    public static NoteCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            long millis = Long.parseLong(raw.substring(0, separator));
+            int id = Integer.parseInt(raw.substring(separator + 1));
+            return new NoteCursor(new Date(millis), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Ungueltiger Cursor");
+        }
+    }
+}
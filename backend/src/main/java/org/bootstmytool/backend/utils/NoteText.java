@@ -0,0 +1,210 @@
+package org.bootstmytool.backend.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.bootstmytool.backend.dto.NotePatchOperationDTO;
+import org.bootstmytool.backend.model.Note;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Titel, Inhalt und Tags einer Notiz als unveraenderlicher Wert, z. B. der gespeicherte Stand, die Basis einer
+ * Zusammenfuehrung oder das Ergebnis eines JSON Patch. Ein fehlender Inhalt gilt als leer; Tags sind eine
+ * Menge in der Reihenfolge, in der sie hinzukamen.
+ */
+@Getter
+@EqualsAndHashCode
+public final class NoteText {
+
+    private final String title;
+    private final String content;
+    private final Set<String> tags;
+
+    public NoteText(String title, String content, Collection<String> tags) {
+        this.title = title;
+        this.content = content == null ? "" : content;
+        this.tags = tags == null ? new LinkedHashSet<>() : new LinkedHashSet<>(tags);
+    }
+
+    /**
+     * Liefert den aktuellen Stand einer Notiz.
+     */
+    public static NoteText of(Note note) {
+        return new NoteText(note.getTitle(), note.getContent(), note.getTags());
+    }
+
+    /**
+     * Wendet die Operationen eines JSON Patch der Reihe nach an. Schlaegt eine davon fehl, bleibt der Stand
+     * unveraendert.
+     *
+     * @param operations die Operationen, siehe {@link NotePatchOperationDTO}
+     * @return der geaenderte Stand
+     * @throws IllegalArgumentException wenn eine Operation ungueltig ist oder ihr Ziel nicht existiert
+     * @throws TestFailedException      wenn eine {@code test}-Operation nicht zutrifft
+     */
+    public NoteText patched(List<NotePatchOperationDTO> operations) {
+        String newTitle = title;
+        String newContent = content;
+        List<String> newTags = new ArrayList<>(tags);
+        for (NotePatchOperationDTO operation : operations) {
+            String op = operation.getOp();
+            String path = operation.getPath();
+            if (op == null || path == null) {
+                throw new IllegalArgumentException("op und path sind erforderlich");
+            }
+            if (path.equals("/title")) {
+                newTitle = applyValue(operation, newTitle);
+            } else if (path.equals("/content")) {
+                newContent = op.equals("splice") ? splice(operation, newContent) : applyValue(operation, newContent);
+            } else if (path.equals("/tags")) {
+                newTags = applyTags(operation, newTags);
+            } else if (path.startsWith("/tags/")) {
+                applyTag(operation, newTags, path.substring("/tags/".length()));
+            } else {
+                throw new IllegalArgumentException("Unbekannter Pfad: " + path);
+            }
+        }
+        return new NoteText(newTitle, newContent, newTags);
+    }
+
+    private static String applyValue(NotePatchOperationDTO operation, String current) {
+        switch (operation.getOp()) {
+            case "add", "replace":
+                return text(operation);
+            case "remove":
+                return null;
+            case "test":
+                if (!Objects.equals(current == null ? "" : current, Objects.toString(text(operation), ""))) {
+                    throw new TestFailedException(operation.getPath());
+                }
+                return current;
+            default:
+                throw unsupported(operation);
+        }
+    }
+
+    private static String splice(NotePatchOperationDTO operation, String current) {
+        if (operation.getOffset() == null || operation.getLength() == null) {
+            throw new IllegalArgumentException("splice erfordert offset und length");
+        }
+        return new TextSplice(operation.getOffset(), operation.getLength(), text(operation)).apply(current);
+    }
+
+    private static List<String> applyTags(NotePatchOperationDTO operation, List<String> current) {
+        switch (operation.getOp()) {
+            case "add", "replace":
+                JsonNode value = operation.getValue();
+                if (value == null || !value.isArray()) {
+                    throw new IllegalArgumentException("/tags erwartet eine Liste");
+                }
+                List<String> tags = new ArrayList<>();
+                value.forEach(tag -> tags.add(tag(tag)));
+                return tags;
+            case "remove":
+                return new ArrayList<>();
+            case "test":
+                List<String> expected = applyTags(replacing(operation), current);
+                if (!new LinkedHashSet<>(expected).equals(new LinkedHashSet<>(current))) {
+                    throw new TestFailedException(operation.getPath());
+                }
+                return current;
+            default:
+                throw unsupported(operation);
+        }
+    }
+
+    private static void applyTag(NotePatchOperationDTO operation, List<String> tags, String index) {
+        if (index.equals("-")) {
+            if (!operation.getOp().equals("add")) {
+                throw unsupported(operation);
+            }
+            String tag = tag(operation.getValue());
+            if (!tags.contains(tag)) {
+                tags.add(tag);
+            }
+            return;
+        }
+
+        int position;
+        try {
+            position = Integer.parseInt(index);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungueltiger Index: " + operation.getPath());
+        }
+        int limit = operation.getOp().equals("add") ? tags.size() : tags.size() - 1;
+        if (position < 0 || position > limit) {
+            throw new IllegalArgumentException("Index ausserhalb der Tags: " + operation.getPath());
+        }
+        switch (operation.getOp()) {
+            case "add" -> {
+                String tag = tag(operation.getValue());
+                if (!tags.contains(tag)) {
+                    tags.add(position, tag);
+                }
+            }
+            case "replace" -> tags.set(position, tag(operation.getValue()));
+            case "remove" -> tags.remove(position);
+            case "test" -> {
+                if (!tags.get(position).equals(tag(operation.getValue()))) {
+                    throw new TestFailedException(operation.getPath());
+                }
+            }
+            default -> throw unsupported(operation);
+        }
+    }
+
+    private static String text(NotePatchOperationDTO operation) {
+        JsonNode value = operation.getValue();
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.isTextual()) {
+            throw new IllegalArgumentException(operation.getPath() + " erwartet einen Text");
+        }
+        return value.asText();
+    }
+
+    private static String tag(JsonNode value) {
+        if (value == null || !value.isTextual() || value.asText().isBlank()) {
+            throw new IllegalArgumentException("Ein Tag muss ein nicht leerer Text sein");
+        }
+        return value.asText().trim();
+    }
+
+    // Dieselbe Operation als replace, um den erwarteten Wert eines test wie einen neuen Wert zu lesen
+    private static NotePatchOperationDTO replacing(NotePatchOperationDTO operation) {
+        NotePatchOperationDTO replace = new NotePatchOperationDTO();
+        replace.setOp("replace");
+        replace.setPath(operation.getPath());
+        replace.setValue(operation.getValue());
+        return replace;
+    }
+
+    private static IllegalArgumentException unsupported(NotePatchOperationDTO operation) {
+        return new IllegalArgumentException("Operation " + operation.getOp() + " wird fuer "
+                + operation.getPath() + " nicht unterstuetzt");
+    }
+
+    /**
+     * Eine {@code test}-Operation trifft nicht zu: der Client ging von einem anderen Stand aus.
+     */
+    @Getter
+    public static class TestFailedException extends RuntimeException {
+
+        private final String path; // Der gepruefte Pfad
+
+        public TestFailedException(String path) {
+            super("Die Pruefung von " + path + " ist fehlgeschlagen");
+            this.path = path;
+        }
+    }
+}
@@ -1,53 +1,213 @@
 package org.bootstmytool.backend.utils;
 
-import org.bootstmytool.backend.model.Image;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.Objects;
 
 /**
  * @Author Mohamed Cheikh
  * @Version 1.0
  * @Date: 2025-03-27
  * Klasse, die die Verarbeitung von Bildern behandelt.
+ * Gespeichert werden Bilder ueber den {@link org.bootstmytool.backend.service.ImageStore}.
  */
 
 public class ProcessImage {
 
+    // Breiten der verkleinerten Varianten in Pixeln, aufsteigend
+    public static final int[] DERIVATIVE_WIDTHS = {160, 320, 640, 1280};
+
+    // Breite des Vorschaubildes fuer Listen und Karten
+    public static final int THUMBNAIL_WIDTH = 320;
+
+    // Moegliche Dateiendungen der Varianten: PNG bei Transparenz, sonst JPEG
+    public static final String[] DERIVATIVE_FORMATS = {"jpg", "png"};
+
+    // Laenge eines SHA-256 in Hex-Zeichen; Dateien mit solchem Praefix liegen im inhaltsadressierten Speicher
+    private static final int HASH_LENGTH = 64;
 
     /**
-     * Processes behandelte das Bild und speichert es im Dateisystem.
+     * Liefert den Schluessel einer Bilddatei im Speicher. Inhaltsadressierte Dateien ({@code <sha256>...})
+     * liegen unter zwei Ebenen aus den ersten vier Zeichen des Hashes ({@code ab/cd/<name>}), damit kein
+     * Verzeichnis mehr als einige Hundert Dateien enthaelt; aeltere Dateien liegen auf oberster Ebene.
+     * Mit einem reinen Hash ergibt sich das Praefix aller Dateien dieses Inhalts.
+     *
+     * @param fileName der Dateiname des Bildes oder einer Variante
+     * @return der Schluessel
+     * @throws IllegalArgumentException wenn der Name kein gueltiger Dateiname ist
      */
-    public static Image processImage(MultipartFile file) {
-        try {
-            // erstelle einen Ordner für die Bilder, wenn er noch nicht existiert
-            Path imagePath = Path.of("backend/src/main/resources/static/images/");
-            if (!Files.exists(imagePath)) {
-                Files.createDirectories(imagePath);
+    public static String storageKey(String fileName) {
+        if (!isValidFileName(fileName)) {
+            throw new IllegalArgumentException("Ungueltiger Dateiname: " + fileName);
+        }
+        String hash = contentHashOf(fileName);
+        if (hash == null) {
+            return fileName;
+        }
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + fileName;
+    }
+
+    /**
+     * Prueft, ob ein Name aus der URL als Dateiname verwendet werden darf: nur Buchstaben, Ziffern,
+     * Punkt, Binde- und Unterstrich, kein fuehrender Punkt.
+     */
+    public static boolean isValidFileName(String fileName) {
+        if (fileName == null || fileName.isEmpty() || fileName.charAt(0) == '.') {
+            return false;
+        }
+        for (int i = 0; i < fileName.length(); i++) {
+            char c = fileName.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '_';
+            if (!allowed) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            //erstelle einen eindeutigen Bildnamen
-            String imageName = System.currentTimeMillis() + "_" + Objects.requireNonNull(file.getOriginalFilename()).replaceAll("[^a-zA-Z0-9._-]", "_");
-            Path targetPath = imagePath.resolve(imageName);
+    /**
+     * Liefert den Inhalts-Hash, mit dem ein Dateiname beginnt, oder null bei aelteren Dateinamen.
+     */
+    public static String contentHashOf(String fileName) {
+        if (fileName == null || fileName.length() < HASH_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            char c = fileName.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return null;
+            }
+        }
+        if (fileName.length() > HASH_LENGTH && fileName.charAt(HASH_LENGTH) != '.' && fileName.charAt(HASH_LENGTH) != '_') {
+            return null;
+        }
+        return fileName.substring(0, HASH_LENGTH);
+    }
 
-            // speichere das Bild im Dateisystem
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Bestimmt den MIME-Typ einer Datei aus der Signatur am Dateianfang; die Endung des Clients wird nicht
+     * verwendet.
+     *
+     * @param file die gespeicherte Datei
+     * @return der MIME-Typ, {@code application/octet-stream} bei unbekanntem Format
+     */
+    public static MediaType contentTypeOf(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int length;
+        try (InputStream in = Files.newInputStream(file)) {
+            length = in.readNBytes(header, 0, header.length);
+        }
+        return detectContentType(header, length, null);
+    }
 
-            // erstelle ein Image-Objekt und setze die Bilddaten
-            Image image = new Image();
-            image.setData(file.getBytes());
-            image.setUrl(imageName);  // Store only the image name
-            return image;
-        } catch (IOException e) {
+    /**
+     * Liefert die Dateiendung zu einem erkannten MIME-Typ.
+     *
+     * @return die Endung ohne Punkt, "bin" bei unbekanntem Format
+     */
+    public static String extensionFor(MediaType contentType) {
+        return switch (contentType.getSubtype()) {
+            case "png" -> "png";
+            case "jpeg" -> "jpg";
+            case "gif" -> "gif";
+            case "webp" -> "webp";
+            case "bmp" -> "bmp";
+            default -> "bin";
+        };
+    }
 
-            throw new RuntimeException("Fehler beim Verarbeiten des Bildes: " + e.getMessage());
+    /**
+     * Bestimmt den MIME-Typ anhand der Signatur am Dateianfang; die Dateiendung stammt vom Client und
+     * wird nur verwendet, wenn die Signatur unbekannt ist.
+     *
+     * @param header   die ersten Bytes der Datei (mindestens 12 fuer WebP)
+     * @param length   die Anzahl gueltiger Bytes in {@code header}
+     * @param fileName der Dateiname fuer den Rueckfall oder null
+     * @return der MIME-Typ, {@code application/octet-stream} wenn unbekannt
+     */
+    public static MediaType detectContentType(byte[] header, int length, String fileName) {
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G')) {
+            return MediaType.IMAGE_PNG;
+        }
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return MediaType.IMAGE_JPEG;
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8')) {
+            return MediaType.IMAGE_GIF;
+        }
+        if (startsWith(header, length, 'R', 'I', 'F', 'F') && length >= 12
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return MediaType.parseMediaType("image/webp");
+        }
+        if (startsWith(header, length, 'B', 'M')) {
+            return MediaType.parseMediaType("image/bmp");
+        }
+        if (fileName == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
         }
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
 
+    /**
+     * Waehlt die kleinste Variantenbreite, die mindestens die gewuenschte Breite hat.
+     *
+     * @param requestedWidth die gewuenschte Breite
+     * @param originalWidth  die Breite des Originals oder null, falls unbekannt
+     * @return die Variantenbreite oder 0, wenn das Original ausgeliefert werden soll
+     */
+    public static int selectDerivativeWidth(int requestedWidth, Integer originalWidth) {
+        for (int width : DERIVATIVE_WIDTHS) {
+            if (width >= requestedWidth) {
+                return originalWidth != null && width >= originalWidth ? 0 : width;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Bildet die URL einer Variante; ist das Original nicht breiter, wird die URL des Originals geliefert.
+     *
+     * @param baseUrl       die Basis-URL des Servers
+     * @param imageName     der Dateiname des Originals
+     * @param width         die gewuenschte Breite
+     * @param originalWidth die Breite des Originals oder null, falls unbekannt
+     * @return die URL der Variante
+     */
+    public static String variantUrl(String baseUrl, String imageName, int width, Integer originalWidth) {
+        String url = baseUrl + "/image/" + imageName;
+        return originalWidth != null && width >= originalWidth ? url : url + "?w=" + width;
+    }
+
+    /**
+     * Bildet den Dateinamen einer verkleinerten Variante, z. B. "123_foto_w320.jpg" fuer "123_foto.png".
+     *
+     * @param imageName der Name des Originals
+     * @param width     die Breite der Variante
+     * @param extension die Dateiendung der Variante ohne Punkt
+     * @return der Dateiname der Variante
+     */
+    public static String derivativeName(String imageName, int width, String extension) {
+        int dot = imageName.lastIndexOf('.');
+        String base = dot > 0 ? imageName.substring(0, dot) : imageName;
+        return base + "_w" + width + "." + extension;
     }
 
 
@@ -0,0 +1,79 @@
+package org.bootstmytool.backend.utils;
+
+import lombok.Getter;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Eine Textaenderung als Ersetzung eines Abschnitts: ab {@code offset} werden {@code length} Zeichen durch
+ * {@code text} ersetzt. Positionen zaehlen UTF-16-Zeichen wie {@link String} und JavaScript.
+ */
+@Getter
+public final class TextSplice {
+
+    private final int offset; // Beginn des ersetzten Abschnitts
+    private final int length; // Laenge des ersetzten Abschnitts
+    private final String text; // Der neue Text des Abschnitts
+
+    public TextSplice(int offset, int length, String text) {
+        this.offset = offset;
+        this.length = length;
+        this.text = text == null ? "" : text;
+    }
+
+    /**
+     * Ermittelt die kleinste Ersetzung, die {@code from} in {@code to} ueberfuehrt: alles zwischen dem
+     * gemeinsamen Anfang und dem gemeinsamen Ende.
+     *
+     * @param from der Ausgangstext, null wie leer
+     * @param to   der Zieltext, null wie leer
+     * @return die Ersetzung, leer wenn beide Texte gleich sind
+     */
+    public static TextSplice between(String from, String to) {
+        String source = from == null ? "" : from;
+        String target = to == null ? "" : to;
+        int prefix = 0;
+        int max = Math.min(source.length(), target.length());
+        while (prefix < max && source.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && source.charAt(source.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // Ein Ersatzpaar nicht zerteilen, damit der Abschnitt auch fuer sich gueltiges UTF-16 ist
+        if (prefix > 0 && Character.isHighSurrogate(source.charAt(prefix - 1))) {
+            prefix--;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(source.charAt(source.length() - suffix))) {
+            suffix--;
+        }
+        return new TextSplice(prefix, source.length() - prefix - suffix,
+                target.substring(prefix, target.length() - suffix));
+    }
+
+    /**
+     * Wendet die Ersetzung auf einen Text an.
+     *
+     * @param source der Text, null wie leer
+     * @return der geaenderte Text
+     * @throws IllegalArgumentException wenn der Abschnitt ausserhalb des Textes liegt
+     */
+    public String apply(String source) {
+        String text = source == null ? "" : source;
+        if (offset < 0 || length < 0 || offset > text.length() || length > text.length() - offset) {
+            throw new IllegalArgumentException("Abschnitt " + offset + "+" + length
+                    + " liegt ausserhalb des Inhalts (Laenge " + text.length() + ")");
+        }
+        return text.substring(0, offset) + this.text + text.substring(offset + length);
+    }
+
+    /**
+     * Prueft, ob die Ersetzung nichts aendert.
+     */
+    public boolean isEmpty() {
+        return length == 0 && text.isEmpty();
+    }
+}
@@ -0,0 +1,254 @@
+package org.bootstmytool.backend.utils;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Dreiwege-Zusammenfuehrung zweier Aenderungen, die vom selben Stand (Basis) ausgehen: dem inzwischen
+ * gespeicherten Stand und dem Stand eines Clients.
+ * <p>
+ * Texte werden zeilenweise zusammengefuehrt wie bei diff3: Zeilen, die in allen drei Staenden uebereinstimmen,
+ * trennen die Abschnitte. Ein Abschnitt, den nur eine Seite geaendert hat, wird uebernommen; haben beide ihn
+ * unterschiedlich geaendert, ist das ein Konflikt. Aenderungen in direkt benachbarten Zeilen gelten deshalb
+ * ebenfalls als Konflikt.
+ */
+public final class ThreeWayMerge {
+
+    // Obergrenze fuer die Tabelle der laengsten gemeinsamen Teilfolge (4 Byte je Zelle)
+    static final long MAX_DIFF_CELLS = 1_000_000;
+
+    private ThreeWayMerge() {
+    }
+
+    /**
+     * Ergebnis einer Zusammenfuehrung: der zusammengefuehrte Wert oder ein Konflikt.
+     */
+    @Getter
+    public static final class Result<T> {
+
+        private final T value; // Zusammengefuehrter Wert, null bei einem Konflikt
+        private final boolean conflict;
+
+        private Result(T value, boolean conflict) {
+            this.value = value;
+            this.conflict = conflict;
+        }
+
+        static <T> Result<T> merged(T value) {
+            return new Result<>(value, false);
+        }
+
+        static <T> Result<T> conflicting() {
+            return new Result<>(null, true);
+        }
+    }
+
+    /**
+     * Fuehrt einen Wert als Ganzes zusammen: uebernommen wird die Seite, die ihn gegenueber der Basis
+     * geaendert hat.
+     *
+     * @param base    der Wert in der Basis
+     * @param current der gespeicherte Wert
+     * @param client  der Wert des Clients
+     * @return der zusammengefuehrte Wert oder ein Konflikt, wenn beide Seiten ihn unterschiedlich geaendert haben
+     */
+    public static <T> Result<T> mergeValue(T base, T current, T client) {
+        if (Objects.equals(current, client) || Objects.equals(base, client)) {
+            return Result.merged(current);
+        }
+        if (Objects.equals(base, current)) {
+            return Result.merged(client);
+        }
+        return Result.conflicting();
+    }
+
+    /**
+     * Fuehrt einen Text zeilenweise zusammen. Zeilenumbrueche bleiben erhalten; null wird wie ein leerer Text
+     * behandelt, sofern nicht eine Seite den Wert unveraendert gelassen hat.
+     *
+     * @param base    der Text in der Basis
+     * @param current der gespeicherte Text
+     * @param client  der Text des Clients
+     * @return der zusammengefuehrte Text oder ein Konflikt, wenn sich die Aenderungen ueberschneiden
+     */
+    public static Result<String> mergeText(String base, String current, String client) {
+        Result<String> whole = mergeValue(base, current, client);
+        if (!whole.isConflict()) {
+            return whole;
+        }
+
+        String[] baseLines = lines(base);
+        String[] currentLines = lines(current);
+        String[] clientLines = lines(client);
+        int[] toCurrent = match(baseLines, currentLines);
+        int[] toClient = match(baseLines, clientLines);
+        if (toCurrent == null || toClient == null) {
+            return Result.conflicting(); // Zu grosse Aenderung, um sie zeilenweise abzugleichen
+        }
+
+        StringBuilder merged = new StringBuilder();
+        int b = 0; // Position in der Basis
+        int c = 0; // Position im gespeicherten Text
+        int k = 0; // Position im Text des Clients
+        while (true) {
+            // Naechste Basiszeile, die auf beiden Seiten erhalten ist
+            int stable = b;
+            while (stable < baseLines.length && (toCurrent[stable] < 0 || toClient[stable] < 0)) {
+                stable++;
+            }
+            int currentEnd = stable < baseLines.length ? toCurrent[stable] : currentLines.length;
+            int clientEnd = stable < baseLines.length ? toClient[stable] : clientLines.length;
+
+            // Der Abschnitt davor wurde von keiner, einer oder beiden Seiten geaendert
+            if (stable > b || currentEnd > c || clientEnd > k) {
+                if (equal(baseLines, b, stable, currentLines, c, currentEnd)) {
+                    append(merged, clientLines, k, clientEnd);
+                } else if (equal(baseLines, b, stable, clientLines, k, clientEnd)
+                        || equal(currentLines, c, currentEnd, clientLines, k, clientEnd)) {
+                    append(merged, currentLines, c, currentEnd);
+                } else {
+                    return Result.conflicting();
+                }
+            }
+
+            if (stable == baseLines.length) {
+                return Result.merged(merged.toString());
+            }
+            merged.append(baseLines[stable]);
+            b = stable + 1;
+            c = currentEnd + 1;
+            k = clientEnd + 1;
+        }
+    }
+
+    /**
+     * Fuehrt Tags als Menge zusammen: Tags, die eine Seite entfernt hat, fehlen im Ergebnis, hinzugefuegte
+     * Tags beider Seiten sind enthalten. Dabei entstehen keine Konflikte. Die Reihenfolge folgt dem
+     * gespeicherten Stand, neue Tags des Clients werden angehaengt.
+     *
+     * @param base    die Tags in der Basis
+     * @param current die gespeicherten Tags
+     * @param client  die Tags des Clients
+     * @return die zusammengefuehrten Tags
+     */
+    public static List<String> mergeTags(Collection<String> base, Collection<String> current, Collection<String> client) {
+        Set<String> baseTags = base == null ? Set.of() : new LinkedHashSet<>(base);
+        Set<String> clientTags = client == null ? Set.of() : new LinkedHashSet<>(client);
+        Set<String> merged = current == null ? new LinkedHashSet<>() : new LinkedHashSet<>(current);
+        for (String tag : baseTags) {
+            if (!clientTags.contains(tag)) {
+                merged.remove(tag);
+            }
+        }
+        for (String tag : clientTags) {
+            if (!baseTags.contains(tag)) {
+                merged.add(tag);
+            }
+        }
+        return new ArrayList<>(merged);
+    }
+
+    /**
+     * Zerlegt einen Text in Zeilen einschliesslich ihres Zeilenumbruchs.
+     */
+    private static String[] lines(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * Ordnet jeder Zeile von {@code from} ihre Position in {@code to} ueber die laengste gemeinsame Teilfolge zu,
+     * -1 fuer entfernte Zeilen. Gemeinsamer Anfang und gemeinsames Ende werden direkt zugeordnet; liefert null,
+     * wenn der Rest dazwischen die Obergrenze der Tabelle ueberschreitet.
+     */
+    static int[] match(String[] from, String[] to) {
+        int[] mapping = new int[from.length];
+        Arrays.fill(mapping, -1);
+
+        int prefix = 0;
+        while (prefix < from.length && prefix < to.length && from[prefix].equals(to[prefix])) {
+            mapping[prefix] = prefix;
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < from.length - prefix && suffix < to.length - prefix
+                && from[from.length - 1 - suffix].equals(to[to.length - 1 - suffix])) {
+            mapping[from.length - 1 - suffix] = to.length - 1 - suffix;
+            suffix++;
+        }
+
+        int rows = from.length - prefix - suffix;
+        int columns = to.length - prefix - suffix;
+        if (rows == 0 || columns == 0) {
+            return mapping;
+        }
+        if ((long) (rows + 1) * (columns + 1) > MAX_DIFF_CELLS) {
+            return null;
+        }
+
+        // lengths[i][j] = Laenge der gemeinsamen Teilfolge ab from[prefix + i] und to[prefix + j]
+        int[][] lengths = new int[rows + 1][columns + 1];
+        for (int i = rows - 1; i >= 0; i--) {
+            for (int j = columns - 1; j >= 0; j--) {
+                lengths[i][j] = from[prefix + i].equals(to[prefix + j])
+                        ? lengths[i + 1][j + 1] + 1
+                        : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        while (i < rows && j < columns) {
+            if (from[prefix + i].equals(to[prefix + j])) {
+                mapping[prefix + i] = prefix + j;
+                i++;
+                j++;
+            } else if (lengths[i + 1][j] >= lengths[i][j + 1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return mapping;
+    }
+
+    private static boolean equal(String[] left, int leftFrom, int leftTo, String[] right, int rightFrom, int rightTo) {
+        if (leftTo - leftFrom != rightTo - rightFrom) {
+            return false;
+        }
+        for (int i = 0; i < leftTo - leftFrom; i++) {
+            if (!left[leftFrom + i].equals(right[rightFrom + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void append(StringBuilder target, String[] lines, int from, int to) {
+        for (int i = from; i < to; i++) {
+            target.append(lines[i]);
+        }
+    }
+}
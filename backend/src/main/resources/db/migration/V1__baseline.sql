@@ -0,0 +1,46 @@
+-- Ausgangsschema, wie es bisher von Hibernate (ddl-auto=update) erzeugt wurde.
+-- Laeuft auch auf bestehenden Datenbanken (baseline-version=0) und ergaenzt dort nur, was fehlt.
+
+create table if not exists users (
+    id          integer generated by default as identity,
+    name_length integer      not null,
+    email       varchar(255) not null unique,
+    password    varchar(255) not null,
+    primary key (id)
+);
+
+create table if not exists note (
+    id         integer generated by default as identity,
+    user_id    integer,
+    created_at timestamp(6),
+    title      varchar(255),
+    content    clob,
+    primary key (id)
+);
+
+create table if not exists note_tags (
+    note_id integer not null,
+    tags    varchar(255)
+);
+
+create table if not exists image (
+    id           integer generated by default as identity,
+    note_id      integer,
+    url          varchar(255),
+    created_date timestamp(6),
+    primary key (id)
+);
+
+-- Spalten der Bildverarbeitung und des inhaltsadressierten Speichers
+alter table image add column if not exists status enum ('FAILED', 'PENDING', 'READY');
+alter table image add column if not exists width integer;
+alter table image add column if not exists height integer;
+alter table image add column if not exists content_type varchar(64);
+alter table image add column if not exists file_size bigint;
+alter table image add column if not exists content_hash varchar(64);
+
+create index if not exists idx_image_content_hash on image (content_hash);
+
+alter table note add constraint if not exists FKaxew7axjawf2la92pc4yxcm87 foreign key (user_id) references users;
+alter table note_tags add constraint if not exists FK6a4cyw47043aaai8rbthb33w7 foreign key (note_id) references note;
+alter table image add constraint if not exists FKk6pdqvnkire7tda20tt2b2og6 foreign key (note_id) references note;
@@ -0,0 +1,18 @@
+-- Indizes fuer die Zugriffspfade der Repositories. Jede Abfrage muss ueber einen Index laufen,
+-- geprueft durch RepositoryQueryPlanTest.
+
+-- Notizen eines Benutzers, sortiert nach Erstellung (Listen mit Cursor, Suche, Tags je Benutzer)
+create index if not exists idx_note_user_created on note (user_id, created_at, id);
+
+-- Tags einer Notiz (auch fuer die Abfrage beim Laden der Notiz) und Notizen zu einem Tag
+create index if not exists idx_note_tags_note on note_tags (note_id, tags);
+create index if not exists idx_note_tags_tag on note_tags (tags, note_id);
+
+-- Bilder einer Notiz in Reihenfolge
+create index if not exists idx_image_note on image (note_id, id);
+
+-- Auslieferung: Breite und Status eines Bildes anhand des Dateinamens
+create index if not exists idx_image_url_status on image (url, status);
+
+-- Periodischer Durchlauf ueber liegen gebliebene Bilder
+create index if not exists idx_image_status_created on image (status, created_date, id);
@@ -0,0 +1,11 @@
+-- Sequenzen fuer die gepoolte ID-Vergabe (allocationSize = 50), damit Hibernate Inserts per JDBC-Batch sendet.
+-- Hibernate reserviert mit einem Sequenzwert v die IDs v - 49 bis v. Bestehende Tabellen beginnen deshalb bei
+-- max(id) + 50, leere Tabellen beim Startwert 1. Die Identity-Spalten bleiben fuer aeltere Daten bestehen.
+
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists note_seq start with 1 increment by 50;
+create sequence if not exists image_seq start with 1 increment by 50;
+
+alter sequence users_seq restart with (select coalesce(max(id) + 50, 1) from users);
+alter sequence note_seq restart with (select coalesce(max(id) + 50, 1) from note);
+alter sequence image_seq restart with (select coalesce(max(id) + 50, 1) from image);
@@ -0,0 +1,4 @@
+-- Versionsspalte fuer Note (@Version). Sie steigt mit jeder Aenderung der Notiz, ihrer Tags oder ihrer Bilder
+-- und dient als Schluessel fuer die vorab serialisierten JSON-Fragmente der Notizliste.
+
+alter table note add column if not exists version bigint default 0 not null;
@@ -0,0 +1,25 @@
+-- Fruehere Staende von Titel, Inhalt und Tags einer Notiz, jeweils unter der Version, die die Notiz bis zur
+-- Bearbeitung hatte. Sie dienen als gemeinsame Basis, wenn eine Bearbeitung mit veraltetem If-Match mit den
+-- inzwischen gespeicherten Aenderungen zusammengefuehrt wird. Die Revisionen haben keine JPA-Beziehung zur
+-- Notiz; beim Loeschen der Notiz entfernt die Datenbank sie ueber die Fremdschluessel.
+
+create sequence if not exists note_revision_seq start with 1 increment by 50;
+
+create table if not exists note_revision (
+    id      integer not null,
+    note_id integer not null,
+    version bigint  not null,
+    title   varchar(255),
+    content clob,
+    primary key (id),
+    constraint uk_note_revision_note_version unique (note_id, version),
+    constraint fk_note_revision_note foreign key (note_id) references note on delete cascade
+);
+
+create table if not exists note_revision_tags (
+    revision_id integer not null,
+    tags        varchar(255),
+    constraint fk_note_revision_tags_revision foreign key (revision_id) references note_revision on delete cascade
+);
+
+create index if not exists idx_note_revision_tags on note_revision_tags (revision_id, tags);
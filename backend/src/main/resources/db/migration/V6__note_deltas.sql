@@ -0,0 +1,20 @@
+-- Tags als Menge: je Notiz und Tag genau eine Zeile. Hibernate aendert dann nur die hinzugekommenen und
+-- entfernten Tags, statt alle Zeilen der Notiz zu loeschen und neu einzufuegen. Der Primaerschluessel ersetzt
+-- den bisherigen Index idx_note_tags_note.
+
+delete from note_tags where tags is null;
+delete from note_tags t where exists (
+    select 1 from note_tags d where d.note_id = t.note_id and d.tags = t.tags and d._ROWID_ < t._ROWID_);
+alter table note_tags alter column tags set not null;
+alter table note_tags add constraint if not exists pk_note_tags primary key (note_id, tags);
+drop index if exists idx_note_tags_note;
+
+-- Revisionen speichern statt des vollstaendigen Inhalts nur den geaenderten Abschnitt: ab content_offset
+-- werden content_length Zeichen des neueren Inhalts durch content_text ersetzt. Bestehende Revisionen mit
+-- vollstaendigem Inhalt werden verworfen; Clients mit aelterer Version erhalten einmalig 412.
+
+delete from note_revision;
+alter table note_revision drop column if exists content;
+alter table note_revision add column if not exists content_offset integer default 0 not null;
+alter table note_revision add column if not exists content_length integer default 0 not null;
+alter table note_revision add column if not exists content_text clob;
@@ -0,0 +1,19 @@
+-- Referenzzaehler des inhaltsadressierten Bildspeichers, gemeinsam fuer alle Instanzen. Je Hash die Anzahl der
+-- Bilder, die auf die Datei verweisen, und der Zeitpunkt, zu dem sie zuletzt gespeichert oder wiederverwendet
+-- wurde. Speichern, Verweisen und Loeschen sperren die Zeile; die Datei wird erst geloescht, wenn kein Bild
+-- mehr darauf verweist und die letzte Belegung laenger als image.store.claim-grace zurueckliegt.
+
+create table if not exists content_blob (
+    hash       varchar(64)  not null,
+    ref_count  integer      not null,
+    claimed_at timestamp(6) not null,
+    primary key (hash)
+);
+
+create index if not exists idx_content_blob_unreferenced on content_blob (ref_count, claimed_at);
+
+-- Vorhandene Bilder zaehlen; Bilder vor dem inhaltsadressierten Speicher haben keinen Hash
+insert into content_blob (hash, ref_count, claimed_at)
+select content_hash, count(*), current_timestamp from image
+where content_hash is not null and content_hash not in (select hash from content_blob)
+group by content_hash;
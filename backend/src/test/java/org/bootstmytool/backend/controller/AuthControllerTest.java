@@ -12,7 +12,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -59,6 +62,19 @@ class AuthControllerTest {
         assertNotNull(loginResponse.getToken());
     }
 
+    @Test
+    void testLoginOverloaded() {
+        // Warteschlange der Passwort-Pruefungen ist voll
+        when(authService.authenticate(validLoginRequest.getEmail(), validLoginRequest.getPassword()))
+                .thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "ausgelastet"));
+
+        ResponseEntity<?> response = authController.login(validLoginRequest);
+
+        assertEquals(503, response.getStatusCode().value());
+        assertNotNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verifyNoInteractions(jwtService);
+    }
+
     @Test
     void testLoginFailure() {
         // Mock der Authentifizierung für Fehlerfall
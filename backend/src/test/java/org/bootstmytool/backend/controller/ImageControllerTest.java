@@ -0,0 +1,282 @@
+package org.bootstmytool.backend.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.repository.ContentBlobRepository;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.service.ImageProcessingService;
+import org.bootstmytool.backend.service.ImageService;
+import org.bootstmytool.backend.service.ImageStore;
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.storage.LocalBlobStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests fuer die Auslieferung von Bildern mit ETag, Last-Modified, Cache-Control und Range.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ImageControllerTest {
+
+    private static final String IMAGE_NAME = "1700000000000_foto.jpg"; // PNG-Inhalt mit falscher Endung
+
+    @Mock
+    private ImageService imageService;
+
+    @Mock
+    private ImageRepository imageRepository;
+
+    @TempDir
+    Path imageDir;
+
+    private ImageProcessingService imageProcessingService;
+    private MockMvc mockMvc;
+    private byte[] imageBytes;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        imageBytes = png(400);
+        Files.write(imageDir.resolve(IMAGE_NAME), imageBytes);
+
+        BlobStore blobStore = new LocalBlobStore(imageDir);
+        ImageStore imageStore = new ImageStore(mock(ContentBlobRepository.class), blobStore,
+                mock(PlatformTransactionManager.class));
+        imageProcessingService = new ImageProcessingService(imageRepository, mock(NoteRepository.class), imageStore,
+                blobStore, new SimpleMeterRegistry(), event -> {
+        }, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(imageProcessingService, "threads", 1);
+        ReflectionTestUtils.setField(imageProcessingService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(imageProcessingService, "maxPixels", 50_000_000L);
+        ReflectionTestUtils.invokeMethod(imageProcessingService, "init");
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new ImageController(imageService, imageProcessingService, blobStore)).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(imageProcessingService, "shutdown");
+    }
+
+    @Test
+    public void testGetImageSetsCachingHeaders() throws Exception {
+        MvcResult result = mockMvc.perform(get("/image/" + IMAGE_NAME))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(content().contentType("image/png")) // aus der Signatur, nicht aus der Endung
+                .andReturn();
+
+        assertArrayEquals(imageBytes, result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testRepeatRequestWithEtagReturnsNotModifiedWithoutBody() throws Exception {
+        String etag = mockMvc.perform(get("/image/" + IMAGE_NAME))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MvcResult result = mockMvc.perform(get("/image/" + IMAGE_NAME).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testRepeatRequestWithLastModifiedReturnsNotModifiedWithoutBody() throws Exception {
+        String lastModified = mockMvc.perform(get("/image/" + IMAGE_NAME))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        assertNotNull(lastModified);
+
+        MvcResult result = mockMvc.perform(get("/image/" + IMAGE_NAME).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified())
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testVariantHasOwnEtag() throws Exception {
+        Files.write(imageDir.resolve("1700000000000_foto_w160.png"), png(160));
+        when(imageRepository.findWidthsByUrlAndStatus(IMAGE_NAME, ImageStatus.READY)).thenReturn(List.of(400));
+
+        String originalEtag = mockMvc.perform(get("/image/" + IMAGE_NAME))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String variantEtag = mockMvc.perform(get("/image/" + IMAGE_NAME).param("w", "100"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(originalEtag, variantEtag);
+        mockMvc.perform(get("/image/" + IMAGE_NAME).param("w", "100").header(HttpHeaders.IF_NONE_MATCH, originalEtag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testPendingImageIsNotCachedPermanently() throws Exception {
+        when(imageRepository.findWidthsByUrlAndStatus(IMAGE_NAME, ImageStatus.READY)).thenReturn(List.of());
+        when(imageRepository.existsByUrlAndStatus(IMAGE_NAME, ImageStatus.PENDING)).thenReturn(true);
+
+        String cacheControl = mockMvc.perform(get("/image/" + IMAGE_NAME).param("w", "160"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.CACHE_CONTROL);
+
+        assertTrue(cacheControl.contains("no-cache"));
+    }
+
+    @Test
+    public void testSingleRangeReturnsPartialContent() throws Exception {
+        MvcResult result = mockMvc.perform(get("/image/" + IMAGE_NAME).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/" + imageBytes.length))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().contentType("image/png"))
+                .andReturn();
+
+        assertArrayEquals(Arrays.copyOfRange(imageBytes, 10, 20), result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testSuffixRangeResumesDownload() throws Exception {
+        String etag = mockMvc.perform(get("/image/" + IMAGE_NAME)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult result = mockMvc.perform(get("/image/" + IMAGE_NAME)
+                        .header(HttpHeaders.RANGE, "bytes=-5")
+                        .header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+
+        assertArrayEquals(Arrays.copyOfRange(imageBytes, imageBytes.length - 5, imageBytes.length),
+                result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testIfRangeWithOtherEtagReturnsWholeFile() throws Exception {
+        MvcResult result = mockMvc.perform(get("/image/" + IMAGE_NAME)
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "\"veraltet\""))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertArrayEquals(imageBytes, result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testMultipleRangesReturnMultipartByteranges() throws Exception {
+        MvcResult result = mockMvc.perform(get("/image/" + IMAGE_NAME).header(HttpHeaders.RANGE, "bytes=0-3,8-11"))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+
+        String contentType = result.getResponse().getContentType();
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assertEquals(body.length, result.getResponse().getContentLengthLong());
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        assertTrue(text.contains("Content-Range: bytes 0-3/" + imageBytes.length + "\r\n\r\n"
+                + new String(imageBytes, 0, 4, StandardCharsets.ISO_8859_1)));
+        assertTrue(text.contains("Content-Range: bytes 8-11/" + imageBytes.length + "\r\n\r\n"
+                + new String(imageBytes, 8, 4, StandardCharsets.ISO_8859_1)));
+        assertTrue(text.endsWith("--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    public void testUnsatisfiableRangeReturns416() throws Exception {
+        mockMvc.perform(get("/image/" + IMAGE_NAME).header(HttpHeaders.RANGE, "bytes=" + imageBytes.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + imageBytes.length));
+    }
+
+    @Test
+    public void testSendfileIsUsedWhenContainerSupportsIt() throws Exception {
+        MvcResult result = mockMvc.perform(get("/image/" + IMAGE_NAME)
+                        .header(HttpHeaders.RANGE, "bytes=100-")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isPartialContent())
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 100L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", (long) imageBytes.length))
+                .andReturn();
+
+        // Den Inhalt schreibt der Container, nicht der Controller
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+        assertEquals(imageBytes.length - 100, result.getResponse().getContentLengthLong());
+    }
+
+    @Test
+    public void testMissingImageReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/image/gibt-es-nicht.png"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testRetryAfterOnlyWhenProcessingIsBusy() throws Exception {
+        MockMultipartFile upload = new MockMultipartFile("image", "foto.png", "image/png", imageBytes);
+        when(imageService.uploadImage(eq(1), any())).thenThrow(
+                new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Die Bildverarbeitung ist ausgelastet."));
+        when(imageService.uploadImage(eq(2), any())).thenThrow(
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Notiz nicht gefunden"));
+
+        mockMvc.perform(multipart("/image/1/images").file(upload))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"))
+                .andExpect(content().string("Die Bildverarbeitung ist ausgelastet."));
+        mockMvc.perform(multipart("/image/2/images").file(upload))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER))
+                .andExpect(content().string("Notiz nicht gefunden"));
+    }
+
+    private static byte[] png(int width) throws Exception {
+        BufferedImage image = new BufferedImage(width, width / 2, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, x / 2, 0xFF0000 + x); // etwas Inhalt, damit sich die Dateien unterscheiden
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,162 @@
+package org.bootstmytool.backend.controller;
+
+import org.bootstmytool.backend.BackendApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Lasttest fuer die Auslieferung grosser Bilder ueber {@link ImageController#getImage}.
+ * <p>
+ * Startet die Anwendung mit einer In-Memory-Datenbank, legt Dateien mit 1 MB und 10 MB an und laedt jede
+ * 100-mal gleichzeitig herunter, einmal als ganze Datei und einmal als Bereich ab der Mitte. Gemessen werden
+ * Dauer, Durchsatz und die auf den Tomcat-Threads ({@code http-nio-*}) allozierten Bytes je Download.
+ * Da die Datei nicht durch den Heap kopiert wird, bleibt dieser Wert bei 10 MB so klein wie bei 1 MB.
+ * Der Durchlauf erfolgt mit sendfile und zum Vergleich ohne (Kopie ueber {@code FileChannel.transferTo}).
+ * <p>
+ * Kein JUnit-Test, damit der normale Build nicht verlangsamt wird. Ausfuehren mit:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -Xmx512m -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     org.bootstmytool.backend.controller.ImageDownloadBenchmark
+ * </pre>
+ */
+public class ImageDownloadBenchmark {
+
+    private static final int CONCURRENT_DOWNLOADS = 100;
+    private static final int[] FILE_SIZES_MB = {1, 10};
+
+    public static void main(String[] args) throws Exception {
+        Path imageDir = Files.createTempDirectory("image-benchmark");
+        Map<Integer, String> files = new HashMap<>();
+        Random random = new Random(42);
+        for (int sizeMb : FILE_SIZES_MB) {
+            byte[] content = new byte[sizeMb * 1024 * 1024];
+            random.nextBytes(content);
+            String name = "1700000000000_gross_" + sizeMb + "mb.jpg";
+            Files.write(imageDir.resolve(name), content);
+            files.put(sizeMb, name);
+        }
+
+        System.out.printf("%-10s %-6s %6s %10s %10s %16s%n",
+                "transfer", "range", "MB", "ms", "MB/s", "alloc/download");
+        for (boolean sendfile : new boolean[]{true, false}) {
+            ConfigurableApplicationContext context = start(imageDir, sendfile);
+            try {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                for (int sizeMb : FILE_SIZES_MB) {
+                    String url = "http://localhost:" + port + "/image/" + files.get(sizeMb);
+                    download(url, sizeMb, null, sendfile); // Aufwaermen, berechnet auch das ETag
+                    download(url, sizeMb, null, sendfile);
+                    download(url, sizeMb, "bytes=" + (sizeMb * 1024 * 1024 / 2) + "-", sendfile);
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Path imageDir, boolean sendfile) {
+        SpringApplication application = new SpringApplication(BackendApplication.class);
+        if (!sendfile) {
+            application.addInitializers(context -> context.getBeanFactory().registerSingleton("disableSendfile",
+                    (TomcatConnectorCustomizer) connector -> connector.setProperty("useSendfile", "false")));
+        }
+        return application.run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:image-benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--server.tomcat.threads.max=" + CONCURRENT_DOWNLOADS,
+                "--image.upload.dir=" + imageDir,
+                "--logging.level.root=WARN");
+    }
+
+    private static void download(String url, int sizeMb, String range, boolean sendfile) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (range != null) {
+            builder.header("Range", range);
+        }
+        HttpRequest request = builder.build();
+        long expected = range == null ? sizeMb * 1024L * 1024L : sizeMb * 1024L * 1024L / 2;
+
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_DOWNLOADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_DOWNLOADS; i++) {
+            results.add(pool.submit(() -> {
+                startSignal.await();
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                long received = 0;
+                byte[] buffer = new byte[64 * 1024];
+                try (InputStream body = response.body()) {
+                    int read;
+                    while ((read = body.read(buffer)) != -1) {
+                        received += read;
+                    }
+                }
+                return received;
+            }));
+        }
+
+        Map<Long, Long> before = serverAllocations();
+        long start = System.nanoTime();
+        startSignal.countDown();
+        for (Future<Long> result : results) {
+            long received = result.get();
+            if (received != expected) {
+                throw new IllegalStateException("Erwartet " + expected + " Bytes, erhalten " + received);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        Map<Long, Long> after = serverAllocations();
+        pool.shutdown();
+
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : after.entrySet()) {
+            allocated += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        double megabytes = expected * (double) CONCURRENT_DOWNLOADS / (1024 * 1024);
+        System.out.printf("%-10s %-6s %6d %10d %10.0f %13.1f KB%n",
+                sendfile ? "sendfile" : "transferTo", range == null ? "-" : "half", sizeMb,
+                elapsedNanos / 1_000_000, megabytes / (elapsedNanos / 1e9),
+                allocated / 1024.0 / CONCURRENT_DOWNLOADS);
+    }
+
+    /**
+     * Liefert die bisher allozierten Bytes je Tomcat-Thread.
+     */
+    private static Map<Long, Long> serverAllocations() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, Long> allocations = new HashMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("http-nio-")) {
+                allocations.put(thread.getId(), threads.getThreadAllocatedBytes(thread.getId()));
+            }
+        }
+        return allocations;
+    }
+}
@@ -1,10 +1,21 @@
 package org.bootstmytool.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bootstmytool.backend.dto.NoteDTO;
+import org.bootstmytool.backend.dto.NotePageDTO;
 import org.bootstmytool.backend.model.Note;
 import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.security.JacksonConfig;
+import org.bootstmytool.backend.security.UserPrincipal;
 import org.bootstmytool.backend.service.JwtService;
+import org.bootstmytool.backend.service.NoteEditConflictException;
+import org.bootstmytool.backend.service.NoteEditService;
+import org.bootstmytool.backend.service.NoteExportService;
+import org.bootstmytool.backend.service.NoteJsonCache;
+import org.bootstmytool.backend.service.NoteListCache;
 import org.bootstmytool.backend.service.NoteService;
 import org.bootstmytool.backend.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,8 +34,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -42,6 +56,15 @@ public class NoteControllerTest {
     @Mock
     private NoteService noteService;  // Service als Mock
 
+    @Mock
+    private NoteListCache noteListCache;
+
+    @Mock
+    private NoteEditService noteEditService;
+
+    @Mock
+    private NoteExportService noteExportService;
+
     @InjectMocks
     private NoteController noteController;  // Controller, der die gemockten Services verwendet
 
@@ -86,10 +109,176 @@ public class NoteControllerTest {
                 .andExpect(content().string("Note deleted successfully"));
     }
 
+    @Test
+    public void testGetNotesNegotiatesFormat() throws Exception {
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        ObjectMapper objectMapper = jacksonConfig.objectMapper();
+        CBORMapper cborMapper = jacksonConfig.cborMapper();
+        SmileMapper smileMapper = jacksonConfig.smileMapper();
+        NoteJsonCache jsonCache = new NoteJsonCache(objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jsonCache, "maxSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(jsonCache, "idleTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.invokeMethod(jsonCache, "init");
+        // Reihenfolge wie in Spring Boot: der Fragment-Konverter vor den Jackson-Konvertern
+        mockMvc = MockMvcBuilders.standaloneSetup(noteController)
+                .setMessageConverters(jacksonConfig.noteListJsonConverter(jsonCache),
+                        jacksonConfig.mappingJackson2HttpMessageConverter(objectMapper),
+                        jacksonConfig.cborHttpMessageConverter(cborMapper),
+                        jacksonConfig.smileHttpMessageConverter(smileMapper))
+                .build();
+
+        NoteDTO note = new NoteDTO();
+        note.setId(1);
+        note.setTitle("Einkauf");
+        note.setContent("Milch");
+        note.setTags(List.of("privat"));
+        note.setImages(List.of());
+        List<NoteDTO> notes = List.of(note);
+        when(noteListCache.getNotes(7)).thenReturn(notes);
+        // Binaerformate kennen eigene Zahlentypen, verglichen wird deshalb der Inhalt als JSON-Text
+        String expected = objectMapper.writeValueAsString(notes);
+
+        // Ohne Accept-Header bleibt JSON der Standard
+        MvcResult json = mockMvc.perform(MockMvcRequestBuilders.get("/notes/get")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, new UserPrincipal(7, "a@example.org")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+        assertEquals(expected, objectMapper.writeValueAsString(objectMapper.readTree(json.getResponse().getContentAsByteArray())));
+
+        MvcResult cbor = mockMvc.perform(MockMvcRequestBuilders.get("/notes/get")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, new UserPrincipal(7, "a@example.org"))
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        assertEquals(expected, objectMapper.writeValueAsString(cborMapper.readTree(cbor.getResponse().getContentAsByteArray())));
+
+        MvcResult smile = mockMvc.perform(MockMvcRequestBuilders.get("/notes/get")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, new UserPrincipal(7, "a@example.org"))
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+        assertEquals(expected, objectMapper.writeValueAsString(smileMapper.readTree(smile.getResponse().getContentAsByteArray())));
+    }
+
+    @Test
+    public void testEditNoteReportsConflictWithServerVersion() throws Exception {
+        Note current = new Note();
+        current.setId(1);
+        current.setContent("Hafermilch");
+        ReflectionTestUtils.setField(current, "version", 5L);
+        when(noteEditService.edit(eq(1), eq(7), eq(2L), any(), any(), any()))
+                .thenThrow(new NoteEditConflictException(HttpStatus.CONFLICT, "Konflikt", List.of("content"), current));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/notes/edit/1")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, new UserPrincipal(7, "a@example.org"))
+                        .header("If-Match", "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Einkauf\",\"content\":\"Sojamilch\",\"tags\":[]}"))
+                .andExpect(status().isConflict())
+                .andExpect(header().string("ETag", "\"5\""))
+                .andExpect(jsonPath("$.serverVersion").value(5))
+                .andExpect(jsonPath("$.conflicts[0]").value("content"))
+                .andExpect(jsonPath("$.note.content").value("Hafermilch"));
 
+        // Ein If-Match ohne Versionsnummer wird abgelehnt statt ignoriert
+        mockMvc.perform(MockMvcRequestBuilders.put("/notes/edit/1")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, new UserPrincipal(7, "a@example.org"))
+                        .header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Einkauf\"}"))
+                .andExpect(status().isBadRequest());
+    }
 
+    @Test
+    public void testPatchNoteRequiresIfMatch() throws Exception {
+        String patch = "[{\"op\":\"splice\",\"path\":\"/content\",\"offset\":0,\"length\":0,\"value\":\"Neu \"}]";
 
+        mockMvc.perform(MockMvcRequestBuilders.patch("/notes/edit/1")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, new UserPrincipal(7, "a@example.org"))
+                        .contentType("application/json-patch+json")
+                        .content(patch))
+                .andExpect(status().isPreconditionRequired());
+        verifyNoInteractions(noteEditService);
 
+        Note patched = new Note();
+        patched.setId(1);
+        patched.setContent("Neu Inhalt");
+        ReflectionTestUtils.setField(patched, "version", 4L);
+        when(noteEditService.patch(eq(1), eq(7), eq(3L), argThat(operations -> operations.size() == 1
+                && operations.get(0).getOffset() == 0 && operations.get(0).getValue().asText().equals("Neu "))))
+                .thenReturn(patched);
 
+        mockMvc.perform(MockMvcRequestBuilders.patch("/notes/edit/1")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, new UserPrincipal(7, "a@example.org"))
+                        .header("If-Match", "\"3\"")
+                        .contentType("application/json-patch+json")
+                        .content(patch))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.content").value("Neu Inhalt"));
+    }
+
+    @Test
+    public void testListNotesValidatesLimitAndCursor() throws Exception {
+        UserPrincipal principal = new UserPrincipal(7, "a@example.org");
+        for (String limit : new String[]{"0", "101", "-5"}) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/notes/list")
+                            .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, principal)
+                            .param("limit", limit))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("limit muss zwischen 1 und 100 liegen"));
+        }
+        verifyNoInteractions(noteService);
 
+        NotePageDTO last = new NotePageDTO(List.of(), null, false);
+        when(noteService.getNoteSummaries(7, 1, null, NoteService.SortOrder.NEWEST)).thenReturn(last);
+        when(noteService.getNoteSummaries(7, 100, "abc", NoteService.SortOrder.OLDEST)).thenReturn(last);
+        mockMvc.perform(MockMvcRequestBuilders.get("/notes/list")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, principal)
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mockMvc.perform(MockMvcRequestBuilders.get("/notes/list")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, principal)
+                        .param("limit", "100")
+                        .param("cursor", "abc")
+                        .param("sort", "oldest"))
+                .andExpect(status().isOk());
+
+        // Ungueltiger Cursor oder unbekannte Sortierung: 400 statt 500
+        when(noteService.getNoteSummaries(7, 20, "kaputt", NoteService.SortOrder.NEWEST))
+                .thenThrow(new IllegalArgumentException("Ungueltiger Cursor"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/notes/list")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, principal)
+                        .param("cursor", "kaputt"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Ungueltiger Cursor"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/notes/list")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, principal)
+                        .param("sort", "seitwaerts"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unbekannte Sortierung: seitwaerts"));
+    }
+
+    @Test
+    public void testExportIsRejectedWhenAlreadyRunningOrFull() throws Exception {
+        UserPrincipal principal = new UserPrincipal(7, "a@example.org");
+        when(noteExportService.reserve(7))
+                .thenThrow(new IllegalStateException("Fuer diesen Benutzer laeuft bereits ein Export"))
+                .thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Zu viele Exporte gleichzeitig"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/notes/export")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, principal))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Fuer diesen Benutzer laeuft bereits ein Export"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/notes/export")
+                        .requestAttr(UserPrincipal.REQUEST_ATTRIBUTE, principal))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"));
+        verify(noteExportService, never()).export(anyInt(), anyInt(), any(), any());
+    }
 }
@@ -0,0 +1,210 @@
+package org.bootstmytool.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bootstmytool.backend.BackendApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Lasttest fuer den Betrieb mit virtuellen Threads ({@code spring.threads.virtual.enabled}).
+ * <p>
+ * Startet die Anwendung je einmal mit Plattform-Threads (Tomcat-Standard, 200 Threads) und mit virtuellen
+ * Threads, legt einen Benutzer mit 200 Notizen an und laesst 2.000 Clients gleichzeitig ueber eine feste Dauer
+ * Anfragen stellen: {@code /notes/list} liest bei jedem Aufruf aus der Datenbank, {@code /notes/get} kommt
+ * aus dem Cache. Ausgegeben werden Durchsatz sowie p50 und p99 der Latenz. Virtuelle Threads werden nur unter
+ * Java 21 gemessen; unter Java 17 faellt die Einstellung auf Plattform-Threads zurueck.
+ * <p>
+ * Mit der H2-In-Memory-Datenbank wartet kaum ein Request auf I/O. Aussagekraeftiger ist der Vergleich gegen
+ * einen entfernten H2-Server ({@code jdbc:h2:tcp://...}), dessen URL als drittes Argument uebergeben werden kann;
+ * die Flyway-Migrationen sind nur fuer H2 geschrieben.
+ * <p>
+ * Kein JUnit-Test, damit der normale Build nicht verlangsamt wird. Jeder Client haelt eine Verbindung offen,
+ * das Limit fuer offene Dateien muss also ueber 4.000 liegen. Ausfuehren mit:
+ * <pre>
+ * mvn -q -Pjava21 test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * ulimit -n 10000
+ * java -Xmx2g -Djdk.tracePinnedThreads=short -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     org.bootstmytool.backend.controller.VirtualThreadLoadBenchmark [clients] [sekunden] [jdbc-url]
+ * </pre>
+ */
+public class VirtualThreadLoadBenchmark {
+
+    private static final int NOTES = 200;
+    private static final String[] ENDPOINTS = {"/notes/list?limit=20", "/notes/get"};
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        String jdbcUrl = args.length > 2 ? args[2] : null;
+        boolean virtualAvailable = Runtime.version().feature() >= 21;
+        if (!virtualAvailable) {
+            System.out.println("Java " + Runtime.version().feature() + ": nur Plattform-Threads werden gemessen");
+        }
+
+        System.out.printf("%-9s %-22s %8s %10s %8s %10s %10s %10s%n",
+                "threads", "endpoint", "clients", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (boolean virtual : virtualAvailable ? new boolean[]{false, true} : new boolean[]{false}) {
+            ConfigurableApplicationContext context = start(virtual, clients, jdbcUrl);
+            try {
+                String baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(30))
+                        .build();
+                String token = seed(client, baseUrl);
+                for (String endpoint : ENDPOINTS) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint))
+                            .header("Authorization", "Bearer " + token)
+                            .GET()
+                            .build();
+                    run(client, request, clients, Math.max(1, seconds / 5)); // Aufwaermen
+                    Result result = run(client, request, clients, seconds);
+                    System.out.printf("%-9s %-22s %8d %10d %8d %10.0f %10.1f %10.1f%n",
+                            virtual ? "virtual" : "platform", endpoint, clients, result.latencies.length,
+                            result.errors, result.latencies.length / (double) seconds,
+                            percentile(result.latencies, 0.50) / 1e6, percentile(result.latencies, 0.99) / 1e6);
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual, int clients, String jdbcUrl) throws Exception {
+        Path imageDir = Files.createTempDirectory("load-benchmark");
+        String url = jdbcUrl != null ? jdbcUrl : "jdbc:h2:mem:load-benchmark-" + virtual + ";DB_CLOSE_DELAY=-1";
+        return new SpringApplication(BackendApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.jpa.show-sql=false",
+                "--spring.threads.virtual.enabled=" + virtual,
+                // Alle Clients duerfen verbunden sein; begrenzt wird nur die Anzahl der Tomcat-Threads
+                "--server.tomcat.max-connections=" + (clients + 100),
+                "--server.tomcat.accept-count=" + clients,
+                "--image.upload.dir=" + imageDir,
+                "--logging.level.root=WARN");
+    }
+
+    /**
+     * Registriert einen Benutzer, importiert seine Notizen und liefert das JWT.
+     */
+    private static String seed(HttpClient client, String baseUrl) throws Exception {
+        String email = "last-" + System.nanoTime() + "@example.org";
+        String credentials = MAPPER.writeValueAsString(Map.of("email", email, "password", "geheim123"));
+        send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials)).build());
+        String login = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials)).build());
+        String token = MAPPER.readTree(login).get("token").asText();
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= NOTES; i++) {
+            ndjson.append(MAPPER.writeValueAsString(Map.of("title", "Notiz " + i,
+                    "content", "Inhalt der Notiz " + i + " ".repeat(i % 7) + "mit etwas Text zum Lesen.",
+                    "tags", List.of("last", "tag" + (i % 10))))).append('\n');
+        }
+        send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/notes/import"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString())).build());
+        return token;
+    }
+
+    private static String send(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.uri() + ": " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    /**
+     * Laesst alle Clients gleichzeitig starten und bis zum Ablauf der Dauer Anfragen senden.
+     */
+    private static Result run(HttpClient client, HttpRequest request, int clients, int seconds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<long[]>> results = new ArrayList<>();
+        long[] deadline = new long[1];
+        for (int i = 0; i < clients; i++) {
+            results.add(pool.submit(() -> {
+                startSignal.await();
+                long[] samples = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(samples, count);
+            }));
+        }
+
+        deadline[0] = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        startSignal.countDown(); // Veroeffentlicht auch deadline[0] fuer die wartenden Clients
+        List<long[]> all = new ArrayList<>();
+        int total = 0;
+        for (Future<long[]> result : results) {
+            long[] samples = result.get();
+            all.add(samples);
+            total += samples.length;
+        }
+        pool.shutdown();
+
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (long[] samples : all) {
+            System.arraycopy(samples, 0, latencies, offset, samples.length);
+            offset += samples.length;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, errors.get());
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private record Result(long[] latencies, int errors) {
+    }
+}
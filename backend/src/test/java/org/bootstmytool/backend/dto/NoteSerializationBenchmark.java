@@ -0,0 +1,159 @@
+package org.bootstmytool.backend.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.security.JacksonConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Benchmark fuer die Antwortformate der Notizliste: JSON, CBOR und Smile.
+ * <p>
+ * Serialisiert Listen von 10, 1.000 und 10.000 synthetischen {@link NoteDTO}s mit den Mappern aus
+ * {@link JacksonConfig} und misst die Groesse (roh und mit gzip, wie sie ueber eine komprimierte Verbindung
+ * geht) sowie den Median der Zeit fuers Kodieren und Dekodieren. Jede dekodierte Liste wird mit der
+ * Ausgangsliste verglichen.
+ * <p>
+ * Kein JUnit-Test, damit der normale Build nicht verlangsamt wird. Ausfuehren mit:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -Xmx1g -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     org.bootstmytool.backend.dto.NoteSerializationBenchmark
+ * </pre>
+ */
+public class NoteSerializationBenchmark {
+
+    private static final int[] NOTE_COUNTS = {10, 1_000, 10_000};
+    private static final int ITERATIONS = 100;
+    private static final TypeReference<List<NoteDTO>> NOTE_LIST = new TypeReference<>() {
+    };
+
+    private static final String[] WORDS = {
+            "einkauf", "milch", "brot", "termin", "arzt", "rechnung", "steuer", "urlaub", "reise", "projekt",
+            "besprechung", "protokoll", "garten", "werkstatt", "versicherung", "wohnung", "miete", "geschenk"
+    };
+
+    public static void main(String[] args) {
+        JacksonConfig config = new JacksonConfig();
+        ObjectMapper[] mappers = {config.objectMapper(), config.cborMapper(), config.smileMapper()};
+        String[] formats = {"json", "cbor", "smile"};
+
+        System.out.printf("%8s %-6s %12s %12s %8s %14s %14s%n",
+                "notes", "format", "bytes", "gzip bytes", "ratio", "encode p50us", "decode p50us");
+        for (int noteCount : NOTE_COUNTS) {
+            List<NoteDTO> notes = notes(noteCount);
+            int jsonSize = encode(mappers[0], notes).length;
+            for (int i = 0; i < mappers.length; i++) {
+                ObjectMapper mapper = mappers[i];
+                byte[] encoded = encode(mapper, notes);
+                verify(mappers[0], notes, decode(mapper, encoded), formats[i]);
+                long encodeNanos = median(() -> encode(mapper, notes).length);
+                long decodeNanos = median(() -> decode(mapper, encoded).size());
+                System.out.printf("%8d %-6s %12d %12d %8.2f %14.1f %14.1f%n", noteCount, formats[i],
+                        encoded.length, gzip(encoded).length, (double) encoded.length / jsonSize,
+                        encodeNanos / 1000.0, decodeNanos / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * Erzeugt Notizen wie aus {@code GET /notes/get}: kurzer Titel, einige Saetze Inhalt, zwei Tags und
+     * bei jeder dritten Notiz ein Bild.
+     */
+    private static List<NoteDTO> notes(int count) {
+        Random random = new Random(42);
+        List<NoteDTO> notes = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            NoteDTO note = new NoteDTO();
+            note.setId(id);
+            note.setVersion(random.nextInt(5));
+            note.setTitle(words(random, 3));
+            note.setContent(words(random, 20 + random.nextInt(60)));
+            note.setCreatedAt(new Date(1_700_000_000_000L + id * 60_000L));
+            note.setTags(List.of(WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)]));
+            List<ImageDTO> images = new ArrayList<>();
+            if (id % 3 == 0) {
+                String fileName = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()) + ".png";
+                images.add(ImageDTO.of(id, fileName, ImageStatus.READY, 1600, "http://localhost:8080"));
+            }
+            note.setImages(images);
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static byte[] encode(ObjectMapper mapper, List<NoteDTO> notes) {
+        try {
+            return mapper.writeValueAsBytes(notes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<NoteDTO> decode(ObjectMapper mapper, byte[] encoded) {
+        try {
+            return mapper.readValue(encoded, NOTE_LIST);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void verify(ObjectMapper json, List<NoteDTO> expected, List<NoteDTO> actual, String format) {
+        // NoteDTO hat kein equals, verglichen wird das JSON beider Listen
+        if (!Arrays.equals(encode(json, expected), encode(json, actual))) {
+            throw new IllegalStateException("Abweichende Notizen nach " + format);
+        }
+    }
+
+    private static long median(IntSupplier task) {
+        int sink = 0;
+        for (int i = 0; i < ITERATIONS / 4; i++) {
+            sink += task.getAsInt(); // Aufwaermen
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sink += task.getAsInt();
+            samples[i] = System.nanoTime() - start;
+        }
+        if (sink == Integer.MIN_VALUE) {
+            System.out.println(sink); // Verhindert, dass die JIT die Aufrufe entfernt
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2];
+    }
+}
@@ -0,0 +1,238 @@
+package org.bootstmytool.backend.repository;
+
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.NoteRevision;
+import org.bootstmytool.backend.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueft mit {@code EXPLAIN}, dass jede Abfrage der Repositories ueber einen Index laeuft.
+ * Ausgewertet werden die SQL-Anweisungen, die Hibernate tatsaechlich erzeugt, einschliesslich der
+ * Nachladeabfragen fuer Tags und Bilder. Das Schema stammt aus den Flyway-Migrationen.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.bootstmytool.backend.repository.RepositoryQueryPlanTest$SqlRecorder")
+public class RepositoryQueryPlanTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Note note;
+    private Image image;
+
+    @BeforeEach
+    public void setUp() {
+        // Einige Benutzer mit Notizen, Tags und Bildern, damit der Optimierer echte Statistiken hat
+        for (int u = 0; u < 5; u++) {
+            User owner = new User();
+            owner.setEmail("user" + u + "@example.org");
+            owner.setPassword("geheim");
+            entityManager.persist(owner);
+            for (int n = 0; n < 20; n++) {
+                Note current = new Note();
+                current.setTitle("Notiz " + n);
+                current.setContent("Inhalt " + n);
+                current.setUser(owner);
+                current.setTags(new ArrayList<>(List.of("tag" + (n % 4), "user" + u)));
+                entityManager.persist(current);
+                for (int i = 0; i < 2; i++) {
+                    Image currentImage = new Image();
+                    currentImage.setUrl(String.format("%064x.png", (long) u * 1000 + n * 10 + i));
+                    currentImage.setContentHash(String.format("%064x", (long) u * 1000 + n * 10 + i));
+                    currentImage.setNote(current);
+                    currentImage.setStatus(i == 0 ? ImageStatus.READY : ImageStatus.PENDING);
+                    entityManager.persist(currentImage);
+                    image = currentImage;
+                }
+                note = current;
+            }
+            user = owner;
+        }
+        entityManager.flush();
+        entityManager.clear();
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    public void testNoteRepositoryQueriesUseIndexes() {
+        int userId = (int) user.getId();
+        List<Integer> noteIds = List.of(note.getId(), note.getId() - 1);
+        Date createdAt = new Date();
+
+        noteRepository.findById(note.getId());
+        entityManager.clear();
+        noteRepository.getNoteById(note.getId());
+        entityManager.clear();
+        noteRepository.findByUserId(userId);
+        entityManager.clear();
+        noteRepository.findByImagesContaining(image);
+        noteRepository.findSummariesNewest(userId, Limit.of(10));
+        noteRepository.findSummariesNewestAfter(userId, createdAt, note.getId(), Limit.of(10));
+        noteRepository.findSummariesOldest(userId, Limit.of(10));
+        noteRepository.findSummariesOldestAfter(userId, createdAt, note.getId(), Limit.of(10));
+        noteRepository.findTagsByNoteIds(noteIds);
+        noteRepository.findTagsByUserId(userId);
+        noteRepository.findSearchSourcesByUserId(userId);
+        noteRepository.findSearchSourcesByIds(noteIds);
+        noteRepository.findListingByUserId(userId);
+        entityManager.clear();
+        noteRepository.findByIdForVersionIncrement(note.getId());
+        entityManager.clear();
+        noteRepository.findByImageIdForVersionIncrement(image.getId());
+        try (Stream<Note> notes = noteRepository.streamByUserIdAfter(userId, 0)) {
+            notes.forEach(entityManager::detach);
+        }
+
+        assertNoFullScans();
+    }
+
+    @Test
+    public void testImageRepositoryQueriesUseIndexes() {
+        String url = image.getUrl();
+        String hash = image.getContentHash();
+
+        imageRepository.findByNoteId(note.getId());
+        entityManager.clear();
+        imageRepository.findById(image.getId());
+        imageRepository.findUrlsByNoteIds(List.of(note.getId(), note.getId() - 1));
+        imageRepository.findUrlByIdAndStatus(image.getId(), ImageStatus.PENDING);
+        imageRepository.findWidthsByUrlAndStatus(url, ImageStatus.READY);
+        imageRepository.existsByUrlAndStatus(url, ImageStatus.PENDING);
+        imageRepository.countByContentHash(hash);
+        imageRepository.findProcessingResultByContentHash(hash, ImageStatus.READY, image.getId(), Limit.of(1));
+        imageRepository.findIdsByStatusCreatedBefore(ImageStatus.PENDING, LocalDateTime.now(), Limit.of(100));
+        imageRepository.findListingByUserId((int) user.getId());
+        imageRepository.findOwnerIdById(image.getId());
+        imageRepository.updateProcessingResult(image.getId(), ImageStatus.READY, 10, 10, "image/png", 100L);
+
+        assertNoFullScans();
+    }
+
+    @Test
+    public void testNoteRevisionRepositoryQueriesUseIndexes() {
+        NoteRevision revision = noteRevisionRepository.save(new NoteRevision(note, "Neuer Inhalt"));
+        entityManager.flush();
+        entityManager.clear();
+        SqlRecorder.STATEMENTS.clear();
+
+        noteRevisionRepository.findFromVersion(note.getId(), 0);
+        noteRevisionRepository.existsByNoteIdAndVersionLessThan(note.getId(), 1);
+        noteRevisionRepository.countByNoteId(note.getId());
+        noteRevisionRepository.findVersionsByNoteId(note.getId(), Limit.of(21));
+        entityManager.clear();
+        noteRevisionRepository.findById(revision.getId()).ifPresent(found -> found.getTags().size());
+        noteRevisionRepository.deleteUpToVersion(note.getId(), revision.getVersion());
+
+        assertNoFullScans();
+    }
+
+    @Test
+    public void testUserRepositoryQueriesUseIndexes() {
+        userRepository.findByEmail("user1@example.org");
+        entityManager.clear();
+        userRepository.findById((int) user.getId());
+
+        assertNoFullScans();
+    }
+
+    private void assertNoFullScans() {
+        List<String> queries = recordedQueries();
+        assertFalse(queries.isEmpty(), "Es wurden keine Abfragen aufgezeichnet");
+        List<String> fullScans = new ArrayList<>();
+        for (String sql : queries) {
+            String plan = explain(sql);
+            if (plan.contains("tableScan")) {
+                fullScans.add(plan);
+            }
+        }
+        assertTrue(fullScans.isEmpty(), () -> "Abfragen ohne Index:\n" + String.join("\n\n", fullScans));
+    }
+
+    private List<String> recordedQueries() {
+        entityManager.flush();
+        List<String> queries = new ArrayList<>();
+        for (String sql : SqlRecorder.STATEMENTS) {
+            String statement = sql.trim().toLowerCase(Locale.ROOT);
+            if ((statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete"))
+                    && !queries.contains(sql)) {
+                queries.add(sql);
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Liefert den Ausfuehrungsplan einer Anweisung; Parameter werden mit NULL belegt, der Plan haengt
+     * nicht von ihren Werten ab.
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1));
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    /**
+     * Zeichnet alle SQL-Anweisungen auf, die Hibernate an die Datenbank sendet.
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
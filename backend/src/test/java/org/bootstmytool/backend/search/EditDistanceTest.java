@@ -0,0 +1,131 @@
+package org.bootstmytool.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests fuer die begrenzte Editierdistanz in {@link EditDistance}.
+ */
+public class EditDistanceTest {
+
+    @Test
+    public void testSingleEdits() {
+        assertEquals(0, EditDistance.boundedDistance("milch", "milch", 2));
+        assertEquals(1, EditDistance.boundedDistance("milch", "milck", 2)); // Ersetzung
+        assertEquals(1, EditDistance.boundedDistance("milch", "milsch", 2)); // Einfuegung
+        assertEquals(1, EditDistance.boundedDistance("milch", "mich", 2)); // Loeschung
+        assertEquals(1, EditDistance.boundedDistance("", "a", 1));
+    }
+
+    @Test
+    public void testTranspositionCountsAsOneEdit() {
+        assertEquals(1, EditDistance.boundedDistance("milch", "mlich", 2));
+        assertEquals(1, EditDistance.boundedDistance("milch", "imlch", 2)); // am Anfang
+        assertEquals(1, EditDistance.boundedDistance("milch", "milhc", 2)); // am Ende
+        assertEquals(2, EditDistance.boundedDistance("rechnung", "ercnhung", 2)); // zwei Vertauschungen
+        // Ein vertauschtes Paar wird nicht ein weiteres Mal bearbeitet
+        assertEquals(3, EditDistance.boundedDistance("ca", "abc", 3));
+    }
+
+    @Test
+    public void testBandCutoffReturnsMaxPlusOne() {
+        assertEquals(3, EditDistance.boundedDistance("milch", "brot", 2));
+        assertEquals(2, EditDistance.boundedDistance("milch", "milchkaffee", 1)); // Laengenunterschied
+        assertEquals(2, EditDistance.boundedDistance("abcdef", "badcfe", 1)); // drei Vertauschungen
+        assertEquals(3, EditDistance.boundedDistance("badcfe", "abcdef", 3));
+        // Ohne Band nur Gleichheit
+        assertEquals(0, EditDistance.boundedDistance("milch", "milch", 0));
+        assertEquals(1, EditDistance.boundedDistance("milch", "mlich", 0));
+    }
+
+    @Test
+    public void testMatchesUnboundedDistance() {
+        Random random = new Random(7);
+        for (int run = 0; run < 20_000; run++) {
+            String a = randomWord(random);
+            String b = random.nextBoolean() ? mutate(random, a) : randomWord(random);
+            int expected = fullDistance(a, b);
+            for (int max = 0; max <= 3; max++) {
+                assertEquals(Math.min(expected, max + 1), EditDistance.boundedDistance(a, b, max),
+                        a + " / " + b + " / max " + max);
+            }
+        }
+    }
+
+    @Test
+    public void testAllowedEdits() {
+        assertEquals(0, EditDistance.allowedEdits(2));
+        assertEquals(1, EditDistance.allowedEdits(3));
+        assertEquals(1, EditDistance.allowedEdits(5));
+        assertEquals(2, EditDistance.allowedEdits(6));
+    }
+
+    /**
+     * Vollstaendige Tabelle ohne Band als Referenz (Levenshtein mit Vertauschung benachbarter Zeichen).
+     */
+    static int fullDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1));
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 1 + random.nextInt(9);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(4))); // Kleines Alphabet, damit sich Woerter aehneln
+        }
+        return word.toString();
+    }
+
+    /**
+     * Wendet ein bis drei zufaellige Fehler an: Ersetzung, Einfuegung, Loeschung oder Vertauschung.
+     */
+    static String mutate(Random random, String word) {
+        StringBuilder result = new StringBuilder(word);
+        int edits = 1 + random.nextInt(3);
+        for (int e = 0; e < edits; e++) {
+            int position = random.nextInt(result.length() + 1);
+            char c = (char) ('a' + random.nextInt(4));
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (position < result.length()) {
+                        result.setCharAt(position, c);
+                    }
+                    break;
+                case 1:
+                    result.insert(position, c);
+                    break;
+                case 2:
+                    if (position < result.length() && result.length() > 1) {
+                        result.deleteCharAt(position);
+                    }
+                    break;
+                default:
+                    if (position + 1 < result.length()) {
+                        char first = result.charAt(position);
+                        result.setCharAt(position, result.charAt(position + 1));
+                        result.setCharAt(position + 1, first);
+                    }
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package org.bootstmytool.backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntSupplier;
+
+/**
+ * @Author Mohamed Cheikh
+ * @Version 1.0
+ * @Date: 2025-03-27
+ * Benchmark fuer die Wortteil- und fehlertolerante Suche ueber den {@link TrigramIndex}.
+ * <p>
+ * Baut fuer 100 bis 100.000 synthetische Notizen (deutsche Komposita) je einen {@link NoteSearchIndex}
+ * auf und misst die Latenz der Begriffsaufloesung ueber die Trigramme, die Latenz der kompletten Suche
+ * sowie zum Vergleich eine lineare Suche ueber alle Notiztexte. Die Ergebnisse der Trigramm-Aufloesung
+ * werden dabei gegen einen vollstaendigen Durchlauf des Vokabulars geprueft.
+ * <p>
+ * Kein JUnit-Test, damit der normale Build nicht verlangsamt wird. Ausfuehren mit:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -Xmx1g -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     org.bootstmytool.backend.search.NoteSearchBenchmark
+ * </pre>
+ */
+public class NoteSearchBenchmark {
+
+    private static final int[] NOTE_COUNTS = {100, 1_000, 10_000, 100_000};
+    private static final int WORDS_PER_NOTE = 12;
+    private static final int ITERATIONS = 200;
+
+    private static final String[] PARTS = {
+            "fahrrad", "reparatur", "milch", "brot", "einkauf", "liste", "haus", "halt", "projekt", "plan",
+            "meilen", "stein", "software", "rechnung", "steuer", "erklaerung", "arzt", "termin", "garten",
+            "arbeit", "urlaub", "reise", "buchung", "kinder", "geburtstag", "geschenk", "auto", "werkstatt",
+            "versicherung", "vertrag", "kuendigung", "wohnung", "miete", "strom", "zaehler", "stand", "kueche",
+            "schrank", "schluessel", "dienst", "besprechung", "protokoll", "idee", "notiz", "sport", "verein",
+            "beitrag", "konto", "bank", "ueberweisung"
+    };
+
+    private static final String[] CONTAINS_QUERIES = {"rad", "rechnung", "ei", "werkstattt", "zaehlerstand"};
+    private static final String[] FUZZY_QUERIES = {"fahrad", "rechnnug", "milhc", "versicherunsgvertrag"};
+
+    public static void main(String[] args) {
+        System.out.printf("%8s %8s %-10s %-22s %8s %8s %12s %12s %12s%n",
+                "notes", "vocab", "mode", "query", "terms", "hits", "terms p50us", "search p50us", "linear p50us");
+        for (int noteCount : NOTE_COUNTS) {
+            run(noteCount);
+        }
+    }
+
+    private static void run(int noteCount) {
+        Random random = new Random(42);
+        NoteSearchIndex index = new NoteSearchIndex();
+        List<String> contents = new ArrayList<>(noteCount);
+        Set<String> vocabulary = new TreeSet<>();
+        for (int id = 1; id <= noteCount; id++) {
+            String title = word(random) + " " + word(random);
+            StringBuilder content = new StringBuilder();
+            for (int w = 0; w < WORDS_PER_NOTE; w++) {
+                content.append(word(random)).append(' ');
+            }
+            String tag = PARTS[random.nextInt(PARTS.length)];
+            index.upsert(id, title, content.toString(), List.of(tag));
+            contents.add(title + " " + content + tag);
+            for (TextAnalyzer.Token token : TextAnalyzer.tokenize(title + " " + content + tag)) {
+                vocabulary.add(token.getTerm());
+            }
+        }
+
+        for (String fragment : CONTAINS_QUERIES) {
+            verify(new HashSet<>(index.expandContains(fragment)), bruteForceContains(vocabulary, fragment), fragment);
+            report(noteCount, vocabulary.size(), SearchQuery.Mode.CONTAINS, fragment, index, contents,
+                    () -> index.expandContains(fragment).size());
+        }
+        for (String term : FUZZY_QUERIES) {
+            verify(index.expandFuzzy(term).keySet(), bruteForceFuzzy(vocabulary, term), term);
+            report(noteCount, vocabulary.size(), SearchQuery.Mode.FUZZY, term, index, contents,
+                    () -> index.expandFuzzy(term).size());
+        }
+    }
+
+    private static void report(int noteCount, int vocabularySize, SearchQuery.Mode mode, String text,
+                               NoteSearchIndex index, List<String> contents, IntSupplier expansion) {
+        SearchQuery query = SearchQuery.parse(text, mode);
+        int terms = expansion.getAsInt();
+        int hits = index.search(query).size();
+        long termsNanos = median(() -> expansion.getAsInt());
+        long searchNanos = median(() -> index.search(query).size());
+        String needle = text.toLowerCase();
+        long linearNanos = median(() -> {
+            int count = 0;
+            for (String content : contents) {
+                if (content.toLowerCase().contains(needle)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+        System.out.printf("%8d %8d %-10s %-22s %8d %8d %12.1f %12.1f %12.1f%n", noteCount, vocabularySize,
+                mode.name().toLowerCase(), text, terms, hits,
+                termsNanos / 1000.0, searchNanos / 1000.0, linearNanos / 1000.0);
+    }
+
+    private static long median(IntSupplier task) {
+        int sink = 0;
+        for (int i = 0; i < ITERATIONS / 4; i++) {
+            sink += task.getAsInt(); // Aufwaermen
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sink += task.getAsInt();
+            samples[i] = System.nanoTime() - start;
+        }
+        if (sink == Integer.MIN_VALUE) {
+            System.out.println(sink); // Verhindert, dass die JIT die Aufrufe entfernt
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2];
+    }
+
+    private static Set<String> bruteForceContains(Set<String> vocabulary, String fragment) {
+        Set<String> result = new HashSet<>();
+        for (String term : vocabulary) {
+            if (term.contains(fragment)) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> bruteForceFuzzy(Set<String> vocabulary, String term) {
+        int maxEdits = EditDistance.allowedEdits(term.length());
+        Set<String> result = new HashSet<>();
+        for (String candidate : vocabulary) {
+            if (EditDistance.boundedDistance(term, candidate, maxEdits) <= maxEdits) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    private static void verify(Set<String> actual, Set<String> expected, String query) {
+        // Die Expansion ist begrenzt; ohne Begrenzung muessen beide Mengen uebereinstimmen
+        if (!expected.containsAll(actual) || (actual.size() < expected.size() && actual.size() < 512)) {
+            throw new IllegalStateException("Abweichende Begriffe fuer '" + query + "': " + actual + " / " + expected);
+        }
+    }
+
+    /**
+     * Erzeugt ein Kompositum aus zwei oder drei Wortteilen; haeufige Teile kommen haeufiger vor.
+     */
+    private static String word(Random random) {
+        int parts = random.nextInt(4) == 0 ? 3 : random.nextInt(3) == 0 ? 1 : 2;
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < parts; i++) {
+            int index = (int) (PARTS.length * Math.pow(random.nextDouble(), 2));
+            word.append(PARTS[index]);
+        }
+        return word.toString();
+    }
+}
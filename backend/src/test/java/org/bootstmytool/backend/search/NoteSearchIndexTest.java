@@ -0,0 +1,153 @@
+package org.bootstmytool.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer die Bewertung und die Klauseln des {@link NoteSearchIndex}.
+ */
+public class NoteSearchIndexTest {
+
+    @Test
+    public void testTitleOutranksTagsOutranksContent() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(1, "Milch", "Brot", List.of());
+        index.upsert(2, "Brot", "Milch", List.of());
+        index.upsert(3, "Brot", "Brot", List.of("Milch"));
+        index.upsert(4, "Brot", "Brot", List.of());
+
+        // Gleiche Feldlaengen, der Unterschied kommt allein aus der Gewichtung der Felder
+        assertEquals(List.of(1, 3, 2), ids(index.search(SearchQuery.parse("milch"))));
+    }
+
+    @Test
+    public void testFrequencyAndRarityRaiseScore() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(1, "Einkauf", "milch brot brot", List.of());
+        index.upsert(2, "Einkauf", "milch milch brot", List.of());
+        index.upsert(3, "Einkauf", "kaese brot brot", List.of());
+
+        assertEquals(List.of(2, 1), ids(index.search(SearchQuery.parse("milch"))));
+
+        // "kaese" kommt seltener vor als "brot" und traegt daher mehr zur Bewertung bei
+        List<NoteSearchIndex.Hit> brot = index.search(SearchQuery.parse("brot"));
+        List<NoteSearchIndex.Hit> kaese = index.search(SearchQuery.parse("kaese"));
+        assertEquals(3, brot.size());
+        assertTrue(kaese.get(0).getScore() > score(brot, 3));
+    }
+
+    @Test
+    public void testEqualScoresAreOrderedByDescendingId() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(5, "Notiz", "gleich", List.of());
+        index.upsert(9, "Notiz", "gleich", List.of());
+        index.upsert(7, "Notiz", "gleich", List.of());
+
+        assertEquals(List.of(9, 7, 5), ids(index.search(SearchQuery.parse("gleich"))));
+    }
+
+    @Test
+    public void testAllClausesMustMatch() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(1, "Einkauf", "milch und brot", List.of());
+        index.upsert(2, "Einkauf", "milch und kaese", List.of());
+
+        assertEquals(List.of(1), ids(index.search(SearchQuery.parse("milch brot"))));
+        assertEquals(List.of(), ids(index.search(SearchQuery.parse("milch honig"))));
+    }
+
+    @Test
+    public void testPhraseRequiresAdjacentTermsInOrder() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(1, "Einkauf", "milch und brot", List.of());
+        index.upsert(2, "Einkauf", "brot und milch", List.of());
+        index.upsert(3, "Einkauf", "milch, dann brot", List.of());
+
+        assertEquals(List.of(3, 2, 1), ids(index.search(SearchQuery.parse("milch brot"))));
+        assertEquals(List.of(1), ids(index.search(SearchQuery.parse("\"milch und brot\""))));
+        assertEquals(List.of(), ids(index.search(SearchQuery.parse("\"milch brot\""))));
+    }
+
+    @Test
+    public void testPhraseDoesNotSpanFieldsOrTags() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(1, "Milch", "Brot", List.of());
+        index.upsert(2, "Einkauf", "Liste", List.of("Milch", "Brot"));
+        index.upsert(3, "Einkauf", "Liste", List.of("Milch Brot"));
+
+        assertEquals(List.of(3), ids(index.search(SearchQuery.parse("\"milch brot\""))));
+    }
+
+    @Test
+    public void testPrefixExpansionIsCapped() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        for (int i = 0; i < 100; i++) {
+            index.upsert(i, "Notiz", String.format("termin%03d", i), List.of());
+        }
+        index.upsert(100, "Notiz", "tag", List.of());
+
+        List<String> expanded = index.expandPrefix("termin");
+        assertEquals(64, expanded.size());
+        // Die Begrenzung nimmt die ersten Begriffe in Sortierreihenfolge
+        assertEquals("termin000", expanded.get(0));
+        assertEquals("termin063", expanded.get(63));
+        assertEquals(64, index.search(SearchQuery.parse("termin*")).size());
+        assertEquals(List.of(7), ids(index.search(SearchQuery.parse("termin007*"))));
+    }
+
+    @Test
+    public void testPrefixMatchesScoreBelowExactMatches() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(1, "Notiz", "fahrrad", List.of());
+        index.upsert(2, "Notiz", "fahr", List.of());
+
+        List<NoteSearchIndex.Hit> prefix = index.search(SearchQuery.parse("fahr*"));
+        List<NoteSearchIndex.Hit> exact = index.search(SearchQuery.parse("fahr"));
+        assertEquals(List.of(2, 1), ids(prefix));
+        assertEquals(List.of(2), ids(exact));
+        assertEquals(0.8, score(prefix, 2) / score(exact, 2), 1e-9);
+    }
+
+    @Test
+    public void testUmlautsAreFoldedInIndexAndQuery() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(1, "Übungsblatt", "Größe der Straße", List.of());
+        index.upsert(2, "Uebung", "Groesse", List.of());
+
+        assertEquals(List.of(1), ids(index.search(SearchQuery.parse("uebungsblatt"))));
+        assertEquals(List.of(2, 1), ids(index.search(SearchQuery.parse("größe"))));
+        assertEquals(List.of(1), ids(index.search(SearchQuery.parse("\"der strasse\""))));
+        assertEquals(List.of(2, 1), ids(index.search(SearchQuery.parse("Üb*"))));
+    }
+
+    @Test
+    public void testUpsertReplacesAndRemoveDeletesEntry() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.upsert(1, "Milch", "kaufen", List.of("einkauf"));
+        index.upsert(2, "Brot", "kaufen", List.of());
+
+        index.upsert(1, "Kaese", "kaufen", List.of());
+        assertEquals(List.of(), ids(index.search(SearchQuery.parse("milch"))));
+        assertEquals(List.of(), ids(index.search(SearchQuery.parse("einkauf"))));
+        assertEquals(List.of(1), ids(index.search(SearchQuery.parse("kaese"))));
+
+        index.remove(1);
+        assertEquals(1, index.size());
+        assertEquals(List.of(), ids(index.search(SearchQuery.parse("kaese"))));
+        // Der Begriff ist auch aus dem Vokabular verschwunden
+        assertEquals(List.of(), index.expandPrefix("kae"));
+        assertEquals(List.of(2), ids(index.search(SearchQuery.parse("kaufen"))));
+    }
+
+    private static List<Integer> ids(List<NoteSearchIndex.Hit> hits) {
+        return hits.stream().map(NoteSearchIndex.Hit::getNoteId).toList();
+    }
+
+    private static double score(List<NoteSearchIndex.Hit> hits, int noteId) {
+        return hits.stream().filter(hit -> hit.getNoteId() == noteId).findFirst().orElseThrow().getScore();
+    }
+}
@@ -0,0 +1,76 @@
+package org.bootstmytool.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer das Parsen von Suchanfragen in {@link SearchQuery}.
+ */
+public class SearchQueryTest {
+
+    @Test
+    public void testTermsPrefixesAndPhrases() {
+        SearchQuery query = SearchQuery.parse("Milch fahr* \"Brot und Butter\"");
+
+        List<SearchQuery.Clause> clauses = query.getClauses();
+        assertEquals(3, clauses.size());
+        assertClause(clauses.get(0), SearchQuery.Kind.TERM, "milch");
+        assertClause(clauses.get(1), SearchQuery.Kind.PREFIX, "fahr");
+        assertClause(clauses.get(2), SearchQuery.Kind.PHRASE, "brot", "und", "butter");
+    }
+
+    @Test
+    public void testShortPrefixIsSearchedAsTerm() {
+        // Ein Praefix aus einem Zeichen wuerde das ganze Vokabular expandieren
+        assertClause(SearchQuery.parse("f*").getClauses().get(0), SearchQuery.Kind.TERM, "f");
+    }
+
+    @Test
+    public void testCompoundWordBecomesPhrase() {
+        assertClause(SearchQuery.parse("E-Mail").getClauses().get(0), SearchQuery.Kind.PHRASE, "e", "mail");
+    }
+
+    @Test
+    public void testUnclosedQuoteRunsToEnd() {
+        assertClause(SearchQuery.parse("\"milch und").getClauses().get(0), SearchQuery.Kind.PHRASE, "milch", "und");
+    }
+
+    @Test
+    public void testModeAppliesOnlyToSingleTerms() {
+        List<SearchQuery.Clause> clauses =
+                SearchQuery.parse("rad fahr* \"milch brot\"", SearchQuery.Mode.CONTAINS).getClauses();
+        assertClause(clauses.get(0), SearchQuery.Kind.CONTAINS, "rad");
+        assertClause(clauses.get(1), SearchQuery.Kind.PREFIX, "fahr");
+        assertClause(clauses.get(2), SearchQuery.Kind.PHRASE, "milch", "brot");
+
+        // In Anfuehrungszeichen wird auch ein einzelnes Wort exakt gesucht
+        assertClause(SearchQuery.parse("\"fahrad\"", SearchQuery.Mode.FUZZY).getClauses().get(0),
+                SearchQuery.Kind.TERM, "fahrad");
+        assertClause(SearchQuery.parse("fahrad", SearchQuery.Mode.FUZZY).getClauses().get(0),
+                SearchQuery.Kind.FUZZY, "fahrad");
+    }
+
+    @Test
+    public void testQueryWithoutWordsIsEmpty() {
+        assertTrue(SearchQuery.parse(null).isEmpty());
+        assertTrue(SearchQuery.parse("  \"\" * -- ").isEmpty());
+    }
+
+    @Test
+    public void testModeParameter() {
+        assertEquals(SearchQuery.Mode.FULLTEXT, SearchQuery.Mode.fromParameter(null));
+        assertEquals(SearchQuery.Mode.FULLTEXT, SearchQuery.Mode.fromParameter(" "));
+        assertEquals(SearchQuery.Mode.FUZZY, SearchQuery.Mode.fromParameter(" Fuzzy "));
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.Mode.fromParameter("regex"));
+    }
+
+    private static void assertClause(SearchQuery.Clause clause, SearchQuery.Kind kind, String... terms) {
+        assertEquals(kind, clause.getKind());
+        assertEquals(List.of(terms), clause.getTerms());
+    }
+}
@@ -0,0 +1,42 @@
+package org.bootstmytool.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer die Normalisierung und Zerlegung in {@link TextAnalyzer}.
+ */
+public class TextAnalyzerTest {
+
+    @Test
+    public void testUmlautsAndAccentsAreFolded() {
+        assertEquals("uebung", TextAnalyzer.normalize("Übung"));
+        assertEquals("groesse", TextAnalyzer.normalize("GRÖSSE"));
+        assertEquals("strasse", TextAnalyzer.normalize("Straße"));
+        assertEquals("aepfel", TextAnalyzer.normalize("Äpfel"));
+        assertEquals("cafe", TextAnalyzer.normalize("Café"));
+    }
+
+    @Test
+    public void testTokenizeKeepsPositionsAndOffsets() {
+        String text = "Größe: 42 Äpfel, e-mail";
+        List<TextAnalyzer.Token> tokens = TextAnalyzer.tokenize(text);
+
+        assertEquals(List.of("groesse", "42", "aepfel", "e", "mail"),
+                tokens.stream().map(TextAnalyzer.Token::getTerm).toList());
+        assertEquals(List.of(0, 1, 2, 3, 4), tokens.stream().map(TextAnalyzer.Token::getPosition).toList());
+        // Die Offsets beziehen sich auf den Originaltext, nicht auf den normalisierten Begriff
+        TextAnalyzer.Token aepfel = tokens.get(2);
+        assertEquals("Äpfel", text.substring(aepfel.getStart(), aepfel.getEnd()));
+    }
+
+    @Test
+    public void testEmptyInput() {
+        assertTrue(TextAnalyzer.tokenize(null).isEmpty());
+        assertTrue(TextAnalyzer.tokenize(" -- ").isEmpty());
+    }
+}
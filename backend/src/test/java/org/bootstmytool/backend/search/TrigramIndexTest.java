@@ -0,0 +1,128 @@
+package org.bootstmytool.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer die Wortteil- und fehlertolerante Suche im {@link TrigramIndex}.
+ */
+public class TrigramIndexTest {
+
+    @Test
+    public void testContainingLongFragment() {
+        TrigramIndex index = index("fahrrad", "radweg", "rathaus", "rad", "fahrt");
+
+        assertEquals(Set.of("fahrrad", "radweg", "rad"), new TreeSet<>(index.containing("rad", 10)));
+        assertEquals(List.of("fahrrad"), index.containing("hrra", 10));
+        // Ein unbekanntes Trigramm beendet die Suche sofort
+        assertEquals(List.of(), index.containing("radx", 10));
+    }
+
+    @Test
+    public void testContainingShortFragment() {
+        TrigramIndex index = index("milch", "eis", "brei", "brot");
+
+        assertEquals(Set.of("eis", "brei"), new TreeSet<>(index.containing("ei", 10)));
+        // Treffer am Wortende liegen nur in aufgefuellten Trigrammen ("ch$")
+        assertEquals(List.of("milch"), index.containing("ch", 10));
+        assertEquals(Set.of("milch", "eis", "brei"), new TreeSet<>(index.containing("i", 10)));
+        assertEquals(List.of(), index.containing("", 10));
+    }
+
+    @Test
+    public void testContainingRespectsLimitAndRemoval() {
+        TrigramIndex index = index("haus", "hausarzt", "haustuer", "rathaus");
+
+        assertEquals(2, index.containing("haus", 2).size());
+        assertEquals(2, index.containing("au", 2).size());
+
+        index.remove("hausarzt");
+        index.remove("rathaus");
+        assertEquals(Set.of("haus", "haustuer"), new TreeSet<>(index.containing("haus", 10)));
+        assertEquals(List.of(), index.containing("arzt", 10));
+    }
+
+    @Test
+    public void testSimilarFindsTyposNearestFirst() {
+        TrigramIndex index = index("rechnungs", "rechnung", "zeichnung", "kaese", "fahrrad");
+
+        Map<String, Integer> matches = index.similar("rechnnug", 2, 10);
+        assertEquals(List.of("rechnung", "rechnungs"), new ArrayList<>(matches.keySet()));
+        assertEquals(List.of(1, 2), new ArrayList<>(matches.values()));
+        assertEquals(Map.of("rechnung", 1), index.similar("rechnnug", 2, 1));
+        assertEquals(Map.of("fahrrad", 1), index.similar("fahrad", 1, 10));
+        assertEquals(Map.of("kaese", 0), index.similar("kaese", 0, 10));
+    }
+
+    @Test
+    public void testSimilarGivesUpWhenTooManyTrigramsAreMissing() {
+        TrigramIndex index = index("milch", "brot");
+
+        // "xyzq" hat sieben Trigramme, keines davon ist bekannt: mehr als 4k + 1 fehlen
+        assertEquals(Map.of(), index.similar("xyzq", 1, 10));
+        // Eine Vertauschung in der Mitte aendert genau vier Trigramme und wird noch gefunden
+        assertEquals(Map.of("brot", 1), index.similar("bort", 1, 10));
+    }
+
+    @Test
+    public void testShortQueryFindsMatchesWithoutSharedTrigrams() {
+        TrigramIndex index = index("kaesen", "rechnung");
+
+        // Zwei Vertauschungen aendern alle acht Trigramme; "akesne" teilt keines mit "kaesen"
+        assertEquals(Map.of("kaesen", 2), index.similar("akesne", 2, 10));
+    }
+
+    @Test
+    public void testSimilarMatchesFullScan() {
+        Random random = new Random(11);
+        List<String> vocabulary = new ArrayList<>();
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 400; i++) {
+            String term = EditDistanceTest.randomWord(random);
+            if (!vocabulary.contains(term)) {
+                vocabulary.add(term);
+                index.add(term);
+            }
+        }
+
+        for (int run = 0; run < 2_000; run++) {
+            String base = vocabulary.get(random.nextInt(vocabulary.size()));
+            String query = EditDistanceTest.mutate(random, base);
+            int maxEdits = random.nextInt(3);
+
+            Map<String, Integer> expected = new HashMap<>();
+            for (String term : vocabulary) {
+                int distance = EditDistance.boundedDistance(query, term, maxEdits);
+                if (distance <= maxEdits) {
+                    expected.put(term, distance);
+                }
+            }
+            Map<String, Integer> actual = index.similar(query, maxEdits, Integer.MAX_VALUE);
+            // Die Vorauswahl ueber die 4k + 1 seltensten Trigramme verliert keinen Treffer
+            assertEquals(expected, new HashMap<>(actual), query + " / " + maxEdits);
+            int last = 0;
+            for (int distance : actual.values()) {
+                assertTrue(distance >= last);
+                last = distance;
+            }
+        }
+    }
+
+    private static TrigramIndex index(String... terms) {
+        TrigramIndex index = new TrigramIndex();
+        for (String term : terms) {
+            index.add(term);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,139 @@
+package org.bootstmytool.backend.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.bootstmytool.backend.service.JwtService;
+import org.bootstmytool.backend.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests fuer den {@link JwtAuthenticationFilter}: der Principal eines gueltigen Tokens landet als Request-Attribut,
+ * ungueltige Tokens und unbekannte Benutzer werden mit 401 abgewiesen.
+ */
+public class JwtAuthenticationFilterTest {
+
+    private static final String EMAIL = "filter@example.org";
+
+    private JwtService jwtService;
+    private UserService userService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        jwtService = mock(JwtService.class);
+        userService = mock(UserService.class);
+        filter = new JwtAuthenticationFilter(jwtService, userService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testValidTokenSetsPrincipalAndAuthentication() throws Exception {
+        VerifiedToken token = new VerifiedToken(EMAIL, new Date(System.currentTimeMillis() + 60_000));
+        UserPrincipal principal = new UserPrincipal(7, EMAIL);
+        when(jwtService.verifyToken("gueltig")).thenReturn(token);
+        when(userService.loadPrincipal(EMAIL)).thenReturn(principal);
+
+        MockHttpServletRequest request = request("Bearer gueltig");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest()); // Die Kette wurde fortgesetzt
+        assertSame(principal, request.getAttribute(UserPrincipal.REQUEST_ATTRIBUTE));
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertSame(principal, authentication.getPrincipal());
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() throws Exception {
+        when(jwtService.verifyToken("abgelaufen")).thenThrow(new ExpiredJwtException(null, null, "abgelaufen"));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("Bearer abgelaufen"), response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertEquals("Token ist abgelaufen", response.getContentAsString());
+        assertNull(chain.getRequest());
+        verify(userService, never()).loadPrincipal(anyString());
+    }
+
+    @Test
+    public void testInvalidSignatureIsRejected() throws Exception {
+        when(jwtService.verifyToken("manipuliert")).thenThrow(new SignatureException("Signatur stimmt nicht"));
+
+        MockHttpServletRequest request = request("Bearer manipuliert");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertEquals("Ungültiger Token", response.getContentAsString());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    public void testUnknownUserIsRejected() throws Exception {
+        when(jwtService.verifyToken("geloescht"))
+                .thenReturn(new VerifiedToken(EMAIL, new Date(System.currentTimeMillis() + 60_000)));
+        when(userService.loadPrincipal(EMAIL)).thenThrow(new UsernameNotFoundException(EMAIL));
+
+        MockHttpServletRequest request = request("Bearer geloescht");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertEquals("Benutzer nicht gefunden", response.getContentAsString());
+        assertNull(chain.getRequest());
+        assertNull(request.getAttribute(UserPrincipal.REQUEST_ATTRIBUTE));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    public void testRequestWithoutTokenPassesThrough() throws Exception {
+        MockHttpServletRequest request = request(null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertNull(request.getAttribute(UserPrincipal.REQUEST_ATTRIBUTE));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(jwtService, never()).verifyToken(anyString());
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/notes/list");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,93 @@
+package org.bootstmytool.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.bootstmytool.backend.security.SecurityConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests fuer die Umstellung veralteter Passwort-Hashes bei der Anmeldung. Geringe Kosten, damit die Tests
+ * schnell bleiben.
+ */
+public class AuthServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private PasswordHashingService hashingService;
+
+    @AfterEach
+    public void tearDown() {
+        hashingService.shutdown();
+    }
+
+    @Test
+    public void testLegacyHashIsUpgradedOnLogin() {
+        AuthService authService = authService("bcrypt", 5);
+        // Vor Einfuehrung der Praefixe gespeichert, mit geringerem Kostenfaktor
+        User user = user(new BCryptPasswordEncoder(4).encode("geheim"));
+
+        assertTrue(authService.authenticate("a@example.org", "geheim"));
+
+        assertTrue(user.getPassword().startsWith("{bcrypt}$2a$05$"), user.getPassword());
+        verify(userRepository).save(user);
+        assertTrue(authService.authenticate("a@example.org", "geheim"));
+        verify(userRepository).save(any()); // Aktueller Hash: kein weiteres Speichern
+    }
+
+    @Test
+    public void testWrongPasswordKeepsHash() {
+        AuthService authService = authService("bcrypt", 5);
+        String legacy = new BCryptPasswordEncoder(4).encode("geheim");
+        User user = user(legacy);
+
+        assertFalse(authService.authenticate("a@example.org", "falsch"));
+
+        assertEquals(legacy, user.getPassword());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    public void testSwitchToOtherAlgorithm() {
+        authService("bcrypt", 4);
+        User user = user(hashingService.encode("geheim"));
+        hashingService.shutdown();
+
+        AuthService authService = authService("pbkdf2", 4);
+        assertTrue(authService.authenticate("a@example.org", "geheim"));
+
+        assertTrue(user.getPassword().startsWith("{pbkdf2}"), user.getPassword());
+        assertTrue(authService.authenticate("a@example.org", "geheim"));
+    }
+
+    private AuthService authService(String encodingId, int bcryptStrength) {
+        PasswordEncoder encoder = new SecurityConfig(null, null).passwordEncoder(encodingId, bcryptStrength, 1_000);
+        hashingService = new PasswordHashingService(encoder, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hashingService, "threads", 1);
+        ReflectionTestUtils.setField(hashingService, "queueCapacity", 4);
+        ReflectionTestUtils.invokeMethod(hashingService, "init");
+        return new AuthService(userRepository, hashingService);
+    }
+
+    private User user(String password) {
+        User user = new User();
+        user.setEmail("a@example.org");
+        user.setPassword(password);
+        when(userRepository.findByEmail("a@example.org")).thenReturn(Optional.of(user));
+        return user;
+    }
+}
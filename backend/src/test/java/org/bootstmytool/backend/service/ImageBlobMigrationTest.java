@@ -0,0 +1,158 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.storage.LocalBlobStore;
+import org.bootstmytool.backend.utils.ProcessImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests fuer die Migration der alten Spalte {@code image.data} in den {@link BlobStore}. Die Spalte wird fuer
+ * jeden Test angelegt und danach wieder entfernt.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ImageBlobMigrationTest {
+
+    private static final String LEGACY_NAME = "1700000000000_foto.png";
+    private static final String HASHED_NAME = "ab".repeat(32) + ".png";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path imageDir;
+
+    private BlobStore blobStore;
+
+    @BeforeEach
+    public void setUp() {
+        blobStore = new LocalBlobStore(imageDir);
+        jdbcTemplate.execute("alter table image add column data blob");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("delete from image");
+        jdbcTemplate.execute("alter table image drop column data");
+    }
+
+    @Test
+    public void testBlobIsWrittenToStoreBeforeColumnIsCleared() throws Exception {
+        byte[] legacy = bytes("altes Bild");
+        byte[] hashed = bytes("Bild mit Hash");
+        insertImage(1, LEGACY_NAME, legacy);
+        insertImage(2, HASHED_NAME, hashed);
+
+        // Beim Schreiben in den Speicher muss der Blob noch in der Datenbank stehen
+        List<String> stillInDatabase = new ArrayList<>();
+        BlobStore observed = (BlobStore) Proxy.newProxyInstance(BlobStore.class.getClassLoader(),
+                new Class<?>[]{BlobStore.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("put")) {
+                        String key = (String) args[0];
+                        int id = key.equals(LEGACY_NAME) ? 1 : 2;
+                        if (data(id) != null) {
+                            stillInDatabase.add(key);
+                        }
+                    }
+                    try {
+                        return method.invoke(blobStore, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+
+        new ImageBlobMigration(jdbcTemplate, observed).run(null);
+
+        assertEquals(List.of(LEGACY_NAME, ProcessImage.storageKey(HASHED_NAME)), stillInDatabase);
+        assertArrayEquals(legacy, Files.readAllBytes(imageDir.resolve(LEGACY_NAME)));
+        assertArrayEquals(hashed, Files.readAllBytes(imageDir.resolve(ProcessImage.storageKey(HASHED_NAME))));
+        assertNull(data(1));
+        assertNull(data(2));
+    }
+
+    @Test
+    public void testFailedWriteKeepsBlob() throws Exception {
+        byte[] legacy = bytes("altes Bild");
+        insertImage(1, LEGACY_NAME, legacy);
+        BlobStore failing = (BlobStore) Proxy.newProxyInstance(BlobStore.class.getClassLoader(),
+                new Class<?>[]{BlobStore.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("put")) {
+                        throw new IOException("Speicher nicht erreichbar");
+                    }
+                    try {
+                        return method.invoke(blobStore, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+
+        assertThrows(UncheckedIOException.class, () -> new ImageBlobMigration(jdbcTemplate, failing).run(null));
+        assertArrayEquals(legacy, data(1));
+
+        // Der naechste Start holt die Migration nach
+        new ImageBlobMigration(jdbcTemplate, blobStore).run(null);
+        assertArrayEquals(legacy, Files.readAllBytes(imageDir.resolve(LEGACY_NAME)));
+        assertNull(data(1));
+    }
+
+    @Test
+    public void testExistingFileIsKeptAndBlobCleared() throws Exception {
+        byte[] stored = bytes("Datei im Speicher");
+        Files.write(imageDir.resolve(LEGACY_NAME), stored);
+        insertImage(1, LEGACY_NAME, bytes("veralteter Blob"));
+
+        new ImageBlobMigration(jdbcTemplate, blobStore).run(null);
+
+        assertArrayEquals(stored, Files.readAllBytes(imageDir.resolve(LEGACY_NAME)));
+        assertNull(data(1));
+    }
+
+    @Test
+    public void testBlobWithoutValidFileNameIsKept() throws Exception {
+        byte[] orphan = bytes("ohne Namen");
+        insertImage(1, null, orphan);
+        insertImage(2, "../ausserhalb.png", orphan);
+
+        new ImageBlobMigration(jdbcTemplate, blobStore).run(null);
+
+        // Die Daten existieren nur in der Datenbank und werden daher nicht geloescht
+        assertArrayEquals(orphan, data(1));
+        assertArrayEquals(orphan, data(2));
+        assertEquals(List.of(), blobStore.list(""));
+    }
+
+    private void insertImage(int id, String url, byte[] data) {
+        jdbcTemplate.update("insert into image (id, url, data) values (?, ?, ?)", id, url, data);
+    }
+
+    private byte[] data(int id) {
+        return jdbcTemplate.queryForObject("select data from image where id = ?", byte[].class, id);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
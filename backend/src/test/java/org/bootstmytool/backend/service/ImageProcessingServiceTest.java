@@ -0,0 +1,206 @@
+package org.bootstmytool.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.ContentBlobRepository;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.storage.LocalBlobStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests fuer die Hintergrundverarbeitung von Bildern gegen die Datenbank. Jede Verarbeitung laeuft wie im
+ * Betrieb in eigenen Transaktionen.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ImageProcessingServiceTest {
+
+    private static final String IMAGE_NAME = "1700000000000_foto.png";
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path imageDir;
+
+    private BlobStore blobStore;
+    private TransactionTemplate transaction;
+    private SimpleMeterRegistry meterRegistry;
+    private ImageProcessingService service;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        blobStore = new LocalBlobStore(imageDir);
+        transaction = new TransactionTemplate(transactionManager);
+        meterRegistry = new SimpleMeterRegistry();
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "png", imageDir.resolve(IMAGE_NAME).toFile());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) {
+            ReflectionTestUtils.invokeMethod(service, "shutdown");
+        }
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testFullQueueRejectsUploadsWith503() {
+        service = service(noteRepository);
+
+        service.ensureCapacity(2);
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> service.ensureCapacity(3));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+        assertEquals(1.0, meterRegistry.counter("image.processing.rejected").count());
+    }
+
+    @Test
+    public void testSweepResubmitsOnlyStalePendingImages() {
+        int stale = createImage(IMAGE_NAME, LocalDateTime.now().minusMinutes(10));
+        int recent = createImage(IMAGE_NAME, LocalDateTime.now());
+        service = service(noteRepository);
+
+        service.resubmitPending();
+        ReflectionTestUtils.invokeMethod(service, "shutdown"); // wartet auf die eingereihten Bilder
+
+        assertEquals(ImageStatus.READY, imageRepository.findById(stale).orElseThrow().getStatus());
+        assertEquals(ImageStatus.PENDING, imageRepository.findById(recent).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testUnreadableImagesAreMarkedFailed() throws Exception {
+        Files.writeString(imageDir.resolve("1700000000001_text.png"), "kein Bild");
+        int unsupported = createImage("1700000000001_text.png", LocalDateTime.now());
+        int missing = createImage("1700000000002_fehlt.png", LocalDateTime.now());
+        int tooLarge = createImage(IMAGE_NAME, LocalDateTime.now());
+        service = service(noteRepository);
+
+        service.process(unsupported);
+        service.process(missing);
+        ReflectionTestUtils.setField(service, "maxPixels", 1_000L);
+        service.process(tooLarge);
+
+        assertEquals(ImageStatus.FAILED, imageRepository.findById(unsupported).orElseThrow().getStatus());
+        assertEquals(ImageStatus.FAILED, imageRepository.findById(missing).orElseThrow().getStatus());
+        Image large = imageRepository.findById(tooLarge).orElseThrow();
+        assertEquals(ImageStatus.FAILED, large.getStatus());
+        assertEquals(400, large.getWidth()); // Die Masse sind bekannt, es entstehen aber keine Varianten
+        assertFalse(Files.exists(imageDir.resolve("1700000000000_foto_w160.png")));
+        assertEquals(3, meterRegistry.timer("image.processing.duration", "result", "failed").count());
+    }
+
+    @Test
+    public void testConcurrentNoteEditDoesNotFailProcessedImage() {
+        int imageId = createImage(IMAGE_NAME, LocalDateTime.now());
+        int noteId = imageRepository.findById(imageId).orElseThrow().getNote().getId();
+
+        // Die Notiz wird bearbeitet, nachdem die Verarbeitung sie gelesen hat und bevor sie committet
+        AtomicInteger reads = new AtomicInteger();
+        NoteRepository concurrentlyEdited = (NoteRepository) Proxy.newProxyInstance(
+                NoteRepository.class.getClassLoader(), new Class<?>[]{NoteRepository.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(noteRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("findByImageIdForVersionIncrement") && reads.getAndIncrement() == 0) {
+                        CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status ->
+                                noteRepository.findById(noteId).orElseThrow().setTitle("Bearbeitet"))).join();
+                    }
+                    return result;
+                });
+        service = service(concurrentlyEdited);
+
+        service.process(imageId);
+
+        Image image = imageRepository.findById(imageId).orElseThrow();
+        assertEquals(ImageStatus.READY, image.getStatus());
+        assertEquals(400, image.getWidth());
+        assertEquals(2, reads.get());
+        Note note = noteRepository.findById(noteId).orElseThrow();
+        assertEquals("Bearbeitet", note.getTitle());
+        assertEquals(2, note.getVersion()); // Bearbeitung und Verarbeitung
+    }
+
+    private ImageProcessingService service(NoteRepository notes) {
+        ImageStore imageStore = new ImageStore(mock(ContentBlobRepository.class), blobStore, transactionManager);
+        ImageProcessingService processing = new ImageProcessingService(imageRepository, notes, imageStore, blobStore,
+                meterRegistry, event -> {
+        }, transactionManager);
+        ReflectionTestUtils.setField(processing, "threads", 1);
+        ReflectionTestUtils.setField(processing, "queueCapacity", 2);
+        ReflectionTestUtils.setField(processing, "maxPixels", 50_000_000L);
+        ReflectionTestUtils.setField(processing, "sweepGrace", Duration.ofMinutes(2));
+        ReflectionTestUtils.invokeMethod(processing, "init");
+        return processing;
+    }
+
+    private int createImage(String fileName, LocalDateTime createdDate) {
+        return transaction.execute(status -> {
+            User user = userRepository.findByEmail("bilder@example.org").orElseGet(() -> {
+                User created = new User();
+                created.setEmail("bilder@example.org");
+                created.setPassword("geheim");
+                return userRepository.save(created);
+            });
+            Note note = new Note();
+            note.setTitle("Mit Bild");
+            note.setContent("Inhalt");
+            note.setUser(user);
+            noteRepository.save(note);
+
+            Image image = new Image();
+            image.setUrl(fileName);
+            image.setNote(note);
+            ReflectionTestUtils.setField(image, "createdDate", createdDate);
+            return imageRepository.save(image).getId();
+        });
+    }
+}
@@ -0,0 +1,137 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.repository.ContentBlobRepository;
+import org.bootstmytool.backend.storage.BlobStore;
+import org.bootstmytool.backend.storage.LocalBlobStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests fuer den Referenzzaehler des inhaltsadressierten Speichers. Zwei {@link ImageStore}-Objekte mit
+ * gemeinsamer Datenbank und gemeinsamem Verzeichnis stehen fuer zwei Instanzen hinter einem Bucket.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ImageStoreTest {
+
+    @Autowired
+    private ContentBlobRepository contentBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path imageDir;
+
+    private BlobStore blobStore;
+    private ImageStore first;
+    private ImageStore second;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    public void setUp() {
+        blobStore = new LocalBlobStore(imageDir);
+        first = instance();
+        second = instance();
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        contentBlobRepository.deleteAll();
+    }
+
+    @Test
+    public void testReuseOnOtherInstanceKeepsFileWhenLastReferenceIsDeleted() throws Exception {
+        Image original = first.store(upload());
+        transaction.executeWithoutResult(status -> first.confirm(original));
+
+        // Die zweite Instanz findet die Datei und ueberspringt das Schreiben; ihre Zeile ist noch nicht committet
+        Image copy = second.store(upload());
+        assertEquals(original.getUrl(), copy.getUrl());
+
+        // Die erste Instanz loescht den letzten committeten Verweis
+        transaction.executeWithoutResult(status -> first.release(original));
+        first.sweepExpiredClaims();
+        assertNotNull(blobStore.stat(first.key(original.getUrl())));
+
+        transaction.executeWithoutResult(status -> second.confirm(copy));
+        assertEquals(1, contentBlobRepository.findById(original.getContentHash()).orElseThrow().getRefCount());
+        assertNotNull(blobStore.stat(first.key(copy.getUrl())));
+    }
+
+    @Test
+    public void testUnconfirmedUploadIsRemovedAfterClaimExpires() throws Exception {
+        Image image = first.store(upload());
+        second.sweepExpiredClaims();
+        assertNotNull(blobStore.stat(first.key(image.getUrl())));
+
+        expireClaim(image.getContentHash());
+        second.sweepExpiredClaims();
+        assertNull(blobStore.stat(first.key(image.getUrl())));
+        assertFalse(contentBlobRepository.existsById(image.getContentHash()));
+
+        // Ein Verweis auf die entfernte Datei wird abgelehnt, damit die Zeile in image nicht committet wird
+        assertThrows(IllegalStateException.class,
+                () -> transaction.executeWithoutResult(status -> first.confirm(image)));
+    }
+
+    @Test
+    public void testReleaseAfterClaimExpiredDeletesFileAfterCommit() throws Exception {
+        Image image = first.store(upload());
+        transaction.executeWithoutResult(status -> first.confirm(image));
+        expireClaim(image.getContentHash());
+
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            second.release(image);
+            throw new IllegalStateException("Rollback");
+        }));
+        assertNotNull(blobStore.stat(first.key(image.getUrl())));
+
+        transaction.executeWithoutResult(status -> second.release(image));
+        assertNull(blobStore.stat(first.key(image.getUrl())));
+    }
+
+    private ImageStore instance() {
+        ImageStore store = new ImageStore(contentBlobRepository, blobStore, transactionManager);
+        ReflectionTestUtils.setField(store, "claimGrace", Duration.ofMinutes(5));
+        return store;
+    }
+
+    private void expireClaim(String hash) {
+        transaction.executeWithoutResult(status -> contentBlobRepository.findById(hash).orElseThrow()
+                .setClaimedAt(LocalDateTime.now().minusHours(1)));
+    }
+
+    private static MockMultipartFile upload() throws Exception {
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 4, 0xFF0000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("file", "foto.png", "image/png", out.toByteArray());
+    }
+}
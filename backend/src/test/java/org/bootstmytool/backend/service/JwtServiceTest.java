@@ -0,0 +1,137 @@
+package org.bootstmytool.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.bootstmytool.backend.security.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer die Pruefung von Tokens und den Cache bereits gepruefter Tokens im {@link JwtService}.
+ */
+public class JwtServiceTest {
+
+    private static final String SECRET = "ein-testgeheimnis-mit-mindestens-32-zeichen";
+    private static final String EMAIL = "jwt@example.org";
+
+    private JwtService jwtService;
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @BeforeEach
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "JWT_EXPIRATION_TIME", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedTokenCacheSize", 100L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        verifiedTokens = cache();
+    }
+
+    @Test
+    public void testVerifiedTokenIsServedFromCache() {
+        String token = jwtService.generateToken(EMAIL);
+
+        VerifiedToken first = jwtService.verifyToken(token);
+        assertEquals(EMAIL, first.getUsername());
+        assertSame(first, jwtService.verifyToken(token));
+        assertEquals(1, verifiedTokens.estimatedSize());
+    }
+
+    @Test
+    public void testExpiredTokenIsRejectedWhileCached() {
+        Date expiredAt = new Date(System.currentTimeMillis() - 60_000);
+        String token = sign(SECRET, EMAIL, expiredAt);
+        // Der Eintrag liegt noch im Cache, z. B. weil der Cache-Takt und die Systemuhr auseinanderlaufen
+        verifiedTokens.policy().expireVariably().orElseThrow()
+                .put(token, new VerifiedToken(EMAIL, expiredAt), 1, TimeUnit.HOURS);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verifyToken(token));
+        assertNull(verifiedTokens.getIfPresent(token));
+    }
+
+    @Test
+    public void testTamperedTokenIsNeverServedFromCache() {
+        String token = jwtService.generateToken(EMAIL);
+        jwtService.verifyToken(token);
+
+        String[] parts = token.split("\\.");
+        // Anderes Zeichen am Anfang der Signatur (das letzte Zeichen traegt teils nur Fuellbits)
+        char first = parts[2].charAt(0);
+        String tamperedSignature = parts[0] + "." + parts[1] + "." + (first == 'A' ? 'B' : 'A') + parts[2].substring(1);
+        // Fremder Benutzer im Payload, Signatur des Originals
+        String otherPayload = sign(SECRET, "fremd@example.org", new Date(System.currentTimeMillis() + 60_000))
+                .split("\\.")[1];
+        String tamperedPayload = parts[0] + "." + otherPayload + "." + parts[2];
+        // Gleicher Benutzer, aber mit einem anderen Schluessel signiert
+        String foreignKey = sign("ein-anderes-geheimnis-mit-mindestens-32-zeichen", EMAIL,
+                new Date(System.currentTimeMillis() + 60_000));
+
+        for (String tampered : new String[]{tamperedSignature, tamperedPayload, foreignKey}) {
+            assertThrows(JwtException.class, () -> jwtService.verifyToken(tampered));
+            assertNull(verifiedTokens.getIfPresent(tampered));
+        }
+        assertEquals(1, verifiedTokens.estimatedSize());
+        assertNotNull(verifiedTokens.getIfPresent(token));
+    }
+
+    @Test
+    public void testCachedEntryExpiresAtTokenExpiry() {
+        // Das Token laeuft deutlich vor der konfigurierten Gueltigkeit von einer Stunde ab
+        Date expiresAt = new Date(System.currentTimeMillis() + 90_000);
+        String token = sign(SECRET, EMAIL, expiresAt);
+        long before = System.currentTimeMillis();
+        jwtService.verifyToken(token);
+        long after = System.currentTimeMillis();
+
+        Duration remaining = verifiedTokens.policy().expireVariably().orElseThrow()
+                .getExpiresAfter(token).orElseThrow();
+        // exp hat Sekundengenauigkeit; der Eintrag verfaellt zum Zeitpunkt exp, nicht spaeter
+        long exp = (expiresAt.getTime() / 1000) * 1000;
+        assertTrue(remaining.toMillis() <= exp - before, remaining.toString());
+        assertTrue(remaining.toMillis() >= exp - after - 1_000, remaining.toString());
+
+        // Lesen verlaengert den Eintrag nicht
+        jwtService.verifyToken(token);
+        Duration afterRead = verifiedTokens.policy().expireVariably().orElseThrow()
+                .getExpiresAfter(token).orElseThrow();
+        assertTrue(afterRead.compareTo(remaining) <= 0);
+    }
+
+    @Test
+    public void testShortSecretIsRejected() {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secret", "zu-kurz");
+        assertThrows(IllegalArgumentException.class, () -> ReflectionTestUtils.invokeMethod(service, "init"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<String, VerifiedToken> cache() {
+        return (Cache<String, VerifiedToken>) ReflectionTestUtils.getField(jwtService, "verifiedTokens");
+    }
+
+    private static String sign(String secret, String subject, Date expiresAt) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setIssuedAt(new Date(expiresAt.getTime() - 3_600_000))
+                .setExpiration(expiresAt)
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,260 @@
+package org.bootstmytool.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bootstmytool.backend.dto.NotePatchOperationDTO;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.repository.NoteRevisionRepository;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer das Bearbeiten von Notizen mit If-Match gegen die Datenbank. Jede Bearbeitung laeuft wie im
+ * Betrieb in einer eigenen Transaktion. Die gesendeten SQL-Anweisungen werden aufgezeichnet, um zu pruefen,
+ * dass ein Patch nur geaenderte Spalten und Tags schreibt.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.bootstmytool.backend.service.NoteEditServiceTest$SqlRecorder")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class NoteEditServiceTest {
+
+    private static final String CONTENT = "Einkauf\nMilch\nBrot\nKaese\nObst\n";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private NoteEditService editService;
+    private int userId;
+
+    @BeforeEach
+    public void setUp() {
+        editService = new NoteEditService(noteRepository, revisionRepository, event -> {
+        }, transactionManager);
+        ReflectionTestUtils.setField(editService, "maxRevisions", 3);
+        ReflectionTestUtils.setField(editService, "maxAttempts", 10);
+
+        User user = new User();
+        user.setEmail("bearbeiten@example.org");
+        user.setPassword("geheim");
+        userId = (int) userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testStaleEditIsMerged() {
+        int noteId = create(CONTENT, List.of("a", "b"));
+        Note first = editService.edit(noteId, userId, 0L, "Liste",
+                "Einkauf\nHafermilch\nBrot\nKaese\nObst\n", List.of("a", "b", "c"));
+        assertEquals(1, first.getVersion());
+
+        // Zweiter Tab, noch auf Version 0: andere Zeile, ein Tag entfernt
+        Note merged = editService.edit(noteId, userId, 0L, "Liste",
+                "Einkauf\nMilch\nBrot\nKaese\nAepfel\n", List.of("a"));
+
+        assertEquals(2, merged.getVersion());
+        assertEquals("Einkauf\nHafermilch\nBrot\nKaese\nAepfel\n", merged.getContent());
+        assertEquals(List.of("a", "c"), List.copyOf(merged.getTags()));
+    }
+
+    @Test
+    public void testOverlappingEditIsRejected() {
+        int noteId = create(CONTENT, List.of());
+        editService.edit(noteId, userId, 0L, "Liste", "Einkauf\nHafermilch\nBrot\nKaese\nObst\n", List.of());
+
+        NoteEditConflictException conflict = assertThrows(NoteEditConflictException.class,
+                () -> editService.edit(noteId, userId, 0L, "Liste", "Einkauf\nSojamilch\nBrot\nKaese\nObst\n", List.of()));
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatus());
+        assertEquals(List.of("content"), conflict.getConflicts());
+        assertEquals(1, conflict.getCurrent().getVersion());
+
+        NoteEditConflictException unknown = assertThrows(NoteEditConflictException.class,
+                () -> editService.edit(noteId, userId, 7L, "Liste", CONTENT, List.of()));
+        assertEquals(HttpStatus.PRECONDITION_FAILED, unknown.getStatus());
+    }
+
+    @Test
+    public void testPrunedVersionIsRejected() {
+        int noteId = create(CONTENT, List.of());
+        for (int i = 0; i < 4; i++) {
+            editService.edit(noteId, userId, (long) i, "Liste " + i, CONTENT, List.of());
+        }
+
+        assertEquals(3, revisionRepository.countByNoteId(noteId));
+        NoteEditConflictException pruned = assertThrows(NoteEditConflictException.class,
+                () -> editService.edit(noteId, userId, 0L, "Liste", "Einkauf\n", List.of()));
+        assertEquals(HttpStatus.PRECONDITION_FAILED, pruned.getStatus());
+        // Die aelteste aufbewahrte Version ist noch bekannt
+        assertEquals("Einkauf\n", editService.edit(noteId, userId, 1L, "Liste 3", "Einkauf\n", List.of()).getContent());
+    }
+
+    @Test
+    public void testConcurrentEditorsAllSucceed() throws Exception {
+        int editors = 4;
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < editors; i++) {
+            content.append("Abschnitt ").append(i).append('\n').append("Zeile ").append(i).append('\n');
+        }
+        int noteId = create(content.toString(), List.of());
+
+        ExecutorService pool = Executors.newFixedThreadPool(editors);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Note>> results = new ArrayList<>();
+        for (int i = 0; i < editors; i++) {
+            int editor = i;
+            String edited = content.toString().replace("Zeile " + editor + "\n", "Zeile " + editor + " geaendert\n");
+            results.add(pool.submit(() -> {
+                start.await();
+                return editService.edit(noteId, userId, 0L, "Titel", edited, List.of("tab" + editor));
+            }));
+        }
+        start.countDown();
+        for (Future<Note> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Note note = noteRepository.findById(noteId).orElseThrow();
+        assertEquals(editors, note.getVersion());
+        for (int i = 0; i < editors; i++) {
+            assertEquals(1, note.getContent().split("Zeile " + i + " geaendert\n", -1).length - 1);
+            assertTrue(note.getTags().contains("tab" + i));
+        }
+    }
+
+    @Test
+    public void testPatchWritesOnlyChangedColumnsAndTags() {
+        int noteId = create(CONTENT, List.of("a", "b"));
+        SqlRecorder.STATEMENTS.clear();
+
+        // "Milch" (ab Position 8) wird zu "Hafermilch", ein Tag kommt hinzu
+        Note patched = editService.patch(noteId, userId, 0L, List.of(
+                operation("{\"op\":\"splice\",\"path\":\"/content\",\"offset\":8,\"length\":5,\"value\":\"Hafermilch\"}"),
+                operation("{\"op\":\"add\",\"path\":\"/tags/-\",\"value\":\"c\"}")));
+
+        assertEquals("Einkauf\nHafermilch\nBrot\nKaese\nObst\n", patched.getContent());
+        assertEquals(List.of("a", "b", "c"), List.copyOf(patched.getTags()));
+        List<String> noteUpdates = statements("update note ");
+        assertEquals(1, noteUpdates.size());
+        assertFalse(noteUpdates.get(0).contains("title"), noteUpdates.get(0));
+        assertEquals(List.of(), statements("delete from note_tags"));
+        assertEquals(1, statements("insert into note_tags").size());
+        // Die Revision enthaelt nur den geaenderten Abschnitt
+        assertEquals("M", revisionRepository.findFromVersion(noteId, 0).get(0).getContentText());
+
+        // Ein entfernter Tag loescht genau eine Zeile; Inhalt und Titel bleiben unberuehrt
+        SqlRecorder.STATEMENTS.clear();
+        editService.patch(noteId, userId, 1L, List.of(operation("{\"op\":\"remove\",\"path\":\"/tags/0\"}")));
+        assertEquals(1, statements("delete from note_tags").size());
+        assertTrue(statements("delete from note_tags").get(0).contains("tags=?"));
+        assertFalse(statements("update note ").get(0).contains("content"));
+    }
+
+    @Test
+    public void testStalePatchIsMerged() {
+        int noteId = create(CONTENT, List.of());
+        editService.patch(noteId, userId, 0L, List.of(
+                operation("{\"op\":\"splice\",\"path\":\"/content\",\"offset\":8,\"length\":5,\"value\":\"Hafermilch\"}")));
+
+        // Offsets beziehen sich auf Version 0: "Obst" beginnt dort bei Position 25
+        Note merged = editService.patch(noteId, userId, 0L, List.of(
+                operation("{\"op\":\"splice\",\"path\":\"/content\",\"offset\":25,\"length\":4,\"value\":\"Aepfel\"}"),
+                operation("{\"op\":\"replace\",\"path\":\"/title\",\"value\":\"Wochenende\"}")));
+
+        assertEquals("Einkauf\nHafermilch\nBrot\nKaese\nAepfel\n", merged.getContent());
+        assertEquals("Wochenende", merged.getTitle());
+
+        NoteEditConflictException failed = assertThrows(NoteEditConflictException.class,
+                () -> editService.patch(noteId, userId, 2L, List.of(
+                        operation("{\"op\":\"test\",\"path\":\"/title\",\"value\":\"Liste\"}"),
+                        operation("{\"op\":\"replace\",\"path\":\"/title\",\"value\":\"Neu\"}"))));
+        assertEquals(HttpStatus.CONFLICT, failed.getStatus());
+        assertEquals(List.of("title"), failed.getConflicts());
+        assertThrows(IllegalArgumentException.class, () -> editService.patch(noteId, userId, 2L, List.of(
+                operation("{\"op\":\"splice\",\"path\":\"/content\",\"offset\":500,\"length\":1}"))));
+    }
+
+    private static NotePatchOperationDTO operation(String json) {
+        try {
+            return MAPPER.readValue(json, NotePatchOperationDTO.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static List<String> statements(String prefix) {
+        List<String> matching = new ArrayList<>();
+        for (String sql : SqlRecorder.STATEMENTS) {
+            if (sql.trim().toLowerCase(Locale.ROOT).startsWith(prefix)) {
+                matching.add(sql.toLowerCase(Locale.ROOT).replace(" ", ""));
+            }
+        }
+        return matching;
+    }
+
+    private int create(String content, List<String> tags) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Note note = new Note();
+            note.setTitle("Liste");
+            note.setContent(content);
+            note.setTags(new ArrayList<>(tags));
+            note.setUser(userRepository.findById(userId).orElseThrow());
+            return noteRepository.save(note).getId();
+        });
+    }
+
+    /**
+     * Zeichnet alle SQL-Anweisungen auf, die Hibernate an die Datenbank sendet.
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.bootstmytool.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.storage.LocalBlobStore;
+import org.bootstmytool.backend.utils.ProcessImage;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer den ZIP-Export der Notizen.
+ */
+@DataJpaTest
+public class NoteExportServiceTest {
+
+    private static final String SHARED_IMAGE = "a".repeat(64) + ".png";
+    private static final String LEGACY_IMAGE = "urlaub.jpg";
+    private static final String MISSING_IMAGE = "b".repeat(64) + ".png";
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path blobDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private NoteExportService exportService;
+    private User user;
+    private final List<Note> notes = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        LocalBlobStore blobStore = new LocalBlobStore(blobDir);
+        exportService = new NoteExportService(noteRepository, blobStore, entityManager, transactionManager, objectMapper);
+        ReflectionTestUtils.setField(exportService, "maxConcurrent", 2);
+        ReflectionTestUtils.invokeMethod(exportService, "init");
+        blobStore.put(ProcessImage.storageKey(SHARED_IMAGE), new ByteArrayInputStream(bytes("geteilt")), 7, "image/png");
+        blobStore.put(ProcessImage.storageKey(LEGACY_IMAGE), new ByteArrayInputStream(bytes("alt")), 3, "image/jpeg");
+
+        user = new User();
+        user.setEmail("export@example.org");
+        user.setPassword("geheim");
+        testEntityManager.persist(user);
+        User other = new User();
+        other.setEmail("andere@example.org");
+        other.setPassword("geheim");
+        testEntityManager.persist(other);
+
+        notes.add(note(user, "Erste", "Inhalt mit Umlauten: äöü", List.of("a", "b"), SHARED_IMAGE, LEGACY_IMAGE));
+        notes.add(note(user, "Zweite", "", List.of(), SHARED_IMAGE, MISSING_IMAGE));
+        notes.add(note(user, "Dritte", "Text", List.of("c")));
+        note(other, "Fremd", "nicht exportieren", List.of());
+        testEntityManager.flush();
+        testEntityManager.clear();
+    }
+
+    @Test
+    public void testExportContainsNotesImagesAndManifest() throws IOException {
+        Map<String, byte[]> entries = export(0, null);
+
+        int first = notes.get(0).getId();
+        assertEquals(List.of("images/" + SHARED_IMAGE, "images/" + LEGACY_IMAGE,
+                        "notes/" + first + ".md", "notes/" + first + ".json",
+                        "notes/" + notes.get(1).getId() + ".md", "notes/" + notes.get(1).getId() + ".json",
+                        "notes/" + notes.get(2).getId() + ".md", "notes/" + notes.get(2).getId() + ".json",
+                        "export.json"),
+                new ArrayList<>(entries.keySet()));
+        assertArrayEquals(bytes("geteilt"), entries.get("images/" + SHARED_IMAGE));
+
+        JsonNode json = objectMapper.readTree(entries.get("notes/" + first + ".json"));
+        assertEquals("Erste", json.get("title").asText());
+        assertEquals("Inhalt mit Umlauten: äöü", json.get("content").asText());
+        assertEquals("b", json.get("tags").get(1).asText());
+        assertEquals(2, json.get("images").size());
+        assertTrue(json.hasNonNull("createdAt"));
+
+        String markdown = new String(entries.get("notes/" + first + ".md"), StandardCharsets.UTF_8);
+        assertTrue(markdown.startsWith("# Erste\n\nTags: a, b\n\n"));
+        assertTrue(markdown.contains("](../images/" + LEGACY_IMAGE + ")"));
+
+        // Das fehlende Bild wird uebersprungen und gezaehlt
+        JsonNode second = objectMapper.readTree(entries.get("notes/" + notes.get(1).getId() + ".json"));
+        assertEquals(1, second.get("images").size());
+
+        JsonNode manifest = objectMapper.readTree(entries.get("export.json"));
+        assertEquals(3, manifest.get("notes").asInt());
+        assertEquals(2, manifest.get("images").asInt());
+        assertEquals(1, manifest.get("missingImages").asInt());
+        assertTrue(manifest.get("complete").asBoolean());
+        assertTrue(manifest.get("nextCursor").isNull());
+    }
+
+    @Test
+    public void testLimitedExportCanBeResumedWithCursor() throws IOException {
+        Map<String, byte[]> part = export(0, 2);
+        JsonNode manifest = objectMapper.readTree(part.get("export.json"));
+        assertEquals(2, manifest.get("notes").asInt());
+        assertFalse(manifest.get("complete").asBoolean());
+        String cursor = manifest.get("nextCursor").asText();
+        assertEquals(String.valueOf(notes.get(1).getId()), cursor);
+
+        Map<String, byte[]> rest = export(NoteExportService.parseCursor(cursor), 2);
+        assertEquals(List.of("notes/" + notes.get(2).getId() + ".md", "notes/" + notes.get(2).getId() + ".json",
+                "export.json"), new ArrayList<>(rest.keySet()));
+        assertTrue(objectMapper.readTree(rest.get("export.json")).get("complete").asBoolean());
+    }
+
+    @Test
+    public void testExportedNotesAreNotKeptInPersistenceContext() throws IOException {
+        export(0, null);
+
+        // Jede Notiz wird nach dem Schreiben mit ihren Bildern abgekoppelt
+        assertEquals(0, entityManager.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().getNumberOfManagedEntities());
+    }
+
+    @Test
+    public void testInvalidCursorIsRejected() {
+        assertEquals(0, NoteExportService.parseCursor(null));
+        assertEquals(42, NoteExportService.parseCursor("42"));
+        assertThrows(IllegalArgumentException.class, () -> NoteExportService.parseCursor("abc"));
+        assertThrows(IllegalArgumentException.class, () -> NoteExportService.parseCursor("-1"));
+    }
+
+    @Test
+    public void testConcurrentExportsAreLimited() {
+        NoteExportService.Slot first = exportService.reserve(1);
+
+        // Ein zweiter Export desselben Benutzers wird abgelehnt, ohne einen Platz zu belegen
+        assertThrows(IllegalStateException.class, () -> exportService.reserve(1));
+        NoteExportService.Slot second = exportService.reserve(2);
+
+        // Beide Plaetze sind belegt
+        ResponseStatusException full = assertThrows(ResponseStatusException.class, () -> exportService.reserve(3));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, full.getStatusCode());
+
+        // Die Ablehnung wegen Ueberlastung sperrt den Benutzer nicht; mehrfaches Schliessen gibt nur einen Platz frei
+        first.close();
+        first.close();
+        NoteExportService.Slot third = exportService.reserve(3);
+        assertThrows(ResponseStatusException.class, () -> exportService.reserve(1));
+        second.close();
+        exportService.reserve(1).close();
+        third.close();
+    }
+
+    private Map<String, byte[]> export(int afterId, Integer limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export((int) user.getId(), afterId, limit, out);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private Note note(User owner, String title, String content, List<String> tags, String... images) {
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent(content);
+        note.setTags(new ArrayList<>(tags));
+        note.setUser(owner);
+        for (String url : images) {
+            Image image = new Image();
+            image.setUrl(url);
+            image.setNote(note);
+            note.getImages().add(image);
+        }
+        testEntityManager.persist(note);
+        return note;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
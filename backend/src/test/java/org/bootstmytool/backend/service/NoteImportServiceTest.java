@@ -0,0 +1,192 @@
+package org.bootstmytool.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.bootstmytool.backend.dto.NoteImportErrorDTO;
+import org.bootstmytool.backend.dto.NoteImportReportDTO;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests fuer den Massenimport. Die Batches werden wirklich committet, deshalb laeuft der Test ohne
+ * umschliessende Transaktion und raeumt selbst auf.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class NoteImportServiceTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private NoteSearchService noteSearchService;
+    private NoteListCache noteListCache;
+    private NoteImportService importService;
+    private int userId;
+
+    @BeforeEach
+    public void setUp() {
+        noteSearchService = mock(NoteSearchService.class);
+        noteListCache = mock(NoteListCache.class);
+        importService = new NoteImportService(noteRepository, userRepository, entityManager, transactionManager,
+                new ObjectMapper(), noteSearchService, noteListCache);
+        ReflectionTestUtils.setField(importService, "batchSize", 3);
+        ReflectionTestUtils.setField(importService, "maxLineLength", 200);
+
+        User user = new User();
+        user.setEmail("import@example.org");
+        user.setPassword("geheim");
+        userId = (int) userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testNdjsonImportReportsErrorsPerLine() throws IOException {
+        String body = String.join("\n",
+                "{\"title\": \"Eins\", \"content\": \"Erster Inhalt\", \"tags\": [\"a\", \"b\"]}",
+                "",
+                "{\"title\": \"Zwei\", \"tags\": \"x, y\"}",
+                "{\"title\": ",
+                "{\"content\": \"ohne Titel\"}",
+                "[1, 2]",
+                "{\"title\": \"" + "z".repeat(300) + "\"}",
+                "{\"title\": \"Drei\", \"tags\": [1]}",
+                "{\"title\": \"Vier\"}\r",
+                "{\"title\": \"Fuenf\"}");
+
+        NoteImportReportDTO report = importService.importNotes(userId, stream(body));
+
+        assertTrue(report.isFinished());
+        assertEquals(9, report.getRecords());
+        assertEquals(4, report.getImported());
+        assertEquals(5, report.getFailed());
+        assertNull(report.getAbortReason());
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L), report.getErrors().stream().map(NoteImportErrorDTO::getLine).toList());
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Ungueltiges JSON"));
+        assertEquals("title fehlt oder ist kein Text", report.getErrors().get(1).getMessage());
+        assertEquals("Zeile ist laenger als 200 Zeichen", report.getErrors().get(3).getMessage());
+
+        List<Note> notes = noteRepository.findByUserId(userId);
+        assertEquals(4, notes.size());
+        Note first = notes.stream().filter(note -> note.getTitle().equals("Eins")).findFirst().orElseThrow();
+        assertEquals("Erster Inhalt", first.getContent());
+        assertEquals(List.of("a", "b"), List.copyOf(first.getTags()));
+        Note second = notes.stream().filter(note -> note.getTitle().equals("Zwei")).findFirst().orElseThrow();
+        assertEquals(List.of("x", "y"), List.copyOf(second.getTags()));
+        assertEquals("", second.getContent());
+        verify(noteSearchService).invalidate(userId);
+        verify(noteListCache).invalidate(userId);
+    }
+
+    @Test
+    public void testJsonArrayIsImportedInBatches() throws IOException {
+        StringBuilder body = new StringBuilder("[\n");
+        for (int i = 0; i < 7; i++) {
+            body.append(i == 0 ? "" : ",\n").append("{\"title\": \"Notiz ").append(i).append("\", \"tags\": [\"t\"]}");
+        }
+        body.append(",\n42\n]");
+
+        NoteImportReportDTO report = importService.importNotes(userId, stream(body.toString()));
+
+        assertEquals(8, report.getRecords());
+        assertEquals(7, report.getImported());
+        assertEquals(List.of(9L), report.getErrors().stream().map(NoteImportErrorDTO::getLine).toList());
+        assertEquals(7, noteRepository.findByUserId(userId).size());
+        assertTrue(importService.getProgress(userId).isEmpty());
+    }
+
+    @Test
+    public void testSyntaxErrorInArrayKeepsCommittedBatches() throws IOException {
+        String body = "[{\"title\": \"a\"}, {\"title\": \"b\"}, {\"title\": \"c\"},\n{\"title\": \"d\"}, {\"title\": }]";
+
+        NoteImportReportDTO report = importService.importNotes(userId, stream(body));
+
+        // Der volle Batch (a, b, c) und der angefangene (d) werden gespeichert, danach wird abgebrochen
+        assertEquals(4, report.getImported());
+        assertNotNull(report.getAbortReason());
+        assertTrue(report.getAbortReason().startsWith("Ungueltiges JSON in Zeile 2"), report.getAbortReason());
+        assertEquals(4, noteRepository.findByUserId(userId).size());
+    }
+
+    @Test
+    public void testLargeGeneratedBodyIsStreamedInBatches() throws IOException {
+        ReflectionTestUtils.setField(importService, "batchSize", 200);
+        int count = 2_000;
+
+        // Der Body wird erst beim Lesen erzeugt, wie bei einem grossen Upload
+        Enumeration<InputStream> lines = new Enumeration<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < count;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return stream("{\"title\": \"Notiz " + next++ + "\", \"content\": \"Inhalt\", \"tags\": [\"import\"]}\n");
+            }
+        };
+        NoteImportReportDTO report = importService.importNotes(userId, new SequenceInputStream(lines));
+
+        assertEquals(count, report.getImported());
+        assertEquals(0, report.getFailed());
+        assertFalse(report.isErrorsTruncated());
+        assertEquals(count, noteRepository.findByUserId(userId).size());
+    }
+
+    @Test
+    public void testErrorListIsCapped() throws IOException {
+        String body = "{}\n".repeat(NoteImportService.MAX_REPORTED_ERRORS + 5);
+
+        NoteImportReportDTO report = importService.importNotes(userId, stream(body));
+
+        assertEquals(NoteImportService.MAX_REPORTED_ERRORS + 5, report.getFailed());
+        assertEquals(NoteImportService.MAX_REPORTED_ERRORS, report.getErrors().size());
+        assertTrue(report.isErrorsTruncated());
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
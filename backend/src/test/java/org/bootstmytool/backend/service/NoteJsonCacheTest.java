@@ -0,0 +1,96 @@
+package org.bootstmytool.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bootstmytool.backend.dto.ImageDTO;
+import org.bootstmytool.backend.dto.NoteDTO;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.security.JacksonConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer die vorab serialisierten JSON-Fragmente der Notizliste.
+ */
+public class NoteJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private NoteJsonCache jsonCache;
+
+    @BeforeEach
+    public void setUp() {
+        jsonCache = new NoteJsonCache(objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jsonCache, "maxSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(jsonCache, "idleTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.invokeMethod(jsonCache, "init");
+    }
+
+    @Test
+    public void testArrayMatchesRegularSerialization() throws IOException {
+        List<NoteDTO> notes = List.of(note(1, 0, "Erste \"mit\" Zeichen: äöü"), note(2, 3, "Zweite"));
+
+        String json = write(notes, false);
+
+        assertEquals(objectMapper.writeValueAsString(notes), json);
+        assertFalse(json.contains("\n"), "API-Antworten sind kompakt");
+        assertFalse(json.contains("imagesToDelete"));
+        assertEquals("[]", write(List.of(), false));
+    }
+
+    @Test
+    public void testFragmentIsReusedUntilVersionChanges() {
+        NoteDTO note = note(1, 0, "Titel");
+        byte[] first = jsonCache.fragment(note);
+
+        // Gleiche ID und Version: das gespeicherte Fragment wird geliefert, ohne neu zu serialisieren
+        assertSame(first, jsonCache.fragment(note(1, 0, "Titel")));
+
+        NoteDTO changed = note(1, 1, "Neuer Titel");
+        byte[] second = jsonCache.fragment(changed);
+        assertNotSame(first, second);
+        assertTrue(new String(second, StandardCharsets.UTF_8).contains("Neuer Titel"));
+    }
+
+    @Test
+    public void testPrettyOutputOnlyOnRequest() throws IOException {
+        List<NoteDTO> notes = List.of(note(1, 0, "Titel"));
+
+        String pretty = write(notes, true);
+
+        assertTrue(pretty.contains("\n"));
+        assertEquals(objectMapper.readTree(write(notes, false)), objectMapper.readTree(pretty));
+    }
+
+    private String write(List<NoteDTO> notes, boolean pretty) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonCache.writeArray(notes, out, pretty);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static NoteDTO note(int id, long version, String title) {
+        NoteDTO note = new NoteDTO();
+        note.setId(id);
+        note.setVersion(version);
+        note.setTitle(title);
+        note.setContent("Inhalt");
+        note.setTags(List.of("a", "b"));
+        note.setCreatedAt(new Date(1_700_000_000_000L));
+        note.setImages(List.of(ImageDTO.of(7, "c".repeat(64) + ".png", ImageStatus.READY, 800, "http://localhost:8080")));
+        return note;
+    }
+}
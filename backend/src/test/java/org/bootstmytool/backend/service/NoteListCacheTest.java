@@ -0,0 +1,312 @@
+package org.bootstmytool.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.bootstmytool.backend.dto.NoteDTO;
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.repository.NoteRevisionRepository;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests fuer den Zwischenspeicher der Notizlisten. Die Ereignisse der Services werden direkt an den Cache
+ * weitergereicht; jeder Schritt laeuft in einer eigenen Transaktion.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class NoteListCacheTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private NoteListCache listCache;
+    private NoteService noteService;
+    private NoteEditService editService;
+    private ImageService imageService;
+    private final AtomicInteger loads = new AtomicInteger();
+    private CountDownLatch loadStarted;
+    private CountDownLatch releaseLoad;
+    private int userId;
+    private int otherUserId;
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        listCache = new NoteListCache(noteRepository, imageRepository, transactionManager, new SimpleMeterRegistry()) {
+            @Override
+            List<NoteDTO> load(int userId) {
+                loads.incrementAndGet();
+                if (loadStarted != null) {
+                    loadStarted.countDown();
+                    await(releaseLoad);
+                }
+                return super.load(userId);
+            }
+        };
+        ReflectionTestUtils.setField(listCache, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(listCache, "maxSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(listCache, "idleTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.invokeMethod(listCache, "init");
+
+        ApplicationEventPublisher events = event -> {
+            if (event instanceof NoteChangedEvent changed) {
+                listCache.onNoteChanged(changed);
+            } else if (event instanceof NoteImagesChangedEvent changed) {
+                listCache.onNoteImagesChanged(changed);
+            }
+        };
+        ImageStore imageStore = mock(ImageStore.class);
+        when(imageStore.store(any())).thenAnswer(invocation -> {
+            Image image = new Image();
+            image.setUrl("d".repeat(64) + ".png");
+            return image;
+        });
+        noteService = new NoteService(noteRepository, imageRepository, imageStore, events);
+        editService = new NoteEditService(noteRepository, revisionRepository, events, transactionManager);
+        ReflectionTestUtils.setField(editService, "maxRevisions", 20);
+        ReflectionTestUtils.setField(editService, "maxAttempts", 3);
+        imageService = new ImageService(noteRepository, imageRepository, mock(ImageProcessingService.class),
+                imageStore, events);
+
+        userId = createUser("liste@example.org");
+        otherUserId = createUser("andere@example.org");
+        create(userId, "Erste", List.of("a", "b"), true);
+        create(userId, "Zweite", List.of(), false);
+        create(otherUserId, "Fremd", List.of("x"), false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @Test
+    public void testListingIsLoadedOnceAndServedFromCache() {
+        statistics.clear();
+        List<NoteDTO> first = listCache.getNotes(userId);
+
+        assertEquals(List.of("Erste", "Zweite"), first.stream().map(NoteDTO::getTitle).toList());
+        assertEquals(List.of("a", "b"), first.get(0).getTags());
+        assertEquals(1, first.get(0).getImages().size());
+        assertTrue(first.get(0).getImages().get(0).getUrl().startsWith("http://localhost:8080/image/"));
+        assertTrue(first.get(0).getCreatedAt() != null);
+        // Notizen, Tags und Bilder: drei Abfragen, unabhaengig von der Anzahl der Notizen
+        assertEquals(3, statistics.getPrepareStatementCount(), "Anzahl der JDBC-Anweisungen");
+
+        statistics.clear();
+        assertSame(first, listCache.getNotes(userId));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testChangesInvalidateOnlyTheOwnersListing() {
+        listCache.getNotes(userId);
+        listCache.getNotes(otherUserId);
+        int noteId = listCache.getNotes(userId).get(1).getId();
+
+        long version = listCache.getNotes(userId).get(1).getVersion();
+
+        editService.edit(noteId, userId, version, "Geaendert", "Neu", listCache.getNotes(userId).get(1).getTags());
+        assertEquals("Geaendert", listCache.getNotes(userId).get(1).getTitle());
+        assertEquals(version + 1, listCache.getNotes(userId).get(1).getVersion());
+
+        create(userId, "Dritte", List.of("c"), false);
+        assertEquals(3, listCache.getNotes(userId).size());
+
+        transactionTemplate.executeWithoutResult(status -> noteService.deleteNoteById(noteId));
+        assertEquals(List.of("Erste", "Dritte"), listCache.getNotes(userId).stream().map(NoteDTO::getTitle).toList());
+
+        // Der andere Benutzer wurde nur einmal geladen
+        listCache.getNotes(otherUserId);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void testImageUploadAndDeleteInvalidateListing() {
+        NoteDTO second = listCache.getNotes(userId).get(1);
+        assertEquals(0, second.getImages().size());
+
+        transactionTemplate.executeWithoutResult(status -> imageService.uploadImage(second.getId(),
+                new MockMultipartFile("image", "bild.png", "image/png", new byte[]{1})));
+        List<NoteDTO> afterUpload = listCache.getNotes(userId);
+        assertEquals(1, afterUpload.get(1).getImages().size());
+        // Die Bilder gehoeren zur Darstellung der Notiz, ihre Version steigt mit
+        assertEquals(second.getVersion() + 1, afterUpload.get(1).getVersion());
+
+        int imageId = afterUpload.get(1).getImages().get(0).getId();
+        transactionTemplate.executeWithoutResult(status -> imageService.deleteImageById(imageId));
+        NoteDTO afterDelete = listCache.getNotes(userId).get(1);
+        assertEquals(0, afterDelete.getImages().size());
+        assertEquals(second.getVersion() + 2, afterDelete.getVersion());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testProcessingResultIncrementsNoteVersion() {
+        NoteDTO first = listCache.getNotes(userId).get(0);
+        int imageId = first.getImages().get(0).getId();
+
+        // Wie ImageProcessingService beim Speichern des Ergebnisses
+        transactionTemplate.executeWithoutResult(status -> {
+            imageRepository.updateProcessingResult(imageId, ImageStatus.READY, 640, 480, "image/png", 10L);
+            noteRepository.findByImageIdForVersionIncrement(imageId);
+        });
+        listCache.invalidate(userId);
+
+        NoteDTO processed = listCache.getNotes(userId).get(0);
+        assertEquals(first.getVersion() + 1, processed.getVersion());
+        assertEquals("READY", processed.getImages().get(0).getStatus());
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneLoad() throws Exception {
+        loadStarted = new CountDownLatch(1);
+        releaseLoad = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<NoteDTO>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> listCache.getNotes(userId)));
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+            // Alle weiteren Aufrufe treffen auf die laufende Ladeoperation und warten auf sie
+            List<Thread> waiting = new ArrayList<>();
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    synchronized (waiting) {
+                        waiting.add(Thread.currentThread());
+                    }
+                    return listCache.getNotes(userId);
+                }));
+            }
+            awaitWaiting(waiting, callers - 1);
+            releaseLoad.countDown();
+
+            List<NoteDTO> first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<List<NoteDTO>> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEstimatedSizeGrowsWithContent() {
+        NoteDTO small = new NoteDTO();
+        small.setTitle("a");
+        small.setContent("");
+        small.setTags(List.of());
+        small.setImages(List.of());
+        NoteDTO large = new NoteDTO();
+        large.setTitle("a");
+        large.setContent("x".repeat(10_000));
+        large.setTags(List.of("t"));
+        large.setImages(List.of());
+
+        assertTrue(NoteListCache.estimateSize(List.of(large)) > 20_000);
+        assertTrue(NoteListCache.estimateSize(List.of(small)) < NoteListCache.estimateSize(List.of(small, small)));
+    }
+
+    private int createUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("geheim");
+        return (int) userRepository.save(user).getId();
+    }
+
+    private void create(int ownerId, String title, List<String> tags, boolean withImage) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Note note = new Note();
+            note.setTitle(title);
+            note.setContent("Inhalt");
+            note.setTags(new ArrayList<>(tags));
+            note.setUser(userRepository.findById(ownerId).orElseThrow());
+            if (withImage) {
+                Image image = new Image();
+                image.setUrl("c".repeat(64) + ".png");
+                note.getImages().add(image);
+            }
+            noteService.createNote(note);
+        });
+    }
+
+    private static void awaitWaiting(List<Thread> threads, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            synchronized (threads) {
+                if (threads.size() == count && threads.stream().allMatch(t -> t.getState() == Thread.State.WAITING)) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Aufrufer warten nicht auf die laufende Ladeoperation");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
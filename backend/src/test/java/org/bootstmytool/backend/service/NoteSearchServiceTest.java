@@ -0,0 +1,163 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.dto.NoteSearchHitDTO;
+import org.bootstmytool.backend.dto.NoteSearchResultDTO;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.repository.NoteRevisionRepository;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.bootstmytool.backend.search.SearchQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests fuer die Pflege der Suchindizes ueber {@link NoteChangedEvent}s. Die Ereignisse der Services werden
+ * direkt an den {@link NoteSearchService} weitergereicht; jeder Schritt laeuft in einer eigenen Transaktion.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class NoteSearchServiceTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private NoteSearchService searchService;
+    private NoteService noteService;
+    private NoteEditService editService;
+    private final AtomicInteger events = new AtomicInteger();
+    private int userId;
+    private int otherUserId;
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        searchService = new NoteSearchService(noteRepository);
+        ReflectionTestUtils.setField(searchService, "maxIndexedUsers", 100L);
+        ReflectionTestUtils.setField(searchService, "idleTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.invokeMethod(searchService, "init");
+
+        ApplicationEventPublisher publisher = event -> {
+            if (event instanceof NoteChangedEvent changed) {
+                events.incrementAndGet();
+                searchService.onNoteChanged(changed);
+            }
+        };
+        noteService = new NoteService(noteRepository, imageRepository, mock(ImageStore.class), publisher);
+        editService = new NoteEditService(noteRepository, revisionRepository, publisher, transactionManager);
+        ReflectionTestUtils.setField(editService, "maxRevisions", 20);
+        ReflectionTestUtils.setField(editService, "maxAttempts", 3);
+
+        userId = createUser("suche@example.org");
+        otherUserId = createUser("andere-suche@example.org");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testEventsUpdateAndRemoveIndexedNotes() {
+        int first = create(userId, "Einkauf", "Milch und Brot", List.of("haushalt"));
+        assertEquals(List.of(first), search(userId, "milch"));
+
+        // Neue Notiz: der geladene Index wird ueber das Ereignis ergaenzt
+        int second = create(userId, "Fruehstueck", "Milch mit Honig", List.of());
+        assertEquals(List.of(second, first), search(userId, "milch"));
+        assertEquals(List.of(second), search(userId, "honig"));
+
+        // Bearbeitung: alte Begriffe verschwinden, neue werden gefunden
+        long version = noteRepository.findById(first).orElseThrow().getVersion();
+        editService.edit(first, userId, version, "Einkauf", "Kaese und Brot", List.of("markt"));
+        assertEquals(List.of(second), search(userId, "milch"));
+        assertEquals(List.of(first), search(userId, "kaese"));
+        assertEquals(List.of(), search(userId, "haushalt"));
+        assertEquals(List.of(first), search(userId, "markt"));
+
+        // Loeschen entfernt die Notiz aus dem Index
+        transactionTemplate.executeWithoutResult(status -> noteService.deleteNoteById(second));
+        assertEquals(List.of(), search(userId, "milch"));
+        assertEquals(List.of(), search(userId, "honig"));
+        assertEquals(4, events.get());
+    }
+
+    @Test
+    public void testEventsWithoutLoadedIndexAreIgnored() {
+        int first = create(userId, "Einkauf", "Milch", List.of());
+        assertEquals(List.of(first), search(userId, "milch"));
+
+        // Fuer den anderen Benutzer existiert noch kein Index; er wird beim ersten Suchaufruf aus der Datenbank gebaut
+        int foreign = create(otherUserId, "Fremd", "Milch", List.of());
+        assertEquals(List.of(first), search(userId, "milch"));
+        assertEquals(List.of(foreign), search(otherUserId, "milch"));
+    }
+
+    @Test
+    public void testHitsCarryHighlightedTitleAndTags() {
+        int noteId = create(userId, "Milch kaufen", "Vollmilch aus dem Laden", List.of("einkauf"));
+
+        NoteSearchResultDTO result = searchService.search(userId, "milch", SearchQuery.Mode.FULLTEXT, 0, 10);
+        assertEquals(1, result.getTotalHits());
+        NoteSearchHitDTO hit = result.getHits().get(0);
+        assertEquals(noteId, hit.getId());
+        assertEquals(List.of("einkauf"), hit.getTags());
+        assertEquals("<mark>Milch</mark> kaufen", hit.getTitle());
+    }
+
+    private List<Integer> search(int ownerId, String query) {
+        NoteSearchResultDTO result = searchService.search(ownerId, query, SearchQuery.Mode.FULLTEXT, 0, 10);
+        assertEquals(result.getTotalHits(), result.getHits().size());
+        return result.getHits().stream().map(NoteSearchHitDTO::getId).toList();
+    }
+
+    private int createUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("geheim");
+        return (int) userRepository.save(user).getId();
+    }
+
+    private int create(int ownerId, String title, String content, List<String> tags) {
+        return transactionTemplate.execute(status -> {
+            Note note = new Note();
+            note.setTitle(title);
+            note.setContent(content);
+            note.setTags(new ArrayList<>(tags));
+            note.setUser(userRepository.findById(ownerId).orElseThrow());
+            return noteService.createNote(note).getId();
+        });
+    }
+}
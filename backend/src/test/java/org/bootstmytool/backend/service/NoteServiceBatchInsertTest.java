@@ -0,0 +1,111 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Prueft, dass eine neue Notiz mit ihren Tags und Bildern in wenigen gebuendelten Anweisungen
+ * geschrieben wird. Gezaehlt werden die vorbereiteten JDBC-Anweisungen; ein Batch zaehlt einmal.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class NoteServiceBatchInsertTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private NoteService noteService;
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        noteService = new NoteService(noteRepository, imageRepository, mock(ImageStore.class), event -> {
+        });
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        user = new User();
+        user.setEmail("batch@example.org");
+        user.setPassword("geheim");
+        entityManager.persist(user);
+
+        // Die Sequenzen anstossen: beim Startwert holt Hibernate den ersten Block erst mit der zweiten ID
+        noteService.createNote(note(1, 1));
+        noteService.createNote(note(1, 1));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    public void testNoteWithTagsAndImagesIsWrittenInBatches() {
+        Note saved = noteService.createNote(note(20, 10));
+        entityManager.flush();
+
+        // Notiz, Bilder und Tags: je eine Anweisung, keine Abfragen der Sequenzen
+        assertEquals(3, statistics.getPrepareStatementCount(), "Anzahl der JDBC-Anweisungen");
+        assertEquals(11, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+
+        entityManager.clear();
+        Note loaded = entityManager.find(Note.class, saved.getId());
+        assertEquals(20, loaded.getTags().size());
+        assertEquals(10, loaded.getImages().size());
+        assertTrue(loaded.getImages().stream().allMatch(image -> image.getNote().getId() == saved.getId()));
+    }
+
+    @Test
+    public void testIdsAreTakenFromThePoolWithoutRoundTrips() {
+        for (int i = 0; i < 5; i++) {
+            noteService.createNote(note(2, 2));
+        }
+        entityManager.flush();
+
+        // 5 Notizen, 10 Bilder und 10 Tags, weiterhin nur drei Batches
+        assertEquals(3, statistics.getPrepareStatementCount(), "Anzahl der JDBC-Anweisungen");
+        assertEquals(15, statistics.getEntityInsertCount());
+    }
+
+    private Note note(int tagCount, int imageCount) {
+        Note note = new Note();
+        note.setTitle("Batch");
+        note.setContent("Inhalt");
+        note.setUser(user);
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < tagCount; i++) {
+            tags.add("tag" + i);
+        }
+        note.setTags(tags);
+        List<Image> images = new ArrayList<>();
+        for (int i = 0; i < imageCount; i++) {
+            Image image = new Image();
+            image.setUrl("bild" + i + ".png");
+            images.add(image);
+        }
+        note.setImages(images);
+        return note;
+    }
+}
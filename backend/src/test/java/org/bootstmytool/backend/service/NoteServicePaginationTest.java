@@ -0,0 +1,159 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.dto.NotePageDTO;
+import org.bootstmytool.backend.dto.NoteSummaryDTO;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests fuer die Keyset-Paginierung der Notizliste. Mehrere Notizen teilen sich ein Erstellungsdatum,
+ * damit die ID als zweiter Schluessel greifen muss.
+ */
+@DataJpaTest
+public class NoteServicePaginationTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private NoteService noteService;
+    private int userId;
+    private final List<NoteSummaryDTO> expectedNewest = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        noteService = new NoteService(noteRepository, imageRepository, mock(ImageStore.class), event -> {
+        });
+        ReflectionTestUtils.setField(noteService, "baseUrl", "http://localhost:8080");
+
+        User user = new User();
+        user.setEmail("seiten@example.org");
+        user.setPassword("geheim");
+        userId = (int) entityManager.persist(user).getId();
+        User other = new User();
+        other.setEmail("fremd-seiten@example.org");
+        other.setPassword("geheim");
+        entityManager.persist(other);
+
+        // Sieben Notizen, davon drei und zwei mit identischem Erstellungsdatum
+        long[] createdAt = {1_000, 2_000, 2_000, 2_000, 3_000, 4_000, 4_000};
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < createdAt.length; i++) {
+            ids.add(persistNote(user, "Notiz " + i));
+        }
+        persistNote(other, "Fremd");
+        entityManager.flush();
+        for (int i = 0; i < createdAt.length; i++) {
+            entityManager.getEntityManager()
+                    .createNativeQuery("update note set created_at = ?1 where id = ?2")
+                    .setParameter(1, new Timestamp(1_700_000_000_000L + createdAt[i]))
+                    .setParameter(2, ids.get(i))
+                    .executeUpdate();
+        }
+        entityManager.clear();
+
+        expectedNewest.addAll(noteService.getNoteSummaries(userId, 100, null, NoteService.SortOrder.NEWEST).getItems());
+    }
+
+    @Test
+    public void testNewestOrderBreaksTiesById() {
+        assertEquals(7, expectedNewest.size());
+        for (int i = 1; i < expectedNewest.size(); i++) {
+            NoteSummaryDTO previous = expectedNewest.get(i - 1);
+            NoteSummaryDTO current = expectedNewest.get(i);
+            int byDate = previous.getCreatedAt().compareTo(current.getCreatedAt());
+            assertTrue(byDate > 0 || (byDate == 0 && previous.getId() > current.getId()), "Reihenfolge bei " + i);
+        }
+    }
+
+    @Test
+    public void testPagesCoverAllNotesAcrossTies() {
+        for (int limit = 1; limit <= 8; limit++) {
+            assertEquals(ids(expectedNewest), ids(walk(limit, NoteService.SortOrder.NEWEST)), "limit " + limit);
+
+            List<NoteSummaryDTO> oldest = new ArrayList<>(expectedNewest);
+            oldest.sort(Comparator.comparing(NoteSummaryDTO::getCreatedAt).thenComparing(NoteSummaryDTO::getId));
+            assertEquals(ids(oldest), ids(walk(limit, NoteService.SortOrder.OLDEST)), "limit " + limit);
+        }
+    }
+
+    @Test
+    public void testLastPageHasNoCursor() {
+        // Die Seitengroesse teilt die Anzahl der Notizen nicht: die letzte Seite ist kuerzer
+        NotePageDTO first = noteService.getNoteSummaries(userId, 4, null, NoteService.SortOrder.NEWEST);
+        assertTrue(first.isHasMore());
+        assertNotNull(first.getNextCursor());
+        NotePageDTO last = noteService.getNoteSummaries(userId, 4, first.getNextCursor(), NoteService.SortOrder.NEWEST);
+        assertEquals(3, last.getItems().size());
+        assertFalse(last.isHasMore());
+        assertNull(last.getNextCursor());
+
+        // Genau so viele Notizen wie die Seitengroesse: keine leere Folgeseite
+        NotePageDTO exact = noteService.getNoteSummaries(userId, 7, null, NoteService.SortOrder.NEWEST);
+        assertEquals(7, exact.getItems().size());
+        assertFalse(exact.isHasMore());
+        assertNull(exact.getNextCursor());
+    }
+
+    @Test
+    public void testMalformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> noteService.getNoteSummaries(userId, 10, "kein-cursor", NoteService.SortOrder.NEWEST));
+        // Ein leerer Cursor steht fuer die erste Seite
+        assertEquals(7, noteService.getNoteSummaries(userId, 10, " ", NoteService.SortOrder.OLDEST).getItems().size());
+    }
+
+    private List<NoteSummaryDTO> walk(int limit, NoteService.SortOrder sort) {
+        List<NoteSummaryDTO> all = new ArrayList<>();
+        String cursor = null;
+        for (int pages = 0; pages < 20; pages++) {
+            NotePageDTO page = noteService.getNoteSummaries(userId, limit, cursor, sort);
+            assertTrue(page.getItems().size() <= limit);
+            all.addAll(page.getItems());
+            if (!page.isHasMore()) {
+                assertNull(page.getNextCursor());
+                return all;
+            }
+            cursor = page.getNextCursor();
+        }
+        throw new AssertionError("Paginierung endet nicht");
+    }
+
+    private int persistNote(User owner, String title) {
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent("Inhalt");
+        note.setUser(owner);
+        return entityManager.persist(note).getId();
+    }
+
+    private static List<Integer> ids(List<NoteSummaryDTO> summaries) {
+        return summaries.stream().map(NoteSummaryDTO::getId).toList();
+    }
+}
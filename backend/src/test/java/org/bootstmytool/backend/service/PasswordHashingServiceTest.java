@@ -0,0 +1,124 @@
+package org.bootstmytool.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer den begrenzten Thread-Pool der Passwort-Operationen. Ein Thread und zwei Warteschlangenplaetze;
+ * die erste Operation blockiert den Thread, bis der Test sie freigibt.
+ */
+public class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch running = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private PasswordHashingService hashingService;
+
+    @BeforeEach
+    public void setUp() {
+        hashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry);
+        ReflectionTestUtils.setField(hashingService, "threads", 1);
+        ReflectionTestUtils.setField(hashingService, "queueCapacity", 2);
+        ReflectionTestUtils.invokeMethod(hashingService, "init");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        hashingService.shutdown();
+    }
+
+    @Test
+    public void testEncodeAndMatches() {
+        String hash = hashingService.encode("geheim");
+
+        assertTrue(hashingService.matches("geheim", hash));
+        assertFalse(hashingService.matches("falsch", hash));
+        assertEquals(1, meterRegistry.get("auth.password.hash.duration").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("auth.password.hash.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    public void testFullQueueIsRejectedImmediately() throws Exception {
+        Future<String> blocking = callers.submit(() -> hashingService.run(PasswordHashingService.Priority.CHANGE, this::block));
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        Future<String> first = submit(PasswordHashingService.Priority.CHANGE, "a");
+        Future<String> second = submit(PasswordHashingService.Priority.CHANGE, "b");
+        awaitQueued(2);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> hashingService.encode("zu viel"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(1, meterRegistry.get("auth.password.hashing.rejected").counter().count());
+
+        // Sobald ein Platz frei wird, werden wieder Operationen angenommen
+        release.countDown();
+        assertEquals("blockiert", blocking.get(10, TimeUnit.SECONDS));
+        assertEquals("a", first.get(10, TimeUnit.SECONDS));
+        assertEquals("b", second.get(10, TimeUnit.SECONDS));
+        assertTrue(hashingService.matches("geheim", hashingService.encode("geheim")));
+    }
+
+    @Test
+    public void testLoginsOvertakeWaitingChanges() throws Exception {
+        callers.submit(() -> hashingService.run(PasswordHashingService.Priority.CHANGE, this::block));
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        Future<String> change = submit(PasswordHashingService.Priority.CHANGE, "change");
+        awaitQueued(1);
+        Future<String> login = submit(PasswordHashingService.Priority.LOGIN, "login");
+        awaitQueued(2);
+
+        release.countDown();
+        change.get(10, TimeUnit.SECONDS);
+        login.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("login", "change"), order);
+    }
+
+    private Future<String> submit(PasswordHashingService.Priority priority, String name) {
+        return callers.submit(() -> hashingService.run(priority, () -> {
+            order.add(name);
+            return name;
+        }));
+    }
+
+    private String block() throws InterruptedException {
+        running.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        return "blockiert";
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(hashingService, "executor");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executor.getQueue().size() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Operationen wurden nicht eingereiht");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
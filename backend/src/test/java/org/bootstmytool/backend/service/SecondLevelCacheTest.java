@@ -0,0 +1,188 @@
+package org.bootstmytool.backend.service;
+
+import jakarta.persistence.EntityManager;
+import org.bootstmytool.backend.model.Image;
+import org.bootstmytool.backend.model.ImageStatus;
+import org.bootstmytool.backend.model.Note;
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.ImageRepository;
+import org.bootstmytool.backend.repository.NoteRepository;
+import org.bootstmytool.backend.repository.NoteRevisionRepository;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests fuer den Second-Level-Cache von Notizen, Tags und Bildern. Jeder Schritt laeuft in einer eigenen
+ * Transaktion mit neuem Persistenzkontext, damit Lesezugriffe wirklich aus dem Cache kommen.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private NoteService noteService;
+    private NoteEditService editService;
+    private ImageService imageService;
+    private Statistics statistics;
+    private int userId;
+    private int noteId;
+    private int imageId;
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        noteService = new NoteService(noteRepository, imageRepository, mock(ImageStore.class), event -> {
+        });
+        editService = new NoteEditService(noteRepository, revisionRepository, event -> {
+        }, transactionManager);
+        ReflectionTestUtils.setField(editService, "maxRevisions", 20);
+        ReflectionTestUtils.setField(editService, "maxAttempts", 3);
+        imageService = new ImageService(noteRepository, imageRepository, mock(ImageProcessingService.class),
+                mock(ImageStore.class), event -> {
+        });
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setEmail("cache@example.org");
+        user.setPassword("geheim");
+        userId = (int) userRepository.save(user).getId();
+
+        Note note = new Note();
+        note.setTitle("Titel");
+        note.setContent("Inhalt");
+        note.setTags(new ArrayList<>(List.of("a", "b")));
+        note.setUser(user);
+        Image image = new Image();
+        image.setUrl("c".repeat(64) + ".png");
+        note.getImages().add(image);
+        Note saved = transactionTemplate.execute(status -> noteService.createNote(note));
+        noteId = saved.getId();
+        imageId = saved.getImages().get(0).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @Test
+    public void testRepeatedLoadIsServedFromCache() {
+        load();
+        statistics.clear();
+
+        Snapshot snapshot = load();
+
+        assertEquals("Titel", snapshot.title);
+        assertEquals(List.of("a", "b"), snapshot.tags);
+        assertEquals(List.of(imageId), snapshot.imageIds);
+        // Notiz, Tags, Bildliste und Bild kommen aus dem Cache, ohne eine einzige Abfrage
+        assertEquals(0, statistics.getPrepareStatementCount(), "Anzahl der JDBC-Anweisungen");
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 4);
+        assertEquals(0, statistics.getSecondLevelCacheMissCount());
+    }
+
+    @Test
+    public void testEditUpdatesCachedNote() {
+        load();
+
+        editService.edit(noteId, userId, 0L, "Neuer Titel", "Neuer Inhalt", List.of("a", "b"));
+
+        Snapshot snapshot = load();
+        assertEquals("Neuer Titel", snapshot.title);
+        assertEquals("Neuer Inhalt", snapshot.content);
+    }
+
+    @Test
+    public void testEditReplacesCachedTags() {
+        load();
+
+        editService.edit(noteId, userId, 0L, "Titel", "Inhalt", List.of("c"));
+
+        assertEquals(List.of("c"), load().tags);
+    }
+
+    @Test
+    public void testDeleteNoteByIdEvictsNoteAndImages() {
+        load();
+
+        transactionTemplate.executeWithoutResult(status -> noteService.deleteNoteById(noteId));
+
+        assertNull(transactionTemplate.execute(status -> noteService.getNoteById(noteId)));
+        assertNull(transactionTemplate.execute(status -> imageService.getImageUrl(imageId)));
+    }
+
+    @Test
+    public void testDeleteImageByIdUpdatesCachedImageList() {
+        load();
+
+        transactionTemplate.executeWithoutResult(status -> imageService.deleteImageById(imageId));
+
+        assertEquals(List.of(), load().imageIds);
+        assertNull(transactionTemplate.execute(status -> imageService.getImageUrl(imageId)));
+    }
+
+    @Test
+    public void testBulkProcessingResultIsNotHiddenByCache() {
+        load();
+
+        imageRepository.updateProcessingResult(imageId, ImageStatus.READY, 640, 480, "image/png", 1234L);
+
+        Image image = transactionTemplate.execute(status -> imageRepository.findById(imageId).orElseThrow());
+        assertEquals(ImageStatus.READY, image.getStatus());
+        assertEquals(640, image.getWidth());
+    }
+
+    /**
+     * Laedt die Notiz mit Tags und Bildern in einer eigenen Transaktion.
+     */
+    private Snapshot load() {
+        return transactionTemplate.execute(status -> {
+            Note note = noteService.getNoteById(noteId);
+            List<Integer> imageIds = note.getImages().stream().map(Image::getId).toList();
+            note.getImages().forEach(Image::getUrl);
+            return new Snapshot(note.getTitle(), note.getContent(), new ArrayList<>(note.getTags()), imageIds);
+        });
+    }
+
+    private record Snapshot(String title, String content, List<String> tags, List<Integer> imageIds) {
+    }
+}
@@ -0,0 +1,93 @@
+package org.bootstmytool.backend.service;
+
+import org.bootstmytool.backend.model.User;
+import org.bootstmytool.backend.repository.UserRepository;
+import org.bootstmytool.backend.security.UserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests fuer den Principal-Cache des {@link UserService}.
+ */
+public class UserServiceTest {
+
+    private static final String EMAIL = "principal@example.org";
+
+    private UserRepository userRepository;
+    private UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = mock(UserRepository.class);
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "principalCacheTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(userService, "principalCacheSize", 100L);
+        ReflectionTestUtils.invokeMethod(userService, "init");
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneQuery() throws Exception {
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findByEmail(EMAIL)).thenAnswer(invocation -> {
+            queried.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.of(user(7));
+        });
+
+        int callers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<Future<UserPrincipal>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> userService.loadPrincipal(EMAIL)));
+        }
+        // Alle Aufrufer warten, waehrend die erste Abfrage laeuft
+        queried.await(10, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        release.countDown();
+        UserPrincipal first = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<UserPrincipal> result : results) {
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertEquals(7, first.getId());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    public void testUnknownUserIsNotCached() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty()).thenReturn(Optional.of(user(9)));
+
+        assertThrows(UsernameNotFoundException.class, () -> userService.loadPrincipal(EMAIL));
+        assertEquals(9, userService.loadPrincipal(EMAIL).getId());
+    }
+
+    private static User user(int id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(EMAIL);
+        return user;
+    }
+}
@@ -0,0 +1,349 @@
+package org.bootstmytool.backend.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer den {@link S3BlobStore} gegen einen minimalen S3-kompatiblen Server (wie MinIO im Pfad-Stil).
+ */
+public class S3BlobStoreTest {
+
+    private static final String BUCKET = "images";
+
+    @TempDir
+    Path tempDir;
+
+    private StubS3Server server;
+    private S3BlobStore blobStore;
+    private byte[] content;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new StubS3Server();
+        blobStore = new S3BlobStore(server.endpoint(), "eu-central-1", BUCKET, "test-key", "test-secret", true);
+        content = new byte[300_000];
+        new Random(42).nextBytes(content);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        blobStore.close();
+        server.stop();
+    }
+
+    @Test
+    public void testPutStreamsContentAndSignsRequests() throws IOException {
+        blobStore.put("ab/cd/bild.png", new ByteArrayInputStream(content), content.length, "image/png");
+
+        assertArrayEquals(content, server.objects.get("ab/cd/bild.png"));
+        assertEquals("image/png", server.contentTypes.get("ab/cd/bild.png"));
+        assertTrue(server.lastAuthorization.startsWith("AWS4-HMAC-SHA256 Credential=test-key/"));
+    }
+
+    @Test
+    public void testPutFileAndGetReturnSameBytes() throws IOException {
+        Path file = tempDir.resolve("upload.tmp");
+        Files.write(file, content);
+
+        blobStore.putFile("ab/cd/bild.jpg", file, "image/jpeg");
+
+        try (InputStream in = blobStore.get("ab/cd/bild.jpg")) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testPutFileAfterMissingStatIsRetriedWithFullContent() throws IOException {
+        Path file = tempDir.resolve("upload.tmp");
+        Files.write(file, content);
+
+        // Wie beim Speichern eines neuen Bildes: erst pruefen, dann hochladen
+        assertNull(blobStore.stat("ab/cd/neu.png"));
+        blobStore.putFile("ab/cd/neu.png", file, "image/png");
+
+        assertArrayEquals(content, server.objects.get("ab/cd/neu.png"));
+    }
+
+    @Test
+    public void testStatReturnsSizeAndContentTypeOrNullIfMissing() throws IOException {
+        blobStore.put("bild.png", new ByteArrayInputStream(content), content.length, "image/png");
+
+        BlobInfo info = blobStore.stat("bild.png");
+
+        assertNotNull(info);
+        assertEquals(content.length, info.getSize());
+        assertEquals("image/png", info.getContentType());
+        assertNotNull(info.getEtag());
+        assertNull(blobStore.stat("fehlt.png"));
+    }
+
+    @Test
+    public void testRangeReadReturnsOnlyRequestedBytes() throws IOException {
+        blobStore.put("bild.png", new ByteArrayInputStream(content), content.length, "image/png");
+
+        byte[] range;
+        try (InputStream in = blobStore.get("bild.png", 1000, 500)) {
+            range = in.readAllBytes();
+        }
+
+        assertEquals("bytes=1000-1499", server.lastRange);
+        byte[] expected = new byte[500];
+        System.arraycopy(content, 1000, expected, 0, 500);
+        assertArrayEquals(expected, range);
+    }
+
+    @Test
+    public void testGetMissingKeyThrowsNoSuchFile() {
+        assertThrows(NoSuchFileException.class, () -> blobStore.get("fehlt.png").close());
+    }
+
+    @Test
+    public void testListAndDelete() throws IOException {
+        byte[] small = {1, 2, 3};
+        blobStore.put("ab/cd/abcd.png", new ByteArrayInputStream(small), small.length, "image/png");
+        blobStore.put("ab/cd/abcd_w160.jpg", new ByteArrayInputStream(small), small.length, "image/jpeg");
+        blobStore.put("ab/ce/abce.png", new ByteArrayInputStream(small), small.length, "image/png");
+
+        assertEquals(List.of("ab/cd/abcd.png", "ab/cd/abcd_w160.jpg"), blobStore.list("ab/cd/abcd"));
+
+        blobStore.delete("ab/cd/abcd.png");
+        blobStore.delete("ab/cd/gibt-es-nicht.png"); // kein Fehler
+
+        assertEquals(List.of("ab/cd/abcd_w160.jpg"), blobStore.list("ab/cd/"));
+    }
+
+    @Test
+    public void testDirectUrlIsPresignedAndServesContent() throws Exception {
+        blobStore.put("bild.png", new ByteArrayInputStream(content), content.length, "image/png");
+
+        URI url = blobStore.directUrl("bild.png", Duration.ofMinutes(5)).orElseThrow();
+
+        assertTrue(url.getQuery().contains("X-Amz-Signature="));
+        assertTrue(url.getQuery().contains("X-Amz-Expires=300"));
+        HttpResponse<byte[]> response = HttpClient.newHttpClient()
+                .send(HttpRequest.newBuilder(url).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(content, response.body());
+    }
+
+    /**
+     * Speichert Objekte im Speicher und beantwortet die S3-Aufrufe, die der {@link S3BlobStore} verwendet.
+     * Signaturen werden nicht geprueft, nur mitgeschrieben.
+     */
+    private static class StubS3Server {
+
+        final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+        final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+        volatile String lastAuthorization;
+        volatile String lastRange;
+        private final HttpServer httpServer;
+
+        StubS3Server() throws IOException {
+            httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            httpServer.createContext("/", exchange -> {
+                try {
+                    handle(exchange);
+                } finally {
+                    exchange.close();
+                }
+            });
+            httpServer.start();
+        }
+
+        URI endpoint() {
+            return URI.create("http://127.0.0.1:" + httpServer.getAddress().getPort());
+        }
+
+        void stop() {
+            httpServer.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization != null) {
+                lastAuthorization = authorization;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (!path.startsWith("/" + BUCKET)) {
+                error(exchange, 404, "NoSuchBucket");
+                return;
+            }
+            String key = path.length() > BUCKET.length() + 2 ? path.substring(BUCKET.length() + 2) : "";
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    byte[] body = exchange.getRequestBody().readAllBytes();
+                    String payload = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+                    if (payload != null && payload.startsWith("STREAMING-")) {
+                        body = decodeChunked(body);
+                    }
+                    objects.put(key, body);
+                    contentTypes.put(key, exchange.getRequestHeaders().getFirst("Content-Type"));
+                    exchange.getResponseHeaders().set("ETag", etag(body));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "HEAD" -> {
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    headers(exchange, key, object);
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET" -> {
+                    if (key.isEmpty() && "2".equals(query.get("list-type"))) {
+                        list(exchange, query.getOrDefault("prefix", ""));
+                        return;
+                    }
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        error(exchange, 404, "NoSuchKey");
+                        return;
+                    }
+                    headers(exchange, key, object);
+                    String range = exchange.getRequestHeaders().getFirst("Range");
+                    lastRange = range;
+                    int start = 0;
+                    int end = object.length - 1;
+                    int status = 200;
+                    if (range != null) {
+                        String[] bounds = range.substring("bytes=".length()).split("-");
+                        start = Integer.parseInt(bounds[0]);
+                        end = Math.min(end, Integer.parseInt(bounds[1]));
+                        status = 206;
+                        exchange.getResponseHeaders().set("Content-Range",
+                                "bytes " + start + "-" + end + "/" + object.length);
+                    }
+                    exchange.sendResponseHeaders(status, end - start + 1);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(object, start, end - start + 1);
+                    }
+                }
+                case "DELETE" -> {
+                    objects.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> error(exchange, 405, "MethodNotAllowed");
+            }
+        }
+
+        private void headers(HttpExchange exchange, String key, byte[] object) {
+            exchange.getResponseHeaders().set("ETag", etag(object));
+            exchange.getResponseHeaders().set("Last-Modified", "Thu, 27 Mar 2025 10:00:00 GMT");
+            exchange.getResponseHeaders().set("Content-Type", contentTypes.get(key));
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        }
+
+        private void list(HttpExchange exchange, String prefix) throws IOException {
+            List<String> keys = objects.keySet().stream().filter(k -> k.startsWith(prefix)).toList();
+            String contents = keys.stream()
+                    .map(k -> "<Contents><Key>" + k + "</Key><Size>" + objects.get(k).length + "</Size></Contents>")
+                    .collect(Collectors.joining());
+            String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                    + "<Name>" + BUCKET + "</Name><Prefix>" + prefix + "</Prefix><KeyCount>" + keys.size()
+                    + "</KeyCount><MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>" + contents
+                    + "</ListBucketResult>";
+            send(exchange, 200, xml);
+        }
+
+        private void error(HttpExchange exchange, int status, String code) throws IOException {
+            send(exchange, status, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code
+                    + "</Code><Message>" + code + "</Message></Error>");
+        }
+
+        private static void send(HttpExchange exchange, int status, String xml) throws IOException {
+            byte[] body = xml.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+        private static String etag(byte[] object) {
+            return "\"" + Integer.toHexString(java.util.Arrays.hashCode(object)) + "\"";
+        }
+
+        private static Map<String, String> query(String rawQuery) {
+            Map<String, String> query = new HashMap<>();
+            if (rawQuery == null) {
+                return query;
+            }
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+                String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+                query.put(name, value);
+            }
+            return query;
+        }
+
+        /**
+         * Entfernt die Rahmen von {@code aws-chunked}: {@code <hex-laenge>;chunk-signature=...\r\n<daten>\r\n}.
+         */
+        private static byte[] decodeChunked(byte[] body) {
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            int position = 0;
+            while (position < body.length) {
+                int lineEnd = indexOfCrLf(body, position);
+                String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+                int semicolon = header.indexOf(';');
+                int size = Integer.parseInt(semicolon < 0 ? header.trim() : header.substring(0, semicolon), 16);
+                if (size == 0) {
+                    break;
+                }
+                decoded.write(body, lineEnd + 2, size);
+                position = lineEnd + 2 + size + 2;
+            }
+            return decoded.toByteArray();
+        }
+
+        private static int indexOfCrLf(byte[] body, int from) {
+            for (int i = from; i < body.length - 1; i++) {
+                if (body[i] == '\r' && body[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.bootstmytool.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer das Kodieren und Dekodieren des {@link NoteCursor}.
+ */
+public class NoteCursorTest {
+
+    @Test
+    public void testRoundTrip() {
+        NoteCursor cursor = new NoteCursor(new Date(1_700_000_123_456L), 42);
+
+        String encoded = cursor.encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded); // URL-sicher, ohne Auffuellung
+        NoteCursor decoded = NoteCursor.decode(encoded);
+        assertEquals(cursor.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(42, decoded.getId());
+    }
+
+    @Test
+    public void testMalformedCursorsAreRejected() {
+        String[] malformed = {
+                "",
+                "kein cursor!",
+                encode("1700000000000"),
+                encode("abc:42"),
+                encode("1700000000000:"),
+                encode("1700000000000:9999999999"),
+        };
+        for (String cursor : malformed) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> NoteCursor.decode(cursor),
+                    cursor);
+            assertEquals("Ungueltiger Cursor", e.getMessage());
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package org.bootstmytool.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests fuer die Dreiwege-Zusammenfuehrung von Titel, Inhalt und Tags.
+ */
+public class ThreeWayMergeTest {
+
+    private static final String BASE = "Einkauf\nMilch\nBrot\nKaese\nObst\n";
+
+    @Test
+    public void testNonOverlappingLinesAreMerged() {
+        String current = "Einkauf\nHafermilch\nBrot\nKaese\nObst\n";
+        String client = "Einkauf\nMilch\nBrot\nKaese\nAepfel\nBirnen\n";
+
+        ThreeWayMerge.Result<String> merged = ThreeWayMerge.mergeText(BASE, current, client);
+
+        assertEquals("Einkauf\nHafermilch\nBrot\nKaese\nAepfel\nBirnen\n", merged.getValue());
+    }
+
+    @Test
+    public void testInsertionsAndDeletionsOnBothSides() {
+        String current = "Wochenende\nEinkauf\nMilch\nBrot\nKaese\nObst\n";
+        String client = "Einkauf\nMilch\nKaese\nObst\nBlumen\n";
+
+        ThreeWayMerge.Result<String> merged = ThreeWayMerge.mergeText(BASE, current, client);
+
+        assertEquals("Wochenende\nEinkauf\nMilch\nKaese\nObst\nBlumen\n", merged.getValue());
+    }
+
+    @Test
+    public void testSameLineChangedDifferentlyConflicts() {
+        String current = "Einkauf\nHafermilch\nBrot\nKaese\nObst\n";
+        String client = "Einkauf\nSojamilch\nBrot\nKaese\nObst\n";
+
+        assertTrue(ThreeWayMerge.mergeText(BASE, current, client).isConflict());
+        // Dieselbe Aenderung auf beiden Seiten ist kein Konflikt
+        assertEquals(current, ThreeWayMerge.mergeText(BASE, current, current).getValue());
+    }
+
+    @Test
+    public void testValuesAndTags() {
+        assertEquals("Neu", ThreeWayMerge.mergeValue("Alt", "Alt", "Neu").getValue());
+        assertEquals("Neu", ThreeWayMerge.mergeValue("Alt", "Neu", "Alt").getValue());
+        assertTrue(ThreeWayMerge.mergeValue("Alt", "Neu", "Anders").isConflict());
+
+        List<String> merged = ThreeWayMerge.mergeTags(List.of("a", "b", "c"), List.of("a", "c", "d"),
+                List.of("b", "c", "e"));
+        assertEquals(List.of("c", "d", "e"), merged);
+    }
+}